@@ -0,0 +1,279 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class computes shortest path statistics for many actors at
+ * once. Rather than running one breadth first search per actor, it
+ * runs up to 64 searches together, giving each source actor one bit
+ * of a long. Every actor and film keeps a long saying which of the
+ * searches have reached it, so a single sweep over the graph advances
+ * all 64 searches by one step. Batches of 64 sources are spread over
+ * all the available cores.
+ */
+public class AllPathsCalculator
+{
+	// USED FOR ACTORS THAT CANNOT REACH KEVIN BACON
+	public static final int UNREACHABLE = -1;
+
+	// NUMBER OF SEARCHES WE CAN PACK INTO A long
+	public static final int SOURCES_PER_PASS = 64;
+
+	// THE GRAPH, NUMBERED AND FLATTENED SO THAT ACTOR a IS IN FILMS
+	// actorFilms[actorFilmOffsets[a]] UP TO actorFilms[actorFilmOffsets[a+1]]
+	// AND FILM f HAS ACTORS filmActors[filmActorOffsets[f]] UP TO
+	// filmActors[filmActorOffsets[f+1]]
+	public Actor[] actors;
+	public int[] actorFilmOffsets;
+	public int[] actorFilms;
+	public int[] filmActorOffsets;
+	public int[] filmActors;
+	public int kevinBaconIndex;
+
+	// RESULTS, BY SOURCE POSITION
+	public int[] baconNumbers;
+	public int[] eccentricities;
+
+	// NUMBER OF (SOURCE, ACTOR) PAIRS AT EACH DISTANCE
+	public long[] distanceCounts;
+
+	/*
+	 * Constructor - This numbers all the actors and films in the
+	 * graph and builds the flat edge arrays we search with.
+	 */
+	public AllPathsCalculator(KevinBaconGameGraphManager graph)
+	{
+		// NUMBER THE ACTORS AND FILMS
+		actors = graph.actors.values().toArray(new Actor[0]);
+		HashMap<String, Integer> actorIndices = new HashMap<String, Integer>();
+		for (int i = 0; i < actors.length; i++)
+			actorIndices.put(actors[i].id, i);
+		Film[] films = graph.films.values().toArray(new Film[0]);
+		HashMap<String, Integer> filmIndices = new HashMap<String, Integer>();
+		for (int i = 0; i < films.length; i++)
+			filmIndices.put(films[i].id, i);
+		Integer baconIndex = actorIndices.get("nm0000102");
+		kevinBaconIndex = (baconIndex == null) ? -1 : baconIndex;
+
+		// ACTOR TO FILM EDGES
+		actorFilmOffsets = new int[actors.length + 1];
+		for (int i = 0; i < actors.length; i++)
+			actorFilmOffsets[i + 1] = actorFilmOffsets[i] + actors[i].filmIDs.size();
+		actorFilms = new int[actorFilmOffsets[actors.length]];
+		int edge = 0;
+		for (int i = 0; i < actors.length; i++)
+		{
+			actorFilmOffsets[i] = edge;
+			for (String filmID : actors[i].filmIDs)
+			{
+				Integer filmIndex = filmIndices.get(filmID);
+				if (filmIndex != null)
+					actorFilms[edge++] = filmIndex;
+			}
+		}
+		actorFilmOffsets[actors.length] = edge;
+
+		// FILM TO ACTOR EDGES
+		filmActorOffsets = new int[films.length + 1];
+		for (int i = 0; i < films.length; i++)
+			filmActorOffsets[i + 1] = filmActorOffsets[i] + films[i].actorIDs.size();
+		filmActors = new int[filmActorOffsets[films.length]];
+		edge = 0;
+		for (int i = 0; i < films.length; i++)
+		{
+			filmActorOffsets[i] = edge;
+			for (String actorID : films[i].actorIDs)
+			{
+				Integer actorIndex = actorIndices.get(actorID);
+				if (actorIndex != null)
+					filmActors[edge++] = actorIndex;
+			}
+		}
+		filmActorOffsets[films.length] = edge;
+	}
+
+	/*
+	 * computeAllPaths - This method runs a breadth first search
+	 * from every one of the sources, 64 at a time and in parallel,
+	 * recording each source's Bacon number and eccentricity as well
+	 * as how many actors are at each distance from the sources.
+	 */
+	public void computeAllPaths(Vector<Actor> sources) throws InterruptedException, ExecutionException
+	{
+		// FIRST NUMBER THE SOURCES
+		final int[] sourceIndices = new int[sources.size()];
+		HashMap<String, Integer> actorIndices = new HashMap<String, Integer>();
+		for (int i = 0; i < actors.length; i++)
+			actorIndices.put(actors[i].id, i);
+		for (int i = 0; i < sourceIndices.length; i++)
+			sourceIndices[i] = actorIndices.get(sources.get(i).id);
+		baconNumbers = new int[sourceIndices.length];
+		eccentricities = new int[sourceIndices.length];
+		Arrays.fill(baconNumbers, UNREACHABLE);
+
+		// NOW HAND OUT THE BATCHES TO ALL THE CORES
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		ArrayList<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		try
+		{
+			for (int i = 0; i < sourceIndices.length; i += SOURCES_PER_PASS)
+			{
+				final int batchStart = i;
+				final int batchEnd = Math.min(i + SOURCES_PER_PASS, sourceIndices.length);
+				results.add(executor.submit(new Callable<long[]>()
+				{
+					public long[] call()
+					{
+						return searchBatch(sourceIndices, batchStart, batchEnd);
+					}
+				}));
+			}
+
+			// AND ADD UP WHAT EACH BATCH FOUND, THE NUMBER
+			// OF DISTANCES IS HOWEVER FAR THE GRAPH GOES
+			distanceCounts = new long[1];
+			for (Future<long[]> result : results)
+			{
+				long[] batchCounts = result.get();
+				if (batchCounts.length > distanceCounts.length)
+					distanceCounts = Arrays.copyOf(distanceCounts, batchCounts.length);
+				for (int d = 0; d < batchCounts.length; d++)
+					distanceCounts[d] += batchCounts[d];
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/*
+	 * getBaconHistogram - This method returns how many sources
+	 * have each Bacon number, with the array being exactly as
+	 * long as it needs to be for the largest one.
+	 */
+	public int[] getBaconHistogram()
+	{
+		int maxDegrees = 0;
+		for (int baconNumber : baconNumbers)
+			maxDegrees = Math.max(maxDegrees, baconNumber);
+		int[] histogram = new int[maxDegrees + 1];
+		for (int baconNumber : baconNumbers)
+			if (baconNumber != UNREACHABLE)
+				histogram[baconNumber]++;
+		return histogram;
+	}
+
+	/*
+	 * getDiameter - This method returns the largest eccentricity
+	 * of all the sources, meaning the longest shortest path.
+	 */
+	public int getDiameter()
+	{
+		int diameter = 0;
+		for (int eccentricity : eccentricities)
+			diameter = Math.max(diameter, eccentricity);
+		return diameter;
+	}
+
+	/*
+	 * searchBatch - This method runs the searches for up to 64
+	 * sources at once. Each step first works out which searches
+	 * have reached each film, then which new actors those films
+	 * lead to. It returns the number of (source, actor) pairs
+	 * found at each distance.
+	 */
+	private long[] searchBatch(int[] sourceIndices, int batchStart, int batchEnd)
+	{
+		long[] seen = new long[actors.length];
+		long[] frontier = new long[actors.length];
+		long[] next = new long[actors.length];
+		long[] filmMasks = new long[filmActorOffsets.length - 1];
+		long[] counts = new long[8];
+
+		// EACH SOURCE STARTS AT DISTANCE 0 FROM ITSELF
+		for (int i = batchStart; i < batchEnd; i++)
+		{
+			long bit = 1L << (i - batchStart);
+			seen[sourceIndices[i]] |= bit;
+			frontier[sourceIndices[i]] |= bit;
+			if (sourceIndices[i] == kevinBaconIndex)
+				baconNumbers[i] = 0;
+		}
+		counts[0] = batchEnd - batchStart;
+
+		int distance = 0;
+		boolean frontierEmpty = false;
+		while (!frontierEmpty)
+		{
+			distance++;
+
+			// WHICH SEARCHES HAVE REACHED EACH FILM
+			Arrays.fill(filmMasks, 0L);
+			for (int a = 0; a < actors.length; a++)
+			{
+				long bits = frontier[a];
+				if (bits == 0)
+					continue;
+				for (int e = actorFilmOffsets[a]; e < actorFilmOffsets[a + 1]; e++)
+					filmMasks[actorFilms[e]] |= bits;
+			}
+
+			// AND WHICH ACTORS THOSE FILMS REACH FOR THE FIRST TIME
+			Arrays.fill(next, 0L);
+			for (int f = 0; f < filmMasks.length; f++)
+			{
+				long bits = filmMasks[f];
+				if (bits == 0)
+					continue;
+				for (int e = filmActorOffsets[f]; e < filmActorOffsets[f + 1]; e++)
+					next[filmActors[e]] |= bits;
+			}
+
+			// RECORD WHAT'S NEW
+			long reached = 0;
+			long pairs = 0;
+			for (int a = 0; a < actors.length; a++)
+			{
+				long newBits = next[a] & ~seen[a];
+				next[a] = newBits;
+				if (newBits == 0)
+					continue;
+				seen[a] |= newBits;
+				reached |= newBits;
+				pairs += Long.bitCount(newBits);
+				if (a == kevinBaconIndex)
+					recordDistances(baconNumbers, newBits, batchStart, distance);
+			}
+			if (reached == 0)
+			{
+				frontierEmpty = true;
+			}
+			else
+			{
+				recordDistances(eccentricities, reached, batchStart, distance);
+				if (distance >= counts.length)
+					counts = Arrays.copyOf(counts, counts.length * 2);
+				counts[distance] = pairs;
+				long[] temp = frontier;
+				frontier = next;
+				next = temp;
+			}
+		}
+		return Arrays.copyOf(counts, distance);
+	}
+
+	/*
+	 * recordDistances - This method sets the distance for every
+	 * source whose bit is set.
+	 */
+	private void recordDistances(int[] distances, long bits, int batchStart, int distance)
+	{
+		while (bits != 0)
+		{
+			int bit = Long.numberOfTrailingZeros(bits);
+			distances[batchStart + bit] = distance;
+			bits &= bits - 1;
+		}
+	}
+}
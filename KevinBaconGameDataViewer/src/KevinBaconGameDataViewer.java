@@ -86,26 +86,36 @@ public class KevinBaconGameDataViewer extends JFrame implements ItemListener
 	/*
 	 * computeAllPaths - This method tests
 	 * all paths to see how long they are, to
-	 * make sure none exceed 6 degrees.
+	 * make sure none exceed 6 degrees. All the
+	 * actors are searched together, 64 at a time,
+	 * see AllPathsCalculator.
 	 */
-	public void computeAllPaths()
+	public void computeAllPaths() throws Exception
 	{
-		int[] histogram = new int[7];
-		for (int i = 0; i < histogram.length; i++)
-			histogram[i] = 0;
-
+		Vector<Actor> sources = new Vector<Actor>();
 		for (int j = 0; j < gameComboBox.getItemCount(); j++)
+			sources.add((Actor)gameComboBox.getItemAt(j));
+		AllPathsCalculator calculator = new AllPathsCalculator(graph);
+		calculator.computeAllPaths(sources);
+
+		for (int j = 0; j < sources.size(); j++)
 		{
-			Actor actor = (Actor)gameComboBox.getItemAt(j);
-			System.out.print("Pathing for " + actor);
-			Vector<Connection> path = graph.findShortestPathToKevinBacon(actor);
-			int size = path.size();
-			System.out.println(" - " + size + " degrees");
-			histogram[size]++;
+			int size = calculator.baconNumbers[j];
+			if (size == AllPathsCalculator.UNREACHABLE)
+				System.out.println("Pathing for " + sources.get(j) + " - unreachable");
+			else
+				System.out.println("Pathing for " + sources.get(j) + " - " + size + " degrees");
 		}
+		int[] histogram = calculator.getBaconHistogram();
 		System.out.println("Shortest Path Histogram:");
 		for (int i = 0; i < histogram.length; i++)
 			System.out.println(i + " Degrees: " + histogram[i]);
+
+		// AND THE DISTANCES BETWEEN ALL THE ACTORS, NOT JUST TO KEVIN BACON
+		System.out.println("All Actors Distance Distribution:");
+		for (int i = 0; i < calculator.distanceCounts.length; i++)
+			System.out.println(i + " Degrees: " + calculator.distanceCounts[i]);
+		System.out.println("Diameter: " + calculator.getDiameter());
 	}
 	
 	/*
@@ -107,6 +107,8 @@ public class SixDegreesOfKevinBacon
         WIN_DISPLAY_TEXT,
         LOSS_DISPLAY_TEXT,
         GAME_RESULTS_TEXT,
+        OLDER_RESULTS_TEXT,
+        NEWER_RESULTS_TEXT,
         ACTOR_LABEL,
         FILM_LABEL,
         SELECT_LABEL,
@@ -133,6 +135,11 @@ public class SixDegreesOfKevinBacon
         HELP_FILE_NAME,
         ACTORS_FILE_NAME,
         FILMS_FILE_NAME,
+        SNAPSHOT_FILE_NAME,
+
+        /* HOW THE LANDMARKS FOR DISTANCE ESTIMATES ARE PICKED */
+        NUM_LANDMARKS,
+        LANDMARK_ACTOR_IDS,
         
         /* TOOLTIPS */
         GAME_TOOLTIP,
@@ -0,0 +1,48 @@
+package sdokb.bench;
+
+/**
+ * KevinBaconBenchmark is one operation to be timed by the benchmark runner.
+ * The runner calls runOperation over and over, passing in how many times it
+ * has been called so far, which the benchmark typically uses to cycle
+ * through a set of inputs it picked during setup.
+ *
+ * Note that runOperation returns an int, which the runner adds up and prints
+ * so that the JIT can't decide the operation's work is unused and skip it.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public abstract class KevinBaconBenchmark
+{
+    // SHOWN IN THE RESULTS AND USED TO PICK WHICH BENCHMARKS TO RUN
+    private String name;
+
+    /**
+     * This constructor just keeps the name.
+     *
+     * @param initName The name of this benchmark.
+     */
+    public KevinBaconBenchmark(String initName)
+    {
+        name = initName;
+    }
+
+    public String getName()     {   return name;    }
+
+    /**
+     * Called once before any timing starts, for picking inputs and such.
+     *
+     * @throws Exception Anything that goes wrong stops this benchmark.
+     */
+    public void setup() throws Exception
+    {
+    }
+
+    /**
+     * Does the operation being timed once.
+     *
+     * @param operationNumber How many times this has already been called.
+     * @return Anything that depends on the work done.
+     * @throws Exception Anything that goes wrong stops this benchmark.
+     */
+    public abstract int runOperation(int operationNumber) throws Exception;
+}
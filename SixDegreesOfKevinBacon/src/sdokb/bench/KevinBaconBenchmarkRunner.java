@@ -0,0 +1,248 @@
+package sdokb.bench;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import sdokb.file.KevinBaconFileUtilities;
+import sdokb.game.KevinBaconGameGraphManager;
+import sdokb.game.KevinBaconGraphIndex;
+
+/**
+ * KevinBaconBenchmarkRunner times the operations the game depends on, meaning
+ * loading the data, getting an actor's neighbors, finding paths, and getting
+ * the ids a player may pick next. Each benchmark is warmed up first so the
+ * JIT has done its work, and then measured over several timed iterations.
+ * For each one we report throughput, average time per operation, bytes
+ * allocated per operation, and how much garbage collection happened. Note
+ * that only the bytes allocated by the thread running the benchmark are
+ * counted, so work handed off to other threads, like the parallel parsing
+ * when loading text, doesn't show up in bytes per operation.
+ *
+ * Usage: KevinBaconBenchmarkRunner [options] [dataPath] [nameFilter]
+ *
+ *   dataPath       directory with AllActorsData.txt and AllFilmsData.txt,
+ *                  ./data/ by default, point it at generated data to
+ *                  benchmark bigger graphs
+ *   nameFilter     only run benchmarks whose names contain this
+ *   -w N           warmup iterations, default 5
+ *   -i N           measurement iterations, default 5
+ *   -t MS          milliseconds per iteration, default 1000
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconBenchmarkRunner
+{
+    // DEFAULT SETTINGS
+    public static final String DEFAULT_DATA_PATH = "./data/";
+    public static final String ACTORS_FILE_NAME = "AllActorsData.txt";
+    public static final String FILMS_FILE_NAME = "AllFilmsData.txt";
+    public static final int DEFAULT_WARMUP_ITERATIONS = 5;
+    public static final int DEFAULT_MEASUREMENT_ITERATIONS = 5;
+    public static final int DEFAULT_ITERATION_MILLIS = 1000;
+
+    // HOW MANY DIFFERENT INPUTS EACH BENCHMARK CYCLES THROUGH
+    public static final int NUM_INPUTS = 1024;
+
+    // SO EVERY RUN USES THE SAME INPUTS
+    public static final long RANDOM_SEED = 102;
+
+    private static final String RESULTS_FORMAT = "%-32s %14s %14s %14s %8s %10s%n";
+
+    // THE SETTINGS FOR THIS RUN
+    private int warmupIterations;
+    private int measurementIterations;
+    private long iterationNanos;
+
+    // FOR MEASURING ALLOCATION AND GARBAGE COLLECTION
+    private com.sun.management.ThreadMXBean allocationBean;
+
+    // EVERYTHING THE OPERATIONS RETURN IS ADDED UP HERE
+    private long sink;
+
+    public KevinBaconBenchmarkRunner(int initWarmupIterations,
+            int initMeasurementIterations,
+            int iterationMillis)
+    {
+        warmupIterations = initWarmupIterations;
+        measurementIterations = initMeasurementIterations;
+        iterationNanos = iterationMillis * 1000000L;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if ((threadBean instanceof com.sun.management.ThreadMXBean)
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported())
+        {
+            allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    /**
+     * Runs all the benchmarks that match the filter on the data.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int warmup = DEFAULT_WARMUP_ITERATIONS;
+        int iterations = DEFAULT_MEASUREMENT_ITERATIONS;
+        int millis = DEFAULT_ITERATION_MILLIS;
+        ArrayList<String> positional = new ArrayList();
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-w"))
+            {
+                warmup = Integer.parseInt(args[++i]);
+            }
+            else if (args[i].equals("-i"))
+            {
+                iterations = Integer.parseInt(args[++i]);
+            }
+            else if (args[i].equals("-t"))
+            {
+                millis = Integer.parseInt(args[++i]);
+            }
+            else
+            {
+                positional.add(args[i]);
+            }
+        }
+        String dataPath = (positional.size() > 0) ? positional.get(0) : DEFAULT_DATA_PATH;
+        String filter = (positional.size() > 1) ? positional.get(1) : "";
+        if (!dataPath.endsWith(File.separator) && !dataPath.endsWith("/"))
+        {
+            dataPath += File.separator;
+        }
+
+        // LOAD THE GRAPH ONCE FOR ALL THE BENCHMARKS THAT JUST USE IT
+        String actorsFilePath = dataPath + ACTORS_FILE_NAME;
+        String filmsFilePath = dataPath + FILMS_FILE_NAME;
+        KevinBaconGameGraphManager graph = new KevinBaconGameGraphManager();
+        KevinBaconFileUtilities.loadActorsAndFilms(graph, actorsFilePath, filmsFilePath, false);
+        KevinBaconGraphIndex graphIndex = graph.getGraphIndex();
+        System.out.println(dataPath + ": " + graphIndex.getNumActors() + " actors, "
+                + graphIndex.getNumFilms() + " films, "
+                + graphIndex.getActorsEnd(graphIndex.getNumFilms() - 1) + " edges");
+
+        KevinBaconBenchmarkRunner runner = new KevinBaconBenchmarkRunner(warmup, iterations, millis);
+        ArrayList<KevinBaconBenchmark> benchmarks = KevinBaconGraphBenchmarks.createBenchmarks(
+                graph, actorsFilePath, filmsFilePath);
+        System.out.printf(RESULTS_FORMAT, "benchmark", "ops/s", "+/- ops/s", "ns/op", "B/op", "gc ms");
+        for (KevinBaconBenchmark benchmark : benchmarks)
+        {
+            if (benchmark.getName().contains(filter))
+            {
+                runner.run(benchmark);
+            }
+        }
+        System.out.println("(sink " + runner.sink + ")");
+    }
+
+    /**
+     * Warms up and then measures the benchmark, printing one line of results.
+     */
+    public void run(KevinBaconBenchmark benchmark) throws Exception
+    {
+        benchmark.setup();
+        int operationNumber = 0;
+        for (int i = 0; i < warmupIterations; i++)
+        {
+            operationNumber = runIteration(benchmark, operationNumber, null);
+        }
+
+        // [OPERATIONS, NANOS, BYTES] FOR EACH ITERATION
+        long[][] measurements = new long[measurementIterations][3];
+        long gcCountBefore = getGCCount();
+        long gcMillisBefore = getGCMillis();
+        for (int i = 0; i < measurementIterations; i++)
+        {
+            operationNumber = runIteration(benchmark, operationNumber, measurements[i]);
+        }
+        long gcMillis = getGCMillis() - gcMillisBefore;
+        long gcCount = getGCCount() - gcCountBefore;
+
+        // THROUGHPUT IS AVERAGED OVER ITERATIONS, THE REST OVER ALL OPERATIONS
+        double[] opsPerSecond = new double[measurementIterations];
+        double meanOpsPerSecond = 0;
+        long totalOperations = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < measurementIterations; i++)
+        {
+            opsPerSecond[i] = measurements[i][0] * 1e9 / measurements[i][1];
+            meanOpsPerSecond += opsPerSecond[i] / measurementIterations;
+            totalOperations += measurements[i][0];
+            totalNanos += measurements[i][1];
+            totalBytes += measurements[i][2];
+        }
+        double variance = 0;
+        for (double ops : opsPerSecond)
+        {
+            variance += (ops - meanOpsPerSecond) * (ops - meanOpsPerSecond);
+        }
+        double deviation = Math.sqrt(variance / Math.max(1, measurementIterations - 1));
+        String bytesPerOp = (allocationBean == null) ? "n/a" : String.format("%.0f", (double) totalBytes / totalOperations);
+        System.out.printf(RESULTS_FORMAT,
+                benchmark.getName(),
+                String.format("%.1f", meanOpsPerSecond),
+                String.format("%.1f", deviation),
+                String.format("%.1f", (double) totalNanos / totalOperations),
+                bytesPerOp,
+                gcMillis + " (" + gcCount + ")");
+    }
+
+    /**
+     * Runs the benchmark over and over for one iteration's worth of time,
+     * recording the number of operations, nanoseconds, and bytes allocated
+     * if there is somewhere to put them.
+     */
+    private int runIteration(KevinBaconBenchmark benchmark, int operationNumber, long[] measurement)
+            throws Exception
+    {
+        long bytesBefore = getAllocatedBytes();
+        long startTime = System.nanoTime();
+        long endTime = startTime + iterationNanos;
+        long operations = 0;
+        long now;
+        do
+        {
+            sink += benchmark.runOperation(operationNumber++);
+            operations++;
+            now = System.nanoTime();
+        } while (now < endTime);
+        if (measurement != null)
+        {
+            measurement[0] = operations;
+            measurement[1] = now - startTime;
+            measurement[2] = getAllocatedBytes() - bytesBefore;
+        }
+        return operationNumber;
+    }
+
+    private long getAllocatedBytes()
+    {
+        if (allocationBean == null)
+        {
+            return 0;
+        }
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private long getGCCount()
+    {
+        long count = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            count += Math.max(0, gcBean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private long getGCMillis()
+    {
+        long millis = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            millis += Math.max(0, gcBean.getCollectionTime());
+        }
+        return millis;
+    }
+}
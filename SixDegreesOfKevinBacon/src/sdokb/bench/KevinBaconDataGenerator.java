@@ -0,0 +1,468 @@
+package sdokb.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * KevinBaconDataGenerator writes a made up AllActorsData.txt and
+ * AllFilmsData.txt pair in the same format as the real data files, as big
+ * as we like, so we can see how the game scales. Cast sizes follow a power
+ * law, so most films have small casts and a few have huge ones, and some
+ * actors are far more popular than others, with Kevin Bacon (nm0000102)
+ * always being the most popular of all, so he is the hub of the graph.
+ *
+ * The files are streamed out rather than built in memory. Every film's
+ * cast is generated from its own seed, so the films file is written in
+ * one pass, and the actors file, which needs each actor's films, is
+ * written in as many passes over the regenerated casts as it takes to
+ * keep the films being collected under the memory limit. The same
+ * settings always produce exactly the same files.
+ *
+ * Usage: KevinBaconDataGenerator outputPath numActors numFilms [options]
+ *
+ *   -seed N            random seed, default 102
+ *   -minYear N         earliest film year, default 1900
+ *   -maxYear N         latest film year, default 2014
+ *   -minCast N         smallest cast, default 2
+ *   -maxCast N         largest cast, default 1000
+ *   -castExponent X    power law exponent for cast sizes, default 2.1
+ *   -actorSkew X       0 picks actors evenly, closer to 1 favors the
+ *                      popular ones more, default 0.5
+ *   -memoryMB N        memory for collecting each actor's films, default 256
+ *                      and at most 8192, since a pass's films must fit in
+ *                      one array
+ *
+ * Then run KevinBaconBenchmarkRunner on outputPath to benchmark it.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconDataGenerator
+{
+    // THE FILES WE WRITE
+    public static final String ACTORS_FILE_NAME = KevinBaconBenchmarkRunner.ACTORS_FILE_NAME;
+    public static final String FILMS_FILE_NAME = KevinBaconBenchmarkRunner.FILMS_FILE_NAME;
+
+    // OUR HUB, WHO IS ALWAYS ACTOR NUMBER 0
+    public static final int KEVIN_BACON_NUMBER = 102;
+    public static final String KEVIN_BACON_LAST_NAME = "Bacon";
+    public static final String KEVIN_BACON_FIRST_NAME = "Kevin";
+
+    // DEFAULT SETTINGS
+    public static final long DEFAULT_SEED = 102;
+    public static final int DEFAULT_MIN_YEAR = 1900;
+    public static final int DEFAULT_MAX_YEAR = 2014;
+    public static final int DEFAULT_MIN_CAST = 2;
+    public static final int DEFAULT_MAX_CAST = 1000;
+    public static final double DEFAULT_CAST_EXPONENT = 2.1;
+    public static final double DEFAULT_ACTOR_SKEW = 0.5;
+    public static final int DEFAULT_MEMORY_MB = 256;
+
+    // THE LONGEST ARRAY THE VM WILL RELIABLY MAKE, WHICH LIMITS A PASS
+    // HOWEVER MUCH MEMORY WE'RE GIVEN
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    // FOR WRITING THE FILES
+    public static final String ACTOR_PREFIX = "nm";
+    public static final String FILM_PREFIX = "tt";
+    public static final String DELIMITER = "|";
+    public static final String NEW_LINE = "\r\n";
+    public static final String CHARSET = "UTF-8";
+    public static final int WRITE_BUFFER_SIZE = 1 << 16;
+    public static final int MIN_ID_DIGITS = 7;
+
+    // WHAT WE MAKE NAMES AND TITLES FROM
+    private static final String[] NAME_SYLLABLES = {
+        "al", "an", "ar", "bel", "ca", "dor", "el", "fen", "gar", "hol",
+        "in", "jo", "kel", "la", "mar", "nor", "os", "pe", "ri", "sa",
+        "tor", "ul", "va", "wen", "yo", "zel"};
+    private static final String[] TITLE_WORDS = {
+        "The", "Last", "Night", "Return", "of", "Secret", "City", "Blue",
+        "Road", "Love", "Dark", "House", "River", "Story", "Summer", "War",
+        "King", "Lost", "Girl", "Man", "Edge", "Fire", "Long", "Way", "Home"};
+
+    // REPORTING
+    public static final String GENERATED_TEXT = "Generated ";
+    public static final String ACTORS_TEXT = " actors, ";
+    public static final String FILMS_TEXT = " films, ";
+    public static final String EDGES_TEXT = " edges in ";
+    public static final String PASSES_TEXT = " ms, actors file written in ";
+    public static final String PASSES_END_TEXT = " passes";
+    public static final String USAGE_TEXT =
+            "Usage: KevinBaconDataGenerator outputPath numActors numFilms [-seed N] [-minYear N] [-maxYear N]"
+            + " [-minCast N] [-maxCast N] [-castExponent X] [-actorSkew X] [-memoryMB N]";
+
+    // WHAT TO GENERATE
+    private int numActors;
+    private int numFilms;
+    private long seed;
+    private int minYear;
+    private int maxYear;
+    private int minCast;
+    private int maxCast;
+    private double castExponent;
+    private double actorSkew;
+    private int memoryMB;
+
+    // EVERY ACTOR'S NUMBER OF FILMS, COUNTED WHILE WRITING THE FILMS
+    private int[] actorDegrees;
+    private long numEdges;
+
+    /**
+     * This constructor sets up to generate the given number of actors and
+     * films with all the default settings, which can then be changed with
+     * the mutators before calling generate.
+     *
+     * @param initNumActors How many actors to make, at least 1. Actors who
+     * don't end up in any film aren't written, so there may be fewer.
+     * @param initNumFilms How many films to make, at least 1.
+     */
+    public KevinBaconDataGenerator(int initNumActors, int initNumFilms)
+    {
+        if ((initNumActors < 1) || (initNumFilms < 1))
+        {
+            throw new IllegalArgumentException(USAGE_TEXT);
+        }
+        numActors = initNumActors;
+        numFilms = initNumFilms;
+        seed = DEFAULT_SEED;
+        minYear = DEFAULT_MIN_YEAR;
+        maxYear = DEFAULT_MAX_YEAR;
+        minCast = DEFAULT_MIN_CAST;
+        maxCast = DEFAULT_MAX_CAST;
+        castExponent = DEFAULT_CAST_EXPONENT;
+        actorSkew = DEFAULT_ACTOR_SKEW;
+        memoryMB = DEFAULT_MEMORY_MB;
+    }
+
+    // MUTATOR METHODS
+    public void setSeed(long initSeed)                      {   seed = initSeed;                                        }
+    public void setCastExponent(double initCastExponent)    {   castExponent = Math.max(1.01, initCastExponent);        }
+    public void setActorSkew(double initActorSkew)          {   actorSkew = Math.min(0.99, Math.max(0, initActorSkew)); }
+    public void setMemoryMB(int initMemoryMB)               {   memoryMB = Math.max(1, initMemoryMB);                   }
+
+    public void setYearRange(int initMinYear, int initMaxYear)
+    {
+        minYear = initMinYear;
+        maxYear = Math.max(initMinYear, initMaxYear);
+    }
+
+    public void setCastRange(int initMinCast, int initMaxCast)
+    {
+        minCast = Math.max(1, initMinCast);
+        maxCast = Math.max(minCast, initMaxCast);
+    }
+
+    /**
+     * Generates the data files for the command line settings.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 3)
+        {
+            System.err.println(USAGE_TEXT);
+            System.exit(1);
+        }
+        KevinBaconDataGenerator generator = new KevinBaconDataGenerator(
+                Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        int minYear = DEFAULT_MIN_YEAR;
+        int maxYear = DEFAULT_MAX_YEAR;
+        int minCast = DEFAULT_MIN_CAST;
+        int maxCast = DEFAULT_MAX_CAST;
+        for (int i = 3; i + 1 < args.length; i += 2)
+        {
+            String option = args[i];
+            String value = args[i + 1];
+            if (option.equals("-seed"))                 generator.setSeed(Long.parseLong(value));
+            else if (option.equals("-minYear"))         minYear = Integer.parseInt(value);
+            else if (option.equals("-maxYear"))         maxYear = Integer.parseInt(value);
+            else if (option.equals("-minCast"))         minCast = Integer.parseInt(value);
+            else if (option.equals("-maxCast"))         maxCast = Integer.parseInt(value);
+            else if (option.equals("-castExponent"))    generator.setCastExponent(Double.parseDouble(value));
+            else if (option.equals("-actorSkew"))       generator.setActorSkew(Double.parseDouble(value));
+            else if (option.equals("-memoryMB"))        generator.setMemoryMB(Integer.parseInt(value));
+            else
+            {
+                System.err.println(USAGE_TEXT);
+                System.exit(1);
+            }
+        }
+        generator.setYearRange(minYear, maxYear);
+        generator.setCastRange(minCast, maxCast);
+        generator.generate(args[0]);
+    }
+
+    /**
+     * Writes both data files to the directory, making it if needed.
+     *
+     * @param outputPath The directory to put the files in.
+     * @throws IOException Thrown if there is a problem writing the files.
+     */
+    public void generate(String outputPath) throws IOException
+    {
+        long startTime = System.nanoTime();
+        File outputDir = new File(outputPath);
+        outputDir.mkdirs();
+        writeFilms(new File(outputDir, FILMS_FILE_NAME));
+        int numPasses = writeActors(new File(outputDir, ACTORS_FILE_NAME));
+        int numActorsWritten = 0;
+        for (int degree : actorDegrees)
+        {
+            if (degree > 0)
+            {
+                numActorsWritten++;
+            }
+        }
+        System.out.println(GENERATED_TEXT + numActorsWritten + ACTORS_TEXT
+                + numFilms + FILMS_TEXT + numEdges + EDGES_TEXT
+                + ((System.nanoTime() - startTime) / 1000000) + PASSES_TEXT
+                + numPasses + PASSES_END_TEXT);
+    }
+
+    /**
+     * Writes every film with its cast, counting up each actor's films as
+     * we go.
+     */
+    private void writeFilms(File filmsFile) throws IOException
+    {
+        actorDegrees = new int[numActors];
+        numEdges = 0;
+        int[] cast = new int[maxCast];
+        Random random = new Random();
+        StringBuilder line = new StringBuilder();
+        Writer out = openWriter(filmsFile);
+        try
+        {
+            for (int film = 0; film < numFilms; film++)
+            {
+                int castSize = generateCast(film, random, cast);
+                line.setLength(0);
+                appendId(line, FILM_PREFIX, film + 1);
+                line.append(DELIMITER);
+                appendTitle(line, random);
+                line.append(DELIMITER);
+                line.append(minYear + random.nextInt(maxYear - minYear + 1));
+                for (int i = 0; i < castSize; i++)
+                {
+                    line.append(DELIMITER);
+                    appendId(line, ACTOR_PREFIX, getActorNumber(cast[i]));
+                    actorDegrees[cast[i]]++;
+                }
+                line.append(NEW_LINE);
+                out.append(line);
+                numEdges += castSize;
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes every actor who is in at least one film, with their films.
+     * The actors are done in ranges whose films all fit in memory at once,
+     * regenerating all the casts for each range.
+     *
+     * @return The number of passes it took.
+     */
+    private int writeActors(File actorsFile) throws IOException
+    {
+        long maxEdgesPerPass = Math.max(1, Math.min(MAX_ARRAY_LENGTH, (memoryMB * 1024L * 1024L) / 4));
+        int[] cast = new int[maxCast];
+        Random random = new Random();
+        StringBuilder line = new StringBuilder();
+        int numPasses = 0;
+        Writer out = openWriter(actorsFile);
+        try
+        {
+            int firstActor = 0;
+            while (firstActor < numActors)
+            {
+                // PICK THE ACTORS FOR THIS PASS, ALWAYS AT LEAST ONE
+                int lastActor = firstActor;
+                long passEdges = actorDegrees[lastActor++];
+                while ((lastActor < numActors)
+                        && (passEdges + actorDegrees[lastActor] <= maxEdgesPerPass))
+                {
+                    passEdges += actorDegrees[lastActor++];
+                }
+
+                // WHERE EACH OF THEIR FILMS GO
+                int[] offsets = new int[lastActor - firstActor + 1];
+                for (int actor = firstActor; actor < lastActor; actor++)
+                {
+                    offsets[actor - firstActor + 1] = offsets[actor - firstActor] + actorDegrees[actor];
+                }
+                int[] fills = Arrays.copyOf(offsets, offsets.length - 1);
+                int[] actorFilms = new int[(int) passEdges];
+
+                // GO THROUGH ALL THE CASTS PICKING UP THEIR FILMS, WHICH
+                // LEAVES EACH ACTOR'S FILMS IN ORDER
+                for (int film = 0; film < numFilms; film++)
+                {
+                    int castSize = generateCast(film, random, cast);
+                    for (int i = 0; i < castSize; i++)
+                    {
+                        if ((cast[i] >= firstActor) && (cast[i] < lastActor))
+                        {
+                            actorFilms[fills[cast[i] - firstActor]++] = film;
+                        }
+                    }
+                }
+
+                // AND WRITE THEM OUT
+                for (int actor = firstActor; actor < lastActor; actor++)
+                {
+                    int start = offsets[actor - firstActor];
+                    int end = offsets[actor - firstActor + 1];
+                    if (start == end)
+                    {
+                        continue;
+                    }
+                    line.setLength(0);
+                    appendId(line, ACTOR_PREFIX, getActorNumber(actor));
+                    line.append(DELIMITER);
+                    appendName(line, actor);
+                    for (int i = start; i < end; i++)
+                    {
+                        line.append(DELIMITER);
+                        appendId(line, FILM_PREFIX, actorFilms[i] + 1);
+                    }
+                    line.append(NEW_LINE);
+                    out.append(line);
+                }
+                numPasses++;
+                firstActor = lastActor;
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        return numPasses;
+    }
+
+    /**
+     * Generates the film's cast, always the same for the same film, putting
+     * the actors in the cast array, sorted with no duplicates. Kevin Bacon
+     * is always in the first film, so he can never be left out. Note that
+     * the random number generator is left seeded for the rest of the film.
+     *
+     * @return The size of the cast.
+     */
+    private int generateCast(int film, Random random, int[] cast)
+    {
+        random.setSeed(seed * 0x9E3779B97F4A7C15L + film);
+
+        // POWER LAW CAST SIZE, SAMPLED BY INVERTING ITS DISTRIBUTION
+        int castSize;
+        do
+        {
+            double u = 1.0 - random.nextDouble();
+            castSize = (int) (minCast * Math.pow(u, -1.0 / (castExponent - 1.0)));
+        } while (castSize > maxCast);
+        castSize = Math.min(castSize, numActors);
+
+        // ACTOR a IS PICKED WITH LIKELIHOOD PROPORTIONAL TO (a + 1) ^ -actorSkew,
+        // SO ACTOR 0, KEVIN BACON, IS THE MOST LIKELY
+        double inverseExponent = 1.0 / (1.0 - actorSkew);
+        for (int i = 0; i < castSize; i++)
+        {
+            int actor = (int) (numActors * Math.pow(random.nextDouble(), inverseExponent));
+            cast[i] = Math.min(actor, numActors - 1);
+        }
+        if (film == 0)
+        {
+            cast[0] = 0;
+        }
+
+        // SORT AND DROP ANY ACTOR PICKED TWICE
+        Arrays.sort(cast, 0, castSize);
+        int uniqueSize = 0;
+        for (int i = 0; i < castSize; i++)
+        {
+            if ((uniqueSize == 0) || (cast[uniqueSize - 1] != cast[i]))
+            {
+                cast[uniqueSize++] = cast[i];
+            }
+        }
+        return uniqueSize;
+    }
+
+    /**
+     * Actor 0 is Kevin Bacon, so his number goes to him and everyone else
+     * gets the next number that's free.
+     */
+    private int getActorNumber(int actor)
+    {
+        if (actor == 0)
+        {
+            return KEVIN_BACON_NUMBER;
+        }
+        return (actor <= KEVIN_BACON_NUMBER) ? actor - 1 : actor;
+    }
+
+    private void appendId(StringBuilder line, String prefix, int number)
+    {
+        line.append(prefix);
+        String digits = Integer.toString(number);
+        for (int i = digits.length(); i < MIN_ID_DIGITS; i++)
+        {
+            line.append('0');
+        }
+        line.append(digits);
+    }
+
+    /**
+     * Appends "last|first", which is made up from the actor number so the
+     * same actor always gets the same name.
+     */
+    private void appendName(StringBuilder line, int actor)
+    {
+        if (actor == 0)
+        {
+            line.append(KEVIN_BACON_LAST_NAME).append(DELIMITER).append(KEVIN_BACON_FIRST_NAME);
+            return;
+        }
+        appendWord(line, actor);
+        line.append(DELIMITER);
+        appendWord(line, actor / 7 + 3);
+    }
+
+    private void appendWord(StringBuilder line, int number)
+    {
+        int start = line.length();
+        int n = number;
+        do
+        {
+            line.append(NAME_SYLLABLES[n % NAME_SYLLABLES.length]);
+            n /= NAME_SYLLABLES.length;
+        } while (n > 0);
+        line.setCharAt(start, Character.toUpperCase(line.charAt(start)));
+    }
+
+    private void appendTitle(StringBuilder line, Random random)
+    {
+        int numWords = 1 + random.nextInt(4);
+        for (int i = 0; i < numWords; i++)
+        {
+            if (i > 0)
+            {
+                line.append(' ');
+            }
+            line.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+    }
+
+    private Writer openWriter(File file) throws IOException
+    {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CHARSET),
+                WRITE_BUFFER_SIZE);
+    }
+}
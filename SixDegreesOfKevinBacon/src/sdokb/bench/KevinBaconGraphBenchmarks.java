@@ -0,0 +1,268 @@
+package sdokb.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Random;
+import sdokb.file.KevinBaconFileUtilities;
+import sdokb.file.KevinBaconGraphSnapshot;
+import sdokb.game.Actor;
+import sdokb.game.KevinBaconGameData;
+import sdokb.game.KevinBaconGameGraphManager;
+import sdokb.game.KevinBaconGraphIndex;
+import sdokb.game.KevinBaconPathHeuristic;
+
+/**
+ * KevinBaconGraphBenchmarks builds the list of benchmarks that the
+ * KevinBaconBenchmarkRunner runs. All but the loading benchmarks share one
+ * already loaded graph, and each picks its inputs during setup with the
+ * same random seed so runs can be compared with one another.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconGraphBenchmarks
+{
+    // USED FOR THE TEMPORARY SNAPSHOT FILE
+    public static final String SNAPSHOT_PREFIX = "KevinBaconBenchmark";
+    public static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    // THE SNAPSHOT BENCHMARK DOESN'T CARE WHAT FILES THE GRAPH CAME FROM
+    public static final long SNAPSHOT_CHECKSUM = 0;
+
+    // HOW MANY RESULTS THE SEARCH BENCHMARK ASKS FOR
+    public static final int SEARCH_RESULTS = 10;
+
+    /**
+     * Makes all the benchmarks, in the order they should be run.
+     *
+     * @param graph The loaded graph to run the benchmarks on.
+     * @param actorsFilePath Where the graph's actors came from.
+     * @param filmsFilePath Where the graph's films came from.
+     * @return All the benchmarks.
+     */
+    public static ArrayList<KevinBaconBenchmark> createBenchmarks(
+            final KevinBaconGameGraphManager graph,
+            final String actorsFilePath,
+            final String filmsFilePath)
+    {
+        final KevinBaconGraphIndex graphIndex = graph.getGraphIndex();
+        ArrayList<KevinBaconBenchmark> benchmarks = new ArrayList();
+
+        // PARSING THE TEXT FILES AND BUILDING THE WHOLE GRAPH
+        benchmarks.add(new KevinBaconBenchmark("loadText")
+        {
+            @Override
+            public int runOperation(int operationNumber) throws Exception
+            {
+                KevinBaconGameGraphManager loadedGraph = new KevinBaconGameGraphManager();
+                KevinBaconFileUtilities.loadActorsAndFilms(loadedGraph, actorsFilePath, filmsFilePath, false);
+                return loadedGraph.getGraphIndex().getNumActors();
+            }
+        });
+
+        // READING THE SAME GRAPH BACK FROM A SNAPSHOT
+        benchmarks.add(new KevinBaconBenchmark("loadSnapshot")
+        {
+            private String snapshotFilePath;
+
+            @Override
+            public void setup() throws Exception
+            {
+                File snapshotFile = File.createTempFile(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                snapshotFile.deleteOnExit();
+                snapshotFilePath = snapshotFile.getPath();
+                KevinBaconGraphSnapshot.save(snapshotFilePath, SNAPSHOT_CHECKSUM, graph);
+            }
+
+            @Override
+            public int runOperation(int operationNumber) throws Exception
+            {
+                KevinBaconGameGraphManager loadedGraph = new KevinBaconGameGraphManager();
+                KevinBaconGraphSnapshot.load(snapshotFilePath, SNAPSHOT_CHECKSUM, loadedGraph);
+                return loadedGraph.getGraphIndex().getNumActors();
+            }
+        });
+
+        // EVERY CO-STAR OF A RANDOM ACTOR
+        benchmarks.add(new ActorBenchmark("getAllNeighbors", graphIndex)
+        {
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                return graph.getAllNeighbors(getActor(operationNumber).getId()).size();
+            }
+        });
+
+        // THE DEPTH FIRST PATH THE GAME USED TO SHOW
+        benchmarks.add(new ActorBenchmark("findPathToKevinBacon", graphIndex)
+        {
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                return graph.findPathToKevinBacon(getActor(operationNumber)).size();
+            }
+        });
+
+        // THE SAME SEARCH, BUT TRYING THE BUSIEST CO-STARS FIRST
+        benchmarks.add(new ActorBenchmark("findPathToKevinBaconByDegree", graphIndex)
+        {
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                return graph.findPathToKevinBacon(getActor(operationNumber),
+                        KevinBaconPathHeuristic.DEGREE).size();
+            }
+        });
+
+        // AND TRYING THE CO-STARS CLOSEST TO KEVIN BACON FIRST
+        benchmarks.add(new ActorBenchmark("findPathToKevinBaconByBaconNumber", graphIndex)
+        {
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                return graph.findPathToKevinBacon(getActor(operationNumber),
+                        KevinBaconPathHeuristic.BACON_NUMBER).size();
+            }
+        });
+
+        // FOLLOWING THE PRECOMPUTED BACON NUMBERS
+        benchmarks.add(new ActorBenchmark("findShortestPathToKevinBacon", graphIndex)
+        {
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                return graph.findShortestPathToKevinBacon(getActor(operationNumber)).size();
+            }
+        });
+
+        // SEARCHING BETWEEN TWO RANDOM ACTORS
+        benchmarks.add(new ActorBenchmark("findShortestPath", graphIndex)
+        {
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                Actor from = getActor(operationNumber);
+                Actor to = getActor(operationNumber + 1);
+                return graph.findShortestPath(from, to).size();
+            }
+        });
+
+        // THE SAME, BUT ONLY HOW FAR APART THEY ARE
+        benchmarks.add(new ActorBenchmark("getDistance", graphIndex)
+        {
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                Actor from = getActor(operationNumber);
+                Actor to = getActor(operationNumber + 1);
+                return graph.getDistance(from, to);
+            }
+        });
+
+        // JUST THE LANDMARKS' ESTIMATE, NO SEARCHING
+        benchmarks.add(new ActorBenchmark("getDistanceUpperBound", graphIndex)
+        {
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                Actor from = getActor(operationNumber);
+                Actor to = getActor(operationNumber + 1);
+                return graph.getDistanceUpperBound(from, to);
+            }
+        });
+
+        // SEARCHING EVERY NAME FOR THE START OF A RANDOM ACTOR'S NAME,
+        // WITH THE INDEX BUILT DURING SETUP SO ONLY SEARCHING IS TIMED
+        benchmarks.add(new ActorBenchmark("search", graphIndex)
+        {
+            private String[] queries;
+
+            @Override
+            public void setup()
+            {
+                super.setup();
+                graph.getSearchIndex();
+                queries = new String[actors.length];
+                for (int i = 0; i < actors.length; i++)
+                {
+                    String name = actors[i].toString();
+                    queries[i] = name.substring(0, 1 + random.nextInt(name.length()));
+                }
+            }
+
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                return graph.search(queries[operationNumber % queries.length], SEARCH_RESULTS).size();
+            }
+        });
+
+        // THE CANDIDATES THE PLAYER GETS AFTER PICKING A FILM
+        benchmarks.add(new ActorBenchmark("getNonRepeatingIds", graphIndex)
+        {
+            private KevinBaconGameData[] games;
+            private String[] filmIds;
+
+            @Override
+            public void setup()
+            {
+                super.setup();
+                games = new KevinBaconGameData[actors.length];
+                filmIds = new String[actors.length];
+                for (int i = 0; i < actors.length; i++)
+                {
+                    ArrayList<String> actorFilmIds = actors[i].getFilmIDs();
+                    games[i] = new KevinBaconGameData(actors[i], new ArrayList());
+                    if (!actorFilmIds.isEmpty())
+                    {
+                        filmIds[i] = actorFilmIds.get(random.nextInt(actorFilmIds.size()));
+                    }
+                }
+            }
+
+            @Override
+            public int runOperation(int operationNumber)
+            {
+                int i = operationNumber % games.length;
+                if (filmIds[i] == null)
+                {
+                    return 0;
+                }
+                return games[i].getNonRepeatingIds(filmIds[i], graph).size();
+            }
+        });
+        return benchmarks;
+    }
+
+    /**
+     * ActorBenchmark is for benchmarks that run on randomly picked actors,
+     * picking them during setup so the picking isn't timed.
+     */
+    static abstract class ActorBenchmark extends KevinBaconBenchmark
+    {
+        protected KevinBaconGraphIndex graphIndex;
+        protected Random random;
+        protected Actor[] actors;
+
+        public ActorBenchmark(String initName, KevinBaconGraphIndex initGraphIndex)
+        {
+            super(initName);
+            graphIndex = initGraphIndex;
+        }
+
+        @Override
+        public void setup()
+        {
+            random = new Random(KevinBaconBenchmarkRunner.RANDOM_SEED);
+            actors = new Actor[KevinBaconBenchmarkRunner.NUM_INPUTS];
+            for (int i = 0; i < actors.length; i++)
+            {
+                actors[i] = graphIndex.getActor(random.nextInt(graphIndex.getNumActors()));
+            }
+        }
+
+        public Actor getActor(int operationNumber)
+        {
+            return actors[operationNumber % actors.length];
+        }
+    }
+}
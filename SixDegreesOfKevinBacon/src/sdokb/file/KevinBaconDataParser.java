@@ -0,0 +1,423 @@
+package sdokb.file;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import sdokb.game.Actor;
+import sdokb.game.Film;
+
+/**
+ * KevinBaconDataParser turns the raw bytes of the pipe-delimited actor and
+ * film data files into Actor and Film objects. The bytes are split into
+ * chunks on line boundaries and the chunks are parsed in parallel on a
+ * ForkJoinPool, after which the results are put back together in file
+ * order. Tokenizing is done directly on the bytes, which may well be
+ * mapped straight from the file, so the only Strings we decode are names
+ * and titles. Years are read right out of the bytes and ids are pooled, so
+ * the thousands of lines that mention the same film all share one String.
+ *
+ * Note that a parser's id pool lives as long as the parser, so use the same
+ * parser for both files to share ids between them. Its threads do too, so
+ * call shutdown once everything has been parsed, since loading is the only
+ * time we ever parse and there's no point keeping them around after it.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconDataParser
+{
+    // THESE BYTES DELIMIT FIELDS AND RECORDS
+    public static final byte DELIMITER = '|';
+    public static final byte NEW_LINE = '\n';
+    public static final byte CARRIAGE_RETURN = '\r';
+
+    // NAMES AND TITLES ARE UTF-8
+    public static final Charset TEXT_CHARSET = Charset.forName("UTF-8");
+
+    // CHUNKS SMALLER THAN THIS ARE PARSED RATHER THAN SPLIT FURTHER
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    // IDS LIKE nm0000102 ARE TWO LETTERS AND UP TO THIS MANY DIGITS,
+    // WHICH IS AS MANY AS FIT IN THE LOW BITS OF AN ID KEY
+    private static final int MAX_POOLED_DIGITS = 12;
+
+    // EVERY ID WE'VE SEEN, BY ID KEY
+    private ConcurrentHashMap<Long, String> idPool;
+
+    // DOES ALL THIS PARSER'S PARSING, SIZED TO THE MACHINE
+    private ForkJoinPool parsingPool;
+
+    /**
+     * This constructor makes a parser with an empty id pool.
+     */
+    public KevinBaconDataParser()
+    {
+        idPool = new ConcurrentHashMap();
+        parsingPool = new ForkJoinPool();
+    }
+
+    /**
+     * Stops the parsing threads, after which this parser can't be used.
+     */
+    public void shutdown()
+    {
+        parsingPool.shutdown();
+    }
+
+    /**
+     * Parses all the actors in the data, one actor per line, with each line
+     * of the form id|lastName|firstName|filmID|filmID|...
+     *
+     * @param data The actor file's bytes, from position to limit.
+     * @return All the actors, in file order, each with its films sorted.
+     */
+    public ArrayList<Actor> parseActors(ByteBuffer data)
+    {
+        return parsingPool.invoke(new ActorParseTask(this, data, data.position(), data.limit()));
+    }
+
+    /**
+     * Parses all the films in the data, one film per line, with each line
+     * of the form id|title|year|actorID|actorID|...
+     *
+     * @param data The film file's bytes, from position to limit.
+     * @return All the films, in file order, each with its actors sorted.
+     */
+    public ArrayList<Film> parseFilms(ByteBuffer data)
+    {
+        return parsingPool.invoke(new FilmParseTask(this, data, data.position(), data.limit()));
+    }
+
+    /**
+     * Gets the one String for the id in bytes [start, end) of the data. Ids
+     * of the usual form, two ASCII letters then digits, are looked up by a
+     * key built from the bytes themselves so that only the first sighting
+     * of each id decodes anything. Any other id is simply decoded.
+     */
+    String getPooledId(ByteBuffer data, int start, int end)
+    {
+        int numDigits = end - start - 2;
+        if ((numDigits < 1) || (numDigits > MAX_POOLED_DIGITS))
+        {
+            return decodeId(data, start, end);
+        }
+        byte firstLetter = data.get(start);
+        byte secondLetter = data.get(start + 1);
+        if ((firstLetter < 0) || (secondLetter < 0))
+        {
+            return decodeId(data, start, end);
+        }
+
+        // THE KEY IS THE TWO LETTERS, THE NUMBER OF DIGITS (SO
+        // LEADING ZEROS COUNT), AND THE DIGITS AS A NUMBER
+        long digitsValue = 0;
+        for (int i = start + 2; i < end; i++)
+        {
+            int digit = data.get(i) - '0';
+            if ((digit < 0) || (digit > 9))
+            {
+                return decodeId(data, start, end);
+            }
+            digitsValue = (digitsValue * 10) + digit;
+        }
+        Long key = Long.valueOf(((long) firstLetter << 56)
+                | ((long) secondLetter << 48)
+                | ((long) numDigits << 44)
+                | digitsValue);
+        String id = idPool.get(key);
+        if (id == null)
+        {
+            id = decodeId(data, start, end);
+            String alreadyPooled = idPool.putIfAbsent(key, id);
+            if (alreadyPooled != null)
+            {
+                id = alreadyPooled;
+            }
+        }
+        return id;
+    }
+
+    private static String decodeId(ByteBuffer data, int start, int end)
+    {
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++)
+        {
+            chars[i] = (char) (data.get(start + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * ParseTask parses the lines in one range of the data. Big ranges get
+     * split in two at a line boundary near the middle, and the two halves
+     * are parsed in parallel.
+     */
+    abstract static class ParseTask<T> extends RecursiveTask<ArrayList<T>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        // THE DATA AND THE RANGE OF IT THIS TASK IS RESPONSIBLE FOR
+        protected KevinBaconDataParser parser;
+        protected ByteBuffer data;
+        protected int start;
+        protected int end;
+
+        ParseTask(KevinBaconDataParser initParser, ByteBuffer initData, int initStart, int initEnd)
+        {
+            parser = initParser;
+            data = initData;
+            start = initStart;
+            end = initEnd;
+        }
+
+        // EACH KIND OF TASK KNOWS HOW TO PARSE ONE OF ITS LINES
+        // AND HOW TO MAKE MORE TASKS LIKE ITSELF
+        abstract T parseLine(PipeTokenizer tokenizer);
+        abstract ParseTask<T> newTask(int taskStart, int taskEnd);
+
+        @Override
+        protected ArrayList<T> compute()
+        {
+            // SMALL ENOUGH, JUST PARSE IT
+            if (end - start <= CHUNK_SIZE)
+            {
+                return parseLines();
+            }
+
+            // OTHERWISE SPLIT RIGHT AFTER THE FIRST NEW LINE PAST THE MIDDLE
+            int split = start + ((end - start) / 2);
+            while ((split < end) && (data.get(split - 1) != NEW_LINE))
+            {
+                split++;
+            }
+
+            // IF THE LINE AT THE MIDDLE RUNS TO THE END THERE'S NOWHERE TO
+            // SPLIT, SO SPLITTING WOULD JUST GIVE US THIS SAME TASK AGAIN
+            if (split == end)
+            {
+                return parseLines();
+            }
+            ParseTask<T> firstHalf = newTask(start, split);
+            ParseTask<T> secondHalf = newTask(split, end);
+            secondHalf.fork();
+            ArrayList<T> results = firstHalf.compute();
+            results.addAll(secondHalf.join());
+            return results;
+        }
+
+        private ArrayList<T> parseLines()
+        {
+            ArrayList<T> results = new ArrayList();
+            PipeTokenizer tokenizer = new PipeTokenizer(parser, data);
+            int lineStart = start;
+            while (lineStart < end)
+            {
+                // FIND THE END OF THIS LINE
+                int lineEnd = lineStart;
+                while ((lineEnd < end) && (data.get(lineEnd) != NEW_LINE))
+                {
+                    lineEnd++;
+                }
+
+                // SKIP BLANK LINES, PARSE THE REST
+                tokenizer.setLine(lineStart, lineEnd);
+                if (tokenizer.hasMoreTokens())
+                {
+                    results.add(parseLine(tokenizer));
+                }
+                lineStart = lineEnd + 1;
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Parses lines of the actors file.
+     */
+    static class ActorParseTask extends ParseTask<Actor>
+    {
+        private static final long serialVersionUID = 1L;
+
+        ActorParseTask(KevinBaconDataParser initParser, ByteBuffer initData, int initStart, int initEnd)
+        {
+            super(initParser, initData, initStart, initEnd);
+        }
+
+        @Override
+        ParseTask<Actor> newTask(int taskStart, int taskEnd)
+        {
+            return new ActorParseTask(parser, data, taskStart, taskEnd);
+        }
+
+        @Override
+        Actor parseLine(PipeTokenizer tokenizer)
+        {
+            String actorID = tokenizer.nextId();
+            String lastName = tokenizer.nextText();
+            String firstName = tokenizer.nextText();
+            Actor actor = new Actor(actorID, firstName, lastName);
+
+            // NOW GET ALL THE FILMS THIS ACTOR HAS BEEN IN
+            while (tokenizer.hasMoreTokens())
+            {
+                actor.addFilmID(tokenizer.nextId());
+            }
+            actor.sortFilmIDs();
+            return actor;
+        }
+    }
+
+    /**
+     * Parses lines of the films file.
+     */
+    static class FilmParseTask extends ParseTask<Film>
+    {
+        private static final long serialVersionUID = 1L;
+
+        FilmParseTask(KevinBaconDataParser initParser, ByteBuffer initData, int initStart, int initEnd)
+        {
+            super(initParser, initData, initStart, initEnd);
+        }
+
+        @Override
+        ParseTask<Film> newTask(int taskStart, int taskEnd)
+        {
+            return new FilmParseTask(parser, data, taskStart, taskEnd);
+        }
+
+        @Override
+        Film parseLine(PipeTokenizer tokenizer)
+        {
+            String filmID = tokenizer.nextId();
+            String title = tokenizer.nextText();
+            int year = tokenizer.nextInt();
+            Film film = new Film(filmID, title, year);
+
+            // NOW GET ALL THE ACTORS THAT HAVE BEEN IN THIS FILM
+            while (tokenizer.hasMoreTokens())
+            {
+                film.addActorID(tokenizer.nextId());
+            }
+            film.sortActorIds();
+            return film;
+        }
+    }
+
+    /**
+     * PipeTokenizer works like a StringTokenizer using | as the delimiter,
+     * except that it works on one line of raw bytes. Like StringTokenizer,
+     * it never returns empty tokens.
+     */
+    static class PipeTokenizer
+    {
+        private KevinBaconDataParser parser;
+        private ByteBuffer data;
+        private int position;
+        private int lineEnd;
+
+        // FOR DECODING NAMES AND TITLES INTO Strings
+        private byte[] scratch;
+
+        PipeTokenizer(KevinBaconDataParser initParser, ByteBuffer initData)
+        {
+            parser = initParser;
+            data = initData;
+            scratch = new byte[256];
+        }
+
+        /**
+         * Points this tokenizer at the line [lineStart, lineEnd), not
+         * counting any carriage return at its end.
+         */
+        void setLine(int lineStart, int initLineEnd)
+        {
+            position = lineStart;
+            lineEnd = initLineEnd;
+            if ((lineEnd > position) && (data.get(lineEnd - 1) == CARRIAGE_RETURN))
+            {
+                lineEnd--;
+            }
+        }
+
+        boolean hasMoreTokens()
+        {
+            skipDelimiters();
+            return position < lineEnd;
+        }
+
+        String nextId()
+        {
+            skipDelimiters();
+            int tokenStart = position;
+            skipToken();
+            return parser.getPooledId(data, tokenStart, position);
+        }
+
+        String nextText()
+        {
+            int length = copyNextToken();
+            return new String(scratch, 0, length, TEXT_CHARSET);
+        }
+
+        int nextInt()
+        {
+            skipDelimiters();
+            int value = 0;
+            boolean negative = false;
+            if ((position < lineEnd) && (data.get(position) == '-'))
+            {
+                negative = true;
+                position++;
+            }
+            while ((position < lineEnd) && (data.get(position) != DELIMITER))
+            {
+                int digit = data.get(position) - '0';
+                if ((digit < 0) || (digit > 9))
+                {
+                    throw new NumberFormatException("Bad number in data file at byte " + position);
+                }
+                value = (value * 10) + digit;
+                position++;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Copies the next token into the scratch array, returning its length.
+         */
+        private int copyNextToken()
+        {
+            skipDelimiters();
+            int length = 0;
+            while ((position < lineEnd) && (data.get(position) != DELIMITER))
+            {
+                if (length == scratch.length)
+                {
+                    byte[] biggerScratch = new byte[scratch.length * 2];
+                    System.arraycopy(scratch, 0, biggerScratch, 0, length);
+                    scratch = biggerScratch;
+                }
+                scratch[length++] = data.get(position++);
+            }
+            return length;
+        }
+
+        private void skipToken()
+        {
+            while ((position < lineEnd) && (data.get(position) != DELIMITER))
+            {
+                position++;
+            }
+        }
+
+        private void skipDelimiters()
+        {
+            while ((position < lineEnd) && (data.get(position) == DELIMITER))
+            {
+                position++;
+            }
+        }
+    }
+}
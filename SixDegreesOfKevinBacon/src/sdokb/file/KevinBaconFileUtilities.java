@@ -11,9 +11,11 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.StringTokenizer;
 import javax.swing.JFrame;
 import javax.swing.text.html.HTMLDocument;
 import javax.swing.text.html.HTMLEditorKit;
@@ -23,6 +25,7 @@ import properties_manager.PropertiesManager;
 import sdokb.game.Actor;
 import sdokb.game.Film;
 import sdokb.game.KevinBaconGameGraphManager;
+import sdokb.game.KevinBaconLandmarkIndex;
 
 /**
  * The SixDegreesOfKevinBaconFileUtilities class provides utilities for loading
@@ -39,6 +42,13 @@ public class KevinBaconFileUtilities
     public static String NEW_LINE = "\n";
     public static String DELIMITER = "|";
     public static String LOADING_DATA_PREFIX = "Loading Data for ";
+    public static String RECORDS_LOADED_TEXT = " records in ";
+    public static String MILLISECONDS_TEXT = " ms (";
+    public static String RECORDS_PER_SECOND_TEXT = " records/sec)";
+    public static String LINE_TOO_LONG_TEXT = "Line longer than a whole segment in ";
+
+    // THE BIGGEST PIECE OF A DATA FILE WE MAP AT ONCE
+    public static final long MAX_SEGMENT_SIZE = 1L << 30;
 
     /**
      * This method generically loads a file into a byte array. This is useful
@@ -199,66 +209,98 @@ public class KevinBaconFileUtilities
         parser.parse(br, callback, true);
     }
 
+    /**
+     * This method maps a whole data file into memory rather than reading it
+     * onto the heap. A single mapping can't be bigger than 2GB, so the file
+     * is mapped in segments of at most MAX_SEGMENT_SIZE bytes, each one
+     * ending right after a new line so that no line is ever split between
+     * two segments.
+     *
+     * @param fileToMap File to map with the full path.
+     * @return The segments, in file order, each with its limit set to the
+     * end of its last full line.
+     * @throws IOException Occurs when there is a problem mapping the file,
+     * or if it has a line longer than a whole segment.
+     */
+    public static ArrayList<ByteBuffer> mapFileSegments(String fileToMap)
+            throws IOException
+    {
+        ArrayList<ByteBuffer> segments = new ArrayList();
+        RandomAccessFile file = new RandomAccessFile(fileToMap, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+            long fileSize = channel.size();
+            long segmentStart = 0;
+            while (segmentStart < fileSize)
+            {
+                long segmentSize = Math.min(MAX_SEGMENT_SIZE, fileSize - segmentStart);
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentSize);
+
+                // UNLESS THIS IS THE LAST ONE, BACK UP TO THE LAST NEW LINE
+                int segmentEnd = (int) segmentSize;
+                if (segmentStart + segmentSize < fileSize)
+                {
+                    while ((segmentEnd > 0) && (segment.get(segmentEnd - 1) != KevinBaconDataParser.NEW_LINE))
+                    {
+                        segmentEnd--;
+                    }
+                    if (segmentEnd == 0)
+                    {
+                        throw new IOException(LINE_TOO_LONG_TEXT + fileToMap);
+                    }
+                }
+                segment.limit(segmentEnd);
+                segments.add(segment);
+                segmentStart += segmentEnd;
+            }
+        }
+        finally
+        {
+            // NOTE THAT THE MAPPINGS STAY VALID AFTER THE FILE IS CLOSED
+            file.close();
+        }
+        return segments;
+    }
+
     /**
      * This method loads all actors from the actorsFileName into the actors
-     * instance variable.
+     * instance variable. The lines are parsed in parallel and then added to
+     * the graph in the same order they appear in the file.
      *
      * @param graph This method loads the actors found in the file into this
      * graph, which stores all the actor-film connections.
+     * @param parser The parser to use, which pools the ids it finds.
      * @param actorsFilePath The file to load that stores the actor data.
+     * @param reportLoadingRate true to print how fast the actors loaded.
      * @throws IOException Thrown if there is a problem reading the file.
      */
     private static void loadActors(KevinBaconGameGraphManager graph,
-            String actorsFilePath) throws IOException
+            KevinBaconDataParser parser,
+            String actorsFilePath,
+            boolean reportLoadingRate) throws IOException
     {
-        // LOAD THE ENTIRE THING INTO RAM IN ONE GIANT byte READ
-        ByteArrayInputStream bais = loadFile(actorsFilePath);
+        long startTime = System.nanoTime();
 
-        // AND NOW READ IT AS TEXT
-        InputStreamReader isr = new InputStreamReader(bais);
-        BufferedReader reader = new BufferedReader(isr);
-
-        // ONE LINE AT A TIME
-        String inputLine = reader.readLine();
-        StringTokenizer st;
-        while (inputLine != null)
+        // MAP THE FILE AND PARSE ALL THE LINES, EACH ONE IS AN ACTOR
+        int numActors = 0;
+        for (ByteBuffer segment : mapFileSegments(actorsFilePath))
         {
-            // PARSE EACH LINE. NOTE THAT EACH LINE
-            // STORES DATA FOR A SINGLE ACTOR
-            st = new StringTokenizer(inputLine, DELIMITER);
-            String actorID = st.nextToken();
-            String lastName = st.nextToken();
-            String firstName = st.nextToken();
-
-            // THIS HELPS KEEP US VERIFY FILE LOADING IS GOING SMOOTHLY
-            System.out.println(LOADING_DATA_PREFIX + firstName + SPACE + lastName);
-
-            // USE THE DATA TO MAKE AN ACTOR
-            Actor actorToAdd = new Actor(
-                    actorID,
-                    firstName,
-                    lastName);
-
-            // NOW GET ALL THE FILMS THIS ACTOR HAS BEEN IN
-            while (st.hasMoreTokens())
-            {
-                String filmToAdd = st.nextToken();
-                actorToAdd.addFilmID(filmToAdd);
-            }
-
-            // SORT THE FILMS
-            actorToAdd.sortFilmIDs();
+            ArrayList<Actor> actors = parser.parseActors(segment);
 
             // ADD EACH ONE TO THE GAME GRAPH DATA STRUCTURE
-            graph.addActor(actorToAdd);
-
-            // AND ON TO THE NEXT LINE
-            inputLine = reader.readLine();
+            for (Actor actorToAdd : actors)
+            {
+                graph.addActor(actorToAdd);
+            }
+            numActors += actors.size();
         }
 
-        // ALL THE ACTORS HAVE BEEN LOADED SO WE SHOULD BE
-        // ABLE TO FIND AND SETUP KEVIN BACON AS A SPECIAL NODE
-        graph.initKevinBacon();
+        // THIS HELPS KEEP US VERIFY FILE LOADING IS GOING SMOOTHLY
+        if (reportLoadingRate)
+        {
+            reportLoadingRate(actorsFilePath, numActors, startTime);
+        }
     }
 
     /**
@@ -268,70 +310,147 @@ public class KevinBaconFileUtilities
      *
      * @param graph This method loads the films found in the file into this
      * graph, which stores all the film-actor connections.
+     * @param parser The parser to use, which pools the ids it finds.
      * @param filmsFilePath The file to load that stores the actor data.
+     * @param reportLoadingRate true to print how fast the films loaded.
      * @throws IOException Thrown if there is a problem reading the file.
      */
     private static void loadFilms(KevinBaconGameGraphManager graph,
-            String filmsFilePath) throws IOException
+            KevinBaconDataParser parser,
+            String filmsFilePath,
+            boolean reportLoadingRate) throws IOException
     {
-        // LOAD THE ENTIRE THING INTO RAM IN ONE GIANT byte READ        
-        ByteArrayInputStream bais = loadFile(filmsFilePath);
-
-        // AND NOW READ IT AS TEXT        
-        InputStreamReader isr = new InputStreamReader(bais);
-        BufferedReader reader = new BufferedReader(isr);
+        long startTime = System.nanoTime();
 
-        // ONE LINE AT A TIME
-        String inputLine = reader.readLine();
-        StringTokenizer st;
-        while (inputLine != null)
+        // MAP THE FILE AND PARSE ALL THE LINES, EACH ONE IS A FILM
+        int numFilms = 0;
+        for (ByteBuffer segment : mapFileSegments(filmsFilePath))
         {
-            // PARSE EACH LINE. NOTE THAT EACH LINE
-            // STORES DATA FOR A SINGLE FILM
-            st = new StringTokenizer(inputLine, DELIMITER);
-            String filmID = st.nextToken();
-            String title = st.nextToken();
-            String yearText = st.nextToken();
-
-            // THIS HELPS KEEP US VERIFY FILE LOADING IS GOING SMOOTHLY
-            System.out.println(LOADING_DATA_PREFIX + title);
-
-            // USE THE DATA TO MAKE AN ACTOR
-            int year = Integer.parseInt(yearText);
-            Film filmToAdd = new Film(
-                    filmID,
-                    title,
-                    year);
-
-            // NOW GET ALL THE ACTORS THAT HAVE BEEN IN THIS FILM
-            while (st.hasMoreTokens())
+            ArrayList<Film> films = parser.parseFilms(segment);
+
+            // ADD THEM ALL TO THE GRAPH
+            for (Film filmToAdd : films)
             {
-                String actorToAdd = st.nextToken();
-                filmToAdd.addActorID(actorToAdd);
+                graph.addFilm(filmToAdd);
             }
+            numFilms += films.size();
+        }
 
-            // SORT THE ACTORS
-            filmToAdd.sortActorIds();
+        // THIS HELPS KEEP US VERIFY FILE LOADING IS GOING SMOOTHLY
+        if (reportLoadingRate)
+        {
+            reportLoadingRate(filmsFilePath, numFilms, startTime);
+        }
+    }
 
-            // ADD THIS FILM TO THE GRAPH
-            graph.addFilm(filmToAdd);
+    /**
+     * Prints how many records were loaded from the file and how fast. We
+     * used to print every record, but that took far longer than the loading.
+     */
+    private static void reportLoadingRate(String filePath, int numRecords, long startTime)
+    {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startTime);
+        long recordsPerSecond = (numRecords * 1000000000L) / elapsedNanos;
+        System.out.println(LOADING_DATA_PREFIX + filePath + ": "
+                + numRecords + RECORDS_LOADED_TEXT
+                + (elapsedNanos / 1000000) + MILLISECONDS_TEXT
+                + recordsPerSecond + RECORDS_PER_SECOND_TEXT);
+    }
 
-            // AND ONTO THE NEXT LINE
-            inputLine = reader.readLine();
+    /**
+     * Loads all the film and actor data from the text data files into the
+     * game graph data structure and builds the graph, without using or
+     * saving any snapshot.
+     *
+     * @param graph The graph to load into.
+     * @param actorsFilePath The actors text data file, with its full path.
+     * @param filmsFilePath The films text data file, with its full path.
+     * @throws IOException Thrown if there is a problem reading the files.
+     */
+    public static void loadActorsAndFilms(KevinBaconGameGraphManager graph,
+            String actorsFilePath,
+            String filmsFilePath) throws IOException
+    {
+        loadActorsAndFilms(graph, actorsFilePath, filmsFilePath, true);
+    }
+
+    /**
+     * Loads the text data files just like loadActorsAndFilms above, but only
+     * prints how fast each one loaded if asked to, so that it can load
+     * quietly, like when benchmarking.
+     *
+     * @param graph The graph to load into.
+     * @param actorsFilePath The actors text data file, with its full path.
+     * @param filmsFilePath The films text data file, with its full path.
+     * @param reportLoadingRate true to print how fast each file loaded.
+     * @throws IOException Thrown if there is a problem reading the files.
+     */
+    public static void loadActorsAndFilms(KevinBaconGameGraphManager graph,
+            String actorsFilePath,
+            String filmsFilePath,
+            boolean reportLoadingRate) throws IOException
+    {
+        KevinBaconDataParser parser = new KevinBaconDataParser();
+        try
+        {
+            loadActors(graph, parser, actorsFilePath, reportLoadingRate);
+            loadFilms(graph, parser, filmsFilePath, reportLoadingRate);
         }
+        finally
+        {
+            // THAT'S ALL THE PARSING WE'LL EVER DO
+            parser.shutdown();
+        }
+
+        // ALL THE ACTORS AND FILMS HAVE BEEN LOADED SO WE CAN NOW BUILD
+        // THE GRAPH INDEX AND SETUP KEVIN BACON AS A SPECIAL NODE
+        graph.initGraph();
     }
 
     /**
      * Loads all the film and actor data from the data files into the 
-     * game graph data structure.
+     * game graph data structure. If there is a graph snapshot that was
+     * built from these exact data files it is loaded instead, otherwise
+     * the data files are parsed and a new snapshot is saved for next time.
      */
     public static void loadActorsAndFilms(KevinBaconGameGraphManager graph) throws IOException
     {
         PropertiesManager props = PropertiesManager.getPropertiesManager();
         String dataPath = props.getProperty(KevinBaconPropertyType.DATA_PATH);
-        String actorsFileName = props.getProperty(KevinBaconPropertyType.ACTORS_FILE_NAME);
-        loadActors(graph, dataPath + actorsFileName);
-        String filmsFileName = props.getProperty(KevinBaconPropertyType.FILMS_FILE_NAME);
-        loadFilms(graph, dataPath + filmsFileName);
+        String actorsFilePath = dataPath + props.getProperty(KevinBaconPropertyType.ACTORS_FILE_NAME);
+        String filmsFilePath = dataPath + props.getProperty(KevinBaconPropertyType.FILMS_FILE_NAME);
+        String snapshotFilePath = dataPath + props.getProperty(KevinBaconPropertyType.SNAPSHOT_FILE_NAME);
+
+        // THE LANDMARK SETTINGS ARE OPTIONAL, BUT NEEDED BEFORE THE SNAPSHOT,
+        // WHICH IS OUT OF DATE IF IT HAS DIFFERENT LANDMARKS
+        String numLandmarks = props.getProperty(KevinBaconPropertyType.NUM_LANDMARKS);
+        ArrayList<String> landmarkActorIds = props.getPropertyOptionsList(KevinBaconPropertyType.LANDMARK_ACTOR_IDS);
+        graph.setLandmarkSettings(
+                (numLandmarks == null) ? KevinBaconLandmarkIndex.DEFAULT_NUM_LANDMARKS : Integer.parseInt(numLandmarks),
+                (landmarkActorIds == null) ? new ArrayList<String>() : landmarkActorIds);
+
+        // TRY THE SNAPSHOT FIRST
+        long startTime = System.nanoTime();
+        long checksum = KevinBaconGraphSnapshot.computeChecksum(actorsFilePath, filmsFilePath);
+        if (KevinBaconGraphSnapshot.load(snapshotFilePath, checksum, graph))
+        {
+            reportLoadingRate(snapshotFilePath,
+                    graph.getGraphIndex().getNumActors() + graph.getGraphIndex().getNumFilms(),
+                    startTime);
+            return;
+        }
+
+        loadActorsAndFilms(graph, actorsFilePath, filmsFilePath);
+
+        // NOT BEING ABLE TO SAVE THE SNAPSHOT JUST MEANS THE NEXT
+        // LAUNCH WILL BE SLOWER, SO IT'S NOT WORTH STOPPING FOR
+        try
+        {
+            KevinBaconGraphSnapshot.save(snapshotFilePath, checksum, graph);
+        }
+        catch (IOException ioe)
+        {
+            System.err.println(ioe.getMessage());
+        }
     }
 }
@@ -0,0 +1,203 @@
+package sdokb.file;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import sdokb.game.KevinBaconDisplayOrder;
+import sdokb.game.KevinBaconDistanceTable;
+import sdokb.game.KevinBaconGameGraphManager;
+import sdokb.game.KevinBaconGraphIndex;
+import sdokb.game.KevinBaconLandmarkIndex;
+import sdokb.game.KevinBaconMappedInput;
+
+/**
+ * KevinBaconGraphSnapshot saves the fully built game graph, meaning the
+ * graph index with all its actors, films, and edges as well as everyone's
+ * Bacon number, distances to the landmarks, and display order, to a binary
+ * file. Loading that file back is just a matter of mapping it and copying
+ * out the arrays, so startup no longer has to parse the text data files,
+ * sort all the id lists and names, and search the graph. The file is mapped
+ * one segment at a time, like the text data files are, so a snapshot of a
+ * full-size graph can be as big as it needs to be.
+ *
+ * A snapshot starts with a header that has a version number and a checksum
+ * of the text data files it was built from. If either doesn't match, the
+ * snapshot is out of date and the caller should load the text files and
+ * save a new one. The same goes if the landmarks saved aren't the ones the
+ * graph's current landmark settings would pick.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconGraphSnapshot
+{
+    // EVERY SNAPSHOT STARTS WITH THESE
+    public static final int MAGIC_NUMBER = 0x53444B42;
+    public static final int VERSION = 3;
+    public static final String SNAPSHOT_SAVING_ERROR_TEXT = "Could not save graph snapshot ";
+
+    // MAGIC NUMBER, VERSION, AND CHECKSUM
+    private static final int HEADER_SIZE = 16;
+
+    // HOW MUCH OF A DATA FILE WE CHECKSUM AT ONCE
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Computes a checksum of the text data files, which is how we know if a
+     * snapshot was built from the data files as they are now.
+     *
+     * @param actorsFilePath The actors text data file.
+     * @param filmsFilePath The films text data file.
+     * @return A checksum covering the contents of both files.
+     * @throws IOException Thrown if there is a problem reading the files.
+     */
+    public static long computeChecksum(String actorsFilePath, String filmsFilePath)
+            throws IOException
+    {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+        long actorsSize = addToChecksum(crc, buffer, actorsFilePath);
+        long filmsSize = addToChecksum(crc, buffer, filmsFilePath);
+
+        // THE SIZES GO IN THE HIGH BITS SO THAT MOVING A LINE FROM ONE
+        // FILE TO THE OTHER STILL CHANGES THE CHECKSUM
+        return (((actorsSize * 31) + filmsSize) << 32) | crc.getValue();
+    }
+
+    private static long addToChecksum(CRC32 crc, byte[] buffer, String filePath)
+            throws IOException
+    {
+        long size = 0;
+        for (ByteBuffer segment : KevinBaconFileUtilities.mapFileSegments(filePath))
+        {
+            while (segment.hasRemaining())
+            {
+                int length = Math.min(buffer.length, segment.remaining());
+                segment.get(buffer, 0, length);
+                crc.update(buffer, 0, length);
+                size += length;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Loads the snapshot into the graph, but only if it exists, is of the
+     * current version, was built from data files with the checksum, and has
+     * the landmarks the graph's settings call for.
+     *
+     * @param snapshotFilePath The snapshot file to load.
+     * @param checksum The checksum of the current text data files.
+     * @param graph The graph to load into.
+     * @return true if the graph was loaded from the snapshot, false if the
+     * snapshot was missing or out of date, in which case the graph is left
+     * alone.
+     * @throws IOException Thrown if there is a problem reading the file.
+     */
+    public static boolean load(String snapshotFilePath,
+            long checksum,
+            KevinBaconGameGraphManager graph) throws IOException
+    {
+        File snapshotFile = new File(snapshotFilePath);
+        if (!snapshotFile.exists())
+        {
+            return false;
+        }
+
+        // MAKE SURE IT'S CURRENT BEFORE MAPPING IT, SINCE ON SOME
+        // PLATFORMS A MAPPED FILE CAN'T BE REPLACED UNTIL IT'S UNMAPPED
+        RandomAccessFile file = new RandomAccessFile(snapshotFile, "r");
+        try
+        {
+            if ((file.length() < HEADER_SIZE)
+                    || (file.readInt() != MAGIC_NUMBER)
+                    || (file.readInt() != VERSION)
+                    || (file.readLong() != checksum))
+            {
+                return false;
+            }
+
+            // IT IS, SO LOAD EVERYTHING AFTER THE HEADER, A SEGMENT AT A TIME
+            KevinBaconMappedInput in = new KevinBaconMappedInput(file.getChannel(),
+                    HEADER_SIZE,
+                    KevinBaconFileUtilities.MAX_SEGMENT_SIZE);
+            KevinBaconGraphIndex graphIndex = KevinBaconGraphIndex.readFrom(in);
+            KevinBaconDistanceTable baconNumbers = null;
+            if (in.get() != 0)
+            {
+                baconNumbers = KevinBaconDistanceTable.readFrom(in, graphIndex);
+            }
+            KevinBaconLandmarkIndex landmarks = KevinBaconLandmarkIndex.readFrom(in, graphIndex);
+            int kevinBaconIndex = (baconNumbers == null) ? -1 : baconNumbers.getKevinBaconIndex();
+            if (!Arrays.equals(landmarks.getLandmarkActors(), graph.pickLandmarks(graphIndex, kevinBaconIndex)))
+            {
+                return false;
+            }
+            KevinBaconDisplayOrder displayOrder = KevinBaconDisplayOrder.readFrom(in);
+            graph.initGraph(graphIndex, baconNumbers, landmarks, displayOrder);
+            return true;
+        }
+        catch (BufferUnderflowException bue)
+        {
+            // THE FILE IS TRUNCATED, SO JUST BUILD A NEW ONE
+            return false;
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    /**
+     * Saves the fully built graph as a snapshot. The snapshot is written to a
+     * temporary file first and then renamed, so a crash part way through
+     * never leaves a broken snapshot behind.
+     *
+     * @param snapshotFilePath The snapshot file to write.
+     * @param checksum The checksum of the text data files the graph was
+     * loaded from.
+     * @param graph The fully built graph to save.
+     * @throws IOException Thrown if there is a problem writing the file.
+     */
+    public static void save(String snapshotFilePath,
+            long checksum,
+            KevinBaconGameGraphManager graph) throws IOException
+    {
+        File snapshotFile = new File(snapshotFilePath);
+        File tempFile = new File(snapshotFilePath + ".tmp");
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try
+        {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(VERSION);
+            out.writeLong(checksum);
+            graph.getGraphIndex().writeTo(out);
+            KevinBaconDistanceTable baconNumbers = graph.getBaconNumbers();
+            out.writeByte((baconNumbers == null) ? 0 : 1);
+            if (baconNumbers != null)
+            {
+                baconNumbers.writeTo(out);
+            }
+            graph.getLandmarks().writeTo(out);
+            graph.getDisplayOrder().writeTo(out);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        // NOTE THAT ON SOME PLATFORMS RENAMING ONTO AN EXISTING FILE FAILS
+        snapshotFile.delete();
+        if (!tempFile.renameTo(snapshotFile))
+        {
+            throw new IOException(SNAPSHOT_SAVING_ERROR_TEXT + snapshotFilePath);
+        }
+    }
+}
@@ -16,7 +16,8 @@ public class Actor extends IMDBObject
     private String firstName;
     private String lastName;
 
-    // FILM IDs OF FILMS THIS ACTOR HAS BEEN IN
+    // FILM IDs OF FILMS THIS ACTOR HAS BEEN IN, ONLY KEPT UNTIL THE
+    // GRAPH INDEX HAS THEM, AFTER WHICH IT'S null
     private ArrayList<String> filmIDs;
 
     /**
@@ -50,7 +51,22 @@ public class Actor extends IMDBObject
 
     public String getFirstName()            {   return firstName;       }
     public String getLastName()             {   return lastName;        }
-    public ArrayList<String> getFilmIDs()   {   return filmIDs;         }
+
+    /**
+     * Gets the ids of the films this actor has been in, sorted. Once the
+     * graph index is built they come from it, so the list is a new one
+     * each time.
+     * 
+     * @return The film ids.
+     */
+    public ArrayList<String> getFilmIDs()
+    {
+        if (filmIDs == null)
+        {
+            return getGraphIndex().getFilmIDs(getIndex());
+        }
+        return filmIDs;
+    }
  
     /**
      * This method adds the idToAdd argument to the list of films this
@@ -73,6 +89,15 @@ public class Actor extends IMDBObject
         Collections.sort(filmIDs);
     }
 
+    /**
+     * Lets go of the film ids once the graph index has them all as edges.
+     * Only the graph index itself should do this.
+     */
+    void releaseFilmIDs()
+    {
+        filmIDs = null;
+    }
+
     /**
      * Method for testing to see if a particular actor was in a film. Note
      * that it searches the list of films using binary search, so we must
@@ -84,6 +109,11 @@ public class Actor extends IMDBObject
      */
     public boolean wasActorInFilm(String testFilmId)
     {
+        if (filmIDs == null)
+        {
+            KevinBaconGraphIndex graphIndex = getGraphIndex();
+            return graphIndex.isActorInFilm(getIndex(), graphIndex.getFilmIndex(testFilmId));
+        }
         return (Collections.binarySearch(filmIDs, testFilmId) >= 0);
     }
     
@@ -14,7 +14,8 @@ public class Film extends IMDBObject
     private String title;
     private int year;
 
-    // ACTOR IDs OF ACTORS WHO APPEARED IN THIS FILM
+    // ACTOR IDs OF ACTORS WHO APPEARED IN THIS FILM, ONLY KEPT UNTIL
+    // THE GRAPH INDEX HAS THEM, AFTER WHICH IT'S null
     private ArrayList<String> actorIDs;
 
     /**
@@ -51,8 +52,19 @@ public class Film extends IMDBObject
         return year;
     }
 
+    /**
+     * Gets the ids of the actors who appeared in this film, sorted. Once
+     * the graph index is built they come from it, so the list is a new one
+     * each time.
+     * 
+     * @return The actor ids.
+     */
     public ArrayList<String> getActorIDs()
     {
+        if (actorIDs == null)
+        {
+            return getGraphIndex().getActorIDs(getIndex());
+        }
         return actorIDs;
     }
 
@@ -74,6 +86,15 @@ public class Film extends IMDBObject
     {
         Collections.sort(actorIDs);
     }
+
+    /**
+     * Lets go of the actor ids once the graph index has them all as edges.
+     * Only the graph index itself should do this.
+     */
+    void releaseActorIDs()
+    {
+        actorIDs = null;
+    }
     
     /**
      * Tests to see if an actor was in this film. Note that it uses
@@ -85,6 +106,11 @@ public class Film extends IMDBObject
      */
     public boolean wasActorInFilm(String testActorId)
     {
+        if (actorIDs == null)
+        {
+            KevinBaconGraphIndex graphIndex = getGraphIndex();
+            return graphIndex.isActorInFilm(graphIndex.getActorIndex(testActorId), getIndex());
+        }
         return (Collections.binarySearch(actorIDs, testActorId) >= 0);
     }
 
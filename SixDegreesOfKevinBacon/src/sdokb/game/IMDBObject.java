@@ -11,6 +11,14 @@ public class IMDBObject implements Comparable
     // IMDB id NUMBER FOR THIS FILM/ACTOR
     private String id;
 
+    // DENSE GRAPH INDEX FOR THIS FILM/ACTOR, ASSIGNED WHEN THE
+    // GRAPH INDEX IS BUILT, -1 UNTIL THEN
+    private int index;
+
+    // THE GRAPH INDEX THIS FILM/ACTOR IS IN, WHICH HOLDS ITS EDGES
+    // ONCE BUILT, null UNTIL THEN
+    private KevinBaconGraphIndex graphIndex;
+
     /**
      * Initializes the id only.
      * 
@@ -19,14 +27,39 @@ public class IMDBObject implements Comparable
     public IMDBObject(String initId)
     {
         id = initId;
+        index = -1;
+        graphIndex = null;
     }
 
-    // ACCESSOR METHOD
+    // ACCESSOR METHODS
     public String getId()
     {
         return id;
     }   
 
+    public int getIndex()
+    {
+        return index;
+    }
+
+    KevinBaconGraphIndex getGraphIndex()
+    {
+        return graphIndex;
+    }
+
+    /**
+     * Sets the graph index this object is in and its dense index inside
+     * it. Only the graph index itself should do this.
+     * 
+     * @param initGraphIndex The graph index this object is in.
+     * @param initIndex The position of this object in the graph index.
+     */
+    void setIndex(KevinBaconGraphIndex initGraphIndex, int initIndex)
+    {
+        graphIndex = initGraphIndex;
+        index = initIndex;
+    }
+
     /**
      * Used for sorting these objects by id.
      */
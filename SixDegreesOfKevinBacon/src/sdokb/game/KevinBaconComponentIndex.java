@@ -0,0 +1,123 @@
+package sdokb.game;
+
+import java.util.Arrays;
+
+/**
+ * KevinBaconComponentIndex splits the actors into connected components,
+ * meaning groups of actors where everyone in a group can reach everyone
+ * else in it through shared films, and no one can reach anyone outside it.
+ * Each component gets a dense int id, and its actors are stored next to one
+ * another in compressed sparse row form just like the edges in
+ * KevinBaconGraphIndex, so picking a random actor from a component, or
+ * getting its size, doesn't take any searching.
+ *
+ * The whole thing is computed with breadth first searches that together
+ * visit every actor and film once. Note that the search queue itself ends
+ * up holding the actors grouped by component, so it is what we keep.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconComponentIndex
+{
+    // THE COMPONENT EACH ACTOR IS IN, BY ACTOR INDEX
+    private int[] componentIds;
+
+    // THE ACTORS IN COMPONENT c ARE componentActors[componentOffsets[c]] UP
+    // TO, BUT NOT INCLUDING, componentActors[componentOffsets[c + 1]]
+    private int[] componentOffsets;
+    private int[] componentActors;
+
+    /**
+     * This constructor labels every actor in the graph with its component.
+     *
+     * @param graphIndex The fully built graph.
+     */
+    public KevinBaconComponentIndex(KevinBaconGraphIndex graphIndex)
+    {
+        int numActors = graphIndex.getNumActors();
+        componentIds = new int[numActors];
+        componentActors = new int[numActors];
+        Arrays.fill(componentIds, -1);
+
+        // THERE CAN'T BE MORE COMPONENTS THAN ACTORS, WE'LL TRIM IT AFTER
+        int[] offsets = new int[numActors + 1];
+        int numComponents = 0;
+        boolean[] filmsVisited = new boolean[graphIndex.getNumFilms()];
+        int queueTail = 0;
+        for (int startingActor = 0; startingActor < numActors; startingActor++)
+        {
+            if (componentIds[startingActor] >= 0)
+            {
+                continue;
+            }
+
+            // EVERYONE THIS SEARCH REACHES IS IN A NEW COMPONENT
+            int queueHead = queueTail;
+            componentIds[startingActor] = numComponents;
+            componentActors[queueTail++] = startingActor;
+            while (queueHead < queueTail)
+            {
+                int currentActor = componentActors[queueHead++];
+                int filmsEnd = graphIndex.getFilmsEnd(currentActor);
+                for (int i = graphIndex.getFilmsStart(currentActor); i < filmsEnd; i++)
+                {
+                    int currentFilm = graphIndex.getFilmAt(i);
+                    if (filmsVisited[currentFilm])
+                    {
+                        continue;
+                    }
+                    filmsVisited[currentFilm] = true;
+                    int actorsEnd = graphIndex.getActorsEnd(currentFilm);
+                    for (int j = graphIndex.getActorsStart(currentFilm); j < actorsEnd; j++)
+                    {
+                        int actorToTest = graphIndex.getActorAt(j);
+                        if (componentIds[actorToTest] < 0)
+                        {
+                            componentIds[actorToTest] = numComponents;
+                            componentActors[queueTail++] = actorToTest;
+                        }
+                    }
+                }
+            }
+            numComponents++;
+            offsets[numComponents] = queueTail;
+        }
+        componentOffsets = Arrays.copyOf(offsets, numComponents + 1);
+    }
+
+    // ACCESSOR METHODS
+
+    public int getNumComponents()                       {   return componentOffsets.length - 1; }
+    public int getComponent(int actorIndex)             {   return componentIds[actorIndex];    }
+
+    /**
+     * Gets how many actors are in the component.
+     */
+    public int getComponentSize(int componentId)
+    {
+        return componentOffsets[componentId + 1] - componentOffsets[componentId];
+    }
+
+    /**
+     * Gets one of the actors in the component. Actors within a component
+     * are in no particular order, but it's always the same one for the same
+     * position, so positions 0 up to the component's size cover all of
+     * them once.
+     *
+     * @param componentId The component to get an actor from.
+     * @param position Which of the component's actors to get.
+     * @return The index of that actor.
+     */
+    public int getComponentActor(int componentId, int position)
+    {
+        return componentActors[componentOffsets[componentId] + position];
+    }
+
+    /**
+     * Tests to see if the two actors can reach one another at all.
+     */
+    public boolean areConnected(int actorIndex1, int actorIndex2)
+    {
+        return componentIds[actorIndex1] == componentIds[actorIndex2];
+    }
+}
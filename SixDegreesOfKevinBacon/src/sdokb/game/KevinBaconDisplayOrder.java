@@ -0,0 +1,182 @@
+package sdokb.game;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * KevinBaconDisplayOrder ranks every actor and every film by how it is
+ * shown to the player, meaning alphabetically by toString ignoring case,
+ * with ties going to the lower index. Everything is sorted once, so any
+ * handful of actors or films can then be put in display order by sorting
+ * their ranks, which are just ints, rather than by building and comparing
+ * their display Strings.
+ *
+ * Since actors or films starting with the same letters are always next to
+ * one another in this order, the ones starting with some prefix are a
+ * single run of any list sorted this way, which two binary searches using
+ * compareToPrefix will find. That makes the order its own prefix index.
+ *
+ * Sorting every name in a big graph takes a few seconds, so the order is
+ * saved in the graph snapshot, see writeTo and readFrom.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconDisplayOrder
+{
+    // EACH ACTOR'S RANK BY ACTOR INDEX, AND EACH RANK'S ACTOR
+    private int[] actorRanks;
+    private int[] actorsByRank;
+
+    // EACH FILM'S RANK BY FILM INDEX, AND EACH RANK'S FILM
+    private int[] filmRanks;
+    private int[] filmsByRank;
+
+    /**
+     * This constructor ranks all the actors and films in the graph.
+     *
+     * @param graphIndex The fully built graph.
+     */
+    public KevinBaconDisplayOrder(KevinBaconGraphIndex graphIndex)
+    {
+        String[] actorTexts = new String[graphIndex.getNumActors()];
+        for (int i = 0; i < actorTexts.length; i++)
+        {
+            actorTexts[i] = foldCase(graphIndex.getActor(i).toString());
+        }
+        actorsByRank = sortByText(actorTexts);
+        actorRanks = invert(actorsByRank);
+
+        String[] filmTexts = new String[graphIndex.getNumFilms()];
+        for (int i = 0; i < filmTexts.length; i++)
+        {
+            filmTexts[i] = foldCase(graphIndex.getFilm(i).toString());
+        }
+        filmsByRank = sortByText(filmTexts);
+        filmRanks = invert(filmsByRank);
+    }
+
+    /**
+     * This constructor wraps an already sorted order, which is what we do
+     * when reading one back in.
+     */
+    private KevinBaconDisplayOrder(int[] initActorsByRank, int[] initFilmsByRank)
+    {
+        actorsByRank = initActorsByRank;
+        actorRanks = invert(actorsByRank);
+        filmsByRank = initFilmsByRank;
+        filmRanks = invert(filmsByRank);
+    }
+
+    /**
+     * Writes the order to the stream in a form readFrom can read back.
+     *
+     * @param out The stream to write to.
+     * @throws IOException Thrown if there is a problem writing.
+     */
+    public void writeTo(DataOutputStream out) throws IOException
+    {
+        KevinBaconGraphIndex.writeIntArray(out, actorsByRank);
+        KevinBaconGraphIndex.writeIntArray(out, filmsByRank);
+    }
+
+    /**
+     * Reads back an order written by writeTo.
+     *
+     * @param in The data to read, starting at its position, which is
+     * left just after the order.
+     * @return The restored order.
+     * @throws IOException Thrown if there is a problem reading.
+     */
+    public static KevinBaconDisplayOrder readFrom(KevinBaconMappedInput in) throws IOException
+    {
+        int[] actorsByRank = KevinBaconGraphIndex.readIntArray(in);
+        int[] filmsByRank = KevinBaconGraphIndex.readIntArray(in);
+        return new KevinBaconDisplayOrder(actorsByRank, filmsByRank);
+    }
+
+    // ACCESSOR METHODS
+    public int getActorRank(int actorIndex)     {   return actorRanks[actorIndex];  }
+    public int getActorAtRank(int rank)         {   return actorsByRank[rank];      }
+    public int getFilmRank(int filmIndex)       {   return filmRanks[filmIndex];    }
+    public int getFilmAtRank(int rank)          {   return filmsByRank[rank];       }
+
+    /**
+     * Gets the rank of an actor or film, whichever it is.
+     */
+    public int getRank(IMDBObject actorOrFilm)
+    {
+        if (actorOrFilm instanceof Film)
+        {
+            return filmRanks[actorOrFilm.getIndex()];
+        }
+        return actorRanks[actorOrFilm.getIndex()];
+    }
+
+    /**
+     * Compares display text to a prefix the same way ranks are ordered, but
+     * only looking at as much of the text as the prefix is long.
+     *
+     * @return Less than 0 if the text comes before everything starting with
+     * the prefix, 0 if it starts with the prefix, and more than 0 if it
+     * comes after everything starting with it.
+     */
+    public static int compareToPrefix(String text, String prefix)
+    {
+        String start = (text.length() > prefix.length()) ? text.substring(0, prefix.length()) : text;
+        return String.CASE_INSENSITIVE_ORDER.compare(start, prefix);
+    }
+
+    /**
+     * Folds every character of the text the way String.CASE_INSENSITIVE_ORDER
+     * does when comparing, so that plain compareTo on folded texts orders
+     * them exactly the same, only much faster.
+     */
+    private static String foldCase(String text)
+    {
+        char[] folded = new char[text.length()];
+        for (int i = 0; i < folded.length; i++)
+        {
+            folded[i] = Character.toLowerCase(Character.toUpperCase(text.charAt(i)));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Sorts the indices of the case folded texts into display order.
+     */
+    private static int[] sortByText(final String[] texts)
+    {
+        Integer[] indices = new Integer[texts.length];
+        for (int i = 0; i < indices.length; i++)
+        {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer index0, Integer index1)
+            {
+                int comparison = texts[index0].compareTo(texts[index1]);
+                return (comparison != 0) ? comparison : index0.compareTo(index1);
+            }
+        });
+        int[] sorted = new int[indices.length];
+        for (int i = 0; i < sorted.length; i++)
+        {
+            sorted[i] = indices[i];
+        }
+        return sorted;
+    }
+
+    private static int[] invert(int[] byRank)
+    {
+        int[] ranks = new int[byRank.length];
+        for (int rank = 0; rank < byRank.length; rank++)
+        {
+            ranks[byRank[rank]] = rank;
+        }
+        return ranks;
+    }
+}
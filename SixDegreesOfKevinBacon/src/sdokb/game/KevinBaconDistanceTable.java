@@ -0,0 +1,526 @@
+package sdokb.game;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * KevinBaconDistanceTable stores every actor's Bacon number, meaning the
+ * fewest connections needed to get from that actor to Kevin Bacon. It is
+ * computed with a single breadth first search outward from Kevin Bacon,
+ * and along the way each actor remembers the film and actor that are one
+ * step closer to him. Following those pointers gives a shortest path for
+ * any actor without doing any searching.
+ *
+ * A few more labels are worked out from the Bacon numbers, for films as
+ * well as actors, so questions like which guess is best can be answered
+ * by looking things up rather than by searching. These include how many
+ * different shortest paths there are from each actor, and every one of
+ * those paths can be had, one at a time, from shortestPathsIterator. All
+ * of them are cheap to redo, so they aren't written out with the table.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconDistanceTable
+{
+    // USED FOR ACTORS THAT CANNOT REACH KEVIN BACON AT ALL
+    public static final int UNREACHABLE = -1;
+
+    // SHORTEST PATH COUNTS CAN GROW EXPONENTIALLY WITH THE BACON NUMBER,
+    // SO THEY STOP HERE RATHER THAN OVERFLOW, MEANING AT LEAST THIS MANY
+    public static final long MAX_PATH_COUNT = Long.MAX_VALUE;
+
+    // THE GRAPH THE TABLE WAS COMPUTED FOR
+    private KevinBaconGraphIndex graphIndex;
+
+    // THE ACTOR EVERYONE IS TRYING TO REACH
+    private int kevinBaconIndex;
+
+    // BACON NUMBER FOR EACH ACTOR, BY ACTOR INDEX
+    private int[] baconNumbers;
+
+    // FOR EACH ACTOR, THE FILM AND ACTOR THAT ARE ONE STEP
+    // CLOSER TO KEVIN BACON ON A SHORTEST PATH
+    private int[] nextFilms;
+    private int[] nextActors;
+
+    // FOR EACH FILM, THE ACTOR IN IT WITH THE LOWEST BACON NUMBER, OR
+    // -1 IF NO ONE IN IT CAN REACH KEVIN BACON
+    private int[] closestActors;
+
+    // HOW MANY WAYS THERE ARE TO TAKE THE NEXT STEP ALONG A SHORTEST PATH,
+    // MEANING FOR AN ACTOR HOW MANY OF THEIR FILMS HAVE SOMEONE ONE STEP
+    // CLOSER, AND FOR A FILM HOW MANY OF ITS ACTORS ARE ITS CLOSEST
+    private int[] actorContinuations;
+    private int[] filmContinuations;
+
+    // HOW MANY DIFFERENT SHORTEST PATHS THERE ARE TO KEVIN BACON, FOR AN
+    // ACTOR STARTING WITH THEM, AND FOR A FILM STARTING WITH ITS CLOSEST
+    private long[] actorPathCounts;
+    private long[] filmPathCounts;
+
+    /**
+     * This constructor computes the whole table with one breadth first
+     * search that starts at Kevin Bacon.
+     *
+     * @param initGraphIndex The fully built graph.
+     * @param initKevinBaconIndex Kevin Bacon's actor index.
+     */
+    public KevinBaconDistanceTable(KevinBaconGraphIndex initGraphIndex,
+            int initKevinBaconIndex)
+    {
+        graphIndex = initGraphIndex;
+        kevinBaconIndex = initKevinBaconIndex;
+
+        int numActors = graphIndex.getNumActors();
+        baconNumbers = new int[numActors];
+        nextFilms = new int[numActors];
+        nextActors = new int[numActors];
+        Arrays.fill(baconNumbers, UNREACHABLE);
+        Arrays.fill(nextFilms, -1);
+        Arrays.fill(nextActors, -1);
+
+        // KEVIN BACON IS ZERO STEPS FROM HIMSELF
+        boolean[] filmsVisited = new boolean[graphIndex.getNumFilms()];
+        int[] actorQueue = new int[numActors];
+        int queueHead = 0;
+        int queueTail = 0;
+        baconNumbers[kevinBaconIndex] = 0;
+        actorQueue[queueTail++] = kevinBaconIndex;
+
+        // AND EVERYONE ELSE IS ONE STEP FURTHER THAN
+        // WHOEVER WE FIRST REACHED THEM FROM
+        while (queueHead < queueTail)
+        {
+            int currentActor = actorQueue[queueHead++];
+            int filmsEnd = graphIndex.getFilmsEnd(currentActor);
+            for (int i = graphIndex.getFilmsStart(currentActor); i < filmsEnd; i++)
+            {
+                int currentFilm = graphIndex.getFilmAt(i);
+                if (filmsVisited[currentFilm])
+                {
+                    continue;
+                }
+                filmsVisited[currentFilm] = true;
+                int actorsEnd = graphIndex.getActorsEnd(currentFilm);
+                for (int j = graphIndex.getActorsStart(currentFilm); j < actorsEnd; j++)
+                {
+                    int actorToTest = graphIndex.getActorAt(j);
+                    if (baconNumbers[actorToTest] == UNREACHABLE)
+                    {
+                        baconNumbers[actorToTest] = baconNumbers[currentActor] + 1;
+                        nextFilms[actorToTest] = currentFilm;
+                        nextActors[actorToTest] = currentActor;
+                        actorQueue[queueTail++] = actorToTest;
+                    }
+                }
+            }
+        }
+        computeLabels();
+    }
+
+    /**
+     * This constructor wraps an already computed table, which is what we do
+     * when reading one back in.
+     */
+    private KevinBaconDistanceTable(KevinBaconGraphIndex initGraphIndex,
+            int initKevinBaconIndex,
+            int[] initBaconNumbers,
+            int[] initNextFilms,
+            int[] initNextActors)
+    {
+        graphIndex = initGraphIndex;
+        kevinBaconIndex = initKevinBaconIndex;
+        baconNumbers = initBaconNumbers;
+        nextFilms = initNextFilms;
+        nextActors = initNextActors;
+        computeLabels();
+    }
+
+    /**
+     * Works out the closest actor in every film and the number of shortest
+     * continuations for every actor and film, which takes one pass over
+     * each direction of the graph's edges.
+     */
+    private void computeLabels()
+    {
+        int numFilms = graphIndex.getNumFilms();
+        closestActors = new int[numFilms];
+        filmContinuations = new int[numFilms];
+        for (int i = 0; i < numFilms; i++)
+        {
+            int closestActor = -1;
+            int numClosest = 0;
+            int actorsEnd = graphIndex.getActorsEnd(i);
+            for (int j = graphIndex.getActorsStart(i); j < actorsEnd; j++)
+            {
+                int actorToTest = graphIndex.getActorAt(j);
+                int baconNumber = baconNumbers[actorToTest];
+                if (baconNumber == UNREACHABLE)
+                {
+                    continue;
+                }
+                if ((closestActor < 0) || (baconNumber < baconNumbers[closestActor]))
+                {
+                    closestActor = actorToTest;
+                    numClosest = 1;
+                }
+                else if (baconNumber == baconNumbers[closestActor])
+                {
+                    numClosest++;
+                }
+            }
+            closestActors[i] = closestActor;
+            filmContinuations[i] = numClosest;
+        }
+
+        int numActors = graphIndex.getNumActors();
+        actorContinuations = new int[numActors];
+        for (int i = 0; i < numActors; i++)
+        {
+            int numContinuations = 0;
+            if (baconNumbers[i] > 0)
+            {
+                int filmsEnd = graphIndex.getFilmsEnd(i);
+                for (int j = graphIndex.getFilmsStart(i); j < filmsEnd; j++)
+                {
+                    if (getFilmBaconNumber(graphIndex.getFilmAt(j)) == baconNumbers[i] - 1)
+                    {
+                        numContinuations++;
+                    }
+                }
+            }
+            actorContinuations[i] = numContinuations;
+        }
+        computePathCounts();
+    }
+
+    /**
+     * Counts the shortest paths to Kevin Bacon for every actor and film.
+     * Only the films and actors one step closer are ever on a shortest
+     * path, so these links make a directed acyclic graph, and an actor's
+     * count is the sum of the counts of their films that are one step
+     * closer, while a film's count is the sum of the counts of its closest
+     * actors. Going through the actors in order of Bacon number means
+     * everything needed is counted first, so it's one pass over the edges.
+     */
+    private void computePathCounts()
+    {
+        int numActors = graphIndex.getNumActors();
+        actorPathCounts = new long[numActors];
+        filmPathCounts = new long[graphIndex.getNumFilms()];
+
+        // FIRST PUT EVERYONE WHO CAN REACH KEVIN BACON IN ORDER
+        int maxBaconNumber = 0;
+        for (int i = 0; i < numActors; i++)
+        {
+            maxBaconNumber = Math.max(maxBaconNumber, baconNumbers[i]);
+        }
+        int[] levelOffsets = new int[maxBaconNumber + 2];
+        for (int i = 0; i < numActors; i++)
+        {
+            if (baconNumbers[i] != UNREACHABLE)
+            {
+                levelOffsets[baconNumbers[i] + 1]++;
+            }
+        }
+        for (int i = 1; i < levelOffsets.length; i++)
+        {
+            levelOffsets[i] += levelOffsets[i - 1];
+        }
+        int[] actorsByLevel = new int[levelOffsets[maxBaconNumber + 1]];
+        int[] nextPositions = Arrays.copyOf(levelOffsets, levelOffsets.length);
+        for (int i = 0; i < numActors; i++)
+        {
+            if (baconNumbers[i] != UNREACHABLE)
+            {
+                actorsByLevel[nextPositions[baconNumbers[i]]++] = i;
+            }
+        }
+
+        // THEN COUNT OUTWARD FROM KEVIN BACON, WHO HAS ONE PATH, THE EMPTY ONE
+        for (int level = 0; level <= maxBaconNumber; level++)
+        {
+            for (int i = levelOffsets[level]; i < levelOffsets[level + 1]; i++)
+            {
+                int actor = actorsByLevel[i];
+                long count = (level == 0) ? 1 : 0;
+                int filmsEnd = graphIndex.getFilmsEnd(actor);
+                for (int j = graphIndex.getFilmsStart(actor); j < filmsEnd; j++)
+                {
+                    int film = graphIndex.getFilmAt(j);
+                    if (getFilmBaconNumber(film) == level - 1)
+                    {
+                        count = addPathCounts(count, filmPathCounts[film]);
+                    }
+                }
+                actorPathCounts[actor] = count;
+            }
+
+            // NOW THIS LEVEL'S FILMS HAVE ALL THEIR CLOSEST ACTORS COUNTED
+            for (int i = levelOffsets[level]; i < levelOffsets[level + 1]; i++)
+            {
+                int actor = actorsByLevel[i];
+                int filmsEnd = graphIndex.getFilmsEnd(actor);
+                for (int j = graphIndex.getFilmsStart(actor); j < filmsEnd; j++)
+                {
+                    int film = graphIndex.getFilmAt(j);
+                    if (getFilmBaconNumber(film) == level)
+                    {
+                        filmPathCounts[film] = addPathCounts(filmPathCounts[film], actorPathCounts[actor]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long addPathCounts(long count1, long count2)
+    {
+        long sum = count1 + count2;
+        return (sum < 0) ? MAX_PATH_COUNT : sum;
+    }
+
+    /**
+     * Writes the whole table to the stream in a form readFrom can read back.
+     *
+     * @param out The stream to write to.
+     * @throws IOException Thrown if there is a problem writing.
+     */
+    public void writeTo(DataOutputStream out) throws IOException
+    {
+        out.writeInt(kevinBaconIndex);
+        KevinBaconGraphIndex.writeIntArray(out, baconNumbers);
+        KevinBaconGraphIndex.writeIntArray(out, nextFilms);
+        KevinBaconGraphIndex.writeIntArray(out, nextActors);
+    }
+
+    /**
+     * Reads back a table written by writeTo.
+     *
+     * @param in The data to read, starting at its position, which is
+     * left just after the table.
+     * @param initGraphIndex The graph the table was computed for.
+     * @return The restored table.
+     * @throws IOException Thrown if there is a problem reading.
+     */
+    public static KevinBaconDistanceTable readFrom(KevinBaconMappedInput in,
+            KevinBaconGraphIndex initGraphIndex) throws IOException
+    {
+        int kevinBaconIndex = in.getInt();
+        int[] baconNumbers = KevinBaconGraphIndex.readIntArray(in);
+        int[] nextFilms = KevinBaconGraphIndex.readIntArray(in);
+        int[] nextActors = KevinBaconGraphIndex.readIntArray(in);
+        return new KevinBaconDistanceTable(initGraphIndex, kevinBaconIndex,
+                baconNumbers, nextFilms, nextActors);
+    }
+
+    // ACCESSOR METHODS
+    public int getKevinBaconIndex()                     {   return kevinBaconIndex;                 }
+    public int getBaconNumber(int actorIndex)           {   return baconNumbers[actorIndex];        }
+    public int getNextFilm(int actorIndex)              {   return nextFilms[actorIndex];           }
+    public int getNextActor(int actorIndex)             {   return nextActors[actorIndex];          }
+    public int getClosestActor(int filmIndex)           {   return closestActors[filmIndex];        }
+    public int getActorContinuations(int actorIndex)    {   return actorContinuations[actorIndex];  }
+    public int getFilmContinuations(int filmIndex)      {   return filmContinuations[filmIndex];    }
+    public long getNumShortestPaths(int actorIndex)     {   return actorPathCounts[actorIndex];     }
+    public long getFilmNumShortestPaths(int filmIndex)  {   return filmPathCounts[filmIndex];       }
+
+    /**
+     * Gets the fewest connections to Kevin Bacon from anyone in the film,
+     * which is how close picking the film gets the player.
+     *
+     * @return The film's Bacon number, or UNREACHABLE if no one in the film
+     * can reach Kevin Bacon.
+     */
+    public int getFilmBaconNumber(int filmIndex)
+    {
+        int closestActor = closestActors[filmIndex];
+        return (closestActor < 0) ? UNREACHABLE : baconNumbers[closestActor];
+    }
+
+    /**
+     * Tests to see if the actor can reach Kevin Bacon at all.
+     */
+    public boolean canReachKevinBacon(int actorIndex)
+    {
+        return baconNumbers[actorIndex] != UNREACHABLE;
+    }
+
+    /**
+     * Builds the shortest path from the actor to Kevin Bacon by following
+     * the stored pointers, which takes time proportional to the length of
+     * the path only.
+     *
+     * @param actorIndex The actor to start from.
+     *
+     * @return The connections from the actor to Kevin Bacon, which is empty
+     * if the actor is Kevin Bacon or cannot reach him.
+     */
+    public ArrayList<Connection> getPathToKevinBacon(int actorIndex)
+    {
+        ArrayList<Connection> path = new ArrayList();
+        if (baconNumbers[actorIndex] == UNREACHABLE)
+        {
+            return path;
+        }
+        int currentActor = actorIndex;
+        while (currentActor != kevinBaconIndex)
+        {
+            int nextActor = nextActors[currentActor];
+            Connection c = new Connection(graphIndex.getActor(currentActor).getId(),
+                    graphIndex.getFilm(nextFilms[currentActor]).getId(),
+                    graphIndex.getActor(nextActor).getId());
+            path.add(c);
+            currentActor = nextActor;
+        }
+        return path;
+    }
+
+    /**
+     * Gets every shortest path from the actor to Kevin Bacon, one at a time.
+     * Each path is only built when asked for, so this works no matter how
+     * many there are, and there are getNumShortestPaths of them in all.
+     *
+     * @param actorIndex The actor to start from.
+     * @return An iterator over the paths, which is empty if the actor cannot
+     * reach Kevin Bacon, and has the one empty path if it's Kevin Bacon.
+     */
+    public Iterator<ArrayList<Connection>> shortestPathsIterator(int actorIndex)
+    {
+        return new ShortestPathIterator(actorIndex);
+    }
+
+    /**
+     * ShortestPathIterator walks the shortest paths depth first. For each
+     * step of the path it only remembers which film and which actor it
+     * picked, by their edge positions, so moving to the next path is just a
+     * matter of moving the last step that has another choice on to it, and
+     * starting every step after that over from its first choice.
+     */
+    private class ShortestPathIterator implements Iterator<ArrayList<Connection>>
+    {
+        // THE ACTOR EACH STEP STARTS FROM, AND THEN KEVIN BACON
+        private int[] stepActors;
+
+        // THE EDGES TO THE FILM AND TO THE ACTOR PICKED AT EACH STEP
+        private int[] filmEdges;
+        private int[] actorEdges;
+
+        private boolean hasNextPath;
+
+        ShortestPathIterator(int actorIndex)
+        {
+            hasNextPath = baconNumbers[actorIndex] != UNREACHABLE;
+            int numSteps = hasNextPath ? baconNumbers[actorIndex] : 0;
+            stepActors = new int[numSteps + 1];
+            filmEdges = new int[numSteps];
+            actorEdges = new int[numSteps];
+            stepActors[0] = actorIndex;
+            restartSteps(0);
+        }
+
+        /**
+         * Gives every step from the first one on its first choice. There
+         * always is one, since anyone who can reach Kevin Bacon has a film
+         * one step closer, and every such film has an actor one step closer.
+         */
+        private void restartSteps(int firstStep)
+        {
+            for (int step = firstStep; step < filmEdges.length; step++)
+            {
+                filmEdges[step] = graphIndex.getFilmsStart(stepActors[step]) - 1;
+                nextFilm(step);
+            }
+        }
+
+        /**
+         * Moves the step on to its next film that's one step closer, with the
+         * first of its actors that's one step closer.
+         */
+        private boolean nextFilm(int step)
+        {
+            int closerBaconNumber = baconNumbers[stepActors[step]] - 1;
+            int filmsEnd = graphIndex.getFilmsEnd(stepActors[step]);
+            for (int i = filmEdges[step] + 1; i < filmsEnd; i++)
+            {
+                int film = graphIndex.getFilmAt(i);
+                if (getFilmBaconNumber(film) == closerBaconNumber)
+                {
+                    filmEdges[step] = i;
+                    actorEdges[step] = graphIndex.getActorsStart(film) - 1;
+                    return nextActor(step);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Moves the step on to the next actor in its film that's one step
+         * closer.
+         */
+        private boolean nextActor(int step)
+        {
+            int closerBaconNumber = baconNumbers[stepActors[step]] - 1;
+            int actorsEnd = graphIndex.getActorsEnd(graphIndex.getFilmAt(filmEdges[step]));
+            for (int i = actorEdges[step] + 1; i < actorsEnd; i++)
+            {
+                int actor = graphIndex.getActorAt(i);
+                if (baconNumbers[actor] == closerBaconNumber)
+                {
+                    actorEdges[step] = i;
+                    stepActors[step + 1] = actor;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return hasNextPath;
+        }
+
+        @Override
+        public ArrayList<Connection> next()
+        {
+            if (!hasNextPath)
+            {
+                throw new NoSuchElementException();
+            }
+            ArrayList<Connection> path = new ArrayList();
+            for (int step = 0; step < filmEdges.length; step++)
+            {
+                Connection c = new Connection(graphIndex.getActor(stepActors[step]).getId(),
+                        graphIndex.getFilm(graphIndex.getFilmAt(filmEdges[step])).getId(),
+                        graphIndex.getActor(stepActors[step + 1]).getId());
+                path.add(c);
+            }
+
+            // AND GET READY FOR THE ONE AFTER IT
+            int step = filmEdges.length - 1;
+            while ((step >= 0) && !nextActor(step) && !nextFilm(step))
+            {
+                step--;
+            }
+            if (step < 0)
+            {
+                hasNextPath = false;
+            }
+            else
+            {
+                restartSteps(step + 1);
+            }
+            return path;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
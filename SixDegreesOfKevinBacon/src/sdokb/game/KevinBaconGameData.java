@@ -1,6 +1,7 @@
 package sdokb.game;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -16,6 +17,9 @@ import java.util.Map;
  */
 public class KevinBaconGameData
 {
+    // A GAME ONLY EVER USES A HANDFUL OF ACTORS AND FILMS
+    private static final int INITIAL_USED_CAPACITY = 8;
+
     // THE STARTING ACTOR FOR THIS GAME, THE PLAYER MUST MAKE IT
     // FROM THIS ACTOR TO KEVIN BACON
     private Actor startingActor;
@@ -29,11 +33,22 @@ public class KevinBaconGameData
     
     // THE OPTIMAL PATH AS DETERMINED VIA A BREATH-FIRST SEARCH
     private ArrayList<Connection> shortestPath;
+
+    // HOW MANY DIFFERENT PATHS ARE AS SHORT AS THAT ONE
+    private long numShortestPaths;
     
     // A SORTED MAP OF ALL THE ID GUESSES SO FAR. IT PROVIDES
     // FAST, EASY ACCESS TO USE TO CHECK FOR DUPLICATE GUESSES
     private Map<String,IMDBObject> guessMap;
 
+    // THE SAME GUESSES BY GRAPH INDEX, WHICH IS WHAT THE
+    // REACHABILITY CHECKS USE. THESE ONLY EVER HOLD THE FEW
+    // INDICES USED, NOT ONE BIT FOR EVERY NODE UP TO THEM
+    private int[] usedActors;
+    private int numUsedActors;
+    private int[] usedFilms;
+    private int numUsedFilms;
+
     // AT ANY POINT THE GAME IS EITHER EXPECTING A FILM OR ACTOR
     // FROM THE PLAYER, NEVER BOTH. THIS KEEPS TRACK OF WHICH
     private boolean waitingForFilm;
@@ -55,10 +70,22 @@ public class KevinBaconGameData
     private final long MILLIS_IN_AN_HOUR  = 1000 * 60 * 60;
     
     /*
-     * Construct this object when a game begins.
+     * Construct this object when a game begins. Since only one shortest
+     * path is given, it's the only one counted.
      */
     public KevinBaconGameData(  Actor initStartingActor,
                                 ArrayList<Connection> initShortestPath)
+    {
+        this(initStartingActor, initShortestPath, initShortestPath.isEmpty() ? 0 : 1);
+    }
+
+    /*
+     * Construct this object when a game begins, knowing how many
+     * different shortest paths there are in all.
+     */
+    public KevinBaconGameData(  Actor initStartingActor,
+                                ArrayList<Connection> initShortestPath,
+                                long initNumShortestPaths)
     {
         // INITIALIZE EVERYTHING TO A BRAND NEW GAME, NOTE THAT 
         // THE PATH STARTS OUT AS EMPTY AND A null LAST NODE
@@ -68,6 +95,7 @@ public class KevinBaconGameData
         // KEEP THE STARTING ACTOR AND SHORTEST PATH
         startingActor = initStartingActor;
         shortestPath = initShortestPath;
+        numShortestPaths = initNumShortestPaths;
         
         // FIRST GUESS HAS TO BE A FILM
         waitingForFilm = true;
@@ -79,7 +107,11 @@ public class KevinBaconGameData
         
         // SETUP THE LIST FOR ALL GAME IDS USED IN THE PATH
         guessMap = new HashMap();
-        guessMap.put(startingActor.getId(), startingActor);
+        usedActors = new int[INITIAL_USED_CAPACITY];
+        numUsedActors = 0;
+        usedFilms = new int[INITIAL_USED_CAPACITY];
+        numUsedFilms = 0;
+        addGuessMap(startingActor.getId(), startingActor);
     }
     
     // ACCESSOR METHODS
@@ -87,10 +119,34 @@ public class KevinBaconGameData
     public int getDegrees()                         {   return gamePath.size();     }
     public Iterator<Connection> gamePathIterator()  {   return gamePath.iterator(); }
     public Connection getLastConnection()           {   return lastNode;            }
+    public long getNumShortestPaths()               {   return numShortestPaths;    }
+    public int[] getUsedActors()                    {   return Arrays.copyOf(usedActors, numUsedActors);    }
+    public int[] getUsedFilms()                     {   return Arrays.copyOf(usedFilms, numUsedFilms);      }
     public void addGuessMap(String _id, IMDBObject _obj) {
         guessMap.put(_id, _obj);
+        if (_obj.getIndex() >= 0)
+        {
+            if (_obj instanceof Film)
+            {
+                usedFilms = appendTo(usedFilms, numUsedFilms++, _obj.getIndex());
+            }
+            else
+            {
+                usedActors = appendTo(usedActors, numUsedActors++, _obj.getIndex());
+            }
+        }
     }
     public void setLastConnection(Connection lastConnection) { lastNode = lastConnection; }
+
+    private static int[] appendTo(int[] array, int position, int value)
+    {
+        if (position == array.length)
+        {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[position] = value;
+        return array;
+    }
     
     /**
      * Accessor method for testing to see if Kevin Bacon
@@ -278,6 +334,29 @@ public class KevinBaconGameData
         return text;
     }
     
+    /**
+     * Describes how many perfect routes there were, and if the player found
+     * one of them, like "1 of 37 perfect routes".
+     */
+    public String getPerfectRoutesDescription()
+    {
+        String routesText = "" + numShortestPaths;
+        if (numShortestPaths == KevinBaconDistanceTable.MAX_PATH_COUNT)
+        {
+            routesText = "over " + (numShortestPaths - 1);
+        }
+        String text = routesText + " perfect route";
+        if (numShortestPaths != 1)
+        {
+            text += "s";
+        }
+        if (isPerfectWin())
+        {
+            text = "1 of " + text;
+        }
+        return text;
+    }
+
     public ArrayList<Connection> getGamePath() {
        return gamePath;
     }
@@ -287,7 +366,6 @@ public class KevinBaconGameData
      * @param newConnection
      */
     public void addGamePath(Connection newConnection) {
-        System.out.println("Adding game path " + newConnection.toString());
         gamePath.add(gamePath.size(), newConnection);
     }
     /**
@@ -0,0 +1,17 @@
+package sdokb.game;
+
+/**
+ * KevinBaconGameDifficulty is how hard a game should be for its Bacon
+ * number. Among actors the same number of connections from Kevin Bacon,
+ * the easy third are the ones with the most different shortest paths to
+ * him, and the hard third the ones with the fewest, see
+ * KevinBaconStartSampler.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public enum KevinBaconGameDifficulty
+{
+    EASY,
+    MEDIUM,
+    HARD
+}
@@ -0,0 +1,112 @@
+package sdokb.game;
+
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * KevinBaconGameEngine hosts any number of independent game sessions, all
+ * played on the same graph. The graph must be fully loaded before sessions
+ * start playing, after which it is only ever read, so sessions never have
+ * to wait on each other. The engine knows nothing about how games are
+ * presented, that's up to whatever listens to each session.
+ *
+ * Finding a session by its id counts as using it, so whoever hosts the
+ * engine can end the sessions no one has used in a while with
+ * removeIdleSessions.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconGameEngine
+{
+    // THE ACTOR/FILMS GAME GRAPH DATA STRUCTURE, SHARED BY ALL SESSIONS
+    private KevinBaconGameGraphManager gameGraphManager;
+
+    // ALL THE SESSIONS BEING PLAYED, BY SESSION ID
+    private ConcurrentHashMap<String, KevinBaconGameSession> sessions;
+
+    /**
+     * This constructor sets up an engine with no sessions.
+     *
+     * @param initGameGraphManager The graph all sessions will play on.
+     */
+    public KevinBaconGameEngine(KevinBaconGameGraphManager initGameGraphManager)
+    {
+        gameGraphManager = initGameGraphManager;
+        sessions = new ConcurrentHashMap();
+    }
+
+    // ACCESSOR METHODS
+    public KevinBaconGameGraphManager getGameGraphManager()     {   return gameGraphManager;            }
+    public int getNumSessions()                                 {   return sessions.size();             }
+    public Iterator<KevinBaconGameSession> sessionsIterator()   {   return sessions.values().iterator();}
+
+    /**
+     * Finds the session by its id, marking it as just used.
+     *
+     * @return The session, or null if there is no such session.
+     */
+    public KevinBaconGameSession getSession(String sessionId)
+    {
+        KevinBaconGameSession session = sessions.get(sessionId);
+        if (session != null)
+        {
+            session.touch();
+        }
+        return session;
+    }
+
+    /**
+     * Makes a new session with a unique, hard to guess id. Note that no game
+     * is started until the session's startNewGame is called.
+     *
+     * @return The new session.
+     */
+    public KevinBaconGameSession createSession()
+    {
+        KevinBaconGameSession session;
+        do
+        {
+            session = new KevinBaconGameSession(UUID.randomUUID().toString(), gameGraphManager);
+        } while (sessions.putIfAbsent(session.getSessionId(), session) != null);
+        return session;
+    }
+
+    /**
+     * Removes the session from the engine, after which it can no longer be
+     * found by its id.
+     *
+     * @return The removed session, or null if there was no such session.
+     */
+    public KevinBaconGameSession removeSession(String sessionId)
+    {
+        return sessions.remove(sessionId);
+    }
+
+    /**
+     * Removes every session that hasn't been used in at least the given
+     * time, just like removeSession would.
+     *
+     * @param maxIdleTime How long a session may go unused.
+     * @param unit The unit maxIdleTime is in.
+     * @return How many sessions were removed.
+     */
+    public int removeIdleSessions(long maxIdleTime, TimeUnit unit)
+    {
+        long now = System.nanoTime();
+        long maxIdleNanos = unit.toNanos(maxIdleTime);
+        int numRemoved = 0;
+        Iterator<KevinBaconGameSession> it = sessions.values().iterator();
+        while (it.hasNext())
+        {
+            KevinBaconGameSession session = it.next();
+            if (now - session.getLastUsedTime() >= maxIdleNanos)
+            {
+                it.remove();
+                numRemoved++;
+            }
+        }
+        return numRemoved;
+    }
+}
@@ -1,9 +1,12 @@
 package sdokb.game;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 /**
  * This class manages the data associated with the game graph, including
  * having access to all the Films and all the Actors as well as Kevin Bacon.
+ * Once everything is loaded the graph is compacted into a
+ * KevinBaconGraphIndex, which is what all the path searches walk.
  * 
  * @author Richard McKenna & ____________________
  */
@@ -12,12 +15,52 @@ public class KevinBaconGameGraphManager
     // A SPECIAL ACTOR, STAR OF FOOTLOOSE AND THE RIVER WILD
     public Actor kevinBacon;
 
-    // THIS WILL STORE ALL OF OUR FILM DATA
-    private TreeMap<String, Film> films;
+    // THIS WILL STORE ALL OF OUR FILM DATA WHILE IT'S BEING LOADED,
+    // AFTER WHICH THE GRAPH INDEX HAS IT
+    private HashMap<String, Film> films;
 
-    // THIS WILL STORE ALL OF OUR ACTOR DATA
-    private TreeMap<String, Actor> actors;
-    private ArrayList<String> actorIDs;
+    // THIS WILL STORE ALL OF OUR ACTOR DATA WHILE IT'S BEING LOADED,
+    // AFTER WHICH THE GRAPH INDEX HAS IT
+    private HashMap<String, Actor> actors;
+
+    // THE INTEGER-INDEXED FORM OF THE GRAPH, BUILT ONCE ALL
+    // THE DATA HAS BEEN LOADED, THIS IS WHAT WE WALK
+    private KevinBaconGraphIndex graphIndex;
+
+    // EVERY ACTOR'S BACON NUMBER AND THE WAY TO GET TO HIM, COMPUTED
+    // ONCE AT LOAD TIME SO GAMES CAN START WITHOUT SEARCHING
+    private KevinBaconDistanceTable baconNumbers;
+
+    // WHICH ACTORS CAN REACH WHICH OTHERS AT ALL
+    private KevinBaconComponentIndex components;
+
+    // FOR FINDING PATHS BETWEEN ANY TWO ACTORS
+    private KevinBaconPathFinder pathFinder;
+
+    // FOR FINDING THE NEXT BEST PATHS AFTER THE SHORTEST
+    private KevinBaconKShortestPaths kShortestPaths;
+
+    // FOR QUICKLY ESTIMATING HOW FAR APART ANY TWO ACTORS ARE, AND
+    // THE SETTINGS FOR PICKING ITS LANDMARKS
+    private KevinBaconLandmarkIndex landmarks;
+    private int numLandmarks;
+    private ArrayList<String> landmarkHubIds;
+
+    // FOR CHECKING WHAT CAN STILL REACH KEVIN BACON MID-GAME
+    private KevinBaconReachability reachability;
+
+    // FOR PICKING STARTING ACTORS BY BACON NUMBER AND DIFFICULTY
+    private KevinBaconStartSampler startSampler;
+
+    // FOR QUICK, THOUGH NOT ALWAYS SHORTEST, PATHS TO KEVIN BACON
+    private KevinBaconGreedyPathFinder greedyPathFinder;
+
+    // FOR PUTTING ACTORS AND FILMS IN THE ORDER WE SHOW THEM
+    private KevinBaconDisplayOrder displayOrder;
+
+    // FOR FINDING ACTORS AND FILMS BY NAME, BUILT THE FIRST TIME ANYONE
+    // SEARCHES SINCE THE GAME ITSELF NEVER DOES
+    private KevinBaconSearchIndex searchIndex;
 
     /**
      * This constructor initializes the graph's data structures so
@@ -26,43 +69,324 @@ public class KevinBaconGameGraphManager
     public KevinBaconGameGraphManager()
     {
         // CONSTRUCT OUR GRAPH DATA STRUCTURES
-        films = new TreeMap();
-        actors = new TreeMap();        
-        actorIDs = new ArrayList();
+        films = new HashMap();
+        actors = new HashMap();        
+        graphIndex = null;
+        baconNumbers = null;
+        components = null;
+        pathFinder = null;
+        kShortestPaths = null;
+        landmarks = null;
+        numLandmarks = KevinBaconLandmarkIndex.DEFAULT_NUM_LANDMARKS;
+        landmarkHubIds = new ArrayList();
+        reachability = null;
+        startSampler = null;
+        greedyPathFinder = null;
+        displayOrder = null;
+        searchIndex = null;
     }
 
     // ACCESSOR METHODS
     
-    public Actor getKevinBacon()            {   return kevinBacon;              }    
-    public Actor getActor(String actorID)   {   return actors.get(actorID);     }
-    public Film getFilm(String filmID)      {   return films.get(filmID);       }
+    public Actor getKevinBacon()                    {   return kevinBacon;              }    
+    public KevinBaconGraphIndex getGraphIndex()     {   return graphIndex;              }
+    public KevinBaconDistanceTable getBaconNumbers(){   return baconNumbers;            }
+    public KevinBaconComponentIndex getComponents() {   return components;              }
+    public KevinBaconStartSampler getStartSampler() {   return startSampler;            }
+    public KevinBaconLandmarkIndex getLandmarks()   {   return landmarks;               }
+    public KevinBaconDisplayOrder getDisplayOrder() {   return displayOrder;            }
+
+    /**
+     * Gets the actor with the id. Once the graph is built that's a binary
+     * search of the graph index, before then a look in what's been loaded.
+     *
+     * @return The actor, or null if there's no actor with the id.
+     */
+    public Actor getActor(String actorID)
+    {
+        if (graphIndex == null)
+        {
+            return actors.get(actorID);
+        }
+        int actorIndex = graphIndex.getActorIndex(actorID);
+        return (actorIndex < 0) ? null : graphIndex.getActor(actorIndex);
+    }
+
+    /**
+     * Gets the film with the id, the same way as getActor.
+     *
+     * @return The film, or null if there's no film with the id.
+     */
+    public Film getFilm(String filmID)
+    {
+        if (graphIndex == null)
+        {
+            return films.get(filmID);
+        }
+        int filmIndex = graphIndex.getFilmIndex(filmID);
+        return (filmIndex < 0) ? null : graphIndex.getFilm(filmIndex);
+    }
+
+    /**
+     * Sets how the landmarks are picked the next time the graph is built,
+     * see KevinBaconLandmarkIndex.pickLandmarks.
+     *
+     * @param initNumLandmarks How many landmarks there should be.
+     * @param initLandmarkHubIds Ids of actors that should be landmarks.
+     */
+    public void setLandmarkSettings(int initNumLandmarks, ArrayList<String> initLandmarkHubIds)
+    {
+        numLandmarks = initNumLandmarks;
+        landmarkHubIds = new ArrayList(initLandmarkHubIds);
+    }
+
+    /**
+     * Picks the landmarks the current settings call for in the graph.
+     *
+     * @param pickFrom The graph to pick them from.
+     * @param kevinBaconIndex Kevin Bacon's index in it, or -1 if he's not.
+     * @return The landmarks' actor indices.
+     */
+    public int[] pickLandmarks(KevinBaconGraphIndex pickFrom, int kevinBaconIndex)
+    {
+        return KevinBaconLandmarkIndex.pickLandmarks(pickFrom, kevinBaconIndex, landmarkHubIds, numLandmarks);
+    }
 
     /*
      * This method returns an Iterator that can be used to access all
-     * Films in this graph.
+     * Films in this graph, in id order.
      */
     public Iterator<Map.Entry<String, Film>> filmsIterator()
     {
-        return films.entrySet().iterator();
+        return new Iterator<Map.Entry<String, Film>>()
+        {
+            private int filmIndex = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return (graphIndex != null) && (filmIndex < graphIndex.getNumFilms());
+            }
+
+            @Override
+            public Map.Entry<String, Film> next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                Film film = graphIndex.getFilm(filmIndex++);
+                return new AbstractMap.SimpleImmutableEntry(film.getId(), film);
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 
     /*
      * This method returns an Iterator that can be used to access all
-     * Actors in this graph.
+     * Actors in this graph, in id order.
      */
     public Iterator<Map.Entry<String, Actor>> actorsIterator()
     {
-        return actors.entrySet().iterator();
+        return new Iterator<Map.Entry<String, Actor>>()
+        {
+            private int actorIndex = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return (graphIndex != null) && (actorIndex < graphIndex.getNumActors());
+            }
+
+            @Override
+            public Map.Entry<String, Actor> next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                Actor actor = graphIndex.getActor(actorIndex++);
+                return new AbstractMap.SimpleImmutableEntry(actor.getId(), actor);
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
     
     /**
      * Picks a random actor from the graph, used for picking the starting actor.
+     * Only actors that can reach Kevin Bacon, other than Kevin Bacon himself,
+     * are picked, so every game can be won. Since his component's actors are
+     * all stored together this is just one random number, no searching. If
+     * no one can reach him, or he isn't in the data, anyone may be picked.
      */
     public Actor pickRandomActor()
     {
-        int randomIndex = (int)(actors.size() * Math.random());
-        String randomId = actorIDs.get(randomIndex);
-        return actors.get(randomId);
+        if (kevinBacon != null)
+        {
+            int baconComponent = components.getComponent(kevinBacon.getIndex());
+            int numOthers = components.getComponentSize(baconComponent) - 1;
+            if (numOthers > 0)
+            {
+                // PICK FROM ALL BUT THE LAST POSITION, AND IF THAT'S KEVIN
+                // BACON USE THE LAST ONE IN HIS PLACE, WHICH KEEPS IT UNIFORM
+                int randomPosition = (int)(numOthers * Math.random());
+                int actorIndex = components.getComponentActor(baconComponent, randomPosition);
+                if (actorIndex == kevinBacon.getIndex())
+                {
+                    actorIndex = components.getComponentActor(baconComponent, numOthers);
+                }
+                return graphIndex.getActor(actorIndex);
+            }
+        }
+        int randomIndex = (int)(graphIndex.getNumActors() * Math.random());
+        return graphIndex.getActor(randomIndex);
+    }
+
+    /**
+     * Picks a random starting actor for a game with the Bacon number and
+     * difficulty, which takes constant time no matter how big the graph is.
+     *
+     * @param baconNumber How many connections the game should take.
+     * @param difficulty How hard the game should be for that many.
+     * @return The actor, or null if there is no such actor.
+     */
+    public Actor pickRandomActor(int baconNumber, KevinBaconGameDifficulty difficulty)
+    {
+        if (startSampler == null)
+        {
+            return null;
+        }
+        int actorIndex = startSampler.pickActor(baconNumber, difficulty, ThreadLocalRandom.current());
+        if (actorIndex < 0)
+        {
+            return null;
+        }
+        return graphIndex.getActor(actorIndex);
+    }
+
+    /**
+     * Builds the graph index, initializes Kevin Bacon, and computes everyone's
+     * Bacon number and distances to the landmarks. This can only be done
+     * after all actor and film data has been loaded from the files.
+     */
+    public void initGraph()
+    {
+        graphIndex = new KevinBaconGraphIndex(actors, films);
+
+        // THE GRAPH INDEX HAS EVERYTHING NOW, SO DON'T KEEP IT TWICE
+        actors.clear();
+        films.clear();
+        components = new KevinBaconComponentIndex(graphIndex);
+        initKevinBacon();
+        landmarks = new KevinBaconLandmarkIndex(graphIndex,
+                pickLandmarks(graphIndex, (kevinBacon == null) ? -1 : kevinBacon.getIndex()));
+        pathFinder = new KevinBaconPathFinder(graphIndex, landmarks);
+        if (kevinBacon != null)
+        {
+            baconNumbers = new KevinBaconDistanceTable(graphIndex, kevinBacon.getIndex());
+            reachability = new KevinBaconReachability(graphIndex, baconNumbers);
+            startSampler = new KevinBaconStartSampler(graphIndex, baconNumbers);
+            greedyPathFinder = new KevinBaconGreedyPathFinder(graphIndex, baconNumbers);
+        }
+        kShortestPaths = new KevinBaconKShortestPaths(graphIndex, baconNumbers);
+        displayOrder = new KevinBaconDisplayOrder(graphIndex);
+        searchIndex = null;
+    }
+
+    /**
+     * Sets up the graph from an index, Bacon number table, landmark index,
+     * and display order that were built earlier and saved, rather than from
+     * loaded file data. Note that the table may be null if there was no
+     * Kevin Bacon in the data.
+     *
+     * @param savedGraphIndex The restored graph index.
+     * @param savedBaconNumbers The restored Bacon numbers.
+     * @param savedLandmarks The restored landmark index, or null to build a
+     * new one.
+     * @param savedDisplayOrder The restored display order, or null to build
+     * a new one.
+     */
+    public void initGraph(KevinBaconGraphIndex savedGraphIndex,
+            KevinBaconDistanceTable savedBaconNumbers,
+            KevinBaconLandmarkIndex savedLandmarks,
+            KevinBaconDisplayOrder savedDisplayOrder)
+    {
+        films.clear();
+        actors.clear();
+        graphIndex = savedGraphIndex;
+        components = new KevinBaconComponentIndex(graphIndex);
+        initKevinBacon();
+        landmarks = savedLandmarks;
+        if (landmarks == null)
+        {
+            landmarks = new KevinBaconLandmarkIndex(graphIndex,
+                    pickLandmarks(graphIndex, (kevinBacon == null) ? -1 : kevinBacon.getIndex()));
+        }
+        pathFinder = new KevinBaconPathFinder(graphIndex, landmarks);
+        baconNumbers = savedBaconNumbers;
+        reachability = null;
+        startSampler = null;
+        greedyPathFinder = null;
+        if (baconNumbers != null)
+        {
+            reachability = new KevinBaconReachability(graphIndex, baconNumbers);
+            startSampler = new KevinBaconStartSampler(graphIndex, baconNumbers);
+            greedyPathFinder = new KevinBaconGreedyPathFinder(graphIndex, baconNumbers);
+        }
+        kShortestPaths = new KevinBaconKShortestPaths(graphIndex, baconNumbers);
+        displayOrder = savedDisplayOrder;
+        if (displayOrder == null)
+        {
+            displayOrder = new KevinBaconDisplayOrder(graphIndex);
+        }
+        searchIndex = null;
+    }
+
+    /**
+     * Gets the fewest number of connections needed to get from the actor
+     * to Kevin Bacon.
+     *
+     * @return The actor's Bacon number, or KevinBaconDistanceTable.UNREACHABLE
+     * if there is no path.
+     */
+    public int getBaconNumber(Actor actor)
+    {
+        if (baconNumbers == null)
+        {
+            return KevinBaconDistanceTable.UNREACHABLE;
+        }
+        return baconNumbers.getBaconNumber(actor.getIndex());
+    }
+
+    /**
+     * Gets how many ways there are to take the next step along a shortest
+     * path to Kevin Bacon from the actor or film, ignoring anything already
+     * used in a game. For an actor that's how many of their films have
+     * someone closer, for a film how many of its actors are its closest.
+     *
+     * @return The number of ways, 0 if it can't reach Kevin Bacon.
+     */
+    public int getShortestContinuations(IMDBObject actorOrFilm)
+    {
+        if ((baconNumbers == null) || (actorOrFilm.getIndex() < 0))
+        {
+            return 0;
+        }
+        if (actorOrFilm instanceof Film)
+        {
+            return baconNumbers.getFilmContinuations(actorOrFilm.getIndex());
+        }
+        return baconNumbers.getActorContinuations(actorOrFilm.getIndex());
     }
 
     /**
@@ -71,7 +395,7 @@ public class KevinBaconGameGraphManager
      */
     public void initKevinBacon()
     {
-        kevinBacon = actors.get("nm0000102");
+        kevinBacon = getActor("nm0000102");
     }
     
     /**
@@ -79,7 +403,7 @@ public class KevinBaconGameGraphManager
      */
     public boolean wasKevinBaconInFilm(String testFilmId)
     {
-        Film testFilm = films.get(testFilmId);
+        Film testFilm = getFilm(testFilmId);
         return testFilm.wasActorInFilm(kevinBacon.getId());
     }
 
@@ -89,7 +413,6 @@ public class KevinBaconGameGraphManager
     public void addActor(Actor actorToAdd)
     {
         actors.put(actorToAdd.getId(), actorToAdd);
-        actorIDs.add(actorToAdd.getId());
     }
     
     /**
@@ -109,18 +432,20 @@ public class KevinBaconGameGraphManager
     public ArrayList<Connection> getAllNeighbors(String actorID)
     {
         ArrayList<Connection> connections = new ArrayList();
-        Actor actor = actors.get(actorID);
-        for (int i = 0; i < actor.getFilmIDs().size(); i++)
+        int actorIndex = getActor(actorID).getIndex();
+        int filmsEnd = graphIndex.getFilmsEnd(actorIndex);
+        for (int i = graphIndex.getFilmsStart(actorIndex); i < filmsEnd; i++)
         {
-            String filmID = actor.getFilmIDs().get(i);
-            Film film = films.get(filmID);
-            for (int j = 0; j < film.getActorIDs().size(); j++)
+            int filmIndex = graphIndex.getFilmAt(i);
+            String filmID = graphIndex.getFilm(filmIndex).getId();
+            int actorsEnd = graphIndex.getActorsEnd(filmIndex);
+            for (int j = graphIndex.getActorsStart(filmIndex); j < actorsEnd; j++)
             {
-                String actorID2 = film.getActorIDs().get(j);
-                if (!actorID2.equals(actorID))
+                int actorIndex2 = graphIndex.getActorAt(j);
+                if (actorIndex2 != actorIndex)
                 {
                     Connection connection;
-                    connection = new Connection(filmID, actorID, actorID2);
+                    connection = new Connection(actorID, filmID, graphIndex.getActor(actorIndex2).getId());
                     connections.add(connection);
                 }
             }
@@ -137,8 +462,8 @@ public class KevinBaconGameGraphManager
         ArrayList<Connection> path = new ArrayList();
         for (int i = 0; i < filmIDs.size(); i++)
         {
-            Connection c = new Connection(filmIDs.get(i),
-                    actorIDs.get(i),
+            Connection c = new Connection(actorIDs.get(i),
+                    filmIDs.get(i),
                     actorIDs.get(i + 1));
             path.add(c);
         }
@@ -168,7 +493,7 @@ public class KevinBaconGameGraphManager
         while (!actorIDsInPath.isEmpty())
         {
             String lastActorID = actorIDsInPath.get(actorIDsInPath.size() - 1);
-            Actor lastActor = actors.get(lastActorID);
+            Actor lastActor = getActor(lastActorID);
 
             // GET ALL FILMS FOR lastActor
             ArrayList<Connection> neighbors = getAllNeighbors(lastActorID);
@@ -182,7 +507,7 @@ public class KevinBaconGameGraphManager
                 Connection c = it.next();
                 if (c.hasActor(kevinBacon.getId()))
                 {
-                    Film filmForPath = films.get(c.getFilmId());
+                    Film filmForPath = getFilm(c.getFilmId());
                     filmIDsInPath.add(c.getFilmId());
                     actorIDsInPath.add(kevinBacon.getId());
                     ArrayList<Connection> path = generatePath(actorIDsInPath, filmIDsInPath);
@@ -216,7 +541,10 @@ public class KevinBaconGameGraphManager
             if (neighbors.isEmpty())
             {
                 actorIDsInPath.remove(actorIDsInPath.size() - 1);
-                filmIDsInPath.remove(filmIDsInPath.size() - 1);
+                if (!filmIDsInPath.isEmpty())
+                {
+                    filmIDsInPath.remove(filmIDsInPath.size() - 1);
+                }
             } else
             {
                 Connection c = neighbors.get(0);
@@ -228,105 +556,247 @@ public class KevinBaconGameGraphManager
         }
         return new ArrayList();
     }
+
+    /**
+     * Finds a quick path from the actor to Kevin Bacon by a depth first
+     * search that always tries the most promising co-star next, see
+     * KevinBaconGreedyPathFinder. Like findPathToKevinBacon the path need
+     * not be the shortest, but it is found in close to linear time.
+     *
+     * @param actor The actor the path starts at.
+     * @param heuristic Which co-stars to try first.
+     * @return The connections from the actor to Kevin Bacon, which is empty
+     * if there is no path.
+     */
+    public ArrayList<Connection> findPathToKevinBacon(Actor actor, KevinBaconPathHeuristic heuristic)
+    {
+        // NO KEVIN BACON, NO PATH
+        if (greedyPathFinder == null)
+        {
+            return new ArrayList();
+        }
+        return greedyPathFinder.findPathToKevinBacon(actor.getIndex(), heuristic);
+    }
     
    /**
      * This method does the same thing as the other path finding
-     * algorithm, except this one finds the optimal path. The easiest 
-     * way to do this is with a breadth first search algorithm.
+     * algorithm, except this one finds the optimal path. All the searching
+     * was already done by the breadth first search that built the Bacon
+     * number table, so this just follows its pointers.
      */
     public ArrayList<Connection> findShortestPathToKevinBacon(Actor actor)
     {
-	// WE'LL MAINTAIN A SHORTEST PATH FROM THE
-        // STARTING ACTOR TO EACH ACTOR WE ENCOUNTER
-        TreeMap<String, ArrayList<Connection>> shortestPaths;
-        shortestPaths = new TreeMap();
-
-        // THIS WILL STORE THE PATH WE ARE CURRENTLY
-        // BUILDING UPON
-        ArrayList<Connection> currentPath;
-
-	// WE ARE USING A BREADTH FIRST SEARCH, AND
-        // WE'LL ONLY CHECK EACH Actor AND Film ONCE
-        // WE ARE USING 2 DATA STRUCTURES FOR EACH
-        // BECAUSE WE WILL USE ONE AS A LIST OF 
-        // ITEMS TO CHECK IN ORDER, AND ANOTHER
-        // FOR FAST SEARCHING
-        ArrayList<Actor> actorsVisited = new ArrayList();
-        TreeMap<String, Actor> actorsVisitedFast = new TreeMap();
-        ArrayList<Film> filmsVisited = new ArrayList();
-        TreeMap<String, Film> filmsVisitedFast = new TreeMap();
-
-        // INDEX OF Actors AND Films TO CHECK
-        int actorIndex = 0;
-        int filmIndex = 0;
-
-	// THE SHORTEST PATH FROM THE START ACTOR
-        // TO THE START ACTOR IS NOTHING, SO WE'll
-        // START OUT WITH AN EMPTY ArrayList
-        actorsVisited.add(actor);
-        actorsVisitedFast.put(actor.getId(), actor);
-        shortestPaths.put(actor.getId(), new ArrayList<Connection>());
-
-	// GO THROUGH ALL THE ACTORS WE HAVE REACHED
-        // NEVER RE-VISITING AN ACTOR
-        while (actorIndex < actorsVisited.size())
+        // NO KEVIN BACON, NO PATH
+        if (baconNumbers == null)
+        {
+            return new ArrayList();
+        }
+        return baconNumbers.getPathToKevinBacon(actor.getIndex());
+    }
+
+    /**
+     * Gets how many different shortest paths there are from the actor to
+     * Kevin Bacon, any of which would be a perfect win.
+     *
+     * @return The number of paths, which stops at
+     * KevinBaconDistanceTable.MAX_PATH_COUNT, and is 0 if there are none.
+     */
+    public long getNumShortestPaths(Actor actor)
+    {
+        if (baconNumbers == null)
+        {
+            return 0;
+        }
+        return baconNumbers.getNumShortestPaths(actor.getIndex());
+    }
+
+    /**
+     * Gets every shortest path from the actor to Kevin Bacon, building each
+     * one only when it's asked for.
+     */
+    public Iterator<ArrayList<Connection>> shortestPathsIterator(Actor actor)
+    {
+        if (baconNumbers == null)
+        {
+            return Collections.emptyIterator();
+        }
+        return baconNumbers.shortestPathsIterator(actor.getIndex());
+    }
+
+   /**
+     * This method finds the optimal path between any two actors, not just
+     * to Kevin Bacon. It searches outward from both actors at once and
+     * stops as soon as the two searches meet, or as soon as the landmarks
+     * show their path is as short as any.
+     *
+     * @return The connections from the from actor to the to actor, which
+     * is empty if they are the same actor or are not connected.
+     */
+    public ArrayList<Connection> findShortestPath(Actor from, Actor to)
+    {
+        return pathFinder.findShortestPath(from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * Gets exactly how many connections apart two actors are.
+     *
+     * @return The number of connections, or KevinBaconDistanceTable.UNREACHABLE
+     * if they are not connected.
+     */
+    public int getDistance(Actor from, Actor to)
+    {
+        return pathFinder.getDistance(from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * Gets a number of connections two actors can't be any closer than,
+     * straight from the landmarks, without searching.
+     *
+     * @return The lower bound, or KevinBaconDistanceTable.UNREACHABLE if
+     * they're known not to be connected.
+     */
+    public int getDistanceLowerBound(Actor from, Actor to)
+    {
+        return landmarks.getLowerBound(from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * Gets a number of connections two actors are known to be within,
+     * straight from the landmarks, without searching.
+     *
+     * @return The upper bound, or KevinBaconDistanceTable.UNREACHABLE if no
+     * landmark reaches both.
+     */
+    public int getDistanceUpperBound(Actor from, Actor to)
+    {
+        return landmarks.getUpperBound(from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * Gets the paths from one actor to another, shortest first, with no
+     * actor or film used twice in any of them. Each path is only found when
+     * it's asked for, so taking just the first few is cheap.
+     *
+     * @return An iterator over the paths, which is empty if the actors are
+     * not connected.
+     */
+    public Iterator<ArrayList<Connection>> kShortestPathsIterator(Actor from, Actor to)
+    {
+        return kShortestPaths.pathsIterator(from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * Finds the k best paths from one actor to another, with no actor or
+     * film used twice in any of them.
+     *
+     * @return The paths, shortest first, which may be fewer than k if
+     * there aren't that many.
+     */
+    public ArrayList<ArrayList<Connection>> findKShortestPaths(Actor from, Actor to, int k)
+    {
+        ArrayList<ArrayList<Connection>> paths = new ArrayList();
+        Iterator<ArrayList<Connection>> it = kShortestPathsIterator(from, to);
+        while ((paths.size() < k) && it.hasNext())
+        {
+            paths.add(it.next());
+        }
+        return paths;
+    }
+
+    /**
+     * Finds the k best paths from the actor to Kevin Bacon, the first of
+     * which is a perfect win and the rest the next best alternatives.
+     */
+    public ArrayList<ArrayList<Connection>> findKShortestPathsToKevinBacon(Actor actor, int k)
+    {
+        if (kevinBacon == null)
         {
-            // FIRST GET ALL THE MOVIES FOR THE
-            // ACTOR AT THE actorIndex
-            Actor currentActor = actorsVisited.get(actorIndex);
+            return new ArrayList();
+        }
+        return findKShortestPaths(actor, kevinBacon, k);
+    }
 
-            // MAKE THE SHORTEST PATH FOR THE CURRENT
-            // ACTOR THE CURRENT PATH, SINCE WE WILL
-            // BUILD ON IT
-            currentPath = shortestPaths.get(currentActor.getId());
+    /**
+     * Gets the index for finding actors and films by name, building it the
+     * first time it's needed.
+     */
+    public synchronized KevinBaconSearchIndex getSearchIndex()
+    {
+        if (searchIndex == null)
+        {
+            searchIndex = new KevinBaconSearchIndex(graphIndex);
+        }
+        return searchIndex;
+    }
 
-            Iterator<String> itFilmIDs = currentActor.getFilmIDs().iterator();
-            while (itFilmIDs.hasNext())
+    /**
+     * Finds the actors and films anywhere in the graph best matching the
+     * query, ignoring case and accents and allowing for typos in longer
+     * queries, see KevinBaconSearchIndex.
+     *
+     * @param query What to look for.
+     * @param maxResults The most actors and films to find.
+     * @return The actors and films found, best first.
+     */
+    public ArrayList<IMDBObject> search(String query, int maxResults)
+    {
+        return getSearchIndex().search(query, maxResults);
+    }
+
+    /**
+     * Works out, for each of the ids the player may pick next in the game,
+     * how many more connections it would take to get to Kevin Bacon after
+     * picking it, without reusing any actor or film already guessed. The
+     * ids are films if the game is waiting for a film and actors otherwise.
+     *
+     * @return The distances, in the same order as the ids, with
+     * KevinBaconDistanceTable.UNREACHABLE for any id that is a dead end.
+     */
+    public int[] getCandidateDistances(KevinBaconGameData game, ArrayList<String> candidateIds)
+    {
+        int[] distances = new int[candidateIds.size()];
+        Arrays.fill(distances, KevinBaconDistanceTable.UNREACHABLE);
+        if (reachability == null)
+        {
+            return distances;
+        }
+        // LOOK THEM ALL UP, CHECKING ANY THAT ARE IN THE GRAPH AT ONCE
+        int[] indices = new int[distances.length];
+        int[] positions = new int[distances.length];
+        int numIndices = 0;
+        for (int i = 0; i < distances.length; i++)
+        {
+            IMDBObject candidate;
+            if (game.isWaitingForFilm())
             {
-                String filmID = itFilmIDs.next();
-                Film film = films.get(filmID);
-                if (!filmsVisitedFast.containsKey(filmID))
-                {
-                    filmsVisited.add(film);
-                    filmsVisitedFast.put(film.getId(), film);
-                }
+                candidate = getFilm(candidateIds.get(i));
             }
-
-            while (filmIndex < filmsVisited.size())
+            else
             {
-		// NOW GO THROUGH THE FILMS AND GET
-                // ALL THE ACTORS WHO WERE IN THOSE
-                // FILMS, DO NOT GET ACTORS ALREADY
-                // VISITED
-                Film currentFilm = filmsVisited.get(filmIndex);
-                Iterator<String> itActorIDs = currentFilm.getActorIDs().iterator();
-                while (itActorIDs.hasNext())
-                {
-                    String actorID = itActorIDs.next();
-                    Actor actorToTest = actors.get(actorID);
-                    if (!actorsVisitedFast.containsKey(actorID))
-                    {
-                        actorsVisited.add(actorToTest);
-                        actorsVisitedFast.put(actorID, actorToTest);
-                        ArrayList<Connection> actorPath;
-                        actorPath = (ArrayList<Connection>) currentPath.clone();
-                        Connection c = new Connection(currentFilm.getId(),
-                                currentActor.getId(),
-                                actorToTest.getId());
-                        actorPath.add(c);
-                        shortestPaths.put(actorID, actorPath);
-
-                        // IF THIS IS KEVIN BACON WE'RE DONE
-                        if (actorID.equals(kevinBacon.getId()))
-                        {
-                            return actorPath;
-                        }
-                    }
-                }
-                filmIndex++;
+                candidate = getActor(candidateIds.get(i));
+            }
+            if (candidate != null)
+            {
+                indices[numIndices] = candidate.getIndex();
+                positions[numIndices++] = i;
             }
-            actorIndex++;
         }
-        return new ArrayList();
+        indices = Arrays.copyOf(indices, numIndices);
+        int[] indexDistances;
+        if (game.isWaitingForFilm())
+        {
+            indexDistances = reachability.getDistancesThroughFilms(indices, game.getUsedActors(), game.getUsedFilms());
+        }
+        else
+        {
+            indexDistances = reachability.getDistancesFromActors(indices, game.getUsedActors(), game.getUsedFilms());
+        }
+
+        // AND PUT THEM WITH THEIR IDS
+        for (int i = 0; i < numIndices; i++)
+        {
+            distances[positions[i]] = indexDistances[i];
+        }
+        return distances;
     }
 }
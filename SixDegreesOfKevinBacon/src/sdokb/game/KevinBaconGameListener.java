@@ -0,0 +1,46 @@
+package sdokb.game;
+
+import java.util.ArrayList;
+
+/**
+ * KevinBaconGameListener is told about everything that happens in a game
+ * session, which is how a presentation of the game, like the Swing UI, keeps
+ * itself up to date. Note that listeners are called while the session is
+ * locked, so they may safely ask the session about its state, but they
+ * should not block.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public interface KevinBaconGameListener
+{
+    /**
+     * Called when a new game has been started in the session.
+     */
+    public void gameStarted(KevinBaconGameSession session);
+
+    /**
+     * Called whenever the ids the player may pick from next change, either
+     * because a game started or because a guess was accepted. The session
+     * is waiting for a film if the ids are films, otherwise they are actors,
+     * and how far each one leaves the player from Kevin Bacon is already
+     * available from the session's getCandidateDistances.
+     */
+    public void candidatesChanged(KevinBaconGameSession session, ArrayList<String> candidateIds);
+
+    /**
+     * Called when a guessed actor completes a connection, which has been
+     * added to the game path and is still the session game's last connection.
+     */
+    public void connectionMade(KevinBaconGameSession session, Connection connection);
+
+    /**
+     * Called when the game ends, either in a win or at a dead end.
+     */
+    public void gameOver(KevinBaconGameSession session);
+
+    /**
+     * Called when an unfinished game is ended as a loss because the player
+     * started a new one.
+     */
+    public void gameQuit(KevinBaconGameSession session);
+}
@@ -0,0 +1,521 @@
+package sdokb.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import sdokb.game.KevinBaconGameStateManager.KevinBaconGameState;
+
+/**
+ * KevinBaconGameSession is one player's series of games. It has the game in
+ * progress, the history of completed games, and everything needed to process
+ * guesses, but no presentation at all. Anything that wants to show the game
+ * registers as a KevinBaconGameListener.
+ *
+ * All sessions share the same graph, which is never changed once loaded, so
+ * any number of sessions can be played at once. All the methods of a session
+ * are synchronized, so a single session may also be used from many threads.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconGameSession
+{
+    // IDENTIFIES THIS SESSION WITHIN ITS ENGINE
+    private String sessionId;
+
+    // THIS IS THE STATE FOR THE GAME IN PROGRESS
+    private KevinBaconGameState currentGameState;
+
+    // THIS IS THE GAME CURRENTLY BEING PLAYED
+    private KevinBaconGameData gameInProgress;
+
+    // THE LAST ACTOR GUESSED, THE NEXT CONNECTION STARTS HERE
+    private String lastActorId;
+
+    // THE IDS THE PLAYER MAY PICK FROM NEXT
+    private ArrayList<String> candidateIds;
+
+    // HOW MANY MORE CONNECTIONS TO KEVIN BACON AFTER PICKING EACH
+    // CANDIDATE, IN THE SAME ORDER, UNREACHABLE FOR DEAD ENDS
+    private int[] candidateDistances;
+
+    // HOLDS ALL OF THE COMPLETED GAMES. NOTE THAT THE GAME
+    // IN PROGRESS IS NOT ADDED UNTIL IT IS COMPLETED
+    private ArrayList<KevinBaconGameData> gamesHistory;
+
+    private Map<String, Integer> gameHistoryStats;
+
+    // THE ACTOR/FILMS GAME GRAPH DATA STRUCTURE, SHARED BY ALL SESSIONS
+    private KevinBaconGameGraphManager gameGraphManager;
+
+    // EVERYONE WHO NEEDS TO KNOW WHEN THE GAME CHANGES
+    private CopyOnWriteArrayList<KevinBaconGameListener> listeners;
+
+    // WHEN THIS SESSION WAS LAST USED, IN System.nanoTime TERMS, SO
+    // SESSIONS NO ONE IS PLAYING ANYMORE CAN BE FOUND AND ENDED
+    private volatile long lastUsedTime;
+
+    /**
+     * This constructor initializes the session for use, but does not start a
+     * game.
+     *
+     * @param initSessionId The id for this session.
+     * @param initGameGraphManager The graph all games will be played on.
+     */
+    public KevinBaconGameSession(String initSessionId,
+            KevinBaconGameGraphManager initGameGraphManager)
+    {
+        sessionId = initSessionId;
+        gameGraphManager = initGameGraphManager;
+
+        // WE HAVE NOT STARTED A GAME YET
+        currentGameState = KevinBaconGameState.GAME_NOT_STARTED;
+        gameInProgress = null;
+        lastActorId = null;
+        candidateIds = new ArrayList();
+        candidateDistances = new int[0];
+
+        // NO GAMES HAVE BEEN PLAYED YET, BUT INITIALIZE
+        // THE DATA STRCUTURE FOR PLACING COMPLETED GAMES
+        gamesHistory = new ArrayList();
+        gameHistoryStats = new HashMap();
+        gameHistoryStats.put("total", 0);
+        gameHistoryStats.put("losses", 0);
+        gameHistoryStats.put("wins", 0);
+        gameHistoryStats.put("perfect_wins", 0);
+
+        listeners = new CopyOnWriteArrayList();
+        lastUsedTime = System.nanoTime();
+    }
+
+    // ACCESSOR METHODS
+    public String getSessionId()                                        {   return sessionId;                               }
+    public KevinBaconGameGraphManager getGameGraphManager()             {   return gameGraphManager;                        }
+    public long getLastUsedTime()                                       {   return lastUsedTime;                            }
+    public void touch()                                                 {   lastUsedTime = System.nanoTime();               }
+    public synchronized KevinBaconGameData getGameInProgress()          {   return gameInProgress;                          }
+    public synchronized KevinBaconGameState getGameState()              {   return currentGameState;                        }
+    public synchronized int getNumGamesPlayed()                         {   return gamesHistory.size();                     }
+    public synchronized int getNumGamesWon()                            {   return gameHistoryStats.get("wins");            }
+    public synchronized int getNumPerfectWins()                         {   return gameHistoryStats.get("perfect_wins");    }
+    public synchronized int getNumGamesLost()                           {   return gameHistoryStats.get("losses");          }
+
+    public synchronized Iterator<KevinBaconGameData> getGamesHistoryIterator()
+    {
+        return gamesHistory.iterator();
+    }
+
+    /**
+     * Gets a copy of all the completed games, which unlike the iterator
+     * is safe to use while other threads keep playing this session.
+     */
+    public synchronized ArrayList<KevinBaconGameData> getGamesHistory()
+    {
+        return new ArrayList(gamesHistory);
+    }
+
+    /**
+     * Gets a copy of just some of the completed games, in the order they
+     * were played, so a page of them costs the same however many there are.
+     *
+     * @param fromIndex The history index of the first game to get.
+     * @param toIndex The history index just after the last game to get.
+     */
+    public synchronized ArrayList<KevinBaconGameData> getGamesHistory(int fromIndex, int toIndex)
+    {
+        return new ArrayList(gamesHistory.subList(fromIndex, toIndex));
+    }
+
+    /**
+     * Gets a copy of the ids the player may pick from next, which are films
+     * if the game is waiting for a film and actors otherwise. This is empty
+     * if no game is in progress.
+     */
+    public synchronized ArrayList<String> getCandidateIds()
+    {
+        return new ArrayList(candidateIds);
+    }
+
+    /**
+     * Gets how many more connections it would take to reach Kevin Bacon
+     * after picking each candidate, in the same order as getCandidateIds,
+     * without reusing anything already in the game. A candidate that can no
+     * longer reach him is KevinBaconDistanceTable.UNREACHABLE, and picking
+     * it dooms the game.
+     */
+    public synchronized int[] getCandidateDistances()
+    {
+        return candidateDistances.clone();
+    }
+
+    /**
+     * Tests to see if any candidate can still reach Kevin Bacon.
+     */
+    public synchronized boolean isKevinBaconReachable()
+    {
+        for (int distance : candidateDistances)
+        {
+            if (distance != KevinBaconDistanceTable.UNREACHABLE)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a hint for the next guess, which is all the candidates ordered
+     * from best to worst. The ones that leave the fewest connections to
+     * Kevin Bacon come first, and of those, the ones with the most ways to
+     * keep going along a shortest path. Dead ends come last. Everything this
+     * needs was worked out when the candidates changed or when the graph
+     * was loaded, so this is just a sort of the candidates.
+     *
+     * @return The candidate ids, best first, empty if there's no game in
+     * progress.
+     */
+    public synchronized ArrayList<String> getHint()
+    {
+        int numCandidates = candidateIds.size();
+        final int[] distances = new int[numCandidates];
+        final int[] continuations = new int[numCandidates];
+        Integer[] order = new Integer[numCandidates];
+        for (int i = 0; i < numCandidates; i++)
+        {
+            distances[i] = candidateDistances[i];
+            if (distances[i] == KevinBaconDistanceTable.UNREACHABLE)
+            {
+                distances[i] = Integer.MAX_VALUE;
+            }
+            IMDBObject candidate;
+            if (gameInProgress.isWaitingForFilm())
+            {
+                candidate = gameGraphManager.getFilm(candidateIds.get(i));
+            }
+            else
+            {
+                candidate = gameGraphManager.getActor(candidateIds.get(i));
+            }
+            continuations[i] = (candidate == null) ? 0 : gameGraphManager.getShortestContinuations(candidate);
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer i, Integer j)
+            {
+                if (distances[i] != distances[j])
+                {
+                    return (distances[i] < distances[j]) ? -1 : 1;
+                }
+                return continuations[j] - continuations[i];
+            }
+        });
+        ArrayList<String> hint = new ArrayList();
+        for (Integer i : order)
+        {
+            hint.add(candidateIds.get(i));
+        }
+        return hint;
+    }
+
+    public synchronized boolean isGameNotStarted()
+    {
+        return currentGameState == KevinBaconGameState.GAME_NOT_STARTED;
+    }
+
+    public synchronized boolean isGameOver()
+    {
+        return currentGameState == KevinBaconGameState.GAME_OVER;
+    }
+
+    public synchronized boolean isGameInProgress()
+    {
+        return currentGameState == KevinBaconGameState.GAME_IN_PROGRESS;
+    }
+
+    public void addListener(KevinBaconGameListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    public void removeListener(KevinBaconGameListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * This method starts a new game, initializing all the necessary data for
+     * that new game as well as recording the current game (if it exists) in
+     * the games history data structure. Listeners are told about the quit
+     * game, if there was one, and then about the new game.
+     */
+    public synchronized void startNewGame()
+    {
+        startNewGame(gameGraphManager.pickRandomActor());
+    }
+
+    /**
+     * This method starts a new game just like startNewGame does, except the
+     * starting actor is picked to be the Bacon number away from Kevin Bacon
+     * and to make a game of the difficulty. If there's no such actor nothing
+     * changes, including the game in progress.
+     *
+     * @param baconNumber How many connections the game should take.
+     * @param difficulty How hard the game should be for that many.
+     * @throws IllegalArgumentException Thrown if no actor fits.
+     */
+    public synchronized void startNewGame(int baconNumber, KevinBaconGameDifficulty difficulty)
+    {
+        startNewGame(pickStartingActor(baconNumber, difficulty));
+    }
+
+    private boolean isLastGameInHistory(KevinBaconGameData game)
+    {
+        return !gamesHistory.isEmpty() && (gamesHistory.get(gamesHistory.size() - 1) == game);
+    }
+
+    private void startNewGame(Actor startingActor)
+    {
+        // IS THERE A GAME ALREADY UNDERWAY?
+        // YES, SO END THAT GAME AS A LOSS. IF IT WAS ALREADY RECORDED IT CAN
+        // ONLY BE THE LAST ONE, SO THERE'S NO NEED TO SEARCH THE HISTORY
+        if (!isGameNotStarted() && !isLastGameInHistory(gameInProgress))
+        {
+            addGameHistory(gameInProgress);
+        }
+
+        // IF THERE IS A GAME IN PROGRESS AND THE PLAYER HASN'T WON, THAT MEANS
+        // THE PLAYER IS QUITTING. NOTE THAT IF THE PLAYER WON THE GAME, IT
+        // WOULD HAVE ALREADY BEEN SAVED SINCE THERE WOULD BE NO GUARANTEE
+        // THE PLAYER WOULD CHOOSE TO PLAY AGAIN
+        if (isGameInProgress() && !gameInProgress.isKevinBaconFound())
+        {
+            // QUIT THE GAME, WHICH SETS THE END TIME
+            gameInProgress.endGameAsLoss();
+            for (KevinBaconGameListener listener : listeners)
+            {
+                listener.gameQuit(this);
+            }
+        }
+
+        // AND NOW MAKE A NEW GAME
+        makeNewGame(startingActor);
+        for (KevinBaconGameListener listener : listeners)
+        {
+            listener.gameStarted(this);
+        }
+
+        // THE FIRST GUESS IS ONE OF THE STARTING ACTOR'S FILMS
+        fireCandidatesChanged(gameInProgress.getStartingActor().getFilmIDs());
+    }
+
+    /**
+     * This method picks a starting actor and uses it to create a new game,
+     * effectively starting it.
+     */
+    public synchronized void makeNewGame()
+    {
+        makeNewGame(gameGraphManager.pickRandomActor());
+    }
+
+    /**
+     * This method picks a starting actor the Bacon number away from Kevin
+     * Bacon that makes a game of the difficulty, and uses it to create a new
+     * game, effectively starting it.
+     *
+     * @param baconNumber How many connections the game should take.
+     * @param difficulty How hard the game should be for that many.
+     * @throws IllegalArgumentException Thrown if no actor fits.
+     */
+    public synchronized void makeNewGame(int baconNumber, KevinBaconGameDifficulty difficulty)
+    {
+        makeNewGame(pickStartingActor(baconNumber, difficulty));
+    }
+
+    private void makeNewGame(Actor startingActor)
+    {
+        // FIRST FIND THE WAY THE GAME SHOULD BE WON
+        ArrayList<Connection> shortestPath = gameGraphManager.findShortestPathToKevinBacon(startingActor);
+
+        // THEN MAKE THE GAME WITH IT
+        long numShortestPaths = gameGraphManager.getNumShortestPaths(startingActor);
+        gameInProgress = new KevinBaconGameData(startingActor, shortestPath, numShortestPaths);
+        lastActorId = null;
+
+        // THE GAME IS OFFICIALLY UNDERWAY
+        currentGameState = KevinBaconGameState.GAME_IN_PROGRESS;
+    }
+
+    private Actor pickStartingActor(int baconNumber, KevinBaconGameDifficulty difficulty)
+    {
+        Actor startingActor = gameGraphManager.pickRandomActor(baconNumber, difficulty);
+        if (startingActor == null)
+        {
+            throw new IllegalArgumentException("No " + difficulty + " game with Bacon number " + baconNumber);
+        }
+        return startingActor;
+    }
+
+    /**
+     * Adds the completed game to the history and updates the stats.
+     */
+    public synchronized void addGameHistory(KevinBaconGameData game)
+    {
+        gamesHistory.add(game);
+
+        int win = game.isKevinBaconFound() ? 1 : 0;
+        int perfect_win = game.isPerfectWin() ? 1 : 0;
+        int loss = game.isKevinBaconFound() ? 0 : 1;
+        gameHistoryStats.put("total", gameHistoryStats.get("total") + 1);
+        gameHistoryStats.put("losses", gameHistoryStats.get("losses") + loss);
+        gameHistoryStats.put("wins", gameHistoryStats.get("wins") + win);
+        gameHistoryStats.put("perfect_wins", gameHistoryStats.get("perfect_wins") + perfect_win);
+    }
+
+    /**
+     * This method processes the guess by its id, but only if the id is one
+     * of the current candidates. This is for players that aren't picking
+     * from a list we gave them, so we can't trust the id.
+     *
+     * @param guessId The id of the film or actor the player picked.
+     *
+     * @return true if the guess was processed, false if no game is in
+     * progress or the id isn't a candidate.
+     *
+     * @throws sdokb.game.DeadEndException Thrown if the guess leads nowhere
+     * new, which ends the game as a loss.
+     */
+    public synchronized boolean processGuess(String guessId) throws
+            DeadEndException
+    {
+        if (!isGameInProgress() || !candidateIds.contains(guessId))
+        {
+            return false;
+        }
+        IMDBObject guess;
+        if (gameInProgress.isWaitingForFilm())
+        {
+            guess = gameGraphManager.getFilm(guessId);
+        }
+        else
+        {
+            guess = gameGraphManager.getActor(guessId);
+        }
+        if (guess == null)
+        {
+            return false;
+        }
+        processGuess(guess);
+        return true;
+    }
+
+    /**
+     * This method processes the guess, which must be a film when the game is
+     * waiting for a film and an actor otherwise, and updates the game
+     * accordingly.
+     *
+     * @param guess The film or actor the player picked.
+     *
+     * @throws sdokb.game.DeadEndException Thrown if the guess leads nowhere
+     * new, which ends the game as a loss.
+     */
+    public synchronized void processGuess(IMDBObject guess) throws
+            DeadEndException
+    {
+        // ONLY PROCESS GUESSES IF A GAME IS IN PROGRESS
+        if (!isGameInProgress())
+        {
+            return;
+        }
+        ArrayList<String> nonCircularEdges = gameInProgress.getNonRepeatingIds(guess.getId(), gameGraphManager);
+        if (lastActorId == null)
+        {
+            lastActorId = gameInProgress.getStartingActor().getId();
+        }
+
+        Connection lastNode = gameInProgress.getLastConnection();
+        if (gameInProgress.isWaitingForFilm())
+        {
+            lastNode = new Connection(lastActorId, guess.getId());
+            gameInProgress.setLastConnection(lastNode);
+        }
+
+        // DEAD END, NOWHERE TO GO
+        if (nonCircularEdges.isEmpty())
+        {
+            lastActorId = null;
+
+            // END THE GAME IN A LOSS
+            currentGameState = KevinBaconGameState.GAME_OVER;
+            gameInProgress.endGameAsLoss();
+            gameInProgress.addGamePath(lastNode);
+            addGameHistory(gameInProgress);
+            fireGameOver();
+            throw new DeadEndException(guess.toString());
+        }
+
+        if (gameInProgress.isWaitingForFilm())
+        {
+            Film film = gameGraphManager.getFilm(guess.getId());
+
+            // CHECK IF WE WON
+            for (String actorId : nonCircularEdges)
+            {
+                if (actorId.equals(gameGraphManager.kevinBacon.getId()))
+                {
+                    gameInProgress.endGameAsWin(gameGraphManager.kevinBacon);
+                    currentGameState = KevinBaconGameState.GAME_OVER;
+                    gameInProgress.addGamePath(lastNode);
+                    addGameHistory(gameInProgress);
+                    lastActorId = null;
+                    fireGameOver();
+                    return;
+                }
+            }
+            gameInProgress.addGuessMap(guess.getId(), film);
+            gameInProgress.setWaitingForFilm(false);
+        }
+        else
+        {
+            Actor actor = gameGraphManager.getActor(guess.getId());
+            lastActorId = guess.getId();
+            lastNode.setActor2Id(guess.getId());
+            gameInProgress.setLastConnection(lastNode);
+            gameInProgress.addGamePath(lastNode);
+            for (KevinBaconGameListener listener : listeners)
+            {
+                listener.connectionMade(this, lastNode);
+            }
+
+            // RESET lastNode AFTER WE ADD THE NODE TO THE GAME PATH
+            gameInProgress.setLastConnection(null);
+            gameInProgress.setWaitingForFilm(true);
+            gameInProgress.addGuessMap(guess.getId(), actor);
+        }
+        fireCandidatesChanged(nonCircularEdges);
+    }
+
+    private void fireCandidatesChanged(ArrayList<String> newCandidateIds)
+    {
+        candidateIds = new ArrayList(newCandidateIds);
+        candidateDistances = gameGraphManager.getCandidateDistances(gameInProgress, candidateIds);
+        for (KevinBaconGameListener listener : listeners)
+        {
+            listener.candidatesChanged(this, newCandidateIds);
+        }
+    }
+
+    private void fireGameOver()
+    {
+        candidateIds.clear();
+        candidateDistances = new int[0];
+        for (KevinBaconGameListener listener : listeners)
+        {
+            listener.gameOver(this);
+        }
+    }
+}
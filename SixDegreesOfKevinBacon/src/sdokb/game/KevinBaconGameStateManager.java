@@ -1,14 +1,15 @@
 package sdokb.game;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 import sdokb.ui.KevinBaconUI;
+import sdokb.ui.KevinBaconUIGameListener;
 
 /**
- * KevinBaconGameStateManager runs the game. Note that it does so completely
- * independent of the presentation of the game.
+ * KevinBaconGameStateManager runs the game for the Swing application. Note
+ * that it does so completely independent of the presentation of the game,
+ * all the work is done by a single session of a KevinBaconGameEngine, and
+ * the UI is just a listener to that session.
  *
  * @author Richard McKenna & _________________
  */
@@ -26,30 +27,11 @@ public class KevinBaconGameStateManager
         GAME_OVER
     }
 
-    // THIS IS THE STATE FOR THE GAME IN PROGRESS
-    private KevinBaconGameState currentGameState;
+    // THE ENGINE THAT RUNS ALL THE GAMES
+    private KevinBaconGameEngine gameEngine;
 
-    // THIS IS THE GAME CURRENTLY BEING PLAYED
-    private KevinBaconGameData gameInProgress;
-    
-    // WHEN THE STATE OF THE GAME CHANGES IT WILL NEED TO BE
-    // REFLECTED IN THE USER INTERFACE, SO THIS CLASS NEEDS
-    // A REFERENCE TO THE UI
-    private KevinBaconUI ui;
-
-    private String lastActorId;
-    
-    // HOLDS ALL OF THE COMPLETED GAMES. NOTE THAT THE GAME
-    // IN PROGRESS IS NOT ADDED UNTIL IT IS COMPLETED
-    private ArrayList<KevinBaconGameData> gamesHistory;
-
-    private Map<String, Integer> gameHistoryStats;
-    
-    // THE ACTOR/FILMS GAME GRAPH DATA STRUCTURE
-    private KevinBaconGameGraphManager gameGraphManager;
-
-    // THIS IS 
-    private final String NEWLINE_DELIMITER = "\n";
+    // THE ONE SESSION THIS APPLICATION'S PLAYER IS PLAYING
+    private KevinBaconGameSession session;
 
     /**
      * This constructor initializes this class for use, but does not start a
@@ -61,248 +43,113 @@ public class KevinBaconGameStateManager
      */
     public KevinBaconGameStateManager(KevinBaconUI initUI)
     {
-        // STORE THIS FOR LATER
-        ui = initUI;
-
-        // WE HAVE NOT STARTED A GAME YET
-        currentGameState = KevinBaconGameState.GAME_NOT_STARTED;
-
-        // NO GAMES HAVE BEEN PLAYED YET, BUT INITIALIZE
-        // THE DATA STRCUTURE FOR PLACING COMPLETED GAMES
-        gamesHistory = new ArrayList();
-        gameHistoryStats = new HashMap();
-        gameHistoryStats.put("total", 0);
-        gameHistoryStats.put("losses", 0);
-        gameHistoryStats.put("wins", 0);
-        gameHistoryStats.put("perfect_wins", 0);
-        
-        // THE FIRST GAME HAS NOT BEEN STARTED YET
-        gameInProgress = null;
-
         // THIS IS THE ACTUAL GAME GRAPH THAT WE'LL
         // WALK TO FIND CONNECTIONS BETWEEN ACTORS & FILMS
-        gameGraphManager = new KevinBaconGameGraphManager();
+        gameEngine = new KevinBaconGameEngine(new KevinBaconGameGraphManager());
+
+        // THE UI WILL HEAR ABOUT EVERYTHING THAT HAPPENS IN OUR SESSION
+        session = gameEngine.createSession();
+        session.addListener(new KevinBaconUIGameListener(initUI));
     }
 
     // ACCESSOR METHODS
-    public KevinBaconGameGraphManager getGameGraphManager()
-    {
-        return gameGraphManager;
-    }
+    public KevinBaconGameEngine getGameEngine()                 {   return gameEngine;                          }
+    public KevinBaconGameSession getSession()                   {   return session;                             }
+    public KevinBaconGameGraphManager getGameGraphManager()     {   return gameEngine.getGameGraphManager();    }
+    public KevinBaconGameData getGameInProgress()               {   return session.getGameInProgress();         }
+    public int getNumGamesPlayed()                              {   return session.getNumGamesPlayed();         }
+    public int getNumGamesWon()                                 {   return session.getNumGamesWon();            }
+    public int getNumPerfectWins()                              {   return session.getNumPerfectWins();         }
+    public int getNumGamesLost()                                {   return session.getNumGamesLost();           }
+    public boolean isGameNotStarted()                           {   return session.isGameNotStarted();          }
+    public boolean isGameOver()                                 {   return session.isGameOver();                }
+    public boolean isGameInProgress()                           {   return session.isGameInProgress();          }
 
-    public KevinBaconGameData getGameInProgress()
+    public Iterator<KevinBaconGameData> getGamesHistoryIterator()
     {
-        return gameInProgress;
+        return session.getGamesHistoryIterator();
     }
 
-    public int getNumGamesPlayed()
+    public ArrayList<KevinBaconGameData> getGamesHistory(int fromIndex, int toIndex)
     {
-        return gamesHistory.size();
-    }
-    public int getNumGamesWon() {
-        return gameHistoryStats.get("wins");
-    }
-
-    public int getNumPerfectWins() {
-        return gameHistoryStats.get("perfect_wins");
+        return session.getGamesHistory(fromIndex, toIndex);
     }
 
-    public int getNumGamesLost() {
-        return gameHistoryStats.get("losses");
-    }
-
-    public Iterator<KevinBaconGameData> getGamesHistoryIterator()
-    {
-        return gamesHistory.iterator();
-    }
-
-    public boolean isGameNotStarted()
+    /**
+     * This method starts a new game, recording the current game (if it
+     * exists) in the games history. The UI hears about this change of state
+     * from the session so that it may reflect this change.
+     */
+    public void startNewGame()
     {
-        return currentGameState == KevinBaconGameState.GAME_NOT_STARTED;
+        session.startNewGame();
     }
 
-    public boolean isGameOver()
+    /**
+     * This method starts a new game whose starting actor is the Bacon number
+     * away from Kevin Bacon and makes a game of the difficulty.
+     *
+     * @throws IllegalArgumentException Thrown if no actor fits.
+     */
+    public void startNewGame(int baconNumber, KevinBaconGameDifficulty difficulty)
     {
-        return currentGameState == KevinBaconGameState.GAME_OVER;
+        session.startNewGame(baconNumber, difficulty);
     }
 
-    public boolean isGameInProgress()
+    /**
+     * This method picks a starting actor and uses it to create a new game,
+     * effectively starting it.
+     */
+    public void makeNewGame()
     {
-        return currentGameState == KevinBaconGameState.GAME_IN_PROGRESS;
+        session.makeNewGame();
     }
 
     /**
-     * This method starts a new game, initializing all the necessary data for
-     * that new game as well as recording the current game (if it exists) in the
-     * games history data structure. It also lets the user interface know about
-     * this change of state such that it may reflect this change.
+     * This method picks a starting actor the Bacon number away from Kevin
+     * Bacon that makes a game of the difficulty, and uses it to create a
+     * new game, effectively starting it.
+     *
+     * @throws IllegalArgumentException Thrown if no actor fits.
      */
-    public void startNewGame()
+    public void makeNewGame(int baconNumber, KevinBaconGameDifficulty difficulty)
     {
-        // IS THERE A GAME ALREADY UNDERWAY?
-        // YES, SO END THAT GAME AS A LOSS
-        if (!isGameNotStarted() && (!gamesHistory.contains(gameInProgress)))
-        {
-            addGameHistory(gameInProgress);
-        }
-
-        // IF THERE IS A GAME IN PROGRESS AND THE PLAYER HASN'T WON, THAT MEANS
-        // THE PLAYER IS QUITTING, SO WE NEED TO SAVE THE GAME TO OUR HISTORY
-        // DATA STRUCTURE. NOTE THAT IF THE PLAYER WON THE GAME, IT WOULD HAVE
-        // ALREADY BEEN SAVED SINCE THERE WOULD BE NO GUARANTEE THE PLAYER WOULD
-        // CHOOSE TO PLAY AGAIN
-        if (isGameInProgress() && !gameInProgress.isKevinBaconFound())
-        {
-            // QUIT THE GAME, WHICH SETS THE END TIME
-            gameInProgress.endGameAsLoss();
-
-            // MAKE SURE THE STATS PAGE KNOWS ABOUT THE COMPLETED GAME
-            ui.getDocManager().addGameResultToStatsPage(gameInProgress);
-        }
-
-        // AND NOW MAKE A NEW GAME
-        makeNewGame();
-
-        // AND UPDATE THE GAME DISPLAY
-        ui.resetUI();
-        ui.getDocManager().updateActorInGamePage();
-        // ui.getDocManager().printDoc(gameDoc);
-        // ui.getDocManager().updateGuessesList(ui.getGSM().getGameInProgress().getStartingActor());
-
-        // LOAD ALL THE FILMS INTO THE COMBO BOX
-        ArrayList<String> startingActorFilmIds = gameInProgress.getStartingActor().getFilmIDs();
-        ui.reloadComboBox(startingActorFilmIds);
+        session.makeNewGame(baconNumber, difficulty);
     }
 
     /**
-     * This method chooses a secret word and uses it to create a new game,
-     * effectively starting it.
+     * Gets a hint for the next guess, which is the films or actors the
+     * player may pick from, best first.
+     *
+     * @return The ids of the candidates, ordered by how few connections to
+     * Kevin Bacon they leave, and then by how many ways there are to keep
+     * going along a shortest path from them.
      */
-    public void makeNewGame()
+    public ArrayList<String> getHint()
     {
-        // FIRST PICK THE ACTOR
-        Actor startingActor = gameGraphManager.pickRandomActor();
-        ArrayList<Connection> shortestPath = gameGraphManager.findShortestPathToKevinBacon(startingActor);
-
-        // THEN MAKE THE GAME WITH IT
-        gameInProgress = new KevinBaconGameData(startingActor, shortestPath);
-
-        // THE GAME IS OFFICIALLY UNDERWAY
-        currentGameState = KevinBaconGameState.GAME_IN_PROGRESS;
+        return session.getHint();
     }
 
-    public void addGameHistory(KevinBaconGameData game) {
-        gamesHistory.add(game);
-        
-        int win = game.isKevinBaconFound() ? 1 : 0;
-        int perfect_win = game.isPerfectWin() ? 1: 0;
-        int loss = game.isKevinBaconFound() ? 0: 1;
-        gameHistoryStats.put("total", gameHistoryStats.get("total") + 1);
-        gameHistoryStats.put("losses", gameHistoryStats.get("losses") + loss);
-        gameHistoryStats.put("wins", gameHistoryStats.get("wins") + win);
-        gameHistoryStats.put("perfect_wins", gameHistoryStats.get("perfect_wins") + perfect_win); 
+    public void addGameHistory(KevinBaconGameData game)
+    {
+        session.addGameHistory(game);
     }
+
     /**
-     * This method processes the guess, checking to make sure it's in the
-     * dictionary in use and then updating the game accordingly.
+     * This method processes the guess, updating the game accordingly. The
+     * guess only counts if it's one of the current game's candidates, since
+     * it may have been picked from an older game's that hadn't been replaced
+     * yet.
+     *
+     * @param guessId The id of the film or actor the player picked.
      *
-     * @param guess The word that the player is guessing is the secret word.
-     * Note that it must be in the dictionary.
+     * @return true if the guess was processed, false if it was ignored.
      *
      * @throws sdokb.game.DeadEndException
      */
-    public void processGuess(IMDBObject guess) throws
+    public boolean processGuess(String guessId) throws
             DeadEndException
     {
-        // ONLY PROCESS GUESSES IF A GAME IS IN PROGRESS
-        if (!isGameInProgress())
-        {
-            return;
-        }
-        System.out.println("Guess id was  " + guess.getId());
-        ArrayList<String> nonCircularEdges = gameInProgress.getNonRepeatingIds(guess.getId(), gameGraphManager);
-        System.out.println("No of nonCircularEdges" + nonCircularEdges.toString());
-        // DEAD END, NOWHERE TO GO
-        if (lastActorId == null) {
-            lastActorId = gameInProgress.getStartingActor().getId();
-        }
-        
-        Connection lastNode = gameInProgress.getLastConnection();
-        if (gameInProgress.isWaitingForFilm()) {
-            lastNode = new Connection(lastActorId, guess.getId());
-            gameInProgress.setLastConnection(lastNode);
-        }
-        
-        if (nonCircularEdges.isEmpty())
-        {
-            lastActorId = null;
-
-            // END THE GAME IN A LOSS
-            currentGameState = KevinBaconGameState.GAME_OVER;
-            gameInProgress.endGameAsLoss();
-            gameInProgress.addGamePath(lastNode);
-
-            addGameHistory(gameInProgress);
-            ui.enableGuessComboBox(false);
-            ui.getDocManager().updateGuessesList();
-            ui.getDocManager().addGameResultToStatsPage(gameInProgress);
-            throw new DeadEndException(guess.toString());
-        }
-        
-     
-        if (gameInProgress.isWaitingForFilm()) {
-            Film _film =  gameGraphManager.getFilm(guess.getId());
-            
-            // check if we won
-            for (String actorId : nonCircularEdges) {
-                if (actorId.equals(gameGraphManager.kevinBacon.getId())) {
-                    gameInProgress.endGameAsWin(gameGraphManager.kevinBacon);
-                    currentGameState = KevinBaconGameState.GAME_OVER;
-                    gameInProgress.addGamePath(lastNode);
-                    addGameHistory(gameInProgress);
-                    ui.enableGuessComboBox(false);
-                    ui.getDocManager().updateGuessesList();
-                    ui.getDocManager().addGameResultToStatsPage(gameInProgress);
-                    lastActorId = null;
-
-                    return;
-                }
-            }
-            gameInProgress.addGuessMap(guess.getId(), _film);
-
-            gameInProgress.setWaitingForFilm(false);
-            ui.reloadComboBox(nonCircularEdges);
-        } else 
-        {
-             Actor _actor = gameGraphManager.getActor(guess.getId());
-             lastActorId = guess.getId();
-             lastNode.setActor2Id(guess.getId());
-             gameInProgress.setLastConnection(lastNode);
-             gameInProgress.addGamePath(lastNode);
-
-             if (nonCircularEdges == null) 
-             
-             {
-                lastActorId = null;
-                gameInProgress.endGameAsLoss();
-                currentGameState = KevinBaconGameState.GAME_OVER;
-                addGameHistory(gameInProgress);
-                ui.enableGuessComboBox(false);
-                ui.getDocManager().addGameResultToStatsPage(gameInProgress);
-                return;
-             } 
-             else
-                 
-             {
-                ui.getDocManager().updateGuessesList();
-                            
-                // Reset lastNode after we add the Node to the game path.
-                gameInProgress.setLastConnection(null);
-
-                this.gameInProgress.setWaitingForFilm(true);
-                gameInProgress.addGuessMap(guess.getId(), _actor);
-                ui.reloadComboBox(nonCircularEdges); 
-            }
-        }
+        return session.processGuess(guessId);
     }
 }
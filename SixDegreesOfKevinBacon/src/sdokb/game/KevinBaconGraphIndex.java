@@ -0,0 +1,419 @@
+package sdokb.game;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * KevinBaconGraphIndex is a compact, read-only view of the actor-film graph.
+ * Every actor and every film gets a dense int index, and the actor-to-films
+ * and film-to-actors edges are stored in compressed sparse row form, meaning
+ * one flat array of edge targets per direction plus an array of offsets
+ * telling where each node's edges start. Walking the graph then never has to
+ * compare or hash an IMDB id string.
+ *
+ * Note that indices are assigned in IMDB id order, so iterating over the
+ * indices visits actors and films in the same order a TreeMap would. Each
+ * Actor and Film also remembers its own index, see IMDBObject.getIndex.
+ * Once the index is built the actors and films let go of their own id
+ * lists, which would only duplicate the edges, and get them from here.
+ *
+ * An index can be written out with writeTo and read back with readFrom,
+ * which is much faster than parsing and sorting the text data files.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconGraphIndex
+{
+    // ALL Strings ARE WRITTEN AS UTF-8
+    private static final Charset STRING_CHARSET = Charset.forName("UTF-8");
+
+    // ALL THE ACTORS AND FILMS, POSITIONED BY THEIR DENSE INDEX
+    private Actor[] actors;
+    private Film[] films;
+
+    // THE FILMS FOR ACTOR a ARE actorFilms[actorFilmOffsets[a]] UP TO,
+    // BUT NOT INCLUDING, actorFilms[actorFilmOffsets[a + 1]]
+    private int[] actorFilmOffsets;
+    private int[] actorFilms;
+
+    // THE ACTORS FOR FILM f ARE filmActors[filmActorOffsets[f]] UP TO,
+    // BUT NOT INCLUDING, filmActors[filmActorOffsets[f + 1]]
+    private int[] filmActorOffsets;
+    private int[] filmActors;
+
+    /**
+     * This constructor builds the full index from the loaded actors and
+     * films. Any film or actor ids referenced in the lists that don't
+     * correspond to loaded objects are skipped.
+     *
+     * @param allActors All the actors loaded into the graph, by id.
+     * @param allFilms All the films loaded into the graph, by id.
+     */
+    public KevinBaconGraphIndex(Map<String, Actor> allActors,
+            Map<String, Film> allFilms)
+    {
+        // FIRST PUT EVERYTHING IN id ORDER
+        actors = allActors.values().toArray(new Actor[allActors.size()]);
+        films = allFilms.values().toArray(new Film[allFilms.size()]);
+        Arrays.sort(actors, new IdComparator());
+        Arrays.sort(films, new IdComparator());
+
+        // GET THE ID LISTS BEFORE NUMBERING, SINCE IF THEY CAME FROM AN
+        // OLDER INDEX THEY'RE LOOKED UP BY THE OLD NUMBERS
+        ArrayList<String>[] filmIDs = new ArrayList[actors.length];
+        for (int i = 0; i < actors.length; i++)
+        {
+            filmIDs[i] = actors[i].getFilmIDs();
+        }
+        ArrayList<String>[] actorIDs = new ArrayList[films.length];
+        for (int i = 0; i < films.length; i++)
+        {
+            actorIDs[i] = films[i].getActorIDs();
+        }
+        numberAll();
+
+        // NOW THE ACTOR-TO-FILMS EDGES
+        actorFilmOffsets = new int[actors.length + 1];
+        int[] targets = new int[countIDs(filmIDs)];
+        int edge = 0;
+        for (int i = 0; i < actors.length; i++)
+        {
+            actorFilmOffsets[i] = edge;
+            edge = addTargets(filmIDs[i], allFilms, targets, edge);
+        }
+        actorFilmOffsets[actors.length] = edge;
+        actorFilms = Arrays.copyOf(targets, edge);
+
+        // AND THE FILM-TO-ACTORS EDGES
+        filmActorOffsets = new int[films.length + 1];
+        targets = new int[countIDs(actorIDs)];
+        edge = 0;
+        for (int i = 0; i < films.length; i++)
+        {
+            filmActorOffsets[i] = edge;
+            edge = addTargets(actorIDs[i], allActors, targets, edge);
+        }
+        filmActorOffsets[films.length] = edge;
+        filmActors = Arrays.copyOf(targets, edge);
+        releaseAllIDs();
+    }
+
+    /**
+     * This constructor wraps already built edge arrays, which is what we do
+     * when reading an index back in.
+     */
+    private KevinBaconGraphIndex(Actor[] initActors,
+            Film[] initFilms,
+            int[] initActorFilmOffsets,
+            int[] initActorFilms,
+            int[] initFilmActorOffsets,
+            int[] initFilmActors)
+    {
+        actors = initActors;
+        films = initFilms;
+        actorFilmOffsets = initActorFilmOffsets;
+        actorFilms = initActorFilms;
+        filmActorOffsets = initFilmActorOffsets;
+        filmActors = initFilmActors;
+        numberAll();
+        releaseAllIDs();
+    }
+
+    // ACCESSOR METHODS
+    public int getNumActors()                   {   return actors.length;   }
+    public int getNumFilms()                    {   return films.length;    }
+    public Actor getActor(int actorIndex)       {   return actors[actorIndex];  }
+    public Film getFilm(int filmIndex)          {   return films[filmIndex];    }
+
+    // EDGE ACCESSORS, THE EDGES OF A NODE ARE THE HALF-OPEN
+    // RANGE [getXStart(node), getXEnd(node))
+    public int getFilmsStart(int actorIndex)    {   return actorFilmOffsets[actorIndex];        }
+    public int getFilmsEnd(int actorIndex)      {   return actorFilmOffsets[actorIndex + 1];    }
+    public int getFilmAt(int edge)              {   return actorFilms[edge];                    }
+    public int getActorsStart(int filmIndex)    {   return filmActorOffsets[filmIndex];         }
+    public int getActorsEnd(int filmIndex)      {   return filmActorOffsets[filmIndex + 1];     }
+    public int getActorAt(int edge)             {   return filmActors[edge];                    }
+
+    public int getNumFilmsForActor(int actorIndex)
+    {
+        return actorFilmOffsets[actorIndex + 1] - actorFilmOffsets[actorIndex];
+    }
+
+    public int getNumActorsInFilm(int filmIndex)
+    {
+        return filmActorOffsets[filmIndex + 1] - filmActorOffsets[filmIndex];
+    }
+
+    /**
+     * Finds an actor's index from their IMDB id, which since actors are
+     * numbered in id order is just a binary search.
+     *
+     * @return The actor's index, or -1 if there's no actor with the id.
+     */
+    public int getActorIndex(String actorId)
+    {
+        return findIndex(actors, actorId);
+    }
+
+    /**
+     * Finds a film's index from its IMDB id, the same way.
+     *
+     * @return The film's index, or -1 if there's no film with the id.
+     */
+    public int getFilmIndex(String filmId)
+    {
+        return findIndex(films, filmId);
+    }
+
+    /**
+     * Tests to see if an actor was in a film. The film's actors are in index
+     * order, so this is a binary search of its edges.
+     *
+     * @param actorIndex The actor, or -1 for one not in the graph.
+     * @param filmIndex The film, or -1 for one not in the graph.
+     * @return true if the actor was in the film, false otherwise.
+     */
+    public boolean isActorInFilm(int actorIndex, int filmIndex)
+    {
+        if ((actorIndex < 0) || (filmIndex < 0))
+        {
+            return false;
+        }
+        return Arrays.binarySearch(filmActors, filmActorOffsets[filmIndex],
+                filmActorOffsets[filmIndex + 1], actorIndex) >= 0;
+    }
+
+    /**
+     * Builds the list of ids of the films an actor has been in, in id order.
+     */
+    public ArrayList<String> getFilmIDs(int actorIndex)
+    {
+        ArrayList<String> filmIDs = new ArrayList(getNumFilmsForActor(actorIndex));
+        for (int edge = actorFilmOffsets[actorIndex]; edge < actorFilmOffsets[actorIndex + 1]; edge++)
+        {
+            filmIDs.add(films[actorFilms[edge]].getId());
+        }
+        return filmIDs;
+    }
+
+    /**
+     * Builds the list of ids of the actors in a film, in id order.
+     */
+    public ArrayList<String> getActorIDs(int filmIndex)
+    {
+        ArrayList<String> actorIDs = new ArrayList(getNumActorsInFilm(filmIndex));
+        for (int edge = filmActorOffsets[filmIndex]; edge < filmActorOffsets[filmIndex + 1]; edge++)
+        {
+            actorIDs.add(actors[filmActors[edge]].getId());
+        }
+        return actorIDs;
+    }
+
+    /**
+     * Binary searches actors or films, which are in id order, for an id.
+     */
+    private static int findIndex(IMDBObject[] nodes, String id)
+    {
+        int low = 0;
+        int high = nodes.length - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int comparison = nodes[middle].getId().compareTo(id);
+            if (comparison < 0)
+            {
+                low = middle + 1;
+            }
+            else if (comparison > 0)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes this whole index, meaning all the actor and film data as well
+     * as the edges, to the stream in a form readFrom can read back.
+     *
+     * @param out The stream to write to.
+     * @throws IOException Thrown if there is a problem writing.
+     */
+    public void writeTo(DataOutputStream out) throws IOException
+    {
+        out.writeInt(actors.length);
+        for (Actor actor : actors)
+        {
+            writeString(out, actor.getId());
+            writeString(out, actor.getFirstName());
+            writeString(out, actor.getLastName());
+        }
+        out.writeInt(films.length);
+        for (Film film : films)
+        {
+            writeString(out, film.getId());
+            writeString(out, film.getTitle());
+            out.writeInt(film.getYear());
+        }
+        writeIntArray(out, actorFilmOffsets);
+        writeIntArray(out, actorFilms);
+        writeIntArray(out, filmActorOffsets);
+        writeIntArray(out, filmActors);
+    }
+
+    /**
+     * Reads back an index written by writeTo. Since everything was already
+     * sorted and numbered when it was written, nothing needs sorting, and
+     * the actors' and films' id lists come from the restored edges. Note
+     * that ids that didn't match any loaded actor or film were never part
+     * of the edges, so they are not in those lists either.
+     *
+     * @param in The data to read, starting at its position, which is
+     * left just after the index.
+     * @return The restored index.
+     * @throws IOException Thrown if there is a problem reading.
+     */
+    public static KevinBaconGraphIndex readFrom(KevinBaconMappedInput in) throws IOException
+    {
+        Actor[] actors = new Actor[in.getInt()];
+        for (int i = 0; i < actors.length; i++)
+        {
+            String id = readString(in);
+            String firstName = readString(in);
+            String lastName = readString(in);
+            actors[i] = new Actor(id, firstName, lastName);
+        }
+        Film[] films = new Film[in.getInt()];
+        for (int i = 0; i < films.length; i++)
+        {
+            String id = readString(in);
+            String title = readString(in);
+            films[i] = new Film(id, title, in.getInt());
+        }
+        int[] actorFilmOffsets = readIntArray(in);
+        int[] actorFilms = readIntArray(in);
+        int[] filmActorOffsets = readIntArray(in);
+        int[] filmActors = readIntArray(in);
+        return new KevinBaconGraphIndex(actors, films,
+                actorFilmOffsets, actorFilms,
+                filmActorOffsets, filmActors);
+    }
+
+    // HELPER METHODS FOR WRITING AND READING, ALSO USED BY
+    // THE OTHER CLASSES THAT GET SAVED ALONG WITH THE INDEX
+
+    static void writeString(DataOutputStream out, String text) throws IOException
+    {
+        byte[] bytes = text.getBytes(STRING_CHARSET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(KevinBaconMappedInput in) throws IOException
+    {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, STRING_CHARSET);
+    }
+
+    static void writeIntArray(DataOutputStream out, int[] values) throws IOException
+    {
+        out.writeInt(values.length);
+        for (int value : values)
+        {
+            out.writeInt(value);
+        }
+    }
+
+    static int[] readIntArray(KevinBaconMappedInput in) throws IOException
+    {
+        int[] values = new int[in.getInt()];
+        in.get(values);
+        return values;
+    }
+
+    // HELPER METHODS FOR BUILDING THE EDGE ARRAYS
+
+    private static int countIDs(ArrayList<String>[] idLists)
+    {
+        int count = 0;
+        for (ArrayList<String> ids : idLists)
+        {
+            count += ids.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gives every actor and film its index in this graph index.
+     */
+    private void numberAll()
+    {
+        for (int i = 0; i < actors.length; i++)
+        {
+            actors[i].setIndex(this, i);
+        }
+        for (int i = 0; i < films.length; i++)
+        {
+            films[i].setIndex(this, i);
+        }
+    }
+
+    /**
+     * Has every actor and film let go of its own id list, since the edges
+     * now hold the same thing in far less memory.
+     */
+    private void releaseAllIDs()
+    {
+        for (Actor actor : actors)
+        {
+            actor.releaseFilmIDs();
+        }
+        for (Film film : films)
+        {
+            film.releaseActorIDs();
+        }
+    }
+
+    /**
+     * Converts ids to indices and writes them into targets starting at
+     * edge, returning the position after the last one written.
+     */
+    private int addTargets(ArrayList<String> ids,
+            Map<String, ? extends IMDBObject> nodes,
+            int[] targets,
+            int edge)
+    {
+        for (String id : ids)
+        {
+            IMDBObject node = nodes.get(id);
+            if (node != null)
+            {
+                targets[edge] = node.getIndex();
+                edge++;
+            }
+        }
+        return edge;
+    }
+
+    /**
+     * Orders actors and films by IMDB id, which is how we number them.
+     */
+    private static class IdComparator implements Comparator<IMDBObject>
+    {
+        @Override
+        public int compare(IMDBObject obj0, IMDBObject obj1)
+        {
+            return obj0.getId().compareTo(obj1.getId());
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package sdokb.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * KevinBaconGreedyPathFinder finds a quick, though not necessarily
+ * shortest, path from an actor to Kevin Bacon. Like the depth first search
+ * the game has always had, it keeps walking forward from the last actor in
+ * the path and backs up at dead ends, but rather than taking whichever
+ * co-star happens to come first it takes the best one by a
+ * KevinBaconPathHeuristic.
+ *
+ * The path is kept on an explicit stack. When an actor is pushed we gather
+ * all their co-stars no one has gathered yet, through films no one has
+ * gathered yet, and sort them by the heuristic, and each stack entry then
+ * just keeps a cursor into its own sorted run. Since every actor and film
+ * is gathered at most once, and an entry is only popped once its whole run
+ * has been tried, the search never looks at anything twice yet still finds
+ * a path whenever there is one. The closed actors and films are bit sets,
+ * so the whole search takes time close to linear in what it touches.
+ *
+ * Each thread gets its own reusable workspace, so any number of threads
+ * can search the same graph at once.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconGreedyPathFinder
+{
+    // THE GRAPH WE'RE SEARCHING AND THE BACON NUMBERS FOR IT
+    private KevinBaconGraphIndex graphIndex;
+    private KevinBaconDistanceTable baconNumbers;
+
+    // THE WORKSPACE FOR EACH THREAD'S SEARCHES
+    private ThreadLocal<GreedyWorkspace> workspaces;
+
+    /**
+     * This constructor just keeps the graph and table for later searches.
+     *
+     * @param initGraphIndex The fully built graph.
+     * @param initBaconNumbers The Bacon numbers computed for that graph.
+     */
+    public KevinBaconGreedyPathFinder(KevinBaconGraphIndex initGraphIndex,
+            KevinBaconDistanceTable initBaconNumbers)
+    {
+        graphIndex = initGraphIndex;
+        baconNumbers = initBaconNumbers;
+        workspaces = new WorkspaceThreadLocal();
+    }
+
+    /**
+     * Finds a path from the actor to Kevin Bacon that repeats no actors or
+     * films, trying co-stars in the order the heuristic gives.
+     *
+     * @param actorIndex The actor the path starts at.
+     * @param heuristic Which co-stars to try first.
+     * @return The connections from the actor to Kevin Bacon, which is empty
+     * if the actor is Kevin Bacon or can't reach him.
+     */
+    public ArrayList<Connection> findPathToKevinBacon(int actorIndex,
+            KevinBaconPathHeuristic heuristic)
+    {
+        // THE TABLE ALREADY KNOWS WHEN THERE'S NO PATH, SO DON'T
+        // WALK THE ACTOR'S WHOLE COMPONENT TO FIND THAT OUT
+        int kevinBaconIndex = baconNumbers.getKevinBaconIndex();
+        if ((actorIndex == kevinBaconIndex) || !baconNumbers.canReachKevinBacon(actorIndex))
+        {
+            return new ArrayList();
+        }
+
+        GreedyWorkspace workspace = workspaces.get();
+        workspace.reset();
+        workspace.push(actorIndex, -1);
+        if (gatherCoStars(workspace, actorIndex, heuristic))
+        {
+            return generatePath(workspace);
+        }
+
+        // KEEP GOING UNTIL WE BACK UP PAST THE START
+        while (workspace.getStackSize() > 0)
+        {
+            int candidate = workspace.nextCandidate();
+
+            // DEAD END, GO BACK AND TRY THE PREVIOUS ACTOR'S NEXT BEST
+            if (candidate < 0)
+            {
+                workspace.pop();
+                continue;
+            }
+
+            int nextActor = workspace.getCandidateActor(candidate);
+            workspace.push(nextActor, workspace.getCandidateFilm(candidate));
+            if (gatherCoStars(workspace, nextActor, heuristic))
+            {
+                return generatePath(workspace);
+            }
+        }
+        return new ArrayList();
+    }
+
+    /**
+     * Gathers the co-stars of the actor on top of the stack that no one has
+     * gathered yet and sorts them by the heuristic. If Kevin Bacon is one of
+     * them he goes straight onto the stack instead.
+     *
+     * @return true if Kevin Bacon was found, false otherwise.
+     */
+    private boolean gatherCoStars(GreedyWorkspace workspace,
+            int actorIndex,
+            KevinBaconPathHeuristic heuristic)
+    {
+        int kevinBaconIndex = baconNumbers.getKevinBaconIndex();
+        int filmsEnd = graphIndex.getFilmsEnd(actorIndex);
+        for (int i = graphIndex.getFilmsStart(actorIndex); i < filmsEnd; i++)
+        {
+            int filmIndex = graphIndex.getFilmAt(i);
+            if (!workspace.closeFilm(filmIndex))
+            {
+                continue;
+            }
+            int actorsEnd = graphIndex.getActorsEnd(filmIndex);
+            for (int j = graphIndex.getActorsStart(filmIndex); j < actorsEnd; j++)
+            {
+                int coStar = graphIndex.getActorAt(j);
+                if (coStar == kevinBaconIndex)
+                {
+                    workspace.push(coStar, filmIndex);
+                    return true;
+                }
+
+                // ANYONE WHO CAN'T REACH HIM IS NEVER WORTH TRYING
+                if (!baconNumbers.canReachKevinBacon(coStar)
+                        || !workspace.closeActor(coStar))
+                {
+                    continue;
+                }
+                workspace.addCandidate(coStar, filmIndex, getPriority(coStar, heuristic));
+            }
+        }
+        workspace.sortCandidates();
+        return false;
+    }
+
+    /**
+     * Lower priorities get tried first.
+     */
+    private int getPriority(int actorIndex, KevinBaconPathHeuristic heuristic)
+    {
+        if (heuristic == KevinBaconPathHeuristic.BACON_NUMBER)
+        {
+            return baconNumbers.getBaconNumber(actorIndex);
+        }
+        return Integer.MAX_VALUE - graphIndex.getNumFilmsForActor(actorIndex);
+    }
+
+    /**
+     * Builds the path from the actors on the stack and the films that got
+     * us from each one to the next.
+     */
+    private ArrayList<Connection> generatePath(GreedyWorkspace workspace)
+    {
+        ArrayList<Connection> path = new ArrayList();
+        for (int i = 1; i < workspace.getStackSize(); i++)
+        {
+            path.add(new Connection(graphIndex.getActor(workspace.getStackActor(i - 1)).getId(),
+                    graphIndex.getFilm(workspace.getStackFilm(i)).getId(),
+                    graphIndex.getActor(workspace.getStackActor(i)).getId()));
+        }
+        return path;
+    }
+
+    /**
+     * Gives each thread that searches its own workspace, made the first
+     * time that thread needs one.
+     */
+    private class WorkspaceThreadLocal extends ThreadLocal<GreedyWorkspace>
+    {
+        @Override
+        protected GreedyWorkspace initialValue()
+        {
+            return new GreedyWorkspace(graphIndex.getNumActors(), graphIndex.getNumFilms());
+        }
+    }
+
+    /**
+     * GreedyWorkspace holds one search's closed sets, the path stack, and
+     * every stack entry's sorted run of co-stars still to try, which sit one
+     * after another in the candidate arrays in stack order.
+     */
+    private static class GreedyWorkspace
+    {
+        private static final int INITIAL_STACK_SIZE = 16;
+        private static final int INITIAL_CANDIDATES = 256;
+
+        // EVERY ACTOR AND FILM SOMEONE HAS ALREADY GATHERED
+        private BitSet closedActors;
+        private BitSet closedFilms;
+
+        // THE PATH SO FAR, EACH ACTOR WITH THE FILM THAT GOT US TO THEM,
+        // AND WHERE THEIR RUN OF CANDIDATES STARTS AND HOW FAR THEY ARE
+        // THROUGH IT
+        private int[] stackActors;
+        private int[] stackFilms;
+        private int[] runStarts;
+        private int[] runCursors;
+        private int stackSize;
+
+        // EACH CANDIDATE'S PRIORITY IN THE HIGH 32 BITS AND ITS POSITION IN
+        // candidateActors AND candidateFilms IN THE LOW, SO SORTING THE
+        // KEYS SORTS BY PRIORITY AND THEN BY THE ORDER WE GATHERED THEM
+        private long[] candidateKeys;
+        private int[] candidateActors;
+        private int[] candidateFilms;
+        private int numCandidates;
+
+        GreedyWorkspace(int numActors, int numFilms)
+        {
+            closedActors = new BitSet(numActors);
+            closedFilms = new BitSet(numFilms);
+            stackActors = new int[INITIAL_STACK_SIZE];
+            stackFilms = new int[INITIAL_STACK_SIZE];
+            runStarts = new int[INITIAL_STACK_SIZE];
+            runCursors = new int[INITIAL_STACK_SIZE];
+            candidateKeys = new long[INITIAL_CANDIDATES];
+            candidateActors = new int[INITIAL_CANDIDATES];
+            candidateFilms = new int[INITIAL_CANDIDATES];
+        }
+
+        void reset()
+        {
+            closedActors.clear();
+            closedFilms.clear();
+            stackSize = 0;
+            numCandidates = 0;
+        }
+
+        int getStackSize()                      {   return stackSize;                   }
+        int getStackActor(int position)         {   return stackActors[position];       }
+        int getStackFilm(int position)          {   return stackFilms[position];        }
+        int getCandidateActor(int candidate)    {   return candidateActors[candidate];  }
+        int getCandidateFilm(int candidate)     {   return candidateFilms[candidate];   }
+
+        /**
+         * Closes the actor if it isn't already.
+         *
+         * @return true if the actor was newly closed, false otherwise.
+         */
+        boolean closeActor(int actorIndex)
+        {
+            if (closedActors.get(actorIndex))
+            {
+                return false;
+            }
+            closedActors.set(actorIndex);
+            return true;
+        }
+
+        /**
+         * Closes the film if it isn't already.
+         *
+         * @return true if the film was newly closed, false otherwise.
+         */
+        boolean closeFilm(int filmIndex)
+        {
+            if (closedFilms.get(filmIndex))
+            {
+                return false;
+            }
+            closedFilms.set(filmIndex);
+            return true;
+        }
+
+        /**
+         * Pushes the actor onto the path with an empty run of candidates,
+         * closing them if they weren't already.
+         */
+        void push(int actorIndex, int filmIndex)
+        {
+            if (stackSize == stackActors.length)
+            {
+                int newLength = stackActors.length * 2;
+                stackActors = Arrays.copyOf(stackActors, newLength);
+                stackFilms = Arrays.copyOf(stackFilms, newLength);
+                runStarts = Arrays.copyOf(runStarts, newLength);
+                runCursors = Arrays.copyOf(runCursors, newLength);
+            }
+            closedActors.set(actorIndex);
+            stackActors[stackSize] = actorIndex;
+            stackFilms[stackSize] = filmIndex;
+            runStarts[stackSize] = numCandidates;
+            runCursors[stackSize] = numCandidates;
+            stackSize++;
+        }
+
+        /**
+         * Pops the top actor, throwing away their run, all of which has
+         * been tried. They stay closed, since whatever they could reach
+         * has been tried too.
+         */
+        void pop()
+        {
+            stackSize--;
+            numCandidates = runStarts[stackSize];
+        }
+
+        /**
+         * Adds a candidate to the run of the actor on top of the stack.
+         */
+        void addCandidate(int actorIndex, int filmIndex, int priority)
+        {
+            if (numCandidates == candidateKeys.length)
+            {
+                int newLength = candidateKeys.length * 2;
+                candidateKeys = Arrays.copyOf(candidateKeys, newLength);
+                candidateActors = Arrays.copyOf(candidateActors, newLength);
+                candidateFilms = Arrays.copyOf(candidateFilms, newLength);
+            }
+            candidateKeys[numCandidates] = ((long) priority << 32) | numCandidates;
+            candidateActors[numCandidates] = actorIndex;
+            candidateFilms[numCandidates] = filmIndex;
+            numCandidates++;
+        }
+
+        /**
+         * Sorts the run of the actor on top of the stack, best first.
+         */
+        void sortCandidates()
+        {
+            Arrays.sort(candidateKeys, runStarts[stackSize - 1], numCandidates);
+        }
+
+        /**
+         * Takes the next best candidate from the run of the actor on top of
+         * the stack.
+         *
+         * @return The candidate's position in the candidate arrays, or -1 if
+         * the run has all been tried.
+         */
+        int nextCandidate()
+        {
+            // THE TOP RUN IS ALWAYS THE LAST ONE
+            int top = stackSize - 1;
+            if (runCursors[top] == numCandidates)
+            {
+                return -1;
+            }
+            long key = candidateKeys[runCursors[top]];
+            runCursors[top]++;
+            return (int) key;
+        }
+    }
+}
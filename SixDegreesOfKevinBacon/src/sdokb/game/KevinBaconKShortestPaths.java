@@ -0,0 +1,806 @@
+package sdokb.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * KevinBaconKShortestPaths finds the shortest paths between two actors in
+ * order, the best one first, then the second best, and so on, where no path
+ * uses the same actor or film twice. It uses Yen's algorithm on the actor
+ * and film graph. Once a path has been handed out, each actor and film on
+ * it in turn is tried as the place a new path branches off. Everything
+ * before the branch point stays the same, the ways out of it that earlier
+ * paths with the same beginning took are not allowed, and a search finds
+ * the best way to finish from there without going back through the
+ * beginning. The best of all the paths found this way that haven't been
+ * handed out yet is the next one.
+ *
+ * Paths are only worked out when they're asked for, so asking for the
+ * first few of a huge number of paths only costs those few.
+ *
+ * Each search always expands the actor with the fewest steps so far plus
+ * the fewest steps they still need, which is known exactly for everyone.
+ * For paths to Kevin Bacon that's just the Bacon numbers, and for any other
+ * target each iterator does one breadth first search from the target when
+ * it's made, which on a graph of a million actors takes around a second,
+ * after which each path comes back in well under a millisecond. The same
+ * distances also store a shortest way to the target from every actor, so a
+ * search can stop as soon as it reaches an actor whose stored way doesn't
+ * touch anything blocked. Each thread gets its own reusable workspace, so
+ * any number of threads can search at once.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconKShortestPaths
+{
+    // THE GRAPH AND THE BACON NUMBERS THAT GUIDE SEARCHES TO KEVIN BACON,
+    // WHICH MAY BE null IF THERE WAS NO KEVIN BACON IN THE DATA
+    private KevinBaconGraphIndex graphIndex;
+    private KevinBaconDistanceTable baconNumbers;
+
+    // THE WORKSPACE FOR EACH THREAD'S SEARCHES
+    private ThreadLocal<RankingWorkspace> workspaces;
+
+    /**
+     * This constructor just keeps the graph and table for later searches.
+     *
+     * @param initGraphIndex The fully built graph.
+     * @param initBaconNumbers The Bacon numbers computed for that graph, or
+     * null if there are none, in which case paths to Kevin Bacon search
+     * from scratch like any other.
+     */
+    public KevinBaconKShortestPaths(KevinBaconGraphIndex initGraphIndex,
+            KevinBaconDistanceTable initBaconNumbers)
+    {
+        graphIndex = initGraphIndex;
+        baconNumbers = initBaconNumbers;
+        workspaces = new WorkspaceThreadLocal();
+    }
+
+    /**
+     * Gets the paths from one actor to another, shortest first, with no
+     * repeated actors or films. Paths the same length come in no particular
+     * order. Note that the first path is always a shortest path, but not
+     * necessarily the one the other path finders would give.
+     *
+     * @param fromActorIndex The actor the paths start at.
+     * @param toActorIndex The actor the paths end at.
+     * @return An iterator over the paths, which is empty if there are none,
+     * and has only the one empty path if the two actors are the same.
+     */
+    public Iterator<ArrayList<Connection>> pathsIterator(int fromActorIndex, int toActorIndex)
+    {
+        return new RankedPathIterator(fromActorIndex, toActorIndex);
+    }
+
+    /**
+     * Finds the shortest way to finish a path from the spur node, which is
+     * where it branches off, to the target. Nothing blocked in the workspace
+     * is used, and neither are any of the excluded next nodes right after
+     * the spur node.
+     *
+     * @return The actors and films from the spur node on, alternating, or
+     * null if there's no way to finish.
+     */
+    private int[] findSpurPath(RankingWorkspace workspace,
+            TargetDistances target,
+            int spurNode,
+            boolean spurIsFilm,
+            int[] excludedNextNodes,
+            int numExcluded)
+    {
+        workspace.setSpur(spurNode, spurIsFilm, excludedNextNodes, numExcluded);
+        if (spurIsFilm)
+        {
+            // THE SPUR FILM MUST NOT BE USED AGAIN
+            workspace.visitFilm(spurNode, 0);
+            if (!queueClosestActor(workspace, target, spurNode, -1, 0))
+            {
+                int actorsEnd = graphIndex.getActorsEnd(spurNode);
+                for (int i = graphIndex.getActorsStart(spurNode); i < actorsEnd; i++)
+                {
+                    int actorToTest = graphIndex.getActorAt(i);
+                    int distance = target.getDistance(actorToTest);
+                    if ((distance != KevinBaconDistanceTable.UNREACHABLE)
+                            && !workspace.isActorBlocked(actorToTest)
+                            && !workspace.isExcluded(actorToTest))
+                    {
+                        workspace.visitActor(actorToTest, 1, spurNode, -1, distance);
+                    }
+                }
+            }
+        }
+        else
+        {
+            int distance = target.getDistance(spurNode);
+            if (distance == KevinBaconDistanceTable.UNREACHABLE)
+            {
+                return null;
+            }
+            workspace.visitActor(spurNode, 0, -1, -1, distance);
+        }
+
+        int estimate;
+        while ((estimate = workspace.nextEstimate()) >= 0)
+        {
+            int currentActor = workspace.pop(estimate);
+            int steps = workspace.getSteps(currentActor);
+            if (steps + target.getDistance(currentActor) != estimate)
+            {
+                // REACHED MORE CHEAPLY SINCE IT WAS QUEUED
+                continue;
+            }
+            if (isPathClear(workspace, target, currentActor))
+            {
+                return generateSpurPath(workspace, target, currentActor, spurIsFilm);
+            }
+
+            // NOT YET, SO TRY EVERY FILM WE MAY USE AND HAVEN'T
+            // ALREADY TRIED FROM AT LEAST THIS CLOSE
+            boolean isSpurActor = !spurIsFilm && (currentActor == spurNode);
+            int filmsEnd = graphIndex.getFilmsEnd(currentActor);
+            for (int i = graphIndex.getFilmsStart(currentActor); i < filmsEnd; i++)
+            {
+                int currentFilm = graphIndex.getFilmAt(i);
+                if (workspace.isFilmBlocked(currentFilm)
+                        || (isSpurActor && workspace.isExcluded(currentFilm))
+                        || !workspace.visitFilm(currentFilm, steps))
+                {
+                    continue;
+                }
+                if (queueClosestActor(workspace, target, currentFilm, currentActor, steps))
+                {
+                    continue;
+                }
+                int actorsEnd = graphIndex.getActorsEnd(currentFilm);
+                for (int j = graphIndex.getActorsStart(currentFilm); j < actorsEnd; j++)
+                {
+                    int actorToTest = graphIndex.getActorAt(j);
+                    int distance = target.getDistance(actorToTest);
+                    if ((distance != KevinBaconDistanceTable.UNREACHABLE)
+                            && !workspace.isActorBlocked(actorToTest))
+                    {
+                        workspace.visitActor(actorToTest, steps + 1, currentFilm, currentActor, distance);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * If the film's actor closest to the target may be used and their
+     * stored path is clear, no one else in the film can do better by way of
+     * it, so this queues just that actor.
+     *
+     * @return true if the actor was queued, false if the film's other actors
+     * still need to be tried.
+     */
+    private boolean queueClosestActor(RankingWorkspace workspace,
+            TargetDistances target,
+            int filmIndex,
+            int fromActor,
+            int steps)
+    {
+        int closestActor = target.getClosestActor(filmIndex);
+        if ((closestActor < 0)
+                || workspace.isActorBlocked(closestActor)
+                || workspace.isSpurActor(closestActor)
+                || (workspace.isSpurFilm(filmIndex) && workspace.isExcluded(closestActor))
+                || !isPathClear(workspace, target, closestActor))
+        {
+            return false;
+        }
+        workspace.visitActor(closestActor, steps + 1, filmIndex, fromActor, target.getDistance(closestActor));
+        return true;
+    }
+
+    /**
+     * Tests to see if the actor's stored shortest path to the target is still
+     * there, meaning nothing on it is blocked and it doesn't go back through
+     * the spur node. Like KevinBaconReachability, answers are remembered for
+     * everyone on the way, so each actor's stored path is walked once a search.
+     */
+    private boolean isPathClear(RankingWorkspace workspace, TargetDistances target, int actorIndex)
+    {
+        // WALK UNTIL WE KNOW THE ANSWER
+        int currentActor = actorIndex;
+        boolean clear;
+        while (true)
+        {
+            if (currentActor == target.getTargetIndex())
+            {
+                clear = true;
+                break;
+            }
+            if (workspace.isPathKnown(currentActor))
+            {
+                clear = workspace.isPathClear(currentActor);
+                break;
+            }
+            int nextFilm = target.getNextFilm(currentActor);
+            int nextActor = target.getNextActor(currentActor);
+            if (workspace.isFilmBlocked(nextFilm)
+                    || workspace.isActorBlocked(nextActor)
+                    || workspace.isSpurFilm(nextFilm)
+                    || workspace.isSpurActor(nextActor)
+                    || (workspace.isSpurActor(currentActor) && workspace.isExcluded(nextFilm)))
+            {
+                clear = false;
+                workspace.setPathClear(currentActor, false);
+                break;
+            }
+            currentActor = nextActor;
+        }
+
+        // AND REMEMBER IT FOR EVERYONE ON THE WAY
+        int end = currentActor;
+        currentActor = actorIndex;
+        while (currentActor != end)
+        {
+            workspace.setPathClear(currentActor, clear);
+            currentActor = target.getNextActor(currentActor);
+        }
+        return clear;
+    }
+
+    /**
+     * Builds the spur path by following the workspace's parents back from
+     * the actor the search got to, and then that actor's stored path on to
+     * the target.
+     */
+    private int[] generateSpurPath(RankingWorkspace workspace,
+            TargetDistances target,
+            int reachedActor,
+            boolean spurIsFilm)
+    {
+        int steps = workspace.getSteps(reachedActor);
+        int totalSteps = steps + target.getDistance(reachedActor);
+        int[] nodes = new int[spurIsFilm ? (2 * totalSteps) : (2 * totalSteps + 1)];
+
+        // FIRST THE PART THE SEARCH FOUND, BACKWARDS
+        int position = spurIsFilm ? (2 * steps - 1) : (2 * steps);
+        int currentActor = reachedActor;
+        nodes[position--] = currentActor;
+        while (position >= 0)
+        {
+            nodes[position--] = workspace.getParentFilm(currentActor);
+            if (position >= 0)
+            {
+                currentActor = workspace.getParentActor(currentActor);
+                nodes[position--] = currentActor;
+            }
+        }
+
+        // THEN THE STORED PART
+        position = spurIsFilm ? (2 * steps) : (2 * steps + 1);
+        currentActor = reachedActor;
+        while (position < nodes.length)
+        {
+            nodes[position++] = target.getNextFilm(currentActor);
+            currentActor = target.getNextActor(currentActor);
+            nodes[position++] = currentActor;
+        }
+        return nodes;
+    }
+
+    /**
+     * Turns actors and films, alternating and starting and ending with an
+     * actor, into connections.
+     */
+    private ArrayList<Connection> generatePath(int[] nodes)
+    {
+        ArrayList<Connection> path = new ArrayList();
+        for (int i = 0; i + 2 < nodes.length; i += 2)
+        {
+            Connection c = new Connection(graphIndex.getActor(nodes[i]).getId(),
+                    graphIndex.getFilm(nodes[i + 1]).getId(),
+                    graphIndex.getActor(nodes[i + 2]).getId());
+            path.add(c);
+        }
+        return path;
+    }
+
+    /**
+     * RankedPathIterator hands out the paths between two actors in order,
+     * doing Yen's algorithm one path at a time. Every path is kept as its
+     * actors and films, alternating, so the even positions are actors and
+     * the odd ones films.
+     */
+    private class RankedPathIterator implements Iterator<ArrayList<Connection>>
+    {
+        // HOW FAR EVERYONE IS FROM THE ACTOR THE PATHS END AT
+        private TargetDistances target;
+
+        // EVERY PATH HANDED OUT SO FAR, IN ORDER
+        private ArrayList<int[]> foundPaths;
+
+        // PATHS FOUND THAT HAVEN'T BEEN HANDED OUT YET, BEST FIRST, AND
+        // EVERY PATH EVER FOUND, SO NO PATH IS FOUND TWICE
+        private PriorityQueue<RankedPath> candidatePaths;
+        private HashSet<RankedPath> allPaths;
+        private long numPathsFound;
+
+        // THE NEXT PATH TO HAND OUT, IF WE'VE WORKED IT OUT YET
+        private int[] nextPath;
+        private boolean nextPathKnown;
+
+        RankedPathIterator(int fromActorIndex, int toActorIndex)
+        {
+            if ((baconNumbers != null) && (toActorIndex == baconNumbers.getKevinBaconIndex()))
+            {
+                target = new TargetDistances(baconNumbers);
+            }
+            else
+            {
+                target = new TargetDistances(graphIndex, toActorIndex);
+            }
+            foundPaths = new ArrayList();
+            candidatePaths = new PriorityQueue();
+            allPaths = new HashSet();
+            numPathsFound = 0;
+
+            // THE FIRST PATH IS JUST THE SHORTEST ONE
+            RankingWorkspace workspace = workspaces.get();
+            workspace.reset();
+            nextPath = findSpurPath(workspace, target, fromActorIndex, false, new int[0], 0);
+            nextPathKnown = true;
+            if (nextPath != null)
+            {
+                allPaths.add(new RankedPath(nextPath, numPathsFound++));
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (!nextPathKnown)
+            {
+                findNextPath();
+            }
+            return nextPath != null;
+        }
+
+        @Override
+        public ArrayList<Connection> next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            foundPaths.add(nextPath);
+            nextPathKnown = false;
+            return generatePath(nextPath);
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Branches off every actor and film of the last path handed out, and
+         * then takes the best path found so far as the next one.
+         */
+        private void findNextPath()
+        {
+            int[] lastPath = foundPaths.get(foundPaths.size() - 1);
+            RankingWorkspace workspace = workspaces.get();
+            int[] excludedNextNodes = new int[foundPaths.size()];
+            for (int spurPosition = 0; spurPosition < lastPath.length - 1; spurPosition++)
+            {
+                // NOTHING BEFORE THE SPUR NODE MAY BE USED AGAIN
+                workspace.reset();
+                for (int i = 0; i < spurPosition; i++)
+                {
+                    if ((i % 2) == 0)
+                    {
+                        workspace.blockActor(lastPath[i]);
+                    }
+                    else
+                    {
+                        workspace.blockFilm(lastPath[i]);
+                    }
+                }
+
+                // AND NO PATH WITH THE SAME BEGINNING MAY BE FOUND AGAIN
+                int numExcluded = 0;
+                for (int[] foundPath : foundPaths)
+                {
+                    if ((foundPath.length > spurPosition + 1) && startsWith(foundPath, lastPath, spurPosition + 1))
+                    {
+                        excludedNextNodes[numExcluded++] = foundPath[spurPosition + 1];
+                    }
+                }
+                int[] spurPath = findSpurPath(workspace,
+                        target,
+                        lastPath[spurPosition],
+                        (spurPosition % 2) == 1,
+                        excludedNextNodes,
+                        numExcluded);
+                if (spurPath != null)
+                {
+                    int[] path = Arrays.copyOf(lastPath, spurPosition + spurPath.length);
+                    System.arraycopy(spurPath, 0, path, spurPosition, spurPath.length);
+                    RankedPath rankedPath = new RankedPath(path, numPathsFound);
+                    if (allPaths.add(rankedPath))
+                    {
+                        numPathsFound++;
+                        candidatePaths.add(rankedPath);
+                    }
+                }
+            }
+            RankedPath bestPath = candidatePaths.poll();
+            nextPath = (bestPath == null) ? null : bestPath.nodes;
+            nextPathKnown = true;
+        }
+
+        private boolean startsWith(int[] path, int[] prefixPath, int prefixLength)
+        {
+            for (int i = 0; i < prefixLength; i++)
+            {
+                if (path[i] != prefixPath[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * RankedPath is a path's actors and films waiting to be handed out,
+     * ordered by length, and then by when it was found so that the order is
+     * always the same. Two are equal if they have the same actors and films.
+     */
+    private static class RankedPath implements Comparable<RankedPath>
+    {
+        private int[] nodes;
+        private long order;
+
+        RankedPath(int[] initNodes, long initOrder)
+        {
+            nodes = initNodes;
+            order = initOrder;
+        }
+
+        @Override
+        public int compareTo(RankedPath other)
+        {
+            if (nodes.length != other.nodes.length)
+            {
+                return (nodes.length < other.nodes.length) ? -1 : 1;
+            }
+            return (order < other.order) ? -1 : ((order == other.order) ? 0 : 1);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            return (obj instanceof RankedPath) && Arrays.equals(nodes, ((RankedPath) obj).nodes);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode(nodes);
+        }
+    }
+
+    /**
+     * TargetDistances is how far every actor is from the actor the paths end
+     * at, along with the next film and actor on a shortest path there, and
+     * each film's closest actor. For Kevin Bacon that's just his Bacon number
+     * table. For anyone else it's worked out with one breadth first search
+     * outward from them, the same way the table is, which is paid for once
+     * and then makes every search for that target small.
+     */
+    private static class TargetDistances
+    {
+        private int targetIndex;
+
+        // THE KEVIN BACON TABLE, OR null IF WE HAVE OUR OWN
+        private KevinBaconDistanceTable baconNumbers;
+
+        // OUR OWN, IF THE TARGET ISN'T KEVIN BACON
+        private int[] distances;
+        private int[] nextFilms;
+        private int[] nextActors;
+        private int[] closestActors;
+
+        TargetDistances(KevinBaconDistanceTable initBaconNumbers)
+        {
+            baconNumbers = initBaconNumbers;
+            targetIndex = baconNumbers.getKevinBaconIndex();
+        }
+
+        TargetDistances(KevinBaconGraphIndex graphIndex, int initTargetIndex)
+        {
+            targetIndex = initTargetIndex;
+            int numActors = graphIndex.getNumActors();
+            distances = new int[numActors];
+            nextFilms = new int[numActors];
+            nextActors = new int[numActors];
+            closestActors = new int[graphIndex.getNumFilms()];
+            Arrays.fill(distances, KevinBaconDistanceTable.UNREACHABLE);
+            Arrays.fill(closestActors, -1);
+
+            // EVERYONE IS ONE STEP FURTHER THAN WHOEVER WE FIRST REACHED THEM
+            // FROM, AND SINCE ACTORS COME OFF THE QUEUE CLOSEST FIRST, THE FIRST
+            // ONE TO REACH A FILM IS THE FILM'S CLOSEST ACTOR
+            int[] actorQueue = new int[numActors];
+            int queueHead = 0;
+            int queueTail = 0;
+            distances[targetIndex] = 0;
+            actorQueue[queueTail++] = targetIndex;
+            while (queueHead < queueTail)
+            {
+                int currentActor = actorQueue[queueHead++];
+                int filmsEnd = graphIndex.getFilmsEnd(currentActor);
+                for (int i = graphIndex.getFilmsStart(currentActor); i < filmsEnd; i++)
+                {
+                    int currentFilm = graphIndex.getFilmAt(i);
+                    if (closestActors[currentFilm] >= 0)
+                    {
+                        continue;
+                    }
+                    closestActors[currentFilm] = currentActor;
+                    int actorsEnd = graphIndex.getActorsEnd(currentFilm);
+                    for (int j = graphIndex.getActorsStart(currentFilm); j < actorsEnd; j++)
+                    {
+                        int actorToTest = graphIndex.getActorAt(j);
+                        if (distances[actorToTest] == KevinBaconDistanceTable.UNREACHABLE)
+                        {
+                            distances[actorToTest] = distances[currentActor] + 1;
+                            nextFilms[actorToTest] = currentFilm;
+                            nextActors[actorToTest] = currentActor;
+                            actorQueue[queueTail++] = actorToTest;
+                        }
+                    }
+                }
+            }
+        }
+
+        int getTargetIndex()
+        {
+            return targetIndex;
+        }
+
+        int getDistance(int actorIndex)
+        {
+            return (baconNumbers != null) ? baconNumbers.getBaconNumber(actorIndex) : distances[actorIndex];
+        }
+
+        int getNextFilm(int actorIndex)
+        {
+            return (baconNumbers != null) ? baconNumbers.getNextFilm(actorIndex) : nextFilms[actorIndex];
+        }
+
+        int getNextActor(int actorIndex)
+        {
+            return (baconNumbers != null) ? baconNumbers.getNextActor(actorIndex) : nextActors[actorIndex];
+        }
+
+        int getClosestActor(int filmIndex)
+        {
+            return (baconNumbers != null) ? baconNumbers.getClosestActor(filmIndex) : closestActors[filmIndex];
+        }
+    }
+
+    /**
+     * Gives each thread that searches its own workspace, made the first time
+     * that thread needs one.
+     */
+    private class WorkspaceThreadLocal extends ThreadLocal<RankingWorkspace>
+    {
+        @Override
+        protected RankingWorkspace initialValue()
+        {
+            return new RankingWorkspace(graphIndex.getNumActors(), graphIndex.getNumFilms());
+        }
+    }
+
+    /**
+     * RankingWorkspace holds the bookkeeping for one spur search. Like
+     * KevinBaconSearchWorkspace it uses epoch stamps so it can be reset in
+     * constant time, including for what's blocked. Queued actors are kept in
+     * buckets by their steps plus lower bound, which along any connection
+     * goes up by at most two, so the buckets are visited in order without
+     * ever sorting anything.
+     */
+    private static class RankingWorkspace
+    {
+        private static final int INITIAL_BUCKETS = 16;
+        private static final int INITIAL_BUCKET_SIZE = 16;
+
+        private int epoch;
+
+        // WHEN EACH ACTOR WAS REACHED, IN HOW MANY STEPS, AND FROM WHERE
+        private int[] actorStamps;
+        private int[] steps;
+        private int[] parentFilms;
+        private int[] parentActors;
+
+        // WHEN EACH FILM WAS TRIED AND FROM HOW MANY STEPS
+        private int[] filmStamps;
+        private int[] filmSteps;
+
+        // WHAT MAY NOT BE USED THIS SEARCH
+        private int[] blockedActorStamps;
+        private int[] blockedFilmStamps;
+
+        // WHERE THIS SEARCH BRANCHES OFF, AND THE NEXT NODES AFTER IT
+        // THAT EARLIER PATHS ALREADY TOOK
+        private int spurNode;
+        private boolean spurIsFilm;
+        private int[] excludedNextNodes;
+        private int numExcluded;
+
+        // WHEN EACH ACTOR'S STORED PATH WAS CHECKED AND WHETHER IT WAS CLEAR
+        private int[] pathStamps;
+        private boolean[] pathsClear;
+
+        // QUEUED ACTORS BY ESTIMATE, ONLY THE BUCKETS FROM
+        // minEstimate UP TO maxEstimate MAY HAVE ANY
+        private int[][] buckets;
+        private int[] bucketSizes;
+        private int minEstimate;
+        private int maxEstimate;
+
+        RankingWorkspace(int numActors, int numFilms)
+        {
+            actorStamps = new int[numActors];
+            steps = new int[numActors];
+            parentFilms = new int[numActors];
+            parentActors = new int[numActors];
+            filmStamps = new int[numFilms];
+            filmSteps = new int[numFilms];
+            blockedActorStamps = new int[numActors];
+            blockedFilmStamps = new int[numFilms];
+            pathStamps = new int[numActors];
+            pathsClear = new boolean[numActors];
+            buckets = new int[INITIAL_BUCKETS][INITIAL_BUCKET_SIZE];
+            bucketSizes = new int[INITIAL_BUCKETS];
+            epoch = 0;
+            reset();
+        }
+
+        void reset()
+        {
+            epoch++;
+            if (epoch == Integer.MAX_VALUE)
+            {
+                Arrays.fill(actorStamps, 0);
+                Arrays.fill(filmStamps, 0);
+                Arrays.fill(blockedActorStamps, 0);
+                Arrays.fill(blockedFilmStamps, 0);
+                Arrays.fill(pathStamps, 0);
+                epoch = 1;
+            }
+            minEstimate = Integer.MAX_VALUE;
+            maxEstimate = -1;
+        }
+
+        int getSteps(int actorIndex)                {   return steps[actorIndex];                           }
+        int getParentFilm(int actorIndex)           {   return parentFilms[actorIndex];                     }
+        int getParentActor(int actorIndex)          {   return parentActors[actorIndex];                    }
+        boolean isActorBlocked(int actorIndex)      {   return blockedActorStamps[actorIndex] == epoch;     }
+        boolean isFilmBlocked(int filmIndex)        {   return blockedFilmStamps[filmIndex] == epoch;       }
+        void blockActor(int actorIndex)             {   blockedActorStamps[actorIndex] = epoch;             }
+        void blockFilm(int filmIndex)               {   blockedFilmStamps[filmIndex] = epoch;               }
+        boolean isSpurActor(int actorIndex)         {   return !spurIsFilm && (actorIndex == spurNode);     }
+        boolean isSpurFilm(int filmIndex)           {   return spurIsFilm && (filmIndex == spurNode);       }
+        boolean isPathKnown(int actorIndex)         {   return pathStamps[actorIndex] == epoch;             }
+        boolean isPathClear(int actorIndex)         {   return pathsClear[actorIndex];                      }
+
+        void setPathClear(int actorIndex, boolean clear)
+        {
+            pathStamps[actorIndex] = epoch;
+            pathsClear[actorIndex] = clear;
+        }
+
+        void setSpur(int initSpurNode, boolean initSpurIsFilm, int[] initExcludedNextNodes, int initNumExcluded)
+        {
+            spurNode = initSpurNode;
+            spurIsFilm = initSpurIsFilm;
+            excludedNextNodes = initExcludedNextNodes;
+            numExcluded = initNumExcluded;
+        }
+
+        /**
+         * Tests to see if an earlier path already went from the spur node
+         * straight to the node.
+         */
+        boolean isExcluded(int node)
+        {
+            for (int i = 0; i < numExcluded; i++)
+            {
+                if (excludedNextNodes[i] == node)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Queues the actor unless it's already been reached in as few steps.
+         */
+        void visitActor(int actorIndex, int actorSteps, int parentFilm, int parentActor, int lowerBound)
+        {
+            if ((actorStamps[actorIndex] == epoch) && (steps[actorIndex] <= actorSteps))
+            {
+                return;
+            }
+            actorStamps[actorIndex] = epoch;
+            steps[actorIndex] = actorSteps;
+            parentFilms[actorIndex] = parentFilm;
+            parentActors[actorIndex] = parentActor;
+            push(actorSteps + lowerBound, actorIndex);
+        }
+
+        boolean visitFilm(int filmIndex, int fromSteps)
+        {
+            if ((filmStamps[filmIndex] == epoch) && (filmSteps[filmIndex] <= fromSteps))
+            {
+                return false;
+            }
+            filmStamps[filmIndex] = epoch;
+            filmSteps[filmIndex] = fromSteps;
+            return true;
+        }
+
+        void push(int estimate, int actorIndex)
+        {
+            if (estimate >= buckets.length)
+            {
+                int newLength = Math.max(buckets.length * 2, estimate + 1);
+                int oldLength = buckets.length;
+                buckets = Arrays.copyOf(buckets, newLength);
+                bucketSizes = Arrays.copyOf(bucketSizes, newLength);
+                for (int i = oldLength; i < newLength; i++)
+                {
+                    buckets[i] = new int[INITIAL_BUCKET_SIZE];
+                }
+            }
+            while (maxEstimate < estimate)
+            {
+                bucketSizes[++maxEstimate] = 0;
+            }
+            minEstimate = Math.min(minEstimate, estimate);
+            buckets[estimate] = appendTo(buckets[estimate], bucketSizes[estimate]++, actorIndex);
+        }
+
+        /**
+         * Gets the lowest estimate that has actors queued, or -1 if none do.
+         */
+        int nextEstimate()
+        {
+            while ((minEstimate <= maxEstimate) && (bucketSizes[minEstimate] == 0))
+            {
+                minEstimate++;
+            }
+            return (minEstimate <= maxEstimate) ? minEstimate : -1;
+        }
+
+        int pop(int estimate)
+        {
+            return buckets[estimate][--bucketSizes[estimate]];
+        }
+
+        private static int[] appendTo(int[] array, int position, int value)
+        {
+            if (position == array.length)
+            {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+            array[position] = value;
+            return array;
+        }
+    }
+}
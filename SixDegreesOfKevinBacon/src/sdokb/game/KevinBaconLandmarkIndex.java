@@ -0,0 +1,464 @@
+package sdokb.game;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * KevinBaconLandmarkIndex estimates how many connections apart any two
+ * actors are, in microseconds, using a handful of landmark actors. Kevin
+ * Bacon is always one of them, any hub actors asked for come next, and the
+ * rest are the actors in the most films. Every actor's distance to every
+ * landmark is computed once, with one breadth first search per landmark,
+ * all run in parallel on a pool that's only kept for the build, and stored
+ * a byte each with all of one actor's distances next to one another.
+ *
+ * Going by way of a landmark can't be shorter than the shortest path, so the
+ * smallest sum of the two actors' distances to the same landmark is an upper
+ * bound. And since no connection changes anyone's distance to a landmark by
+ * more than one, the biggest difference between the two actors' distances
+ * to the same landmark is a lower bound. When the two meet the distance is
+ * known exactly. Hubs are in so many films that paths between other actors
+ * usually go right by them, so the upper bound nearly always is exact.
+ *
+ * The path by way of a landmark never has to be searched for, since getting
+ * to or from a landmark is just a matter of stepping to anyone one closer to
+ * it each time. KevinBaconPathFinder uses that to stop its searches as soon
+ * as it knows nothing beats the landmark's path.
+ *
+ * Nothing changes after the index is built, so any number of threads can
+ * use it at once.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconLandmarkIndex
+{
+    // HOW MANY LANDMARKS WE USE IF NOT TOLD
+    public static final int DEFAULT_NUM_LANDMARKS = 16;
+
+    // DISTANCES ARE STORED AS UNSIGNED BYTES, SO ANYONE FARTHER FROM A
+    // LANDMARK THAN THIS IS JUST STORED AS AT LEAST THIS FAR
+    private static final int MAX_STORED_DISTANCE = 254;
+    private static final int NOT_REACHED = 255;
+
+    // THE GRAPH THE LANDMARKS ARE IN
+    private KevinBaconGraphIndex graphIndex;
+
+    // THE LANDMARK ACTORS, KEVIN BACON FIRST IF HE'S IN THE DATA
+    private int[] landmarkActors;
+
+    // ACTOR a's DISTANCE TO LANDMARK l IS distances[a * numLandmarks + l]
+    private byte[] distances;
+
+    /**
+     * This constructor computes everyone's distance to every landmark.
+     *
+     * @param initGraphIndex The fully built graph.
+     * @param initLandmarkActors The landmarks, see pickLandmarks.
+     */
+    public KevinBaconLandmarkIndex(KevinBaconGraphIndex initGraphIndex, int[] initLandmarkActors)
+    {
+        graphIndex = initGraphIndex;
+        landmarkActors = initLandmarkActors;
+
+        // ONE SEARCH PER LANDMARK, EACH INTO ITS OWN COLUMN SO THAT NO TWO
+        // THREADS EVER WRITE TO THE SAME PART OF MEMORY
+        // ON THREADS SIZED TO THE MACHINE THAT ARE ONLY KEPT FOR THE BUILD
+        byte[][] columns = new byte[landmarkActors.length][];
+        ForkJoinPool landmarkPool = new ForkJoinPool();
+        try
+        {
+            landmarkPool.invoke(new LandmarkTask(columns, 0, landmarkActors.length));
+        }
+        finally
+        {
+            landmarkPool.shutdown();
+        }
+
+        // AND THEN EVERYTHING GOES INTO ROWS, ONE PER ACTOR
+        int numLandmarks = landmarkActors.length;
+        distances = new byte[graphIndex.getNumActors() * numLandmarks];
+        for (int l = 0; l < numLandmarks; l++)
+        {
+            byte[] column = columns[l];
+            for (int a = 0; a < column.length; a++)
+            {
+                distances[a * numLandmarks + l] = column[a];
+            }
+        }
+    }
+
+    /**
+     * This constructor is for restoring an index that was saved.
+     */
+    private KevinBaconLandmarkIndex(KevinBaconGraphIndex initGraphIndex,
+            int[] initLandmarkActors,
+            byte[] initDistances)
+    {
+        graphIndex = initGraphIndex;
+        landmarkActors = initLandmarkActors;
+        distances = initDistances;
+    }
+
+    /**
+     * Picks the landmarks for a graph. Kevin Bacon comes first, then the hub
+     * actors asked for, in the order given, and then the actors in the most
+     * films, until there are as many as asked for. The same graph and
+     * settings always give the same landmarks.
+     *
+     * @param graphIndex The fully built graph.
+     * @param kevinBaconIndex Kevin Bacon's index, or -1 if he's not in it.
+     * @param hubActorIds Ids of actors to use as landmarks, where any that
+     * aren't in the graph are left out.
+     * @param numLandmarks How many landmarks there should be, which is all
+     * the hubs asked for if that's more.
+     * @return The landmarks' actor indices.
+     */
+    public static int[] pickLandmarks(KevinBaconGraphIndex graphIndex,
+            int kevinBaconIndex,
+            ArrayList<String> hubActorIds,
+            int numLandmarks)
+    {
+        ArrayList<Integer> picked = new ArrayList();
+        if (kevinBaconIndex >= 0)
+        {
+            picked.add(kevinBaconIndex);
+        }
+        for (String hubActorId : hubActorIds)
+        {
+            int hubIndex = graphIndex.getActorIndex(hubActorId);
+            if ((hubIndex >= 0) && !picked.contains(hubIndex))
+            {
+                picked.add(hubIndex);
+            }
+        }
+
+        // THERE ARE ONLY EVER A FEW TO FILL IN, SO JUST GO LOOKING FOR THE
+        // NEXT BIGGEST EACH TIME, WITH TIES GOING TO THE LOWER INDEX
+        while (picked.size() < Math.min(numLandmarks, graphIndex.getNumActors()))
+        {
+            int biggest = -1;
+            for (int a = 0; a < graphIndex.getNumActors(); a++)
+            {
+                if (((biggest < 0) || (graphIndex.getNumFilmsForActor(a) > graphIndex.getNumFilmsForActor(biggest)))
+                        && !picked.contains(a))
+                {
+                    biggest = a;
+                }
+            }
+            picked.add(biggest);
+        }
+        int[] landmarks = new int[picked.size()];
+        for (int i = 0; i < landmarks.length; i++)
+        {
+            landmarks[i] = picked.get(i);
+        }
+        return landmarks;
+    }
+
+    /**
+     * Computes every actor's distance to one landmark.
+     */
+    private byte[] computeColumn(int landmarkActor)
+    {
+        byte[] column = new byte[graphIndex.getNumActors()];
+        Arrays.fill(column, (byte) NOT_REACHED);
+        boolean[] filmsVisited = new boolean[graphIndex.getNumFilms()];
+        int[] actorQueue = new int[graphIndex.getNumActors()];
+        int queueHead = 0;
+        int queueTail = 0;
+        column[landmarkActor] = 0;
+        actorQueue[queueTail++] = landmarkActor;
+        while (queueHead < queueTail)
+        {
+            int currentActor = actorQueue[queueHead++];
+            int nextDistance = Math.min((column[currentActor] & 0xFF) + 1, MAX_STORED_DISTANCE);
+            int filmsEnd = graphIndex.getFilmsEnd(currentActor);
+            for (int i = graphIndex.getFilmsStart(currentActor); i < filmsEnd; i++)
+            {
+                int currentFilm = graphIndex.getFilmAt(i);
+                if (filmsVisited[currentFilm])
+                {
+                    continue;
+                }
+                filmsVisited[currentFilm] = true;
+                int actorsEnd = graphIndex.getActorsEnd(currentFilm);
+                for (int j = graphIndex.getActorsStart(currentFilm); j < actorsEnd; j++)
+                {
+                    int actorToTest = graphIndex.getActorAt(j);
+                    if ((column[actorToTest] & 0xFF) == NOT_REACHED)
+                    {
+                        column[actorToTest] = (byte) nextDistance;
+                        actorQueue[queueTail++] = actorToTest;
+                    }
+                }
+            }
+        }
+        return column;
+    }
+
+    /**
+     * Writes the whole index to the stream in a form readFrom can read back.
+     *
+     * @param out The stream to write to.
+     * @throws IOException Thrown if there is a problem writing.
+     */
+    public void writeTo(DataOutputStream out) throws IOException
+    {
+        KevinBaconGraphIndex.writeIntArray(out, landmarkActors);
+        out.writeInt(distances.length);
+        out.write(distances);
+    }
+
+    /**
+     * Reads back an index written by writeTo.
+     *
+     * @param in The data to read, starting at its position, which is
+     * left just after the index.
+     * @param initGraphIndex The graph the index was computed for.
+     * @return The restored index.
+     * @throws IOException Thrown if there is a problem reading.
+     */
+    public static KevinBaconLandmarkIndex readFrom(KevinBaconMappedInput in,
+            KevinBaconGraphIndex initGraphIndex) throws IOException
+    {
+        int[] landmarkActors = KevinBaconGraphIndex.readIntArray(in);
+        byte[] distances = new byte[in.getInt()];
+        in.get(distances);
+        return new KevinBaconLandmarkIndex(initGraphIndex, landmarkActors, distances);
+    }
+
+    // ACCESSOR METHODS
+
+    public int getNumLandmarks()                {   return landmarkActors.length;   }
+    public int getLandmarkActor(int landmark)   {   return landmarkActors[landmark];}
+
+    /**
+     * Gets the landmarks' actor indices, in order.
+     */
+    public int[] getLandmarkActors()
+    {
+        return Arrays.copyOf(landmarkActors, landmarkActors.length);
+    }
+
+    /**
+     * Gets how far the actor is from the landmark.
+     *
+     * @return The distance, or KevinBaconDistanceTable.UNREACHABLE if the
+     * landmark can't reach the actor or is too far away to say exactly.
+     */
+    public int getLandmarkDistance(int landmark, int actorIndex)
+    {
+        int distance = getStoredDistance(actorIndex * landmarkActors.length, landmark);
+        return (distance < MAX_STORED_DISTANCE) ? distance : KevinBaconDistanceTable.UNREACHABLE;
+    }
+
+    private int getStoredDistance(int row, int landmark)
+    {
+        return distances[row + landmark] & 0xFF;
+    }
+
+    /**
+     * Gets a number of connections the two actors can't possibly be any
+     * closer than.
+     *
+     * @return The lower bound, or KevinBaconDistanceTable.UNREACHABLE if
+     * a landmark shows that they aren't connected at all.
+     */
+    public int getLowerBound(int actorIndex1, int actorIndex2)
+    {
+        int numLandmarks = landmarkActors.length;
+        int row1 = actorIndex1 * numLandmarks;
+        int row2 = actorIndex2 * numLandmarks;
+        int lowerBound = 0;
+        for (int l = 0; l < numLandmarks; l++)
+        {
+            int distance1 = getStoredDistance(row1, l);
+            int distance2 = getStoredDistance(row2, l);
+            if ((distance1 == NOT_REACHED) || (distance2 == NOT_REACHED))
+            {
+                // A LANDMARK THAT REACHES ONLY ONE OF THEM PROVES
+                // THEY'RE IN DIFFERENT PARTS OF THE GRAPH
+                if (distance1 != distance2)
+                {
+                    return KevinBaconDistanceTable.UNREACHABLE;
+                }
+                continue;
+            }
+            lowerBound = Math.max(lowerBound, Math.abs(distance1 - distance2));
+        }
+        return lowerBound;
+    }
+
+    /**
+     * Gets a number of connections the two actors are known to be within,
+     * by way of the best landmark for them.
+     *
+     * @return The upper bound, or KevinBaconDistanceTable.UNREACHABLE if no
+     * landmark reaches both of them.
+     */
+    public int getUpperBound(int actorIndex1, int actorIndex2)
+    {
+        if (actorIndex1 == actorIndex2)
+        {
+            return 0;
+        }
+        int bestLandmark = getBestLandmark(actorIndex1, actorIndex2);
+        if (bestLandmark < 0)
+        {
+            return KevinBaconDistanceTable.UNREACHABLE;
+        }
+        return getLandmarkDistance(bestLandmark, actorIndex1)
+                + getLandmarkDistance(bestLandmark, actorIndex2);
+    }
+
+    /**
+     * Finds the landmark the two actors, given by their rows, are closest
+     * to together, or -1 if there's none that reaches both.
+     */
+    private int getBestLandmarkForRows(int row1, int row2)
+    {
+        int bestLandmark = -1;
+        int bestLength = Integer.MAX_VALUE;
+        for (int l = 0; l < landmarkActors.length; l++)
+        {
+            int distance1 = getStoredDistance(row1, l);
+            int distance2 = getStoredDistance(row2, l);
+            if ((distance1 < MAX_STORED_DISTANCE)
+                    && (distance2 < MAX_STORED_DISTANCE)
+                    && (distance1 + distance2 < bestLength))
+            {
+                bestLength = distance1 + distance2;
+                bestLandmark = l;
+            }
+        }
+        return bestLandmark;
+    }
+
+    /**
+     * Finds the landmark the two actors are closest to together, which is
+     * the one giving the upper bound.
+     *
+     * @return The landmark, or -1 if no landmark reaches both of them.
+     */
+    public int getBestLandmark(int actorIndex1, int actorIndex2)
+    {
+        return getBestLandmarkForRows(actorIndex1 * landmarkActors.length,
+                actorIndex2 * landmarkActors.length);
+    }
+
+    /**
+     * Builds the path from one actor to another by way of the landmark,
+     * stepping to someone one closer to the landmark each time and then to
+     * someone one further from it. Whenever its length is the shortest
+     * possible, like when it matches the lower bound, it never uses the same
+     * actor or film twice.
+     *
+     * @param landmark A landmark that reaches both actors.
+     * @param fromActorIndex The actor the path starts at.
+     * @param toActorIndex The actor the path ends at.
+     * @return The connections from the first actor to the second.
+     */
+    public ArrayList<Connection> findPathByWayOf(int landmark, int fromActorIndex, int toActorIndex)
+    {
+        // THE SECOND HALF IS FOUND BACKWARDS, FROM THE END TO THE LANDMARK
+        ArrayList<Connection> path = new ArrayList();
+        addStepsToLandmark(path, landmark, fromActorIndex, false);
+        ArrayList<Connection> lastSteps = new ArrayList();
+        addStepsToLandmark(lastSteps, landmark, toActorIndex, true);
+        Collections.reverse(lastSteps);
+        path.addAll(lastSteps);
+        return path;
+    }
+
+    /**
+     * Adds the connections from the actor to the landmark, each to someone
+     * one closer to it, turned around if need be.
+     */
+    private void addStepsToLandmark(ArrayList<Connection> path,
+            int landmark,
+            int actorIndex,
+            boolean reversed)
+    {
+        int currentActor = actorIndex;
+        int distance = getLandmarkDistance(landmark, currentActor);
+        while (distance > 0)
+        {
+            int nextFilm = -1;
+            int nextActor = -1;
+            int filmsEnd = graphIndex.getFilmsEnd(currentActor);
+            for (int i = graphIndex.getFilmsStart(currentActor); (i < filmsEnd) && (nextActor < 0); i++)
+            {
+                int currentFilm = graphIndex.getFilmAt(i);
+                int actorsEnd = graphIndex.getActorsEnd(currentFilm);
+                for (int j = graphIndex.getActorsStart(currentFilm); j < actorsEnd; j++)
+                {
+                    int actorToTest = graphIndex.getActorAt(j);
+                    if (getLandmarkDistance(landmark, actorToTest) == distance - 1)
+                    {
+                        nextFilm = currentFilm;
+                        nextActor = actorToTest;
+                        break;
+                    }
+                }
+            }
+            if (reversed)
+            {
+                path.add(newConnection(nextActor, nextFilm, currentActor));
+            }
+            else
+            {
+                path.add(newConnection(currentActor, nextFilm, nextActor));
+            }
+            currentActor = nextActor;
+            distance--;
+        }
+    }
+
+    private Connection newConnection(int actor1Index, int filmIndex, int actor2Index)
+    {
+        return new Connection(graphIndex.getActor(actor1Index).getId(),
+                graphIndex.getFilm(filmIndex).getId(),
+                graphIndex.getActor(actor2Index).getId());
+    }
+
+    /**
+     * LandmarkTask computes the distances for a range of landmarks, where
+     * big ranges get split in two and the halves done in parallel.
+     */
+    private class LandmarkTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        // WHERE THE RESULTS GO AND THE RANGE THIS TASK IS RESPONSIBLE FOR
+        private byte[][] columns;
+        private int start;
+        private int end;
+
+        LandmarkTask(byte[][] initColumns, int initStart, int initEnd)
+        {
+            columns = initColumns;
+            start = initStart;
+            end = initEnd;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (end - start <= 1)
+            {
+                if (start < end)
+                {
+                    columns[start] = computeColumn(landmarkActors[start]);
+                }
+                return;
+            }
+            int split = start + ((end - start) / 2);
+            invokeAll(new LandmarkTask(columns, start, split), new LandmarkTask(columns, split, end));
+        }
+    }
+}
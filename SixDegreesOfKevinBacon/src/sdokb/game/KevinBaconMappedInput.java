@@ -0,0 +1,119 @@
+package sdokb.game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * KevinBaconMappedInput reads a saved graph back out of a file by mapping
+ * it, but only one window of it at a time. A single mapping can't be any
+ * bigger than an int can count, and a snapshot of a full-size graph can be
+ * far bigger than that, so whenever a read runs past the end of the window
+ * the next window is mapped starting right where the read is, the way
+ * KevinBaconFileUtilities.mapFileSegments maps the text data files. Arrays
+ * too big for one window are read a window at a time.
+ *
+ * Everything is read big-endian, which is how DataOutputStream writes it.
+ * Reading past the end of the file throws a BufferUnderflowException, just
+ * as reading past the end of a ByteBuffer would.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconMappedInput
+{
+    // THE FILE WE'RE READING, WHICH MUST STAY OPEN UNTIL WE'RE DONE
+    private FileChannel channel;
+    private long fileSize;
+
+    // THE BIGGEST PIECE OF THE FILE WE MAP AT ONCE
+    private long maxWindowSize;
+
+    // THE PIECE MAPPED NOW AND WHERE IN THE FILE IT STARTS
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    /**
+     * This constructor maps the first window, starting at the position.
+     *
+     * @param initChannel The open file to read.
+     * @param start Where in the file to start reading.
+     * @param initMaxWindowSize The most of the file to map at once, which
+     * must be at least 4 bytes and at most Integer.MAX_VALUE.
+     * @throws IOException Thrown if there is a problem mapping the file.
+     */
+    public KevinBaconMappedInput(FileChannel initChannel, long start, long initMaxWindowSize)
+            throws IOException
+    {
+        channel = initChannel;
+        fileSize = channel.size();
+        maxWindowSize = initMaxWindowSize;
+        mapWindow(start);
+    }
+
+    public byte get() throws IOException
+    {
+        ensureRemaining(1);
+        return window.get();
+    }
+
+    public int getInt() throws IOException
+    {
+        ensureRemaining(4);
+        return window.getInt();
+    }
+
+    /**
+     * Fills the array with the next bytes.
+     */
+    public void get(byte[] values) throws IOException
+    {
+        int numRead = 0;
+        while (numRead < values.length)
+        {
+            ensureRemaining(1);
+            int length = Math.min(values.length - numRead, window.remaining());
+            window.get(values, numRead, length);
+            numRead += length;
+        }
+    }
+
+    /**
+     * Fills the array with the next ints.
+     */
+    public void get(int[] values) throws IOException
+    {
+        int numRead = 0;
+        while (numRead < values.length)
+        {
+            ensureRemaining(4);
+            int length = Math.min(values.length - numRead, window.remaining() / 4);
+            window.asIntBuffer().get(values, numRead, length);
+            window.position(window.position() + (length * 4));
+            numRead += length;
+        }
+    }
+
+    /**
+     * Makes sure the window has at least this many bytes left, mapping the
+     * next one if it doesn't.
+     */
+    private void ensureRemaining(int numBytes) throws IOException
+    {
+        if (window.remaining() < numBytes)
+        {
+            mapWindow(windowStart + window.position());
+            if (window.remaining() < numBytes)
+            {
+                throw new BufferUnderflowException();
+            }
+        }
+    }
+
+    private void mapWindow(long start) throws IOException
+    {
+        long size = Math.max(0, Math.min(maxWindowSize, fileSize - start));
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+    }
+}
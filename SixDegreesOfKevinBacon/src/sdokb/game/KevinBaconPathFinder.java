@@ -0,0 +1,297 @@
+package sdokb.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * KevinBaconPathFinder finds shortest paths between any two actors using a
+ * bidirectional breadth first search. One search grows outward from each
+ * actor, and each round we expand whichever of the two current frontiers
+ * is smaller. As soon as the two searches touch we have the shortest
+ * path, which usually happens after looking at a tiny fraction of the
+ * graph a one-sided search would visit.
+ *
+ * Given a KevinBaconLandmarkIndex the searches can often stop even sooner.
+ * When the landmarks' lower and upper bounds agree we don't search at all,
+ * and otherwise, since a path the two searches haven't found yet must be
+ * longer than both of their depths put together, we stop as soon as that
+ * reaches the landmarks' upper bound, which skips the last layer, always
+ * the biggest. Either way the path by way of the landmark is a shortest one.
+ *
+ * Each thread gets its own pair of reusable search workspaces, so searches
+ * don't allocate anything until the final path is built, and any number of
+ * threads can search the same graph at once.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconPathFinder
+{
+    // THE GRAPH WE'RE SEARCHING, AND THE LANDMARKS THAT CUT SEARCHES
+    // SHORT, WHICH MAY BE null
+    private KevinBaconGraphIndex graphIndex;
+    private KevinBaconLandmarkIndex landmarks;
+
+    // THE WORKSPACES FOR EACH THREAD'S FORWARD AND BACKWARD SEARCHES
+    private ThreadLocal<KevinBaconSearchWorkspace> forwardWorkspaces;
+    private ThreadLocal<KevinBaconSearchWorkspace> backwardWorkspaces;
+
+    /**
+     * This constructor just keeps the graph for later searches.
+     *
+     * @param initGraphIndex The fully built graph.
+     */
+    public KevinBaconPathFinder(KevinBaconGraphIndex initGraphIndex)
+    {
+        this(initGraphIndex, null);
+    }
+
+    /**
+     * This constructor keeps the graph and its landmarks for later searches.
+     *
+     * @param initGraphIndex The fully built graph.
+     * @param initLandmarks The landmarks computed for that graph, or null to
+     * always search all the way.
+     */
+    public KevinBaconPathFinder(KevinBaconGraphIndex initGraphIndex,
+            KevinBaconLandmarkIndex initLandmarks)
+    {
+        graphIndex = initGraphIndex;
+        landmarks = initLandmarks;
+        forwardWorkspaces = new WorkspaceThreadLocal();
+        backwardWorkspaces = new WorkspaceThreadLocal();
+    }
+
+    /**
+     * Finds a shortest path from one actor to another.
+     *
+     * @param fromActorIndex The actor the path starts at.
+     * @param toActorIndex The actor the path ends at.
+     *
+     * @return The connections from the first actor to the second, which is
+     * empty if they are the same actor or there is no path between them.
+     */
+    public ArrayList<Connection> findShortestPath(int fromActorIndex, int toActorIndex)
+    {
+        if (fromActorIndex == toActorIndex)
+        {
+            return new ArrayList();
+        }
+        int lowerBound = getLowerBound(fromActorIndex, toActorIndex);
+        if (lowerBound == KevinBaconDistanceTable.UNREACHABLE)
+        {
+            return new ArrayList();
+        }
+        KevinBaconSearchWorkspace forward = forwardWorkspaces.get();
+        KevinBaconSearchWorkspace backward = backwardWorkspaces.get();
+        int upperBound = getUpperBound(fromActorIndex, toActorIndex);
+        int meetingActor = search(forward, fromActorIndex, backward, toActorIndex, lowerBound, upperBound);
+        if (meetingActor >= 0)
+        {
+            return generatePath(forward, fromActorIndex,
+                    backward, toActorIndex,
+                    meetingActor);
+        }
+        if (upperBound != KevinBaconDistanceTable.UNREACHABLE)
+        {
+            int landmark = landmarks.getBestLandmark(fromActorIndex, toActorIndex);
+            return landmarks.findPathByWayOf(landmark, fromActorIndex, toActorIndex);
+        }
+        return new ArrayList();
+    }
+
+    /**
+     * Finds how many connections apart two actors are, which is cheaper than
+     * finding the path since when the landmarks are enough we never even
+     * walk it.
+     *
+     * @return The number of connections, or KevinBaconDistanceTable.UNREACHABLE
+     * if there is no path.
+     */
+    public int getDistance(int fromActorIndex, int toActorIndex)
+    {
+        if (fromActorIndex == toActorIndex)
+        {
+            return 0;
+        }
+        int lowerBound = getLowerBound(fromActorIndex, toActorIndex);
+        if (lowerBound == KevinBaconDistanceTable.UNREACHABLE)
+        {
+            return KevinBaconDistanceTable.UNREACHABLE;
+        }
+        KevinBaconSearchWorkspace forward = forwardWorkspaces.get();
+        KevinBaconSearchWorkspace backward = backwardWorkspaces.get();
+        int upperBound = getUpperBound(fromActorIndex, toActorIndex);
+        int meetingActor = search(forward, fromActorIndex, backward, toActorIndex, lowerBound, upperBound);
+        if (meetingActor >= 0)
+        {
+            return forward.getDepth(meetingActor) + backward.getDepth(meetingActor);
+        }
+        return upperBound;
+    }
+
+    private int getLowerBound(int fromActorIndex, int toActorIndex)
+    {
+        return (landmarks == null) ? 0 : landmarks.getLowerBound(fromActorIndex, toActorIndex);
+    }
+
+    private int getUpperBound(int fromActorIndex, int toActorIndex)
+    {
+        return (landmarks == null) ? KevinBaconDistanceTable.UNREACHABLE
+                : landmarks.getUpperBound(fromActorIndex, toActorIndex);
+    }
+
+    /**
+     * Runs the two searches until they meet, or until they, or the lower
+     * bound, show that no path is shorter than the upper bound.
+     *
+     * @return The actor where the searches met, or -1 if they didn't, which
+     * means either the upper bound is the distance or, if there is none,
+     * the actors aren't connected.
+     */
+    private int search(KevinBaconSearchWorkspace forward,
+            int fromActorIndex,
+            KevinBaconSearchWorkspace backward,
+            int toActorIndex,
+            int lowerBound,
+            int upperBound)
+    {
+        // ONE SEARCH FROM EACH END
+        forward.reset();
+        backward.reset();
+        forward.visitStartActor(fromActorIndex);
+        backward.visitStartActor(toActorIndex);
+        int forwardDepth = 0;
+        int backwardDepth = 0;
+
+        // KEEP GOING UNTIL ONE SIDE RUNS OUT OF ACTORS, AT WHICH
+        // POINT WE KNOW THE TWO ACTORS AREN'T CONNECTED
+        while (!forward.isFrontierEmpty() && !backward.isFrontierEmpty())
+        {
+            // NOTHING WE COULD STILL FIND BEATS THE LANDMARK'S PATH
+            if ((upperBound != KevinBaconDistanceTable.UNREACHABLE)
+                    && (Math.max(lowerBound, forwardDepth + backwardDepth + 1) >= upperBound))
+            {
+                return -1;
+            }
+
+            // ALWAYS GROW THE CHEAPER SIDE
+            int meetingActor;
+            if (forward.getFrontierSize() <= backward.getFrontierSize())
+            {
+                meetingActor = expandFrontier(forward, backward);
+                forwardDepth++;
+            }
+            else
+            {
+                meetingActor = expandFrontier(backward, forward);
+                backwardDepth++;
+            }
+
+            // DID THE TWO SEARCHES MEET?
+            if (meetingActor >= 0)
+            {
+                return meetingActor;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the full path by walking the forward search's pointers back
+     * from the meeting actor to the start, and then the backward search's
+     * pointers on from the meeting actor to the end.
+     */
+    private ArrayList<Connection> generatePath(KevinBaconSearchWorkspace forward,
+            int fromActorIndex,
+            KevinBaconSearchWorkspace backward,
+            int toActorIndex,
+            int meetingActor)
+    {
+        ArrayList<Connection> path = new ArrayList();
+        int actorIndex = meetingActor;
+        while (actorIndex != fromActorIndex)
+        {
+            int parentActor = forward.getParentActor(actorIndex);
+            path.add(newConnection(parentActor, forward.getParentFilm(actorIndex), actorIndex));
+            actorIndex = parentActor;
+        }
+        Collections.reverse(path);
+        actorIndex = meetingActor;
+        while (actorIndex != toActorIndex)
+        {
+            int parentActor = backward.getParentActor(actorIndex);
+            path.add(newConnection(actorIndex, backward.getParentFilm(actorIndex), parentActor));
+            actorIndex = parentActor;
+        }
+        return path;
+    }
+
+    private Connection newConnection(int actor1Index, int filmIndex, int actor2Index)
+    {
+        return new Connection(graphIndex.getActor(actor1Index).getId(),
+                graphIndex.getFilm(filmIndex).getId(),
+                graphIndex.getActor(actor2Index).getId());
+    }
+
+    /**
+     * Expands every actor on the side's frontier by one more connection. If
+     * that reaches actors the other side has already reached, the one giving
+     * the shortest total path is returned, otherwise -1. Note that we finish
+     * the whole layer before deciding, since an actor found later in the
+     * layer may be closer to the other side.
+     */
+    private int expandFrontier(KevinBaconSearchWorkspace side,
+            KevinBaconSearchWorkspace otherSide)
+    {
+        int bestActor = -1;
+        int bestLength = Integer.MAX_VALUE;
+        int frontierEnd = side.getFrontierEnd();
+        for (int q = side.getFrontierStart(); q < frontierEnd; q++)
+        {
+            int currentActor = side.getQueuedActor(q);
+            int nextDepth = side.getDepth(currentActor) + 1;
+            int filmsEnd = graphIndex.getFilmsEnd(currentActor);
+            for (int i = graphIndex.getFilmsStart(currentActor); i < filmsEnd; i++)
+            {
+                int currentFilm = graphIndex.getFilmAt(i);
+                if (!side.visitFilm(currentFilm))
+                {
+                    continue;
+                }
+                int actorsEnd = graphIndex.getActorsEnd(currentFilm);
+                for (int j = graphIndex.getActorsStart(currentFilm); j < actorsEnd; j++)
+                {
+                    int actorToTest = graphIndex.getActorAt(j);
+                    if (side.isActorVisited(actorToTest))
+                    {
+                        continue;
+                    }
+                    side.visitActor(actorToTest, nextDepth, currentFilm, currentActor);
+
+                    // HAS THE OTHER SEARCH BEEN HERE?
+                    int otherDepth = otherSide.getDepth(actorToTest);
+                    if ((otherDepth >= 0) && (nextDepth + otherDepth < bestLength))
+                    {
+                        bestLength = nextDepth + otherDepth;
+                        bestActor = actorToTest;
+                    }
+                }
+            }
+        }
+        side.advanceFrontier();
+        return bestActor;
+    }
+
+    /**
+     * Gives each thread that searches its own workspace, made the first
+     * time that thread needs one.
+     */
+    private class WorkspaceThreadLocal extends ThreadLocal<KevinBaconSearchWorkspace>
+    {
+        @Override
+        protected KevinBaconSearchWorkspace initialValue()
+        {
+            return new KevinBaconSearchWorkspace(graphIndex);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package sdokb.game;
+
+/**
+ * KevinBaconPathHeuristic is what a KevinBaconGreedyPathFinder looks at to
+ * decide which co-star to try next. BACON_NUMBER tries the ones closest to
+ * Kevin Bacon first, which always walks straight down a shortest path, and
+ * DEGREE tries the ones in the most films first, since the busiest actors
+ * tend to be a short hop from everyone, Kevin Bacon included.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public enum KevinBaconPathHeuristic
+{
+    BACON_NUMBER,
+    DEGREE
+}
@@ -0,0 +1,475 @@
+package sdokb.game;
+
+import java.util.Arrays;
+
+/**
+ * KevinBaconReachability answers the question a player really has at every
+ * move: if I pick this, can I still get to Kevin Bacon without reusing any
+ * of the actors and films already in my path, and if so, in how many more
+ * connections? Actors and films already used are given as arrays of their
+ * indices, and a candidate that can't reach him anymore is doomed.
+ *
+ * Almost always the answer comes straight from the Bacon number table. If
+ * none of the actors and films on an actor's stored shortest path to Kevin
+ * Bacon have been used, that path is still there, and since avoiding used
+ * nodes can only make paths longer, it's still the shortest. Only when that
+ * path is blocked do we search, and then we search outward from the
+ * candidate, never into used nodes, always expanding the actor with the
+ * smallest steps so far plus Bacon number. Bacon numbers never overestimate
+ * the remaining distance, so the first actor we reach whose stored path is
+ * clear gives the exact answer, and usually after looking at very little of
+ * the graph. A doomed candidate only has a small pocket of the graph left
+ * to it, which is all we end up searching.
+ *
+ * Each thread gets its own reusable workspace, so checks don't allocate
+ * anything and any number of threads can check the same graph at once.
+ * Each check marks the used actors and films in its workspace, which only
+ * costs as much as the path is long.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconReachability
+{
+    // THE GRAPH AND THE BACON NUMBERS THAT GUIDE THE SEARCH
+    private KevinBaconGraphIndex graphIndex;
+    private KevinBaconDistanceTable baconNumbers;
+
+    // THE WORKSPACE FOR EACH THREAD'S CHECKS
+    private ThreadLocal<ReachabilityWorkspace> workspaces;
+
+    /**
+     * This constructor just keeps the graph and table for later checks.
+     *
+     * @param initGraphIndex The fully built graph.
+     * @param initBaconNumbers The Bacon numbers computed for that graph.
+     */
+    public KevinBaconReachability(KevinBaconGraphIndex initGraphIndex,
+            KevinBaconDistanceTable initBaconNumbers)
+    {
+        graphIndex = initGraphIndex;
+        baconNumbers = initBaconNumbers;
+        workspaces = new WorkspaceThreadLocal();
+    }
+
+    /**
+     * Finds how many connections it takes to get from the actor to Kevin
+     * Bacon without using any of the used actors or films.
+     *
+     * @param actorIndex The actor to start from, which should not be used.
+     * @param usedActors The actors that may not be used, by actor index.
+     * @param usedFilms The films that may not be used, by film index.
+     * @return The number of connections, or KevinBaconDistanceTable.UNREACHABLE
+     * if the actor can no longer reach Kevin Bacon.
+     */
+    public int getDistanceFromActor(int actorIndex, int[] usedActors, int[] usedFilms)
+    {
+        return getDistancesFromActors(new int[] {actorIndex}, usedActors, usedFilms)[0];
+    }
+
+    /**
+     * Does getDistanceFromActor for each of the actors, which is much faster
+     * than one at a time since what's learned about the stored paths is
+     * shared by all of them.
+     *
+     * @param actorIndices The actors to start from, which should not be used.
+     * @param usedActors The actors that may not be used, by actor index.
+     * @param usedFilms The films that may not be used, by film index.
+     * @return The number of connections for each actor, in the same order.
+     */
+    public int[] getDistancesFromActors(int[] actorIndices, int[] usedActors, int[] usedFilms)
+    {
+        ReachabilityWorkspace workspace = workspaces.get();
+        workspace.resetPaths();
+        workspace.markUsed(usedActors, usedFilms);
+        int[] distances = new int[actorIndices.length];
+        for (int i = 0; i < actorIndices.length; i++)
+        {
+            workspace.reset();
+            addSource(workspace, actorIndices[i]);
+            distances[i] = search(workspace);
+        }
+        return distances;
+    }
+
+    /**
+     * Finds how many more connections it takes to get to Kevin Bacon after
+     * picking the film, meaning from the best of its actors that aren't
+     * used, without using any of the used actors or films. This is 0 if
+     * Kevin Bacon is in the film.
+     *
+     * @param filmIndex The film being picked.
+     * @param usedActors The actors that may not be used, by actor index.
+     * @param usedFilms The films that may not be used, by film index.
+     * @return The number of connections after the film, or
+     * KevinBaconDistanceTable.UNREACHABLE if it leads nowhere.
+     */
+    public int getDistanceThroughFilm(int filmIndex, int[] usedActors, int[] usedFilms)
+    {
+        return getDistancesThroughFilms(new int[] {filmIndex}, usedActors, usedFilms)[0];
+    }
+
+    /**
+     * Does getDistanceThroughFilm for each of the films, sharing what's
+     * learned about the stored paths like getDistancesFromActors does.
+     *
+     * @param filmIndices The films being picked from.
+     * @param usedActors The actors that may not be used, by actor index.
+     * @param usedFilms The films that may not be used, by film index.
+     * @return The number of connections after each film, in the same order.
+     */
+    public int[] getDistancesThroughFilms(int[] filmIndices, int[] usedActors, int[] usedFilms)
+    {
+        ReachabilityWorkspace workspace = workspaces.get();
+        workspace.resetPaths();
+        workspace.markUsed(usedActors, usedFilms);
+        int[] distances = new int[filmIndices.length];
+        for (int i = 0; i < filmIndices.length; i++)
+        {
+            // NO ONE IN THE FILM CAN GET THERE IN FEWER CONNECTIONS THAN
+            // ITS CLOSEST ACTOR, SO IF THAT ACTOR STILL CAN, WE'RE DONE
+            int closestActor = baconNumbers.getClosestActor(filmIndices[i]);
+            if (closestActor < 0)
+            {
+                distances[i] = KevinBaconDistanceTable.UNREACHABLE;
+                continue;
+            }
+            if (!workspace.isActorUsed(closestActor)
+                    && isPathClear(workspace, closestActor))
+            {
+                distances[i] = baconNumbers.getBaconNumber(closestActor);
+                continue;
+            }
+
+            // OTHERWISE SEARCH FROM ALL ITS ACTORS
+            workspace.reset();
+            int actorsEnd = graphIndex.getActorsEnd(filmIndices[i]);
+            for (int j = graphIndex.getActorsStart(filmIndices[i]); j < actorsEnd; j++)
+            {
+                addSource(workspace, graphIndex.getActorAt(j));
+            }
+            distances[i] = search(workspace);
+        }
+        return distances;
+    }
+
+    /**
+     * Starts the search at the actor, unless it's used or could never reach
+     * Kevin Bacon anyway.
+     */
+    private void addSource(ReachabilityWorkspace workspace, int actorIndex)
+    {
+        int baconNumber = baconNumbers.getBaconNumber(actorIndex);
+        if ((baconNumber != KevinBaconDistanceTable.UNREACHABLE) && !workspace.isActorUsed(actorIndex))
+        {
+            workspace.visitActor(actorIndex, 0, baconNumber);
+        }
+    }
+
+    /**
+     * Searches out from the workspace's sources, always expanding the actor
+     * with the lowest steps plus Bacon number, until reaching an actor whose
+     * stored path to Kevin Bacon is clear.
+     */
+    private int search(ReachabilityWorkspace workspace)
+    {
+        int estimate;
+        while ((estimate = workspace.nextEstimate()) >= 0)
+        {
+            int currentActor = workspace.pop(estimate);
+            int steps = workspace.getSteps(currentActor);
+            if (steps + baconNumbers.getBaconNumber(currentActor) != estimate)
+            {
+                // REACHED MORE CHEAPLY SINCE IT WAS QUEUED
+                continue;
+            }
+            if (isPathClear(workspace, currentActor))
+            {
+                return estimate;
+            }
+
+            // NOT YET, SO TRY EVERY UNUSED FILM WE HAVEN'T
+            // ALREADY TRIED FROM AT LEAST THIS CLOSE
+            int filmsEnd = graphIndex.getFilmsEnd(currentActor);
+            for (int i = graphIndex.getFilmsStart(currentActor); i < filmsEnd; i++)
+            {
+                int currentFilm = graphIndex.getFilmAt(i);
+                if (workspace.isFilmUsed(currentFilm) || !workspace.visitFilm(currentFilm, steps))
+                {
+                    continue;
+                }
+
+                // IF THE FILM'S CLOSEST ACTOR CAN STILL GET THERE, NO ONE
+                // ELSE IN IT CAN DO BETTER BY WAY OF THIS FILM
+                int closestActor = baconNumbers.getClosestActor(currentFilm);
+                if ((closestActor >= 0)
+                        && !workspace.isActorUsed(closestActor)
+                        && isPathClear(workspace, closestActor))
+                {
+                    workspace.visitActor(closestActor, steps + 1, baconNumbers.getBaconNumber(closestActor));
+                    continue;
+                }
+                int actorsEnd = graphIndex.getActorsEnd(currentFilm);
+                for (int j = graphIndex.getActorsStart(currentFilm); j < actorsEnd; j++)
+                {
+                    int actorToTest = graphIndex.getActorAt(j);
+                    int baconNumber = baconNumbers.getBaconNumber(actorToTest);
+                    if ((baconNumber != KevinBaconDistanceTable.UNREACHABLE)
+                            && !workspace.isActorUsed(actorToTest))
+                    {
+                        workspace.visitActor(actorToTest, steps + 1, baconNumber);
+                    }
+                }
+            }
+        }
+        return KevinBaconDistanceTable.UNREACHABLE;
+    }
+
+    /**
+     * Tests to see if none of the actors and films on the actor's stored
+     * shortest path to Kevin Bacon are used. Answers are remembered until the
+     * used actors and films might change, and since the rest of a stored path is another
+     * actor's stored path, each actor's is only ever walked once.
+     */
+    private boolean isPathClear(ReachabilityWorkspace workspace, int actorIndex)
+    {
+        // WALK UNTIL WE KNOW THE ANSWER
+        int kevinBaconIndex = baconNumbers.getKevinBaconIndex();
+        int currentActor = actorIndex;
+        boolean clear;
+        while (true)
+        {
+            if (currentActor == kevinBaconIndex)
+            {
+                clear = true;
+                break;
+            }
+            if (workspace.isPathKnown(currentActor))
+            {
+                clear = workspace.isPathClear(currentActor);
+                break;
+            }
+            int nextActor = baconNumbers.getNextActor(currentActor);
+            if (workspace.isFilmUsed(baconNumbers.getNextFilm(currentActor)) || workspace.isActorUsed(nextActor))
+            {
+                clear = false;
+                workspace.setPathClear(currentActor, false);
+                break;
+            }
+            currentActor = nextActor;
+        }
+
+        // AND REMEMBER IT FOR EVERYONE ON THE WAY
+        int end = currentActor;
+        currentActor = actorIndex;
+        while (currentActor != end)
+        {
+            workspace.setPathClear(currentActor, clear);
+            currentActor = baconNumbers.getNextActor(currentActor);
+        }
+        return clear;
+    }
+
+    /**
+     * Gives each thread that checks its own workspace, made the first time
+     * that thread needs one.
+     */
+    private class WorkspaceThreadLocal extends ThreadLocal<ReachabilityWorkspace>
+    {
+        @Override
+        protected ReachabilityWorkspace initialValue()
+        {
+            return new ReachabilityWorkspace(graphIndex.getNumActors(), graphIndex.getNumFilms());
+        }
+    }
+
+    /**
+     * ReachabilityWorkspace holds the bookkeeping for one check. Like
+     * KevinBaconSearchWorkspace it uses epoch stamps so it can be reset in
+     * constant time, with a separate epoch for what's known about the stored
+     * paths, since that stays true for as long as the same nodes are used, and
+ * another for which nodes are used. Queued actors are kept in buckets by their steps plus
+     * Bacon number, which along any connection goes up by at most two, so
+     * the buckets are visited in order without ever sorting anything.
+     */
+    private static class ReachabilityWorkspace
+    {
+        private static final int INITIAL_BUCKETS = 16;
+        private static final int INITIAL_BUCKET_SIZE = 16;
+
+        private int epoch;
+
+        // WHEN EACH ACTOR WAS REACHED AND IN HOW MANY STEPS
+        private int[] actorStamps;
+        private int[] steps;
+
+        // WHEN EACH FILM WAS TRIED AND FROM HOW MANY STEPS
+        private int[] filmStamps;
+        private int[] filmSteps;
+
+        // WHEN EACH ACTOR'S STORED PATH WAS CHECKED AND WHETHER IT WAS CLEAR
+        private int pathEpoch;
+        private int[] pathStamps;
+        private boolean[] pathsClear;
+
+        // WHEN EACH ACTOR AND FILM WAS LAST MARKED AS USED
+        private int usedEpoch;
+        private int[] usedActorStamps;
+        private int[] usedFilmStamps;
+
+        // QUEUED ACTORS BY ESTIMATE, ONLY THE BUCKETS FROM
+        // minEstimate UP TO maxEstimate MAY HAVE ANY
+        private int[][] buckets;
+        private int[] bucketSizes;
+        private int minEstimate;
+        private int maxEstimate;
+
+        ReachabilityWorkspace(int numActors, int numFilms)
+        {
+            actorStamps = new int[numActors];
+            steps = new int[numActors];
+            filmStamps = new int[numFilms];
+            filmSteps = new int[numFilms];
+            pathStamps = new int[numActors];
+            pathsClear = new boolean[numActors];
+            usedActorStamps = new int[numActors];
+            usedFilmStamps = new int[numFilms];
+            buckets = new int[INITIAL_BUCKETS][INITIAL_BUCKET_SIZE];
+            bucketSizes = new int[INITIAL_BUCKETS];
+            epoch = 0;
+            pathEpoch = 0;
+            usedEpoch = 0;
+            reset();
+            resetPaths();
+        }
+
+        void reset()
+        {
+            epoch++;
+            if (epoch == Integer.MAX_VALUE)
+            {
+                Arrays.fill(actorStamps, 0);
+                Arrays.fill(filmStamps, 0);
+                epoch = 1;
+            }
+            minEstimate = Integer.MAX_VALUE;
+            maxEstimate = -1;
+        }
+
+        void resetPaths()
+        {
+            pathEpoch++;
+            if (pathEpoch == Integer.MAX_VALUE)
+            {
+                Arrays.fill(pathStamps, 0);
+                pathEpoch = 1;
+            }
+        }
+
+        /**
+         * Forgets whatever was used before and marks these as used instead.
+         */
+        void markUsed(int[] usedActors, int[] usedFilms)
+        {
+            usedEpoch++;
+            if (usedEpoch == Integer.MAX_VALUE)
+            {
+                Arrays.fill(usedActorStamps, 0);
+                Arrays.fill(usedFilmStamps, 0);
+                usedEpoch = 1;
+            }
+            for (int i = 0; i < usedActors.length; i++)
+            {
+                usedActorStamps[usedActors[i]] = usedEpoch;
+            }
+            for (int i = 0; i < usedFilms.length; i++)
+            {
+                usedFilmStamps[usedFilms[i]] = usedEpoch;
+            }
+        }
+
+        boolean isActorUsed(int actorIndex)         {   return usedActorStamps[actorIndex] == usedEpoch;    }
+        boolean isFilmUsed(int filmIndex)           {   return usedFilmStamps[filmIndex] == usedEpoch;      }
+        int getSteps(int actorIndex)                {   return steps[actorIndex];                   }
+        boolean isPathKnown(int actorIndex)         {   return pathStamps[actorIndex] == pathEpoch; }
+        boolean isPathClear(int actorIndex)         {   return pathsClear[actorIndex];              }
+
+        void setPathClear(int actorIndex, boolean clear)
+        {
+            pathStamps[actorIndex] = pathEpoch;
+            pathsClear[actorIndex] = clear;
+        }
+
+        /**
+         * Queues the actor unless it's already been reached in as few steps.
+         */
+        void visitActor(int actorIndex, int actorSteps, int baconNumber)
+        {
+            if ((actorStamps[actorIndex] == epoch) && (steps[actorIndex] <= actorSteps))
+            {
+                return;
+            }
+            actorStamps[actorIndex] = epoch;
+            steps[actorIndex] = actorSteps;
+            push(actorSteps + baconNumber, actorIndex);
+        }
+
+        boolean visitFilm(int filmIndex, int fromSteps)
+        {
+            if ((filmStamps[filmIndex] == epoch) && (filmSteps[filmIndex] <= fromSteps))
+            {
+                return false;
+            }
+            filmStamps[filmIndex] = epoch;
+            filmSteps[filmIndex] = fromSteps;
+            return true;
+        }
+
+        void push(int estimate, int actorIndex)
+        {
+            if (estimate >= buckets.length)
+            {
+                int newLength = Math.max(buckets.length * 2, estimate + 1);
+                int oldLength = buckets.length;
+                buckets = Arrays.copyOf(buckets, newLength);
+                bucketSizes = Arrays.copyOf(bucketSizes, newLength);
+                for (int i = oldLength; i < newLength; i++)
+                {
+                    buckets[i] = new int[INITIAL_BUCKET_SIZE];
+                }
+            }
+            while (maxEstimate < estimate)
+            {
+                bucketSizes[++maxEstimate] = 0;
+            }
+            minEstimate = Math.min(minEstimate, estimate);
+            buckets[estimate] = appendTo(buckets[estimate], bucketSizes[estimate]++, actorIndex);
+        }
+
+        /**
+         * Gets the lowest estimate that has actors queued, or -1 if none do.
+         */
+        int nextEstimate()
+        {
+            while ((minEstimate <= maxEstimate) && (bucketSizes[minEstimate] == 0))
+            {
+                minEstimate++;
+            }
+            return (minEstimate <= maxEstimate) ? minEstimate : -1;
+        }
+
+        int pop(int estimate)
+        {
+            return buckets[estimate][--bucketSizes[estimate]];
+        }
+
+        private static int[] appendTo(int[] array, int position, int value)
+        {
+            if (position == array.length)
+            {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+            array[position] = value;
+            return array;
+        }
+    }
+}
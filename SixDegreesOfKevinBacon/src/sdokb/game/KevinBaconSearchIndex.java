@@ -0,0 +1,541 @@
+package sdokb.game;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * KevinBaconSearchIndex finds actors and films anywhere in the graph by
+ * name, the way a search box would. Names are matched ignoring case,
+ * accents, and punctuation, each word typed may be the start of any word
+ * in the name, in any order, and longer queries may have a typo or two.
+ *
+ * Every actor's name and film's title is normalized once and broken into
+ * the trigrams of each of its words, with the start of each word padded so
+ * that its first letters make trigrams too. For every trigram we keep a
+ * posting list of the names that have it. The names are numbered best
+ * first, meaning those with the most films or actors first, so every
+ * posting list is in rank order, and a search walks the lists together
+ * and stops as soon as it has found enough. That's why the top results
+ * come back quickly however many names there are.
+ *
+ * A name can only start its words with everything typed if it has all the
+ * query's trigrams, so exact matches come from intersecting their lists.
+ * Each typo can only spoil three of the query's trigrams, so a name within
+ * the allowed typos has to share all but three per typo of them, which
+ * also means it has to be in at least one of the shortest few lists. Only
+ * the names in those lists that share enough trigrams are checked with an
+ * edit distance. Since short queries have long lists, only the first
+ * MAX_TYPO_CANDIDATES names in them are looked at, so a search with typos
+ * may miss poorly connected names.
+ *
+ * The index is only read once built, so any number of threads can search
+ * it at once.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconSearchIndex
+{
+    // QUERIES WITH AT LEAST THIS MANY LETTERS MAY HAVE ONE TYPO,
+    // AND AT LEAST THIS MANY MAY HAVE TWO
+    public static final int ONE_TYPO_LENGTH = 4;
+    public static final int TWO_TYPO_LENGTH = 8;
+
+    // HOW MANY OF A QUERY'S TRIGRAMS EACH TYPO CAN SPOIL
+    private static final int TRIGRAMS_PER_TYPO = 3;
+
+    // THE MOST NAMES A SEARCH LOOKS AT FOR TYPOS. SHORT QUERIES HAVE TO
+    // LOOK AT EVERY NAME WITH ANY OF THEIR TRIGRAMS, WHICH IN A BIG GRAPH
+    // IS A LOT OF THEM, SO TYPOS ARE ONLY LOOKED FOR AMONG THE BEST RANKED
+    public static final int MAX_TYPO_CANDIDATES = 4096;
+
+    // EACH CHARACTER OF A TRIGRAM GETS THIS MANY BITS OF ITS KEY, SO THE
+    // KEYS CAN INDEX AN ARRAY DIRECTLY
+    private static final int CHAR_BITS = 6;
+    private static final int NUM_TRIGRAMS = 1 << (3 * CHAR_BITS);
+
+    // THE CHARACTER CODES, WITH 0 LEFT FOR THE PADDING BEFORE EACH WORD.
+    // ANY CHARACTER BESIDES a-z AND 0-9 SHARES ONE OF THE OTHER CODES,
+    // WHICH CAN ONLY MAKE EXTRA CANDIDATES THAT THEIR CHECK THEN REJECTS
+    private static final int FIRST_LETTER_CODE = 1;
+    private static final int FIRST_DIGIT_CODE = 27;
+    private static final int FIRST_OTHER_CODE = 37;
+    private static final int NUM_OTHER_CODES = (1 << CHAR_BITS) - FIRST_OTHER_CODE;
+
+    // THE SPACE BETWEEN WORDS OF NORMALIZED TEXT
+    private static final char WORD_SEPARATOR = ' ';
+
+    // THE GRAPH THE NAMES ARE FROM
+    private KevinBaconGraphIndex graphIndex;
+    private int numActors;
+
+    // FOR EACH RANK, THE ACTOR INDEX, OR THE FILM INDEX PLUS numActors
+    private int[] rankedNames;
+
+    // EVERY RANK'S NORMALIZED NAME, ONE AFTER ANOTHER
+    private char[] names;
+    private int[] nameStarts;
+
+    // THE RANKS OF THE NAMES WITH EACH TRIGRAM, IN ORDER
+    private int[] postingStarts;
+    private int[] postings;
+
+    /**
+     * This constructor indexes every actor and film in the graph.
+     *
+     * @param initGraphIndex The fully built graph.
+     */
+    public KevinBaconSearchIndex(KevinBaconGraphIndex initGraphIndex)
+    {
+        graphIndex = initGraphIndex;
+        numActors = graphIndex.getNumActors();
+        int numNames = numActors + graphIndex.getNumFilms();
+
+        // THE BEST CONNECTED GO FIRST, THE KEYS SORT BY THAT AND THEN INDEX
+        long[] keys = new long[numNames];
+        for (int i = 0; i < numActors; i++)
+        {
+            keys[i] = ((long) (Integer.MAX_VALUE - graphIndex.getNumFilmsForActor(i)) << 32) | i;
+        }
+        for (int i = 0; i < graphIndex.getNumFilms(); i++)
+        {
+            keys[numActors + i] = ((long) (Integer.MAX_VALUE - graphIndex.getNumActorsInFilm(i)) << 32) | (numActors + i);
+        }
+        Arrays.sort(keys);
+        rankedNames = new int[numNames];
+        StringBuilder allNames = new StringBuilder();
+        nameStarts = new int[numNames + 1];
+        for (int rank = 0; rank < numNames; rank++)
+        {
+            rankedNames[rank] = (int) keys[rank];
+            nameStarts[rank] = allNames.length();
+            allNames.append(normalize(getName(rank).toString()));
+        }
+        nameStarts[numNames] = allNames.length();
+        names = allNames.toString().toCharArray();
+
+        // COUNT HOW MANY NAMES HAVE EACH TRIGRAM, THEN FILL IN THE LISTS,
+        // WHICH COME OUT IN RANK ORDER SINCE WE GO THROUGH THE NAMES IN IT
+        postingStarts = new int[NUM_TRIGRAMS + 1];
+        int[] trigrams = new int[16];
+        for (int rank = 0; rank < numNames; rank++)
+        {
+            trigrams = ensureCapacity(trigrams, nameStarts[rank + 1] - nameStarts[rank]);
+            int numTrigrams = gatherTrigrams(names, nameStarts[rank], nameStarts[rank + 1], trigrams);
+            for (int i = 0; i < numTrigrams; i++)
+            {
+                postingStarts[trigrams[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < NUM_TRIGRAMS; i++)
+        {
+            postingStarts[i + 1] += postingStarts[i];
+        }
+        postings = new int[postingStarts[NUM_TRIGRAMS]];
+        int[] postingEnds = Arrays.copyOf(postingStarts, NUM_TRIGRAMS);
+        for (int rank = 0; rank < numNames; rank++)
+        {
+            int numTrigrams = gatherTrigrams(names, nameStarts[rank], nameStarts[rank + 1], trigrams);
+            for (int i = 0; i < numTrigrams; i++)
+            {
+                postings[postingEnds[trigrams[i]]++] = rank;
+            }
+        }
+    }
+
+    // ACCESSOR METHODS
+    public int getNumNames()                    {   return rankedNames.length;  }
+
+    /**
+     * Gets the actor or film with the rank.
+     */
+    private IMDBObject getName(int rank)
+    {
+        int name = rankedNames[rank];
+        if (name < numActors)
+        {
+            return graphIndex.getActor(name);
+        }
+        return graphIndex.getFilm(name - numActors);
+    }
+
+    /**
+     * Finds the best actors and films for the query. Those whose words
+     * start with every word of the query come first, best connected first,
+     * and if there aren't enough of them they're followed by those that do
+     * with the fewest typos, for queries long enough to allow any.
+     *
+     * @param query What was typed, which may be any case and have accents
+     * and punctuation or not.
+     * @param maxResults The most actors and films to find.
+     * @return The actors and films found, best first.
+     */
+    public ArrayList<IMDBObject> search(String query, int maxResults)
+    {
+        ArrayList<IMDBObject> results = new ArrayList();
+        String normalizedQuery = normalize(query);
+        if (normalizedQuery.isEmpty() || (maxResults <= 0))
+        {
+            return results;
+        }
+        char[] queryChars = normalizedQuery.toCharArray();
+        String[] queryWords = normalizedQuery.split(String.valueOf(WORD_SEPARATOR));
+        int numLetters = queryChars.length - (queryWords.length - 1);
+
+        // THE QUERY'S TRIGRAMS, SHORTEST LIST FIRST
+        int[] trigrams = new int[queryChars.length];
+        int numTrigrams = gatherTrigrams(queryChars, 0, queryChars.length, trigrams);
+        PostingCursor[] cursors = new PostingCursor[numTrigrams];
+        for (int i = 0; i < numTrigrams; i++)
+        {
+            cursors[i] = new PostingCursor(trigrams[i]);
+        }
+        Arrays.sort(cursors);
+
+        // FIRST THE NAMES WITH EVERY TRIGRAM. WHENEVER A LIST DOESN'T HAVE
+        // THE RANK WE'RE UP TO, ITS NEXT ONE IS THE NEXT THAT ALL COULD HAVE
+        int[] exactRanks = new int[maxResults];
+        int numExact = 0;
+        int rank = cursors[0].getRank();
+        while ((rank < Integer.MAX_VALUE) && (numExact < maxResults))
+        {
+            int nextRank = rank + 1;
+            boolean allHaveIt = true;
+            for (PostingCursor cursor : cursors)
+            {
+                if (!cursor.advanceTo(rank))
+                {
+                    nextRank = cursor.getRank();
+                    allHaveIt = false;
+                    break;
+                }
+            }
+            if (allHaveIt && (countTypos(queryWords, rank, 0) == 0))
+            {
+                exactRanks[numExact++] = rank;
+                results.add(getName(rank));
+            }
+            rank = nextRank;
+        }
+        if (numExact == maxResults)
+        {
+            return results;
+        }
+
+        // THEN THE ONES WITH TYPOS, IF THE QUERY'S LONG ENOUGH TO HAVE ANY
+        int maxTypos = (numLetters >= TWO_TYPO_LENGTH) ? 2 : ((numLetters >= ONE_TYPO_LENGTH) ? 1 : 0);
+        int minTrigrams = numTrigrams - (TRIGRAMS_PER_TYPO * maxTypos);
+        while ((maxTypos > 0) && (minTrigrams < 1))
+        {
+            maxTypos--;
+            minTrigrams += TRIGRAMS_PER_TYPO;
+        }
+        if (maxTypos == 0)
+        {
+            return results;
+        }
+        searchWithTypos(queryWords, cursors, minTrigrams, maxTypos,
+                Arrays.copyOf(exactRanks, numExact), maxResults - numExact, results);
+        return results;
+    }
+
+    /**
+     * Adds up to maxResults names to the results that are within maxTypos of
+     * the query but aren't exact matches, fewest typos and then best ranked
+     * first. A name within maxTypos has to have at least minTrigrams of the
+     * query's trigrams, so it has to be in one of the shortest lists that
+     * leave fewer than that many others, and we only walk those. Each name
+     * in them can then only miss as many of the other lists as it's in of
+     * the walked ones, less one.
+     */
+    private void searchWithTypos(String[] queryWords,
+            PostingCursor[] cursors,
+            int minTrigrams,
+            int maxTypos,
+            int[] exactRanks,
+            int maxResults,
+            ArrayList<IMDBObject> results)
+    {
+        for (PostingCursor cursor : cursors)
+        {
+            cursor.reset();
+        }
+        int numWalked = cursors.length - minTrigrams + 1;
+        int[] walkPositions = new int[numWalked];
+        for (int i = 0; i < numWalked; i++)
+        {
+            walkPositions[i] = cursors[i].start;
+        }
+
+        // EACH FOUND NAME'S TYPOS IN THE HIGH 32 BITS AND RANK IN THE LOW
+        long[] found = new long[maxResults];
+        int numFound = 0;
+        int numCandidates = 0;
+        while ((numFound < maxResults) && (numCandidates < MAX_TYPO_CANDIDATES))
+        {
+            // THE NEXT RANK IN ANY OF THE WALKED LISTS
+            int rank = Integer.MAX_VALUE;
+            for (int i = 0; i < numWalked; i++)
+            {
+                if (walkPositions[i] < cursors[i].end)
+                {
+                    rank = Math.min(rank, postings[walkPositions[i]]);
+                }
+            }
+            if (rank == Integer.MAX_VALUE)
+            {
+                break;
+            }
+            numCandidates++;
+            int numMisses = -1;
+            for (int i = 0; i < numWalked; i++)
+            {
+                if ((walkPositions[i] < cursors[i].end) && (postings[walkPositions[i]] == rank))
+                {
+                    walkPositions[i]++;
+                    numMisses++;
+                }
+            }
+            for (int i = numWalked; (i < cursors.length) && (numMisses >= 0); i++)
+            {
+                if (!cursors[i].advanceTo(rank))
+                {
+                    numMisses--;
+                }
+            }
+
+            if ((numMisses >= 0) && (Arrays.binarySearch(exactRanks, rank) < 0))
+            {
+                int typos = countTypos(queryWords, rank, maxTypos);
+                if ((typos > 0) && (typos <= maxTypos))
+                {
+                    found[numFound++] = ((long) typos << 32) | rank;
+                }
+            }
+        }
+        Arrays.sort(found, 0, numFound);
+        for (int i = 0; i < numFound; i++)
+        {
+            results.add(getName((int) found[i]));
+        }
+    }
+
+    /**
+     * Adds up, for each query word, the fewest typos it takes to make it the
+     * start of any of the name's words.
+     *
+     * @return The typos, which once over maxTypos may be any bigger number.
+     */
+    private int countTypos(String[] queryWords, int rank, int maxTypos)
+    {
+        int typos = 0;
+        for (String queryWord : queryWords)
+        {
+            int wordTypos = Integer.MAX_VALUE;
+            int wordStart = nameStarts[rank];
+            int nameEnd = nameStarts[rank + 1];
+            while ((wordStart < nameEnd) && (wordTypos > 0))
+            {
+                int wordEnd = wordStart;
+                while ((wordEnd < nameEnd) && (names[wordEnd] != WORD_SEPARATOR))
+                {
+                    wordEnd++;
+                }
+                wordTypos = Math.min(wordTypos, countPrefixTypos(queryWord, wordStart, wordEnd, maxTypos));
+                wordStart = wordEnd + 1;
+            }
+            typos += wordTypos;
+            if (typos > maxTypos)
+            {
+                break;
+            }
+        }
+        return typos;
+    }
+
+    /**
+     * Finds the edit distance from the query word to the closest start of
+     * the name's word between wordStart and wordEnd, only looking at starts
+     * that could be within maxTypos.
+     */
+    private int countPrefixTypos(String queryWord, int wordStart, int wordEnd, int maxTypos)
+    {
+        int queryLength = queryWord.length();
+        int wordLength = Math.min(wordEnd - wordStart, queryLength + maxTypos);
+
+        // distances[i] IS THE EDIT DISTANCE FROM THE FIRST i CHARACTERS OF
+        // THE QUERY WORD TO THE WORD START WE'RE UP TO
+        int[] distances = new int[queryLength + 1];
+        for (int i = 0; i <= queryLength; i++)
+        {
+            distances[i] = i;
+        }
+        int best = distances[queryLength];
+        for (int j = 1; j <= wordLength; j++)
+        {
+            char wordChar = names[wordStart + j - 1];
+            int diagonal = distances[0];
+            distances[0] = j;
+            for (int i = 1; i <= queryLength; i++)
+            {
+                int above = distances[i];
+                int substitute = diagonal + ((queryWord.charAt(i - 1) == wordChar) ? 0 : 1);
+                distances[i] = Math.min(substitute, Math.min(above, distances[i - 1]) + 1);
+                diagonal = above;
+            }
+            best = Math.min(best, distances[queryLength]);
+        }
+        return best;
+    }
+
+    /**
+     * Normalizes text for searching, which takes off accents, lowers the
+     * case, and turns anything besides letters and digits into single
+     * spaces between words.
+     *
+     * @param text The text to normalize.
+     * @return The text's words, separated by single spaces.
+     */
+    public static String normalize(String text)
+    {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean betweenWords = true;
+        for (int i = 0; i < decomposed.length(); i++)
+        {
+            char c = decomposed.charAt(i);
+            if (Character.isLetterOrDigit(c))
+            {
+                normalized.append(Character.toLowerCase(c));
+                betweenWords = false;
+            }
+            // ACCENTS ARE SEPARATE MARKS ONCE DECOMPOSED, SO JUST DROP THEM
+            else if (!betweenWords && (Character.getType(c) != Character.NON_SPACING_MARK))
+            {
+                normalized.append(WORD_SEPARATOR);
+                betweenWords = true;
+            }
+        }
+        int length = normalized.length();
+        if ((length > 0) && (normalized.charAt(length - 1) == WORD_SEPARATOR))
+        {
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Puts the distinct trigrams of the words of the normalized text between
+     * start and end in the buffer, sorted, which has to have room for one
+     * per character.
+     *
+     * @return How many distinct trigrams there are.
+     */
+    private static int gatherTrigrams(char[] text, int start, int end, int[] buffer)
+    {
+        int numTrigrams = 0;
+        int key = 0;
+        for (int i = start; i < end; i++)
+        {
+            if (text[i] == WORD_SEPARATOR)
+            {
+                // THE NEXT WORD STARTS OVER WITH PADDING
+                key = 0;
+                continue;
+            }
+            key = ((key << CHAR_BITS) | getCharCode(text[i])) & (NUM_TRIGRAMS - 1);
+            buffer[numTrigrams++] = key;
+        }
+        Arrays.sort(buffer, 0, numTrigrams);
+        int numDistinct = 0;
+        for (int i = 0; i < numTrigrams; i++)
+        {
+            if ((numDistinct == 0) || (buffer[i] != buffer[numDistinct - 1]))
+            {
+                buffer[numDistinct++] = buffer[i];
+            }
+        }
+        return numDistinct;
+    }
+
+    private static int getCharCode(char c)
+    {
+        if ((c >= 'a') && (c <= 'z'))
+        {
+            return FIRST_LETTER_CODE + (c - 'a');
+        }
+        if ((c >= '0') && (c <= '9'))
+        {
+            return FIRST_DIGIT_CODE + (c - '0');
+        }
+        return FIRST_OTHER_CODE + (c % NUM_OTHER_CODES);
+    }
+
+    private static int[] ensureCapacity(int[] buffer, int capacity)
+    {
+        if (buffer.length >= capacity)
+        {
+            return buffer;
+        }
+        return new int[Math.max(capacity, buffer.length * 2)];
+    }
+
+    /**
+     * PostingCursor walks one trigram's posting list for one search. Sorting
+     * cursors puts the shortest lists first.
+     */
+    private class PostingCursor implements Comparable<PostingCursor>
+    {
+        private int start;
+        private int end;
+        private int position;
+
+        PostingCursor(int trigram)
+        {
+            start = postingStarts[trigram];
+            end = postingStarts[trigram + 1];
+            position = start;
+        }
+
+        void reset()
+        {
+            position = start;
+        }
+
+        /**
+         * Gets the rank the cursor is at, or Integer.MAX_VALUE once it's
+         * past the end of the list.
+         */
+        int getRank()
+        {
+            return (position < end) ? postings[position] : Integer.MAX_VALUE;
+        }
+
+        /**
+         * Moves up to the first rank at or after the rank, skipping ahead by
+         * doubling steps and then a binary search, since we usually skip
+         * far ahead in long lists and only a little in short ones.
+         *
+         * @return true if the list has the rank, false otherwise.
+         */
+        boolean advanceTo(int rank)
+        {
+            int step = 1;
+            int low = position;
+            while ((low + step < end) && (postings[low + step] < rank))
+            {
+                low += step;
+                step *= 2;
+            }
+            int found = Arrays.binarySearch(postings, low, Math.min(low + step + 1, end), rank);
+            position = (found >= 0) ? found : -(found + 1);
+            return found >= 0;
+        }
+
+        @Override
+        public int compareTo(PostingCursor other)
+        {
+            return Integer.compare(end - start, other.end - other.start);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package sdokb.game;
+
+import java.util.Arrays;
+
+/**
+ * KevinBaconSearchWorkspace holds all the bookkeeping for one breadth first
+ * search over the graph index, meaning which actors and films have been
+ * visited, how each actor was reached, and the queue of actors to expand.
+ * Everything is sized to the graph once, so a workspace can be reused for
+ * search after search without allocating anything.
+ *
+ * Rather than clearing the visited arrays between searches, each search
+ * gets a new epoch number and a node counts as visited only if its stamp
+ * matches the current epoch, which makes reset take constant time.
+ *
+ * Note that a workspace is not thread-safe, each thread should use its own.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconSearchWorkspace
+{
+    // THE CURRENT SEARCH NUMBER, STAMPS FROM OLDER SEARCHES DON'T COUNT
+    private int epoch;
+
+    // WHEN EACH ACTOR AND FILM WAS LAST VISITED
+    private int[] actorStamps;
+    private int[] filmStamps;
+
+    // DISTANCE FROM THE SEARCH START AND HOW EACH ACTOR WAS REACHED,
+    // ONLY MEANINGFUL FOR ACTORS VISITED THIS EPOCH
+    private int[] depths;
+    private int[] parentFilms;
+    private int[] parentActors;
+
+    // ALL ACTORS VISITED THIS SEARCH IN THE ORDER VISITED, THE
+    // CURRENT FRONTIER IS THE RANGE [frontierStart, frontierEnd)
+    private int[] queue;
+    private int queueTail;
+    private int frontierStart;
+    private int frontierEnd;
+
+    /**
+     * This constructor sizes everything to fit the graph.
+     *
+     * @param graphIndex The graph this workspace will be used to search.
+     */
+    public KevinBaconSearchWorkspace(KevinBaconGraphIndex graphIndex)
+    {
+        int numActors = graphIndex.getNumActors();
+        actorStamps = new int[numActors];
+        filmStamps = new int[graphIndex.getNumFilms()];
+        depths = new int[numActors];
+        parentFilms = new int[numActors];
+        parentActors = new int[numActors];
+        queue = new int[numActors];
+        epoch = 0;
+        reset();
+    }
+
+    /**
+     * Gets this workspace ready for a brand new search.
+     */
+    public void reset()
+    {
+        epoch++;
+
+        // ONLY ONCE EVERY FEW BILLION SEARCHES DO WE ACTUALLY CLEAR
+        if (epoch == Integer.MAX_VALUE)
+        {
+            Arrays.fill(actorStamps, 0);
+            Arrays.fill(filmStamps, 0);
+            epoch = 1;
+        }
+        queueTail = 0;
+        frontierStart = 0;
+        frontierEnd = 0;
+    }
+
+    // ACCESSOR METHODS
+    public int getParentFilm(int actorIndex)    {   return parentFilms[actorIndex];     }
+    public int getParentActor(int actorIndex)   {   return parentActors[actorIndex];    }
+    public int getQueueSize()                   {   return queueTail;                   }
+    public int getQueuedActor(int position)     {   return queue[position];             }
+    public int getFrontierStart()               {   return frontierStart;               }
+    public int getFrontierEnd()                 {   return frontierEnd;                 }
+    public int getFrontierSize()                {   return frontierEnd - frontierStart; }
+    public boolean isFrontierEmpty()            {   return frontierStart == frontierEnd;}
+
+    public boolean isActorVisited(int actorIndex)
+    {
+        return actorStamps[actorIndex] == epoch;
+    }
+
+    public boolean isFilmVisited(int filmIndex)
+    {
+        return filmStamps[filmIndex] == epoch;
+    }
+
+    /**
+     * Gets how far the actor is from where the search started.
+     *
+     * @return The actor's depth, or -1 if this search hasn't reached it.
+     */
+    public int getDepth(int actorIndex)
+    {
+        return (actorStamps[actorIndex] == epoch) ? depths[actorIndex] : -1;
+    }
+
+    /**
+     * Starts the search at the actor, which becomes the whole frontier.
+     */
+    public void visitStartActor(int actorIndex)
+    {
+        visitActor(actorIndex, 0, -1, -1);
+        advanceFrontier();
+    }
+
+    /**
+     * Marks the actor as visited and queues it up to be expanded.
+     *
+     * @param actorIndex The actor reached.
+     * @param depth How far the actor is from the search start.
+     * @param parentFilm The film the actor was reached through.
+     * @param parentActor The actor the actor was reached from.
+     */
+    public void visitActor(int actorIndex, int depth, int parentFilm, int parentActor)
+    {
+        actorStamps[actorIndex] = epoch;
+        depths[actorIndex] = depth;
+        parentFilms[actorIndex] = parentFilm;
+        parentActors[actorIndex] = parentActor;
+        queue[queueTail++] = actorIndex;
+    }
+
+    /**
+     * Marks the film as visited.
+     *
+     * @return true if this is the first time this search visited the film,
+     * false if it had already been visited.
+     */
+    public boolean visitFilm(int filmIndex)
+    {
+        if (filmStamps[filmIndex] == epoch)
+        {
+            return false;
+        }
+        filmStamps[filmIndex] = epoch;
+        return true;
+    }
+
+    /**
+     * Makes all the actors queued since the last call the new frontier.
+     */
+    public void advanceFrontier()
+    {
+        frontierStart = frontierEnd;
+        frontierEnd = queueTail;
+    }
+}
@@ -0,0 +1,239 @@
+package sdokb.game;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * KevinBaconStartSampler picks starting actors for games of a particular
+ * Bacon number and difficulty without any searching. At load time every
+ * actor that can reach Kevin Bacon is put in a stratum by their Bacon number
+ * and difficulty, and the strata are stored one after another in compressed
+ * sparse row form, just like the edges in KevinBaconGraphIndex.
+ *
+ * Within a Bacon number, actors are ranked from easiest to hardest by how
+ * many different shortest paths they have to Kevin Bacon, since the more
+ * perfect routes there are the easier one is to find, and the ranking is
+ * cut into thirds, one per KevinBaconGameDifficulty.
+ *
+ * Within a stratum, actors are drawn in proportion to how many films they've
+ * been in, so better known actors come up more often than one-film extras
+ * without anyone being left out. Each stratum has its own alias table for
+ * this, meaning every position gets a probability of keeping its own actor
+ * and another position to use otherwise, which makes a weighted draw take
+ * just one random position and one random coin flip.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconStartSampler
+{
+    // EASE IS PACKED INTO A SORT KEY, SO PATH COUNTS ARE CAPPED HERE
+    private static final int MAX_RANKED_PATHS = Integer.MAX_VALUE;
+
+    private static final int NUM_DIFFICULTIES = KevinBaconGameDifficulty.values().length;
+
+    // THE HIGHEST BACON NUMBER ANYONE HAS
+    private int maxBaconNumber;
+
+    // THE ACTORS IN STRATUM s ARE stratumActors[stratumOffsets[s]] UP TO,
+    // BUT NOT INCLUDING, stratumActors[stratumOffsets[s + 1]], WHERE s IS
+    // THE BACON NUMBER TIMES THE NUMBER OF DIFFICULTIES PLUS THE DIFFICULTY
+    private int[] stratumOffsets;
+    private int[] stratumActors;
+
+    // THE ALIAS TABLES, LINED UP WITH stratumActors, WHERE aliasPositions
+    // ARE RELATIVE TO THE START OF THE STRATUM
+    private double[] keepProbabilities;
+    private int[] aliasPositions;
+
+    /**
+     * This constructor puts every actor that can reach Kevin Bacon in their
+     * stratum and builds all the alias tables.
+     *
+     * @param graphIndex The fully built graph.
+     * @param baconNumbers The graph's Bacon numbers.
+     */
+    public KevinBaconStartSampler(KevinBaconGraphIndex graphIndex,
+            KevinBaconDistanceTable baconNumbers)
+    {
+        // FIRST COUNT HOW MANY ACTORS HAVE EACH BACON NUMBER, LEAVING
+        // OUT KEVIN BACON AND EVERYONE WHO CAN'T REACH HIM
+        int numActors = graphIndex.getNumActors();
+        maxBaconNumber = 0;
+        for (int i = 0; i < numActors; i++)
+        {
+            maxBaconNumber = Math.max(maxBaconNumber, baconNumbers.getBaconNumber(i));
+        }
+        int[] bucketOffsets = new int[maxBaconNumber + 2];
+        for (int i = 0; i < numActors; i++)
+        {
+            int baconNumber = baconNumbers.getBaconNumber(i);
+            if (baconNumber > 0)
+            {
+                bucketOffsets[baconNumber + 1]++;
+            }
+        }
+        for (int i = 1; i < bucketOffsets.length; i++)
+        {
+            bucketOffsets[i] += bucketOffsets[i - 1];
+        }
+
+        // THEN SORT EACH BACON NUMBER'S ACTORS EASIEST FIRST, WITH THE EASE
+        // IN THE HIGH HALF OF THE KEY AND THE ACTOR IN THE LOW HALF
+        int numSampled = bucketOffsets[maxBaconNumber + 1];
+        long[] keys = new long[numSampled];
+        int[] nextKeys = Arrays.copyOf(bucketOffsets, bucketOffsets.length);
+        for (int i = 0; i < numActors; i++)
+        {
+            int baconNumber = baconNumbers.getBaconNumber(i);
+            if (baconNumber > 0)
+            {
+                long numPaths = Math.min(baconNumbers.getNumShortestPaths(i), MAX_RANKED_PATHS);
+                keys[nextKeys[baconNumber]++] = ((MAX_RANKED_PATHS - numPaths) << 32) | i;
+            }
+        }
+        stratumOffsets = new int[(maxBaconNumber + 1) * NUM_DIFFICULTIES + 1];
+        stratumActors = new int[numSampled];
+        for (int baconNumber = 1; baconNumber <= maxBaconNumber; baconNumber++)
+        {
+            int bucketStart = bucketOffsets[baconNumber];
+            int bucketEnd = bucketOffsets[baconNumber + 1];
+            Arrays.sort(keys, bucketStart, bucketEnd);
+            for (int i = bucketStart; i < bucketEnd; i++)
+            {
+                stratumActors[i] = (int) keys[i];
+            }
+
+            // AND CUT IT INTO EVEN PIECES, ONE PER DIFFICULTY
+            int bucketSize = bucketEnd - bucketStart;
+            for (int difficulty = 0; difficulty < NUM_DIFFICULTIES; difficulty++)
+            {
+                int stratum = baconNumber * NUM_DIFFICULTIES + difficulty;
+                stratumOffsets[stratum] = bucketStart + (int) ((long) bucketSize * difficulty / NUM_DIFFICULTIES);
+                stratumOffsets[stratum + 1] = bucketStart + (int) ((long) bucketSize * (difficulty + 1) / NUM_DIFFICULTIES);
+            }
+        }
+
+        // FINALLY BUILD EACH STRATUM'S ALIAS TABLE
+        keepProbabilities = new double[numSampled];
+        aliasPositions = new int[numSampled];
+        int[] smallPositions = new int[numSampled];
+        int[] largePositions = new int[numSampled];
+        for (int stratum = 0; stratum < stratumOffsets.length - 1; stratum++)
+        {
+            buildAliasTable(graphIndex, stratumOffsets[stratum], stratumOffsets[stratum + 1],
+                    smallPositions, largePositions);
+        }
+    }
+
+    /**
+     * Builds the alias table for one stratum with Vose's method. Each
+     * actor's weight is scaled so the average is 1, and then positions
+     * that are under 1 are topped up by ones that are over, each top up
+     * filling in one position for good.
+     */
+    private void buildAliasTable(KevinBaconGraphIndex graphIndex,
+            int stratumStart,
+            int stratumEnd,
+            int[] smallPositions,
+            int[] largePositions)
+    {
+        int stratumSize = stratumEnd - stratumStart;
+        if (stratumSize == 0)
+        {
+            return;
+        }
+        long totalWeight = 0;
+        for (int i = stratumStart; i < stratumEnd; i++)
+        {
+            totalWeight += getWeight(graphIndex, stratumActors[i]);
+        }
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < stratumSize; i++)
+        {
+            double scaledWeight = (double) getWeight(graphIndex, stratumActors[stratumStart + i])
+                    * stratumSize / totalWeight;
+            keepProbabilities[stratumStart + i] = scaledWeight;
+            aliasPositions[stratumStart + i] = i;
+            if (scaledWeight < 1.0)
+            {
+                smallPositions[numSmall++] = i;
+            }
+            else
+            {
+                largePositions[numLarge++] = i;
+            }
+        }
+        while ((numSmall > 0) && (numLarge > 0))
+        {
+            int small = smallPositions[--numSmall];
+            int large = largePositions[numLarge - 1];
+            aliasPositions[stratumStart + small] = large;
+            keepProbabilities[stratumStart + large] -= 1.0 - keepProbabilities[stratumStart + small];
+            if (keepProbabilities[stratumStart + large] < 1.0)
+            {
+                numLarge--;
+                smallPositions[numSmall++] = large;
+            }
+        }
+
+        // WHATEVER IS LEFT IS ONLY OFF FROM 1 BY ROUNDING
+        while (numLarge > 0)
+        {
+            keepProbabilities[stratumStart + largePositions[--numLarge]] = 1.0;
+        }
+        while (numSmall > 0)
+        {
+            keepProbabilities[stratumStart + smallPositions[--numSmall]] = 1.0;
+        }
+    }
+
+    private int getWeight(KevinBaconGraphIndex graphIndex, int actorIndex)
+    {
+        return Math.max(1, graphIndex.getNumFilmsForActor(actorIndex));
+    }
+
+    // ACCESSOR METHODS
+
+    public int getMaxBaconNumber()      {   return maxBaconNumber;  }
+
+    /**
+     * Gets how many actors there are to pick from for the Bacon number and
+     * difficulty.
+     */
+    public int getNumActors(int baconNumber, KevinBaconGameDifficulty difficulty)
+    {
+        if ((baconNumber < 1) || (baconNumber > maxBaconNumber))
+        {
+            return 0;
+        }
+        int stratum = baconNumber * NUM_DIFFICULTIES + difficulty.ordinal();
+        return stratumOffsets[stratum + 1] - stratumOffsets[stratum];
+    }
+
+    /**
+     * Picks a random actor with the Bacon number and difficulty, weighted by
+     * how many films they've been in. Passing a Random made with the same
+     * seed, like the day's date, always picks the same actor.
+     *
+     * @param baconNumber The Bacon number the actor should have.
+     * @param difficulty How hard the game should be.
+     * @param random Where the random numbers come from.
+     * @return The actor's index, or -1 if there's no such actor.
+     */
+    public int pickActor(int baconNumber, KevinBaconGameDifficulty difficulty, Random random)
+    {
+        int stratumSize = getNumActors(baconNumber, difficulty);
+        if (stratumSize == 0)
+        {
+            return -1;
+        }
+        int stratumStart = stratumOffsets[baconNumber * NUM_DIFFICULTIES + difficulty.ordinal()];
+        int position = random.nextInt(stratumSize);
+        if (random.nextDouble() >= keepProbabilities[stratumStart + position])
+        {
+            position = aliasPositions[stratumStart + position];
+        }
+        return stratumActors[stratumStart + position];
+    }
+}
@@ -0,0 +1,872 @@
+package sdokb.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import properties_manager.PropertiesManager;
+import sdokb.SixDegreesOfKevinBacon.KevinBaconPropertyType;
+import sdokb.file.KevinBaconFileUtilities;
+import sdokb.game.Actor;
+import sdokb.game.Connection;
+import sdokb.game.DeadEndException;
+import sdokb.game.Film;
+import sdokb.game.IMDBObject;
+import sdokb.game.KevinBaconGameData;
+import sdokb.game.KevinBaconGameDifficulty;
+import sdokb.game.KevinBaconGameEngine;
+import sdokb.game.KevinBaconGameGraphManager;
+import sdokb.game.KevinBaconGameSession;
+import sdokb.game.KevinBaconStartSampler;
+import xml_utilities.InvalidXMLFileFormatException;
+
+/**
+ * KevinBaconGameService runs the game as a local HTTP service using the
+ * JDK's built in HTTP server, so any number of players can play at once on
+ * one shared graph, each in their own session. All requests take their
+ * arguments in the query string and all responses are JSON:
+ *
+ *   POST /game/start?session=ID     starts a new game, making a new session
+ *                                   if none is given
+ *   POST /game/start?session=ID&degrees=N&difficulty=easy|medium|hard
+ *                                   starts a game N connections from Kevin
+ *                                   Bacon, medium if no difficulty is given
+ *   POST /game/guess?session=ID&id=GUESS_ID
+ *                                   picks a film or actor from the candidates
+ *   GET  /game/candidates?session=ID
+ *                                   lists what the player may pick next,
+ *                                   each with how many more connections to
+ *                                   Kevin Bacon it leaves, -1 if none
+ *   GET  /game/hint?session=ID      lists the same candidates best first
+ *   GET  /game/routes?session=ID&k=N
+ *                                   lists the N best routes, 5 if not
+ *                                   given, from the current or else the
+ *                                   last game's starting actor to Kevin
+ *                                   Bacon, shortest first
+ *   GET  /game/history?session=ID   lists the session's completed games
+ *   POST /game/end?session=ID       ends the session
+ *   GET  /game/search?q=TEXT&k=N    lists the N actors and films, 10 if
+ *                                   not given, best matching the text,
+ *                                   which may have a typo or two
+ *
+ * Requests are handled on a fixed pool of NUM_REQUEST_THREADS threads, so
+ * however many players there are at once, requests beyond that just wait
+ * their turn rather than each starting another thread. A malformed query
+ * gets a 400, and anything that goes wrong while responding a 500.
+ *
+ * Players often just leave without ending their sessions, so any session
+ * not used for SESSION_IDLE_MINUTES is ended for them, checked every
+ * SESSION_SWEEP_MINUTES. And so that sessions can't pile up faster than
+ * that, no more than MAX_SESSIONS are kept at once, after which starting
+ * a new one gets a 503 until some end.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconGameService
+{
+    // THESE ARE NEEDED TO LOAD THE DATA THE SAME WAY THE GAME APP DOES
+    static String UI_PROPERTIES_FILE_NAME = "properties.xml";
+    static String PROPERTIES_SCHEMA_FILE_NAME = "properties_schema.xsd";
+    static String DATA_PATH = "./data/";
+
+    // THE PORT WE LISTEN ON IF NONE IS GIVEN
+    public static final int DEFAULT_PORT = 8080;
+
+    // HOW MANY REQUESTS WE HANDLE AT ONCE AT MOST
+    public static final int NUM_REQUEST_THREADS = 16;
+
+    // HOW LONG A SESSION MAY GO UNUSED, HOW OFTEN WE LOOK FOR ONES
+    // THAT HAVE, AND HOW MANY WE KEEP AT ONCE
+    public static final int SESSION_IDLE_MINUTES = 30;
+    public static final int SESSION_SWEEP_MINUTES = 1;
+    public static final int MAX_SESSIONS = 100000;
+
+    // ALL OF OUR ENDPOINTS
+    public static final String START_PATH = "/game/start";
+    public static final String GUESS_PATH = "/game/guess";
+    public static final String CANDIDATES_PATH = "/game/candidates";
+    public static final String HINT_PATH = "/game/hint";
+    public static final String ROUTES_PATH = "/game/routes";
+    public static final String HISTORY_PATH = "/game/history";
+    public static final String END_PATH = "/game/end";
+    public static final String SEARCH_PATH = "/game/search";
+
+    // THE LISTS OF CANDIDATES IN OUR RESPONSES
+    private static final String CANDIDATES_FIELD = "candidates";
+    private static final String HINT_FIELD = "hint";
+
+    // THE QUERY PARAMETERS
+    public static final String SESSION_PARAM = "session";
+    public static final String ID_PARAM = "id";
+    public static final String DEGREES_PARAM = "degrees";
+    public static final String DIFFICULTY_PARAM = "difficulty";
+    public static final String NUM_ROUTES_PARAM = "k";
+    public static final String QUERY_PARAM = "q";
+    public static final String NUM_RESULTS_PARAM = "k";
+
+    // HOW MANY ROUTES WE LIST IF NOT TOLD, AND AT MOST
+    public static final int DEFAULT_NUM_ROUTES = 5;
+    public static final int MAX_NUM_ROUTES = 50;
+
+    // HOW MANY SEARCH RESULTS WE LIST IF NOT TOLD, AND AT MOST
+    public static final int DEFAULT_NUM_RESULTS = 10;
+    public static final int MAX_NUM_RESULTS = 100;
+
+    // HTTP STUFF
+    private static final String GET = "GET";
+    private static final String POST = "POST";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+    private static final String UTF_8 = "UTF-8";
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int INTERNAL_ERROR = 500;
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    // HttpExchange's RESPONSE CODE UNTIL THE HEADERS HAVE BEEN SENT
+    private static final int NO_RESPONSE_YET = -1;
+
+    // ERROR MESSAGES
+    private static final String MISSING_SESSION_ERROR = "missing session";
+    private static final String UNKNOWN_SESSION_ERROR = "unknown session";
+    private static final String MISSING_ID_ERROR = "missing id";
+    private static final String BAD_DEGREES_ERROR = "degrees must be a number and difficulty easy, medium, or hard";
+    private static final String NO_SUCH_GAME_ERROR = "no starting actor for those degrees and difficulty";
+    private static final String BAD_NUM_ROUTES_ERROR = "k must be a number from 1 to " + MAX_NUM_ROUTES;
+    private static final String NO_GAME_ERROR = "no game played yet";
+    private static final String MISSING_QUERY_ERROR = "missing q";
+    private static final String BAD_NUM_RESULTS_ERROR = "k must be a number from 1 to " + MAX_NUM_RESULTS;
+    private static final String WRONG_METHOD_ERROR = "method not allowed";
+    private static final String BAD_QUERY_ERROR = "malformed query";
+    private static final String INTERNAL_ERROR_MESSAGE = "internal error";
+    private static final String TOO_MANY_SESSIONS_ERROR = "too many sessions, try again later";
+
+    // ALL THE GAMES WE'RE RUNNING
+    private KevinBaconGameEngine gameEngine;
+
+    // AND THE SERVER RUNNING THEM
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // AND WHAT ENDS THE SESSIONS NO ONE IS USING
+    private ScheduledExecutorService sessionSweeper;
+
+    /**
+     * This constructor sets up the service for the engine's sessions, but
+     * doesn't start listening until start is called.
+     *
+     * @param initGameEngine The engine with a fully loaded graph.
+     * @param port The port to listen on.
+     * @throws IOException Thrown if the port can't be bound.
+     */
+    public KevinBaconGameService(KevinBaconGameEngine initGameEngine, int port)
+            throws IOException
+    {
+        gameEngine = initGameEngine;
+
+        // WITHOUT THIS THE SERVER WRITES HEADERS AND BODY SEPARATELY AND
+        // NAGLE'S ALGORITHM HOLDS THE BODY UNTIL THE CLIENT'S DELAYED ACK,
+        // ADDING ~40 ms TO EVERY SINGLE RESPONSE
+        if (System.getProperty(NO_DELAY_PROPERTY) == null)
+        {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(START_PATH, new StartHandler());
+        server.createContext(GUESS_PATH, new GuessHandler());
+        server.createContext(CANDIDATES_PATH, new CandidatesHandler());
+        server.createContext(HINT_PATH, new HintHandler());
+        server.createContext(ROUTES_PATH, new RoutesHandler());
+        server.createContext(HISTORY_PATH, new HistoryHandler());
+        server.createContext(END_PATH, new EndHandler());
+        server.createContext(SEARCH_PATH, new SearchHandler());
+        executor = Executors.newFixedThreadPool(NUM_REQUEST_THREADS);
+        server.setExecutor(executor);
+        sessionSweeper = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    public KevinBaconGameEngine getGameEngine()     {   return gameEngine;  }
+
+    public void start()
+    {
+        server.start();
+        sessionSweeper.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                gameEngine.removeIdleSessions(SESSION_IDLE_MINUTES, TimeUnit.MINUTES);
+            }
+        }, SESSION_SWEEP_MINUTES, SESSION_SWEEP_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops taking requests, giving the ones underway a moment to finish.
+     */
+    public void stop()
+    {
+        server.stop(1);
+        executor.shutdown();
+        sessionSweeper.shutdown();
+    }
+
+    /**
+     * Loads the game data and starts the service.
+     *
+     * @param args The port to listen on may be given, otherwise we use
+     * DEFAULT_PORT.
+     */
+    public static void main(String[] args)
+    {
+        try
+        {
+            // LOAD THE SETTINGS AND DATA, JUST LIKE THE GAME APP
+            PropertiesManager props = PropertiesManager.getPropertiesManager();
+            props.addProperty(KevinBaconPropertyType.UI_PROPERTIES_FILE_NAME, UI_PROPERTIES_FILE_NAME);
+            props.addProperty(KevinBaconPropertyType.PROPERTIES_SCHEMA_FILE_NAME, PROPERTIES_SCHEMA_FILE_NAME);
+            props.addProperty(KevinBaconPropertyType.DATA_PATH.toString(), DATA_PATH);
+            props.loadProperties(UI_PROPERTIES_FILE_NAME, PROPERTIES_SCHEMA_FILE_NAME);
+            KevinBaconGameGraphManager graph = new KevinBaconGameGraphManager();
+            KevinBaconFileUtilities.loadActorsAndFilms(graph);
+
+            // AND START TAKING REQUESTS
+            int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+            final KevinBaconGameService service = new KevinBaconGameService(new KevinBaconGameEngine(graph), port);
+            service.start();
+            Runtime.getRuntime().addShutdownHook(new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    service.stop();
+                }
+            });
+            System.out.println("Six Degrees of Kevin Bacon service listening on port " + port);
+        }
+        catch (InvalidXMLFileFormatException | IOException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Starts a new game in the session, making the session first if need be.
+     */
+    private class StartHandler extends ServiceHandler
+    {
+        StartHandler()  {   super(POST);    }
+
+        @Override
+        void respond(HttpExchange exchange, HashMap<String, String> params) throws IOException
+        {
+            // A PARTICULAR KIND OF GAME MAY BE ASKED FOR
+            int baconNumber = 0;
+            KevinBaconGameDifficulty difficulty = null;
+            String degrees = params.get(DEGREES_PARAM);
+            String difficultyName = params.get(DIFFICULTY_PARAM);
+            if ((degrees != null) || (difficultyName != null))
+            {
+                try
+                {
+                    baconNumber = Integer.parseInt(degrees);
+                    difficulty = (difficultyName == null) ? KevinBaconGameDifficulty.MEDIUM
+                            : KevinBaconGameDifficulty.valueOf(difficultyName.toUpperCase());
+                }
+                catch (IllegalArgumentException iae)
+                {
+                    sendError(exchange, BAD_REQUEST, BAD_DEGREES_ERROR);
+                    return;
+                }
+                KevinBaconStartSampler startSampler = gameEngine.getGameGraphManager().getStartSampler();
+                if ((startSampler == null) || (startSampler.getNumActors(baconNumber, difficulty) == 0))
+                {
+                    sendError(exchange, NOT_FOUND, NO_SUCH_GAME_ERROR);
+                    return;
+                }
+            }
+
+            KevinBaconGameSession session;
+            String sessionId = params.get(SESSION_PARAM);
+            if (sessionId == null)
+            {
+                if (gameEngine.getNumSessions() >= MAX_SESSIONS)
+                {
+                    sendError(exchange, SERVICE_UNAVAILABLE, TOO_MANY_SESSIONS_ERROR);
+                    return;
+                }
+                session = gameEngine.createSession();
+            }
+            else
+            {
+                session = gameEngine.getSession(sessionId);
+                if (session == null)
+                {
+                    sendError(exchange, NOT_FOUND, UNKNOWN_SESSION_ERROR);
+                    return;
+                }
+            }
+            StringBuilder json = new StringBuilder();
+            synchronized (session)
+            {
+                if (difficulty == null)
+                {
+                    session.startNewGame();
+                }
+                else
+                {
+                    session.startNewGame(baconNumber, difficulty);
+                }
+                Actor startingActor = session.getGameInProgress().getStartingActor();
+                json.append('{');
+                KevinBaconJson.appendField(json, "session", session.getSessionId());
+                json.append(",\"startingActor\":");
+                appendActor(json, startingActor);
+                json.append(",\"baconNumber\":").append(gameEngine.getGameGraphManager().getBaconNumber(startingActor));
+                json.append(',');
+                appendCandidates(json, session);
+                json.append('}');
+            }
+            send(exchange, OK, json);
+        }
+    }
+
+    /**
+     * Processes a guess, just like picking it in the game app's combo box.
+     */
+    private class GuessHandler extends ServiceHandler
+    {
+        GuessHandler()  {   super(POST);    }
+
+        @Override
+        void respond(HttpExchange exchange, HashMap<String, String> params) throws IOException
+        {
+            KevinBaconGameSession session = findSession(exchange, params);
+            if (session == null)
+            {
+                return;
+            }
+            String guessId = params.get(ID_PARAM);
+            if (guessId == null)
+            {
+                sendError(exchange, BAD_REQUEST, MISSING_ID_ERROR);
+                return;
+            }
+            StringBuilder json = new StringBuilder();
+            boolean accepted;
+            synchronized (session)
+            {
+                boolean deadEnd = false;
+                try
+                {
+                    accepted = session.processGuess(guessId);
+                }
+                catch (DeadEndException dee)
+                {
+                    accepted = true;
+                    deadEnd = true;
+                }
+                KevinBaconGameData game = session.getGameInProgress();
+                json.append("{\"accepted\":").append(accepted);
+                json.append(",\"deadEnd\":").append(deadEnd);
+                json.append(",\"won\":").append((game != null) && game.isKevinBaconFound());
+                json.append(",\"gameOver\":").append(session.isGameOver());
+                json.append(',');
+                appendCandidates(json, session);
+                json.append('}');
+            }
+            send(exchange, accepted ? OK : BAD_REQUEST, json);
+        }
+    }
+
+    /**
+     * Lists what the player may pick next.
+     */
+    private class CandidatesHandler extends ServiceHandler
+    {
+        CandidatesHandler() {   super(GET);     }
+
+        @Override
+        void respond(HttpExchange exchange, HashMap<String, String> params) throws IOException
+        {
+            KevinBaconGameSession session = findSession(exchange, params);
+            if (session == null)
+            {
+                return;
+            }
+            StringBuilder json = new StringBuilder("{");
+            synchronized (session)
+            {
+                appendCandidates(json, session);
+            }
+            json.append('}');
+            send(exchange, OK, json);
+        }
+    }
+
+    /**
+     * Lists what the player may pick next, best first.
+     */
+    private class HintHandler extends ServiceHandler
+    {
+        HintHandler()       {   super(GET);     }
+
+        @Override
+        void respond(HttpExchange exchange, HashMap<String, String> params) throws IOException
+        {
+            KevinBaconGameSession session = findSession(exchange, params);
+            if (session == null)
+            {
+                return;
+            }
+            StringBuilder json = new StringBuilder("{");
+            synchronized (session)
+            {
+                appendCandidates(json, session, HINT_FIELD, session.getHint());
+            }
+            json.append('}');
+            send(exchange, OK, json);
+        }
+    }
+
+    /**
+     * Lists the best routes from the game's starting actor to Kevin Bacon,
+     * which for a finished game shows what the player could have done.
+     */
+    private class RoutesHandler extends ServiceHandler
+    {
+        RoutesHandler()     {   super(GET);     }
+
+        @Override
+        void respond(HttpExchange exchange, HashMap<String, String> params) throws IOException
+        {
+            KevinBaconGameSession session = findSession(exchange, params);
+            if (session == null)
+            {
+                return;
+            }
+            int numRoutes = DEFAULT_NUM_ROUTES;
+            String numRoutesText = params.get(NUM_ROUTES_PARAM);
+            if (numRoutesText != null)
+            {
+                try
+                {
+                    numRoutes = Integer.parseInt(numRoutesText);
+                }
+                catch (NumberFormatException nfe)
+                {
+                    numRoutes = 0;
+                }
+                if ((numRoutes < 1) || (numRoutes > MAX_NUM_ROUTES))
+                {
+                    sendError(exchange, BAD_REQUEST, BAD_NUM_ROUTES_ERROR);
+                    return;
+                }
+            }
+
+            // THE GAME IN PROGRESS IF THERE IS ONE, OTHERWISE THE LAST ONE
+            KevinBaconGameData game;
+            synchronized (session)
+            {
+                game = session.getGameInProgress();
+                if (game == null)
+                {
+                    ArrayList<KevinBaconGameData> history = session.getGamesHistory();
+                    if (!history.isEmpty())
+                    {
+                        game = history.get(history.size() - 1);
+                    }
+                }
+            }
+            if (game == null)
+            {
+                sendError(exchange, NOT_FOUND, NO_GAME_ERROR);
+                return;
+            }
+
+            // THE GRAPH NEVER CHANGES, SO THE SEARCH NEEDN'T HOLD THE SESSION
+            Actor startingActor = game.getStartingActor();
+            ArrayList<ArrayList<Connection>> routes =
+                    gameEngine.getGameGraphManager().findKShortestPathsToKevinBacon(startingActor, numRoutes);
+            StringBuilder json = new StringBuilder("{\"startingActor\":");
+            appendActor(json, startingActor);
+            json.append(",\"routes\":[");
+            for (int i = 0; i < routes.size(); i++)
+            {
+                if (i > 0)
+                {
+                    json.append(',');
+                }
+                appendPath(json, routes.get(i));
+            }
+            json.append("]}");
+            send(exchange, OK, json);
+        }
+    }
+
+    /**
+     * Lists the session's stats and completed games.
+     */
+    private class HistoryHandler extends ServiceHandler
+    {
+        HistoryHandler()    {   super(GET);     }
+
+        @Override
+        void respond(HttpExchange exchange, HashMap<String, String> params) throws IOException
+        {
+            KevinBaconGameSession session = findSession(exchange, params);
+            if (session == null)
+            {
+                return;
+            }
+            StringBuilder json = new StringBuilder("{");
+            ArrayList<KevinBaconGameData> history;
+            synchronized (session)
+            {
+                json.append("\"played\":").append(session.getNumGamesPlayed());
+                json.append(",\"won\":").append(session.getNumGamesWon());
+                json.append(",\"perfectWins\":").append(session.getNumPerfectWins());
+                json.append(",\"lost\":").append(session.getNumGamesLost());
+                history = session.getGamesHistory();
+            }
+            json.append(",\"games\":[");
+            for (int i = 0; i < history.size(); i++)
+            {
+                if (i > 0)
+                {
+                    json.append(',');
+                }
+                appendGame(json, history.get(i));
+            }
+            json.append("]}");
+            send(exchange, OK, json);
+        }
+    }
+
+    /**
+     * Ends the session, after which its id is no longer valid.
+     */
+    private class EndHandler extends ServiceHandler
+    {
+        EndHandler()    {   super(POST);    }
+
+        @Override
+        void respond(HttpExchange exchange, HashMap<String, String> params) throws IOException
+        {
+            String sessionId = params.get(SESSION_PARAM);
+            if (sessionId == null)
+            {
+                sendError(exchange, BAD_REQUEST, MISSING_SESSION_ERROR);
+                return;
+            }
+            if (gameEngine.removeSession(sessionId) == null)
+            {
+                sendError(exchange, NOT_FOUND, UNKNOWN_SESSION_ERROR);
+                return;
+            }
+            send(exchange, OK, new StringBuilder("{\"ended\":true}"));
+        }
+    }
+
+    /**
+     * Finds actors and films anywhere in the graph by name, which doesn't
+     * need a session.
+     */
+    private class SearchHandler extends ServiceHandler
+    {
+        SearchHandler()     {   super(GET);     }
+
+        @Override
+        void respond(HttpExchange exchange, HashMap<String, String> params) throws IOException
+        {
+            String query = params.get(QUERY_PARAM);
+            if (query == null)
+            {
+                sendError(exchange, BAD_REQUEST, MISSING_QUERY_ERROR);
+                return;
+            }
+            int numResults = DEFAULT_NUM_RESULTS;
+            String numResultsText = params.get(NUM_RESULTS_PARAM);
+            if (numResultsText != null)
+            {
+                try
+                {
+                    numResults = Integer.parseInt(numResultsText);
+                }
+                catch (NumberFormatException nfe)
+                {
+                    numResults = 0;
+                }
+                if ((numResults < 1) || (numResults > MAX_NUM_RESULTS))
+                {
+                    sendError(exchange, BAD_REQUEST, BAD_NUM_RESULTS_ERROR);
+                    return;
+                }
+            }
+
+            ArrayList<IMDBObject> results = gameEngine.getGameGraphManager().search(query, numResults);
+            StringBuilder json = new StringBuilder("{\"results\":[");
+            for (int i = 0; i < results.size(); i++)
+            {
+                IMDBObject result = results.get(i);
+                if (i > 0)
+                {
+                    json.append(',');
+                }
+                json.append('{');
+                KevinBaconJson.appendField(json, "id", result.getId());
+                json.append(',');
+                KevinBaconJson.appendField(json, "name", result.toString());
+                json.append(',');
+                KevinBaconJson.appendField(json, "type", (result instanceof Film) ? "film" : "actor");
+                json.append('}');
+            }
+            json.append("]}");
+            send(exchange, OK, json);
+        }
+    }
+
+    /**
+     * ServiceHandler does what all our handlers have in common, meaning it
+     * checks the request method, parses the query string, makes sure the
+     * exchange is always closed, and provides the JSON building helpers.
+     */
+    private abstract class ServiceHandler implements HttpHandler
+    {
+        // THE ONE REQUEST METHOD THIS HANDLER ACCEPTS
+        private String method;
+
+        ServiceHandler(String initMethod)
+        {
+            method = initMethod;
+        }
+
+        abstract void respond(HttpExchange exchange, HashMap<String, String> params) throws IOException;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException
+        {
+            try
+            {
+                // WE DON'T USE THE BODY, BUT IT MUST BE READ FOR
+                // THE CONNECTION TO BE REUSED
+                drain(exchange.getRequestBody());
+                if (!method.equals(exchange.getRequestMethod()))
+                {
+                    sendError(exchange, METHOD_NOT_ALLOWED, WRONG_METHOD_ERROR);
+                    return;
+                }
+                HashMap<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+                if (params == null)
+                {
+                    sendError(exchange, BAD_REQUEST, BAD_QUERY_ERROR);
+                    return;
+                }
+                respond(exchange, params);
+            }
+            // A BUG IN RESPONDING SHOULDN'T JUST DROP THE CONNECTION, SO IF
+            // NOTHING HAS BEEN SENT YET WE CAN STILL SAY WHAT HAPPENED
+            catch (RuntimeException re)
+            {
+                re.printStackTrace();
+                if (exchange.getResponseCode() == NO_RESPONSE_YET)
+                {
+                    sendError(exchange, INTERNAL_ERROR, INTERNAL_ERROR_MESSAGE);
+                }
+            }
+            finally
+            {
+                exchange.close();
+            }
+        }
+
+        KevinBaconGameSession findSession(HttpExchange exchange, HashMap<String, String> params)
+                throws IOException
+        {
+            String sessionId = params.get(SESSION_PARAM);
+            if (sessionId == null)
+            {
+                sendError(exchange, BAD_REQUEST, MISSING_SESSION_ERROR);
+                return null;
+            }
+            KevinBaconGameSession session = gameEngine.getSession(sessionId);
+            if (session == null)
+            {
+                sendError(exchange, NOT_FOUND, UNKNOWN_SESSION_ERROR);
+            }
+            return session;
+        }
+
+        void appendCandidates(StringBuilder json, KevinBaconGameSession session)
+        {
+            appendCandidates(json, session, CANDIDATES_FIELD, session.getCandidateIds());
+        }
+
+        /**
+         * Appends whether the game is waiting for a film and then the
+         * candidates as a list in the given order, each with how many more
+         * connections to Kevin Bacon it leaves. The session must be locked
+         * so the candidates and distances are from the same move.
+         */
+        void appendCandidates(StringBuilder json,
+                KevinBaconGameSession session,
+                String fieldName,
+                ArrayList<String> orderedIds)
+        {
+            KevinBaconGameGraphManager graph = gameEngine.getGameGraphManager();
+            KevinBaconGameData game = session.getGameInProgress();
+            boolean waitingForFilm = (game != null) && game.isWaitingForFilm();
+            json.append("\"waitingForFilm\":").append(waitingForFilm);
+            json.append(",\"").append(fieldName).append("\":[");
+
+            // EACH CANDIDATE'S DISTANCE IS IN THE SESSION'S ORDER
+            ArrayList<String> candidateIds = session.getCandidateIds();
+            int[] candidateDistances = session.getCandidateDistances();
+            HashMap<String, Integer> distances = new HashMap();
+            for (int i = 0; i < candidateIds.size(); i++)
+            {
+                distances.put(candidateIds.get(i), candidateDistances[i]);
+            }
+            for (int i = 0; i < orderedIds.size(); i++)
+            {
+                if (i > 0)
+                {
+                    json.append(',');
+                }
+                IMDBObject candidate;
+                if (waitingForFilm)
+                {
+                    candidate = graph.getFilm(orderedIds.get(i));
+                }
+                else
+                {
+                    candidate = graph.getActor(orderedIds.get(i));
+                }
+                json.append('{');
+                KevinBaconJson.appendField(json, "id", candidate.getId());
+                json.append(',');
+                KevinBaconJson.appendField(json, "name", candidate.toString());
+                json.append(",\"distance\":").append(distances.get(candidate.getId()));
+                json.append('}');
+            }
+            json.append(']');
+        }
+
+        void appendActor(StringBuilder json, Actor actor)
+        {
+            json.append('{');
+            KevinBaconJson.appendField(json, "id", actor.getId());
+            json.append(',');
+            KevinBaconJson.appendField(json, "name", actor.toString());
+            json.append('}');
+        }
+
+        void appendGame(StringBuilder json, KevinBaconGameData game)
+        {
+            json.append("{\"startingActor\":");
+            appendActor(json, game.getStartingActor());
+            json.append(",\"won\":").append(game.isKevinBaconFound());
+            json.append(",\"perfect\":").append(game.isPerfectWin());
+            json.append(",\"perfectRoutes\":").append(game.getNumShortestPaths());
+            json.append(",\"degrees\":").append(game.getDegrees());
+            json.append(",\"timeMillis\":").append(game.getTimeOfGame());
+            json.append(",\"path\":");
+            appendPath(json, game.getGamePath());
+            json.append('}');
+        }
+
+        void appendPath(StringBuilder json, ArrayList<Connection> path)
+        {
+            json.append('[');
+            for (int i = 0; i < path.size(); i++)
+            {
+                Connection connection = path.get(i);
+                if (i > 0)
+                {
+                    json.append(',');
+                }
+                json.append('{');
+                KevinBaconJson.appendField(json, "actor1", connection.getActor1Id());
+                json.append(',');
+                KevinBaconJson.appendField(json, "film", connection.getFilmId());
+                json.append(',');
+                KevinBaconJson.appendField(json, "actor2", connection.getActor2Id());
+                json.append('}');
+            }
+            json.append(']');
+        }
+
+        void sendError(HttpExchange exchange, int status, String message) throws IOException
+        {
+            StringBuilder json = new StringBuilder("{");
+            KevinBaconJson.appendField(json, "error", message);
+            json.append('}');
+            send(exchange, status, json);
+        }
+
+        void send(HttpExchange exchange, int status, StringBuilder json) throws IOException
+        {
+            byte[] body = json.toString().getBytes(UTF_8);
+            exchange.getResponseHeaders().set(CONTENT_TYPE, JSON_CONTENT_TYPE);
+            exchange.sendResponseHeaders(status, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body);
+            out.close();
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException
+    {
+        byte[] buffer = new byte[1024];
+        while (in.read(buffer) >= 0)
+        {
+            // NOTHING TO DO, WE JUST WANT IT ALL READ
+        }
+        in.close();
+    }
+
+    /**
+     * Splits a raw query string like a=1&b=2 into its decoded parameters.
+     *
+     * @return The parameters, or null if the query has a malformed escape
+     * like %zz in it.
+     */
+    static HashMap<String, String> parseQuery(String rawQuery) throws IOException
+    {
+        HashMap<String, String> params = new HashMap();
+        if (rawQuery == null)
+        {
+            return params;
+        }
+        try
+        {
+            for (String pair : rawQuery.split("&"))
+            {
+                int equals = pair.indexOf('=');
+                if (equals > 0)
+                {
+                    params.put(URLDecoder.decode(pair.substring(0, equals), UTF_8),
+                            URLDecoder.decode(pair.substring(equals + 1), UTF_8));
+                }
+            }
+        }
+        catch (IllegalArgumentException iae)
+        {
+            return null;
+        }
+        return params;
+    }
+}
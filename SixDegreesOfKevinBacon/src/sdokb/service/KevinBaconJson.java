@@ -0,0 +1,69 @@
+package sdokb.service;
+
+/**
+ * KevinBaconJson has the few helpers we need to write JSON by hand, which is
+ * all our service responses need, so we don't pull in a JSON library.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconJson
+{
+    /**
+     * Appends "name":"value" with both properly escaped, or "name":null if
+     * there is no value.
+     */
+    public static void appendField(StringBuilder json, String name, String value)
+    {
+        appendString(json, name);
+        json.append(':');
+        if (value == null)
+        {
+            json.append("null");
+        }
+        else
+        {
+            appendString(json, value);
+        }
+    }
+
+    /**
+     * Appends the text as a quoted JSON string, escaping quotes, backslashes,
+     * and control characters.
+     */
+    public static void appendString(StringBuilder json, String text)
+    {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            switch (c)
+            {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < ' ')
+                    {
+                        json.append(String.format("\\u%04x", (int) c));
+                    }
+                    else
+                    {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,249 @@
+package sdokb.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * KevinBaconLoadTestClient plays lots of games at once against a running
+ * KevinBaconGameService, with each simulated player picking random
+ * candidates until its game ends. When all the players are done it reports
+ * how many requests were made, how fast, and how long they took.
+ *
+ * Usage: KevinBaconLoadTestClient [host] [port] [players] [gamesPerPlayer]
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconLoadTestClient
+{
+    // DEFAULTS FOR ANYTHING NOT GIVEN ON THE COMMAND LINE
+    public static final String DEFAULT_HOST = "localhost";
+    public static final int DEFAULT_PLAYERS = 200;
+    public static final int DEFAULT_GAMES_PER_PLAYER = 10;
+
+    // NO GAME SHOULD GO ON LONGER THAN THIS MANY GUESSES
+    public static final int MAX_GUESSES_PER_GAME = 100;
+
+    // WHAT WE LOOK FOR IN THE RESPONSES
+    private static final String SESSION_FIELD = "\"session\":\"";
+    private static final String GAME_OVER_FIELD = "\"gameOver\":true";
+    private static final String CANDIDATES_FIELD = "\"candidates\":[";
+    private static final String ID_FIELD = "{\"id\":\"";
+    private static final String UTF_8 = "UTF-8";
+
+    // WHERE THE SERVICE IS
+    private String baseURL;
+
+    public KevinBaconLoadTestClient(String host, int port)
+    {
+        baseURL = "http://" + host + ":" + port;
+    }
+
+    /**
+     * Runs the load test and prints the results.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        String host = (args.length > 0) ? args[0] : DEFAULT_HOST;
+        int port = (args.length > 1) ? Integer.parseInt(args[1]) : KevinBaconGameService.DEFAULT_PORT;
+        int numPlayers = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_PLAYERS;
+        int gamesPerPlayer = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_GAMES_PER_PLAYER;
+        new KevinBaconLoadTestClient(host, port).run(numPlayers, gamesPerPlayer);
+    }
+
+    /**
+     * Plays all the games, one thread per player, and then reports.
+     */
+    public void run(int numPlayers, final int gamesPerPlayer) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(numPlayers);
+        ArrayList<Future<long[]>> results = new ArrayList();
+        long startTime = System.nanoTime();
+        try
+        {
+            for (int i = 0; i < numPlayers; i++)
+            {
+                results.add(executor.submit(new Callable<long[]>()
+                {
+                    @Override
+                    public long[] call() throws IOException
+                    {
+                        return playGames(gamesPerPlayer);
+                    }
+                }));
+            }
+
+            // PUT ALL THE LATENCIES TOGETHER
+            long[] latencies = new long[0];
+            for (Future<long[]> result : results)
+            {
+                long[] playerLatencies = result.get();
+                int oldLength = latencies.length;
+                latencies = Arrays.copyOf(latencies, oldLength + playerLatencies.length);
+                System.arraycopy(playerLatencies, 0, latencies, oldLength, playerLatencies.length);
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            report(numPlayers, gamesPerPlayer, latencies, elapsedNanos);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Plays all of one player's games in one session, returning how long
+     * each request took in nanoseconds.
+     */
+    private long[] playGames(int numGames) throws IOException
+    {
+        Random random = new Random();
+        long[] latencies = new long[16];
+        int numRequests = 0;
+        String sessionId = null;
+        for (int game = 0; game < numGames; game++)
+        {
+            String startPath = KevinBaconGameService.START_PATH;
+            if (sessionId != null)
+            {
+                startPath += "?" + KevinBaconGameService.SESSION_PARAM + "=" + sessionId;
+            }
+            long requestStart = System.nanoTime();
+            String response = request("POST", startPath);
+            latencies = record(latencies, numRequests++, System.nanoTime() - requestStart);
+            if (sessionId == null)
+            {
+                sessionId = getValue(response, SESSION_FIELD);
+            }
+
+            // KEEP PICKING RANDOM CANDIDATES UNTIL THE GAME ENDS
+            ArrayList<String> candidateIds = getCandidateIds(response);
+            int numGuesses = 0;
+            while (!candidateIds.isEmpty()
+                    && (response.indexOf(GAME_OVER_FIELD) < 0)
+                    && (numGuesses++ < MAX_GUESSES_PER_GAME))
+            {
+                String guessId = candidateIds.get(random.nextInt(candidateIds.size()));
+                requestStart = System.nanoTime();
+                response = request("POST", KevinBaconGameService.GUESS_PATH
+                        + "?" + KevinBaconGameService.SESSION_PARAM + "=" + sessionId
+                        + "&" + KevinBaconGameService.ID_PARAM + "=" + URLEncoder.encode(guessId, UTF_8));
+                latencies = record(latencies, numRequests++, System.nanoTime() - requestStart);
+                candidateIds = getCandidateIds(response);
+            }
+        }
+
+        // LOOK AT THE HISTORY AND THEN CLEAN UP
+        long requestStart = System.nanoTime();
+        request("GET", KevinBaconGameService.HISTORY_PATH + "?" + KevinBaconGameService.SESSION_PARAM + "=" + sessionId);
+        latencies = record(latencies, numRequests++, System.nanoTime() - requestStart);
+        request("POST", KevinBaconGameService.END_PATH + "?" + KevinBaconGameService.SESSION_PARAM + "=" + sessionId);
+        return Arrays.copyOf(latencies, numRequests);
+    }
+
+    private long[] record(long[] latencies, int index, long latency)
+    {
+        if (index == latencies.length)
+        {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[index] = latency;
+        return latencies;
+    }
+
+    /**
+     * Makes the request, returning the response body, which for errors is
+     * the JSON error message.
+     */
+    private String request(String method, String path) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseURL + path).openConnection();
+        connection.setRequestMethod(method);
+        InputStream in;
+        if (connection.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST)
+        {
+            in = connection.getInputStream();
+        }
+        else
+        {
+            in = connection.getErrorStream();
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int length;
+        while ((length = in.read(buffer)) >= 0)
+        {
+            body.write(buffer, 0, length);
+        }
+        in.close();
+        return body.toString(UTF_8);
+    }
+
+    private String getValue(String json, String field)
+    {
+        int start = json.indexOf(field) + field.length();
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    private ArrayList<String> getCandidateIds(String json)
+    {
+        ArrayList<String> ids = new ArrayList();
+        int position = json.indexOf(CANDIDATES_FIELD);
+        if (position < 0)
+        {
+            return ids;
+        }
+        position = json.indexOf(ID_FIELD, position);
+        while (position >= 0)
+        {
+            int start = position + ID_FIELD.length();
+            int end = json.indexOf('"', start);
+            ids.add(json.substring(start, end));
+            position = json.indexOf(ID_FIELD, end);
+        }
+        return ids;
+    }
+
+    private void report(int numPlayers, int gamesPerPlayer, long[] latencies, long elapsedNanos)
+    {
+        Arrays.sort(latencies);
+        long total = 0;
+        for (long latency : latencies)
+        {
+            total += latency;
+        }
+        double seconds = elapsedNanos / 1e9;
+        System.out.println(numPlayers + " players, " + (numPlayers * gamesPerPlayer) + " games");
+        System.out.println(latencies.length + " requests in " + String.format("%.2f", seconds) + " s ("
+                + String.format("%.0f", latencies.length / seconds) + " requests/sec)");
+        if (latencies.length > 0)
+        {
+            System.out.println("latency ms: mean " + millis(total / latencies.length)
+                    + ", p50 " + millis(percentile(latencies, 50))
+                    + ", p90 " + millis(percentile(latencies, 90))
+                    + ", p99 " + millis(percentile(latencies, 99))
+                    + ", max " + millis(latencies[latencies.length - 1]));
+        }
+    }
+
+    private long percentile(long[] sortedLatencies, int percent)
+    {
+        int index = (int) ((sortedLatencies.length - 1) * (percent / 100.0));
+        return sortedLatencies[index];
+    }
+
+    private String millis(long nanos)
+    {
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,113 @@
+package sdokb.ui;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * KevinBaconBackgroundWorker runs the game work the player asks for, like
+ * starting a new game or processing a guess, on a thread of its own rather
+ * than on the Swing event dispatch thread, so however long a path search
+ * takes on a big graph the window keeps repainting and taking input. The
+ * results find their way back to the event dispatch thread through the
+ * KevinBaconUIGameListener.
+ *
+ * All the work goes through one thread, so it's done in the order it was
+ * asked for, just as it was when it all ran on the event dispatch thread.
+ * Asking for a new game cancels any new game or guess still waiting, since
+ * the new game would throw its result away anyway, and asking for a guess
+ * cancels any guess still waiting. Work that has already started is left
+ * to finish, since the session only ever changes all at once.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconBackgroundWorker
+{
+    // THE NAME OF THE ONE THREAD THAT DOES ALL THE WORK
+    public static final String WORKER_THREAD_NAME = "KevinBaconWorker";
+
+    // RUNS ALL THE WORK, ONE TASK AT A TIME
+    private ExecutorService executor;
+
+    // THE LATEST WORK OF EACH KIND, SO NEWER WORK CAN CANCEL IT
+    private Future<?> newGameTask;
+    private Future<?> guessTask;
+
+    /**
+     * This constructor makes the worker, whose thread is started the first
+     * time there is work for it.
+     */
+    public KevinBaconBackgroundWorker()
+    {
+        executor = Executors.newSingleThreadExecutor(new WorkerThreadFactory());
+    }
+
+    /**
+     * Runs the work of starting a new game once everything before it is done,
+     * cancelling any new game or guess that hasn't started yet.
+     *
+     * @param task The work that starts the game.
+     * @return The future for the work, which may be used to cancel it.
+     */
+    public synchronized Future<?> submitNewGame(Runnable task)
+    {
+        cancel(newGameTask);
+        cancel(guessTask);
+        newGameTask = executor.submit(task);
+        return newGameTask;
+    }
+
+    /**
+     * Runs the work of processing a guess once everything before it is done,
+     * cancelling any guess that hasn't started yet.
+     *
+     * @param task The work that processes the guess.
+     * @return The future for the work, which may be used to cancel it.
+     */
+    public synchronized Future<?> submitGuess(Runnable task)
+    {
+        cancel(guessTask);
+        guessTask = executor.submit(task);
+        return guessTask;
+    }
+
+    /**
+     * Cancels whatever work hasn't started yet and stops the thread once the
+     * work that has is done.
+     */
+    public synchronized void shutdown()
+    {
+        cancel(newGameTask);
+        cancel(guessTask);
+        executor.shutdown();
+    }
+
+    /**
+     * Cancels the task if it hasn't started. Once it has it's allowed to
+     * finish, since stopping a session change part way through would leave
+     * the game in a state it could never otherwise be in.
+     */
+    private void cancel(Future<?> task)
+    {
+        if (task != null)
+        {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * Makes the worker's thread, which is a daemon so it never keeps the
+     * application running once the window is gone.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory
+    {
+        @Override
+        public Thread newThread(Runnable task)
+        {
+            Thread thread = new Thread(task, WORKER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -3,7 +3,6 @@ package sdokb.ui;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
-import java.util.Iterator;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Element;
 import javax.swing.text.html.HTML;
@@ -66,6 +65,27 @@ public class KevinBaconDocumentManager
     private final String LOSSES_ID = "losses";
     private final String GAME_RESULTS_HEADER_ID = "game_results_header";
     private final String GAME_RESULTS_LIST_ID = "game_results_list";
+    private final String GAME_RESULTS_NAV_ID = "game_results_nav";
+
+    // THE LINKS FOR PAGING THROUGH THE GAME RESULTS, WHICH THE
+    // StatsHyperlinkListener LISTENS FOR
+    public static final String OLDER_RESULTS_LINK = "#older";
+    public static final String NEWER_RESULTS_LINK = "#newer";
+
+    // THE STATS PAGE ONLY EVER HOLDS THIS MANY GAME RESULTS, SO ADDING
+    // ONE COSTS THE SAME NO MATTER HOW LONG THE SESSION HAS GONE ON
+    private final int GAME_RESULTS_PAGE_SIZE = 50;
+
+    // WHICH GAMES THE STATS PAGE IS SHOWING, AS THE HISTORY INDEX OF THE
+    // FIRST ONE AND HOW MANY. PAGES ALWAYS START AT A MULTIPLE OF THE
+    // PAGE SIZE
+    private int resultsPageStart;
+    private int resultsPageCount;
+
+    // HOW MANY GAMES THE STATS PAGE KNOWS ABOUT, AS OF THE LAST RESULT ADDED
+    // TO IT. THE SESSION MAY ALREADY BE AHEAD OF THAT, WITH THE RESULTS FOR
+    // THE GAMES SINCE STILL ON THEIR WAY, SO WE ONLY EVER PAGE UP TO HERE
+    private int numGamesShown;
 
     /**
      * This constructor just keeps the UI for later. Note that once constructed,
@@ -103,12 +123,19 @@ public class KevinBaconDocumentManager
     public void setStatsDoc(HTMLDocument initStatsDoc)
     {
         statsDoc = initStatsDoc;
+
+        // A NEW DOC DOESN'T SHOW ANY GAMES YET
+        resultsPageStart = 0;
+        resultsPageCount = 0;
+        numGamesShown = 0;
     }
 
     /**
      * Called when a new game starts, it updates the starting actor display.
+     *
+     * @param startingActor The actor the new game starts from.
      */
-    public void updateActorInGamePage()
+    public void updateActorInGamePage(Actor startingActor)
     {
         try
         {
@@ -116,7 +143,6 @@ public class KevinBaconDocumentManager
             Element sH = gameDoc.getElement(SUBHEADER_TEXT_ID);
             PropertiesManager props = PropertiesManager.getPropertiesManager();
             String subheadText = props.getProperty(KevinBaconPropertyType.GAME_SUBHEADER_TEXT);
-            Actor startingActor = ui.getGSM().getGameInProgress().getStartingActor();
             gameDoc.setInnerHTML(sH, subheadText + startingActor.toString());
         } catch (BadLocationException | IOException e)
         {
@@ -129,36 +155,52 @@ public class KevinBaconDocumentManager
      * This method lets us add a guess to the game page display without having
      * to rebuild the entire page. We just rebuild the list item each time guess
      * is made.
+     *
+     * @param lastPath The connection the guess completed, or null for none.
      */
-    public void updateGuessesList()
+    public void updateGuessesList(Connection lastPath)
     {
-        PropertiesManager props = PropertiesManager.getPropertiesManager();
-        KevinBaconGameStateManager gsm = ui.getGSM();
-        KevinBaconGameData gameInProgress = gsm.getGameInProgress();
-        KevinBaconGameGraphManager graph = gsm.getGameGraphManager();
+        KevinBaconGameGraphManager graph = ui.getGSM().getGameGraphManager();
 
         try
         {
-            if (gsm.isGameInProgress()) {
-                Element ol = gameDoc.getElement(GUESSES_LIST_ID);
-                Connection lastPath = gameInProgress.getLastConnection();
-                String guessString = "";
-                if (lastPath != null) {
-                    guessString = graph.getActor(lastPath.getActor1Id().toString())+ " - " + graph.getFilm(lastPath.getFilmId().toString()) + " - " + graph.getActor(lastPath.getActor2Id().toString());
-                } else {
-                    guessString = "";
-                }
-                String liText = START_TAG + HTML.Tag.LI + END_TAG
-                            + guessString
-                            + START_TAG + SLASH + HTML.Tag.LI + END_TAG;
-                gameDoc.insertBeforeEnd(ol, liText);
-            } else  {
-                String resultText = "You Lose";
-                if (gameInProgress.isKevinBaconFound()) {
-                    resultText = "You Win!";
-                }
-                gameDoc.insertBeforeEnd(gameDoc.getElement(WIN_DISPLAY_ID), resultText);
+            Element ol = gameDoc.getElement(GUESSES_LIST_ID);
+            String guessString = "";
+            if (lastPath != null) {
+                guessString = graph.getActor(lastPath.getActor1Id().toString())+ " - " + graph.getFilm(lastPath.getFilmId().toString()) + " - " + graph.getActor(lastPath.getActor2Id().toString());
+            } else {
+                guessString = "";
             }
+            String liText = START_TAG + HTML.Tag.LI + END_TAG
+                        + guessString
+                        + START_TAG + SLASH + HTML.Tag.LI + END_TAG;
+            gameDoc.insertBeforeEnd(ol, liText);
+        } 
+        // THE ERROR HANDLER WILL DEAL WITH ERRORS ASSOCIATED WITH BUILDING
+        // THE HTML FOR THE PAGE, WHICH WOULD LIKELY BE DUE TO BAD DATA FROM
+        // AN XML SETUP FILE
+        catch (BadLocationException | IOException e)
+        {
+            KevinBaconErrorHandler errorHandler = ui.getErrorHandler();
+            errorHandler.processError(KevinBaconPropertyType.INVALID_DOC_ERROR_TEXT);
+        }
+    }
+
+    /**
+     * Called when a game ends, it shows whether the player won or lost under
+     * the guesses.
+     *
+     * @param won true if the player found Kevin Bacon, false otherwise.
+     */
+    public void updateWinDisplay(boolean won)
+    {
+        try
+        {
+            String resultText = "You Lose";
+            if (won) {
+                resultText = "You Win!";
+            }
+            gameDoc.insertBeforeEnd(gameDoc.getElement(WIN_DISPLAY_ID), resultText);
         } 
         // THE ERROR HANDLER WILL DEAL WITH ERRORS ASSOCIATED WITH BUILDING
         // THE HTML FOR THE PAGE, WHICH WOULD LIKELY BE DUE TO BAD DATA FROM
@@ -202,15 +244,32 @@ public class KevinBaconDocumentManager
     /**
      * This method adds the data from the completedGame argument to the stats
      * page, as well as loading all the newly computed stats for all the games
-     * played.
+     * played. Only one page of game results is ever in the page, so if the
+     * player is looking at the newest page the game is just added to the end
+     * of it, or starts a new page if it's full, and if they're looking at an
+     * older page it's left alone. Either way the cost doesn't grow with the
+     * number of games played.
+     *
+     * Since the page may be updated a little after the game ends, the stats
+     * are the ones from when it did rather than whatever they are now.
      *
      * @param completedGame Game whose summary will be added to the stats page.
+     * It was the last game in the history when it ended.
+     * @param numGames How many games had been played, this one included.
+     * @param numWins How many of those games were won.
+     * @param numPerfectWins How many of those were won in as few connections
+     * as possible.
+     * @param numLosses How many of those games were lost.
      */
-    public void addGameResultToStatsPage(KevinBaconGameData completedGame)
+    public void addGameResultToStatsPage(KevinBaconGameData completedGame,
+            int numGames,
+            int numWins,
+            int numPerfectWins,
+            int numLosses)
     {
         // GET THE GAME STATS
-        KevinBaconGameStateManager gsm = ui.getGSM();
-        KevinBaconGameGraphManager graph = gsm.getGameGraphManager();
+        KevinBaconGameGraphManager graph = ui.getGSM().getGameGraphManager();
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
 
         try
         {
@@ -219,56 +278,33 @@ public class KevinBaconDocumentManager
             Element gameWonElement = statsDoc.getElement(WINS_ID);
             Element gamePerfectWinElement = statsDoc.getElement(PERFECT_WINS_ID);
             Element gameLossesElement = statsDoc.getElement(LOSSES_ID);
-            statsDoc.setInnerHTML(gamePlayedElement, gsm.getNumGamesPlayed() + "");
-            statsDoc.setInnerHTML(gameWonElement, gsm.getNumGamesWon() + "");
-            statsDoc.setInnerHTML(gamePerfectWinElement, gsm.getNumPerfectWins() + "");
-            statsDoc.setInnerHTML(gameLossesElement, gsm.getNumGamesLost() + "");
+            statsDoc.setInnerHTML(gamePlayedElement, numGames + "");
+            statsDoc.setInnerHTML(gameWonElement, numWins + "");
+            statsDoc.setInnerHTML(gamePerfectWinElement, numPerfectWins + "");
+            statsDoc.setInnerHTML(gameLossesElement, numLosses + "");
+            numGamesShown = numGames;
             
-            if (gsm.getNumGamesPlayed() > 0) {
+            if (numGames > 0) {
                
                 Element gamesResultHeader = statsDoc.getElement(GAME_RESULTS_HEADER_ID);
-                statsDoc.setInnerHTML(gamesResultHeader, "GAME RESULTS");
-                
-                Element gamesResultList = statsDoc.getElement(GAME_RESULTS_LIST_ID);
-                statsDoc.setInnerHTML(gamesResultList, START_TAG + HTML.Tag.BR + END_TAG);
-                
-                Iterator<KevinBaconGameData> it = gsm.getGamesHistoryIterator();
-                while(it.hasNext()) {
-                    
-                    KevinBaconGameData game = it.next();
-                    ArrayList<Connection> paths = game.getGamePath();
-                    String gameLine = "(" + game.getGameTimeDescription() + ")/" + paths.size();
-                    String lastActorId = "";
-                    for(Connection conn: paths) {
-                       if (conn != null) {
-                            if (!lastActorId.equals(conn.getActor1Id())) {
-                                gameLine += "---" + graph.getActor(conn.getActor1Id());
-                            }
-                            gameLine += "---" + graph.getFilm(conn.getFilmId());
-                           
-                            if  (conn.getActor2Id() != null) {
-                                gameLine += "---" + graph.getActor(conn.getActor2Id());
-                                lastActorId = conn.getActor2Id();
-                            }
-                        }
-                    }
-                    String liStyle;
-                    liStyle = " style='color:black;' ";
-                    
-                    //For win
-                    if(false){
-                        liStyle = " style='color:green;' ";   
-                    }
-                    //For perfect wins
-                    if(game.isPerfectWin()){
-                        liStyle = " style='color:red;'";    
-                    }
-                   
-                    String liText = START_TAG + HTML.Tag.LI + liStyle + END_TAG
-                            + gameLine
-                            + START_TAG + SLASH + HTML.Tag.LI + END_TAG;
-                    statsDoc.insertBeforeEnd(gamesResultList, liText);
+                statsDoc.setInnerHTML(gamesResultHeader, props.getProperty(KevinBaconPropertyType.GAME_RESULTS_TEXT));
+
+                // IS THE PLAYER LOOKING AT THE PAGE THE GAME BELONGS AT THE END OF?
+                boolean showingNewest = (resultsPageStart + resultsPageCount) == (numGames - 1);
+                if ((resultsPageCount == 0)
+                        || (showingNewest && (resultsPageCount == GAME_RESULTS_PAGE_SIZE)))
+                {
+                    // NOTHING SHOWN YET OR THE NEWEST PAGE IS FULL, SO
+                    // START OVER WITH THE PAGE THE GAME IS ON
+                    loadGameResultsPage(((numGames - 1) / GAME_RESULTS_PAGE_SIZE) * GAME_RESULTS_PAGE_SIZE, numGames);
                 }
+                else if (showingNewest)
+                {
+                    Element gamesResultList = statsDoc.getElement(GAME_RESULTS_LIST_ID);
+                    statsDoc.insertBeforeEnd(gamesResultList, buildGameResultItem(completedGame, numGames, graph));
+                    resultsPageCount++;
+                }
+                updateGameResultsNav(numGames);
             }
         }
         // WE'LL LET THE ERROR HANDLER TAKE CARE OF ANY ERRORS,
@@ -281,6 +317,150 @@ public class KevinBaconDocumentManager
         }
     }
 
+    /**
+     * Called when the player clicks the link for older game results, it
+     * replaces the game results with the page before the one showing.
+     */
+    public void showOlderGameResults()
+    {
+        if (resultsPageStart > 0)
+        {
+            showGameResultsPage(resultsPageStart - GAME_RESULTS_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Called when the player clicks the link for newer game results, it
+     * replaces the game results with the page after the one showing.
+     */
+    public void showNewerGameResults()
+    {
+        if ((resultsPageStart + resultsPageCount) < numGamesShown)
+        {
+            showGameResultsPage(resultsPageStart + GAME_RESULTS_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Shows the page of game results starting at the history index, along
+     * with the links to the pages around it. Only the games whose results
+     * have been added are paged through, so a game's result is never shown
+     * before it gets here, and when it does it's added to the page.
+     */
+    private void showGameResultsPage(int pageStart)
+    {
+        try
+        {
+            loadGameResultsPage(pageStart, numGamesShown);
+            updateGameResultsNav(numGamesShown);
+        }
+        catch (BadLocationException | IOException e)
+        {
+            KevinBaconErrorHandler errorHandler = ui.getErrorHandler();
+            errorHandler.processError(KevinBaconPropertyType.INVALID_DOC_ERROR_TEXT);
+        }
+    }
+
+    /**
+     * Replaces everything in the game results list with the page of games
+     * starting at the history index, getting only those games from the
+     * history, and none past the first numGames.
+     */
+    private void loadGameResultsPage(int pageStart, int numGames) throws BadLocationException, IOException
+    {
+        KevinBaconGameStateManager gsm = ui.getGSM();
+        KevinBaconGameGraphManager graph = gsm.getGameGraphManager();
+        int pageEnd = Math.min(pageStart + GAME_RESULTS_PAGE_SIZE, numGames);
+        ArrayList<KevinBaconGameData> games = gsm.getGamesHistory(pageStart, pageEnd);
+
+        // BUILD THE WHOLE PAGE FIRST SO THE DOC ONLY CHANGES ONCE
+        StringBuilder pageText = new StringBuilder();
+        for (int i = 0; i < games.size(); i++)
+        {
+            pageText.append(buildGameResultItem(games.get(i), pageStart + i + 1, graph));
+        }
+        Element gamesResultList = statsDoc.getElement(GAME_RESULTS_LIST_ID);
+        statsDoc.setInnerHTML(gamesResultList, pageText.toString());
+        resultsPageStart = pageStart;
+        resultsPageCount = games.size();
+    }
+
+    /**
+     * Updates the links to older and newer game results, and which of the
+     * games the page is showing.
+     */
+    private void updateGameResultsNav(int numGames) throws BadLocationException, IOException
+    {
+        // STATS PAGES WITHOUT THE LINKS JUST DON'T GET THEM
+        Element gamesResultNav = statsDoc.getElement(GAME_RESULTS_NAV_ID);
+        if (gamesResultNav == null)
+        {
+            return;
+        }
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
+        String navText = EMPTY_TEXT;
+        if (resultsPageStart > 0)
+        {
+            navText += buildLink(OLDER_RESULTS_LINK, props.getProperty(KevinBaconPropertyType.OLDER_RESULTS_TEXT)) + SPACE;
+        }
+        navText += (resultsPageStart + 1) + SPACE + DASHES + SPACE
+                + (resultsPageStart + resultsPageCount) + SPACE + SLASH + SPACE + numGames;
+        if ((resultsPageStart + resultsPageCount) < numGames)
+        {
+            navText += SPACE + buildLink(NEWER_RESULTS_LINK, props.getProperty(KevinBaconPropertyType.NEWER_RESULTS_TEXT));
+        }
+        statsDoc.setInnerHTML(gamesResultNav, navText);
+    }
+
+    private String buildLink(String href, String text)
+    {
+        return START_TAG + HTML.Tag.A + SPACE + HTML.Attribute.HREF + EQUAL + QUOTE + href + QUOTE + END_TAG
+                + text
+                + START_TAG + SLASH + HTML.Tag.A + END_TAG;
+    }
+
+    /**
+     * Builds the list item summarizing one game for the stats page. The item
+     * carries its own number, since the list only holds one page of games.
+     */
+    private String buildGameResultItem(KevinBaconGameData game,
+            int gameNumber,
+            KevinBaconGameGraphManager graph)
+    {
+        ArrayList<Connection> paths = game.getGamePath();
+        String gameLine = "(" + game.getGameTimeDescription() + ")/" + paths.size();
+        String lastActorId = "";
+        for(Connection conn: paths) {
+           if (conn != null) {
+                if (!lastActorId.equals(conn.getActor1Id())) {
+                    gameLine += "---" + graph.getActor(conn.getActor1Id());
+                }
+                gameLine += "---" + graph.getFilm(conn.getFilmId());
+               
+                if  (conn.getActor2Id() != null) {
+                    gameLine += "---" + graph.getActor(conn.getActor2Id());
+                    lastActorId = conn.getActor2Id();
+                }
+            }
+        }
+        gameLine += " (" + game.getPerfectRoutesDescription() + ")";
+        String liStyle;
+        liStyle = " style='color:black;' ";
+        
+        //For win
+        if(false){
+            liStyle = " style='color:green;' ";   
+        }
+        //For perfect wins
+        if(game.isPerfectWin()){
+            liStyle = " style='color:red;'";    
+        }
+       
+        return START_TAG + HTML.Tag.LI + SPACE + HTML.Attribute.VALUE + EQUAL + QUOTE + gameNumber + QUOTE + liStyle + END_TAG
+                + gameLine
+                + START_TAG + SLASH + HTML.Tag.LI + END_TAG;
+    }
+
     /**
      * This helper method lets you print the contents of a DOM (i.e. a doc) to
      * the console, which can help with error checking during testing.
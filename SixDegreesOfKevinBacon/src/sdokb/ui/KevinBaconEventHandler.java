@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import javax.swing.JEditorPane;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import sdokb.SixDegreesOfKevinBacon.KevinBaconPropertyType;
 import sdokb.game.KevinBaconGameStateManager;
 import xml_utilities.InvalidXMLFileFormatException;
@@ -16,6 +17,10 @@ import sdokb.game.IMDBObject;
  * we are registering anonymous event handlers that forward handing to methods
  * inside this class.
  * 
+ * Anything that changes the game, like starting a new one or making a guess,
+ * is handed to a KevinBaconBackgroundWorker so the event dispatch thread
+ * never waits on it, and the game listener brings the results back.
+ * 
  * @author Richard McKenna & ___________________
  */
 public class KevinBaconEventHandler
@@ -24,6 +29,9 @@ public class KevinBaconEventHandler
     // COMPONENTS, SO IT LET'S THE HANDLERS RESPOND APPROPRIATELY
     private KevinBaconUI ui;
 
+    // CHANGES TO THE GAME ARE MADE ON THIS, NOT THE EVENT DISPATCH THREAD
+    private KevinBaconBackgroundWorker worker;
+
     /**
      * Constructor that simply saves the ui for later.
      * 
@@ -32,6 +40,7 @@ public class KevinBaconEventHandler
     public KevinBaconEventHandler(KevinBaconUI initUI)
     {
         ui = initUI;
+        worker = new KevinBaconBackgroundWorker();
     }
 
     /**
@@ -65,8 +74,7 @@ public class KevinBaconEventHandler
      */
     public void respondToSelectLanguageRequest(String language)
     {
-        // WE'LL NEED THESE TO INIT THE UI SCREENS
-        KevinBaconGameStateManager gsm = ui.getGSM();
+        // WE'LL NEED THIS TO INIT THE UI SCREENS
         PropertiesManager props = PropertiesManager.getPropertiesManager();
 
         // GET THE SELECTED LANGUAGE & IT'S XML FILE
@@ -84,7 +92,7 @@ public class KevinBaconEventHandler
             ui.initUI();
             
             // WE'LL START THE GAME TOO
-            gsm.startNewGame();
+            respondToNewGameRequest();
         }
         catch(InvalidXMLFileFormatException ixmlffe)
         {
@@ -99,27 +107,61 @@ public class KevinBaconEventHandler
      */
     public void respondToNewGameRequest()
     {
-        KevinBaconGameStateManager gsm = ui.getGSM();
-        gsm.startNewGame();
+        final KevinBaconGameStateManager gsm = ui.getGSM();
+
+        // NO MORE GUESSES UNTIL THE NEW GAME'S CANDIDATES ARE LOADED, SINCE
+        // ANY PICKED BEFORE THEN WOULD BE FROM THE OLD GAME
+        ui.setComboAcceptingInput(false);
+        ui.enableGuessComboBox(false);
+
+        // PICKING THE ACTOR AND FINDING THE WAY TO WIN CAN TAKE A WHILE ON
+        // A BIG GRAPH, SO DO IT IN THE BACKGROUND
+        worker.submitNewGame(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                gsm.startNewGame();
+            }
+        });
     }
 
     /**
      * This method responds to when the user presses enter in
      * the guess text field.
      */
-    public void respondToGuessRequest(IMDBObject guess)
+    public void respondToGuessRequest(final IMDBObject guess)
     {
-        KevinBaconGameStateManager gsm = ui.getGSM();
+        final KevinBaconGameStateManager gsm = ui.getGSM();
+        final String guessId = guess.getId();
 
-        // THEN PROCESS THE GUESS
-        try
-        {
-            gsm.processGuess(guess);
-        }
-        catch(DeadEndException dee)
+        // THEN PROCESS THE GUESS IN THE BACKGROUND, BY ID SO THAT IF A NEW
+        // GAME HAS STARTED SINCE IT WAS PICKED IT'S NOT A CANDIDATE AND IS
+        // IGNORED RATHER THAN PLAYED IN THE WRONG GAME
+        worker.submitGuess(new Runnable()
         {
-            ui.getErrorHandler().processError(KevinBaconPropertyType.DEAD_END_GUESS_ERROR_TEXT);
-        }
+            @Override
+            public void run()
+            {
+                try
+                {
+                    gsm.processGuess(guessId);
+                }
+                catch(DeadEndException dee)
+                {
+                    // THE ERROR DIALOG HAS TO BE SHOWN ON THE EVENT DISPATCH
+                    // THREAD, AFTER THE GAME OVER IT GOES WITH
+                    SwingUtilities.invokeLater(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            ui.getErrorHandler().processError(KevinBaconPropertyType.DEAD_END_GUESS_ERROR_TEXT);
+                        }
+                    });
+                }
+            }
+        });
     }        
 
     /**
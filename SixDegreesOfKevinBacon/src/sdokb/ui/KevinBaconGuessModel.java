@@ -0,0 +1,327 @@
+package sdokb.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import javax.swing.JComboBox;
+import sdokb.game.Film;
+import sdokb.game.IMDBObject;
+import sdokb.game.KevinBaconDisplayOrder;
+import sdokb.game.KevinBaconGameGraphManager;
+import sdokb.game.KevinBaconGraphIndex;
+
+/**
+ * KevinBaconGuessModel holds the films or actors the player may guess next
+ * for the guess combo box, always with the dummy selection first. It only
+ * stores their indices, sorted by their KevinBaconDisplayOrder ranks, and
+ * hands out the actual Film and Actor objects as the combo box asks for
+ * them, so loading a new set of guesses never builds or compares any
+ * display Strings. The guesses are looked up and sorted into a Guesses
+ * off the event dispatch thread, so all loading them there does is swap
+ * the arrays in, however many there are.
+ *
+ * The guesses can be filtered down to the ones starting with whatever the
+ * player has typed. Since they're in display order those are one run of
+ * them, found with two binary searches, so typing costs the same however
+ * many guesses there are. Note that filtering never changes the selection,
+ * since selecting a guess makes it.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconGuessModel extends AbstractListModel<IMDBObject>
+        implements ComboBoxModel<IMDBObject>
+{
+    // THE GRAPH THE GUESSES COME FROM AND THE ORDER WE SHOW THEM IN
+    private KevinBaconGraphIndex graphIndex;
+    private KevinBaconDisplayOrder displayOrder;
+
+    // ALWAYS THE FIRST ITEM, SO THE PLAYER HAS TO PICK SOMETHING ELSE
+    private IMDBObject dummySelection;
+
+    // WHETHER THE GUESSES ARE FILMS OR ACTORS
+    private boolean films;
+
+    // THE GUESSES' FILM OR ACTOR INDICES IN DISPLAY ORDER, AND HOW MANY
+    // MORE CONNECTIONS TO KEVIN BACON EACH ONE LEAVES
+    private int[] guesses;
+    private int[] distances;
+
+    // THE TYPED PREFIX, AND THE RUN OF GUESSES STARTING WITH IT
+    private String filter;
+    private int filterStart;
+    private int filterEnd;
+
+    private Object selectedItem;
+
+    /**
+     * This constructor makes an empty model that only has the dummy.
+     *
+     * @param initDummySelection The item that always comes first.
+     */
+    public KevinBaconGuessModel(IMDBObject initDummySelection)
+    {
+        dummySelection = initDummySelection;
+        films = true;
+        guesses = new int[0];
+        distances = new int[0];
+        filter = "";
+        filterStart = 0;
+        filterEnd = 0;
+        selectedItem = dummySelection;
+    }
+
+    // ACCESSOR METHODS
+    public String getFilter()                   {   return filter;              }
+    public int getDistanceAt(int position)      {   return distances[position]; }
+
+    /**
+     * Replaces all the guesses, clearing any filter and selecting the dummy.
+     * They're already sorted, so this takes the same time however many
+     * there are.
+     *
+     * @param newGuesses The films or actors that may be guessed.
+     */
+    public void setGuesses(Guesses newGuesses)
+    {
+        int oldSize = getSize();
+        graphIndex = newGuesses.graphIndex;
+        displayOrder = newGuesses.displayOrder;
+        films = newGuesses.films;
+        guesses = newGuesses.guesses;
+        distances = newGuesses.distances;
+        filter = "";
+        filterStart = 0;
+        filterEnd = guesses.length;
+        selectedItem = dummySelection;
+        fireContentsChanged(this, 0, Math.max(oldSize, getSize()) - 1);
+    }
+
+    /**
+     * Shows only the guesses starting with the prefix, ignoring case. If
+     * none do nothing changes, so the player can never filter out all of
+     * the guesses.
+     *
+     * @param prefix What the guesses should start with, "" for all of them.
+     * @return true if the filter changed, false if no guesses start with it.
+     */
+    public boolean setFilter(String prefix)
+    {
+        int start = findFirst(prefix, 0);
+        int end = findFirst(prefix, 1);
+        if ((start == end) && !prefix.isEmpty())
+        {
+            return false;
+        }
+        int oldSize = getSize();
+        filter = prefix;
+        filterStart = start;
+        filterEnd = end;
+        fireContentsChanged(this, 0, Math.max(oldSize, getSize()) - 1);
+        return true;
+    }
+
+    /**
+     * Finds the first guess at or after the prefix, or just after it if
+     * after is 1.
+     */
+    private int findFirst(String prefix, int after)
+    {
+        int low = 0;
+        int high = guesses.length;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (KevinBaconDisplayOrder.compareToPrefix(getGuess(middle).toString(), prefix) < after)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds where the item is among all the guesses, filtered or not, which
+     * is a binary search by its rank.
+     *
+     * @return The guess's position, or -1 if the item isn't a guess.
+     */
+    public int findGuess(Object item)
+    {
+        // THE DUMMY AND ANYTHING ELSE NOT IN THE GRAPH HAVE NO INDEX
+        if ((displayOrder == null) || !(item instanceof IMDBObject)
+                || ((item instanceof Film) != films) || (((IMDBObject) item).getIndex() < 0))
+        {
+            return -1;
+        }
+        IMDBObject guess = (IMDBObject) item;
+        int rank = displayOrder.getRank(guess);
+        int low = 0;
+        int high = guesses.length - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int middleRank = films ? displayOrder.getFilmRank(guesses[middle]) : displayOrder.getActorRank(guesses[middle]);
+            if (middleRank < rank)
+            {
+                low = middle + 1;
+            }
+            else if (middleRank > rank)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private IMDBObject getGuess(int position)
+    {
+        return films ? graphIndex.getFilm(guesses[position]) : graphIndex.getActor(guesses[position]);
+    }
+
+    @Override
+    public int getSize()
+    {
+        return 1 + (filterEnd - filterStart);
+    }
+
+    @Override
+    public IMDBObject getElementAt(int index)
+    {
+        if (index == 0)
+        {
+            return dummySelection;
+        }
+        return getGuess(filterStart + index - 1);
+    }
+
+    @Override
+    public void setSelectedItem(Object item)
+    {
+        if ((selectedItem != null && !selectedItem.equals(item))
+                || (selectedItem == null && item != null))
+        {
+            selectedItem = item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    @Override
+    public Object getSelectedItem()
+    {
+        return selectedItem;
+    }
+
+    /**
+     * Guesses is a set of guesses already put in display order, ready to be
+     * loaded into the model. Making one looks up and sorts every guess, so
+     * it should be made on the thread that found them, not the event
+     * dispatch thread.
+     */
+    public static class Guesses
+    {
+        private KevinBaconGraphIndex graphIndex;
+        private KevinBaconDisplayOrder displayOrder;
+        private boolean films;
+        private int[] guesses;
+        private int[] distances;
+
+        /**
+         * This constructor sorts the guesses by their display ranks.
+         *
+         * @param graph The graph the ids are from.
+         * @param ids The ids of the films or actors that may be guessed.
+         * @param guessDistances How many more connections to Kevin Bacon each
+         * guess leaves, in the same order as the ids.
+         * @param initFilms true if the ids are films, false if they're actors.
+         */
+        public Guesses(KevinBaconGameGraphManager graph,
+                ArrayList<String> ids,
+                int[] guessDistances,
+                boolean initFilms)
+        {
+            graphIndex = graph.getGraphIndex();
+            displayOrder = graph.getDisplayOrder();
+            films = initFilms;
+
+            // SORT EACH GUESS'S RANK ALONG WITH WHERE IT CAME FROM
+            long[] keys = new long[ids.size()];
+            for (int i = 0; i < keys.length; i++)
+            {
+                IMDBObject guess = films ? graph.getFilm(ids.get(i)) : graph.getActor(ids.get(i));
+                keys[i] = ((long) displayOrder.getRank(guess) << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            guesses = new int[keys.length];
+            distances = new int[keys.length];
+            for (int i = 0; i < keys.length; i++)
+            {
+                int rank = (int) (keys[i] >>> 32);
+                guesses[i] = films ? displayOrder.getFilmAtRank(rank) : displayOrder.getActorAtRank(rank);
+                distances[i] = guessDistances[(int) keys[i]];
+            }
+        }
+
+        public boolean isFilms()    {   return films;   }
+    }
+
+    /**
+     * TypeAheadManager filters the guesses as the player types rather than
+     * jumping to the first match the way a JComboBox normally does, since
+     * jumping would select, and so make, a guess. Backspace takes back the
+     * last letter typed.
+     */
+    public static class TypeAheadManager implements JComboBox.KeySelectionManager
+    {
+        private static final char BACKSPACE = '\b';
+
+        // THE COMBO BOX TO SHOW THE FILTERED GUESSES IN
+        private JComboBox comboBox;
+
+        public TypeAheadManager(JComboBox initComboBox)
+        {
+            comboBox = initComboBox;
+        }
+
+        /**
+         * Updates the filter for the key, always returning -1 so nothing is
+         * ever selected.
+         */
+        @Override
+        public int selectionForKey(char key, ComboBoxModel model)
+        {
+            if (!(model instanceof KevinBaconGuessModel))
+            {
+                return -1;
+            }
+            KevinBaconGuessModel guessModel = (KevinBaconGuessModel) model;
+            String filter = guessModel.getFilter();
+            boolean changed = false;
+            if (key == BACKSPACE)
+            {
+                if (!filter.isEmpty())
+                {
+                    changed = guessModel.setFilter(filter.substring(0, filter.length() - 1));
+                }
+            }
+            else if (!Character.isISOControl(key))
+            {
+                changed = guessModel.setFilter(filter + key);
+            }
+            if (changed && comboBox.isShowing())
+            {
+                comboBox.showPopup();
+            }
+            return -1;
+        }
+    }
+}
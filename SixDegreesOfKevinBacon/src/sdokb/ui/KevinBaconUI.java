@@ -4,6 +4,7 @@ import sdokb.game.KevinBaconGameStateManager;
 import java.awt.BorderLayout;
 import java.awt.CardLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.Image;
@@ -18,28 +19,24 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
-import javax.swing.DefaultComboBoxModel;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JEditorPane;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.plaf.basic.ComboPopup;
 import javax.swing.text.Document;
 import javax.swing.text.html.HTMLDocument;
 import sdokb.SixDegreesOfKevinBacon.KevinBaconPropertyType;
 import sdokb.file.KevinBaconFileUtilities;
 import properties_manager.PropertiesManager;
-import sdokb.game.Actor;
-import sdokb.game.Connection;
-import sdokb.game.Film;
 import sdokb.game.IMDBObject;
-import sdokb.game.KevinBaconGameData;
-import sdokb.game.KevinBaconGameGraphManager;
+import sdokb.game.KevinBaconDistanceTable;
 
 /**
  * This class contains all user interface components and maintains
@@ -92,12 +89,16 @@ public class KevinBaconUI
     // THE GAME PANEL WILL HAVE CONTROLS FOR PLAYING THE GAME
     private JEditorPane gamePane;
     private JLabel guessLabel;
-    private DefaultComboBoxModel<IMDBObject> guessModel;
+    private KevinBaconGuessModel guessModel;
     private JComboBox<IMDBObject> guessComboBox;
     private boolean comboAcceptingInput;
     private IMDBObject dummyComboSelection;
     private JButton newGameButton;
 
+    // THE GUESS COMBO BOX ONLY MEASURES THIS, NOT EVERY GUESS, SO ITS
+    // SIZE DOESN'T DEPEND ON HOW MANY GUESSES THERE ARE
+    private static final String GUESS_PROTOTYPE_TEXT = "MMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMM (0)";
+
     // THE GAME STATS PANEL WILL DISPLAY GAME STATS
     private JScrollPane statsScrollPane;
     private JEditorPane statsPane;
@@ -484,12 +485,44 @@ public class KevinBaconUI
         String guessPromptText = props.getProperty(KevinBaconPropertyType.FILM_LABEL);
         guessLabel = new JLabel(guessPromptText);
         guessingPanel.add(guessLabel);
-        guessModel = new DefaultComboBoxModel();
-        guessComboBox = new JComboBox(guessModel);
-        guessingPanel.add(guessComboBox);
-        
         String selectPrompt = props.getProperty(KevinBaconPropertyType.SELECT_LABEL);
         dummyComboSelection = new IMDBObject(selectPrompt);
+        guessModel = new KevinBaconGuessModel(dummyComboSelection);
+        guessComboBox = new JComboBox(guessModel);
+        guessingPanel.add(guessComboBox);
+
+        // TYPING FILTERS THE GUESSES RATHER THAN PICKING ONE
+        guessComboBox.setKeySelectionManager(new KevinBaconGuessModel.TypeAheadManager(guessComboBox));
+
+        // EACH GUESS SHOWS HOW MANY MORE CONNECTIONS TO KEVIN BACON IT
+        // LEAVES, AND GUESSES THAT CAN'T REACH HIM ANYMORE ARE GRAYED OUT
+        guessComboBox.setRenderer(new DefaultListCellRenderer()
+        {
+            @Override
+            public Component getListCellRendererComponent(JList list,
+                    Object value,
+                    int index,
+                    boolean isSelected,
+                    boolean cellHasFocus)
+            {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                int position = guessModel.findGuess(value);
+                if (position < 0)
+                {
+                    return this;
+                }
+                int distance = guessModel.getDistanceAt(position);
+                if (distance == KevinBaconDistanceTable.UNREACHABLE)
+                {
+                    setForeground(Color.GRAY);
+                }
+                else
+                {
+                    setText(value + " (" + distance + ")");
+                }
+                return this;
+            }
+        });
         setComboAcceptingInput(false);
         
         // RESPONDS WHEN THE USER SELECTS A FILM OR ACTOR
@@ -498,9 +531,10 @@ public class KevinBaconUI
             @Override
             public void itemStateChanged(ItemEvent ie)
             {
+                // THE SESSION IGNORES GUESSES WHEN NO GAME IS IN PROGRESS,
+                // SO THERE'S NO NEED TO WAIT ON IT TO ASK
                 IMDBObject selectedItem = (IMDBObject)ie.getItem();
-                if (gsm.isGameInProgress() 
-                        && comboAcceptingInput
+                if (comboAcceptingInput
                         && (!selectedItem.equals(dummyComboSelection))
                         && (ie.getStateChange() == ItemEvent.SELECTED))
                 {
@@ -517,6 +551,16 @@ public class KevinBaconUI
         Font guessFont = new Font(fontGuessFamily, Font.BOLD, fontGuessSize);
         guessLabel.setFont(guessFont);
         guessComboBox.setFont(guessFont);        
+
+        // SIZE THE COMBO BOX AND ITS POPUP LIST FROM ONE PROTOTYPE GUESS,
+        // WHICH HAS TO BE DONE ONCE THE FONT IS SET
+        IMDBObject prototypeGuess = new IMDBObject(GUESS_PROTOTYPE_TEXT);
+        guessComboBox.setPrototypeDisplayValue(prototypeGuess);
+        Object guessPopup = guessComboBox.getUI().getAccessibleChild(guessComboBox, 0);
+        if (guessPopup instanceof ComboPopup)
+        {
+            ((ComboPopup) guessPopup).getList().setPrototypeCellValue(prototypeGuess);
+        }
         
         // NOW LAY EVERYTHING OUT IN THE GAME PANEL
         JPanel gamePanel = new JPanel();
@@ -545,6 +589,10 @@ public class KevinBaconUI
         loadPage(statsPane, KevinBaconPropertyType.STATS_FILE_NAME);
         HTMLDocument statsDoc = (HTMLDocument)statsPane.getDocument();
             docManager.setStatsDoc(statsDoc);    
+
+        // THE STATS PAGE HAS LINKS FOR PAGING THROUGH THE GAME RESULTS
+        StatsHyperlinkListener shl = new StatsHyperlinkListener(this);
+        statsPane.addHyperlinkListener(shl);
         statsScrollPane = new JScrollPane(statsPane);
         
         // NOW ADD IT TO THE WORKSPACE, MEANING WE CAN SWITCH TO IT
@@ -727,86 +775,33 @@ public class KevinBaconUI
         guessComboBox.setEnabled(true);
     }
     
-    /**
-     * Gets and returns the films to be loaded into the combo box.
-     */
-    public ArrayList<IMDBObject> getFilmsForComboBox(ArrayList<String> filmIds)
-    {
-        // AND NOW GET THE ACTOR'S FILMS
-        KevinBaconGameGraphManager graph = gsm.getGameGraphManager();
-        ArrayList<IMDBObject> films = new ArrayList();
-        Iterator<String> it = filmIds.iterator();
-        while (it.hasNext())
-        {
-            String filmID = it.next();
-            Film filmToPutInComboBox = graph.getFilm(filmID);
-            films.add(filmToPutInComboBox);
-        }
-        Collections.sort(films);
-        return films;
-    }
-
-    /**
-     * Gets and returns the actors to be loaded into the combo box.
-     */
-    public ArrayList<IMDBObject> getActorsForComboBox(ArrayList<String> actorIds)
-    {        
-        // AND NOW GET THE ACTOR'S FILMS
-        KevinBaconGameGraphManager graph = gsm.getGameGraphManager();
-        ArrayList<IMDBObject> actors = new ArrayList();
-        Iterator<String> it = actorIds.iterator();
-        while (it.hasNext())
-        {
-            String actorID = it.next();
-            Actor actorToPutInComboBox = graph.getActor(actorID);
-            actors.add(actorToPutInComboBox);
-        }
-        Collections.sort(actors);
-        return actors;
-    }
-
     /**
      * Reloads the combo box with the items that are currently
-     * selected according to game progress.
+     * selected according to game progress, along with how many more
+     * connections to Kevin Bacon each one leaves, in the same order.
+     * They're already in display order, and the combo box only looks at
+     * the ones it shows.
+     *
+     * @param guesses The films or actors the player may pick next.
      */
-    public void reloadComboBox(ArrayList<String> ids)
+    public void reloadComboBox(KevinBaconGuessModel.Guesses guesses)
     {
-        // FIRST CLEAR THE COMBO BOX
-        guessModel = new DefaultComboBoxModel();
-
-        // ALWAYS PUT THE DUMMY FIRST
-        guessModel.addElement(dummyComboSelection);
-
         // NOW WE'LL EITHER ADD FILMS OR ACTORS
-        KevinBaconGameData gameInProgress = gsm.getGameInProgress();
-        //Connection lastNode = gameInProgress.getLastConnection();
-        //KevinBaconGameGraphManager graph = gsm.getGameGraphManager();
-        ArrayList<IMDBObject> sortedIMDBObjects;
         String guessLabelText;
         PropertiesManager props = PropertiesManager.getPropertiesManager();
-        if (gameInProgress.isWaitingForFilm())
+        if (guesses.isFilms())
         {
-            sortedIMDBObjects = getFilmsForComboBox(ids);
             guessLabelText = props.getProperty(KevinBaconPropertyType.FILM_LABEL);
         }
         else
         {
-            sortedIMDBObjects = getActorsForComboBox(ids);
             guessLabelText = props.getProperty(KevinBaconPropertyType.ACTOR_LABEL);
         }
-       
-        // AND PUT THEM IN THE MODEL
-        Iterator<IMDBObject> it = sortedIMDBObjects.iterator();
-        while (it.hasNext())
-        {
-            IMDBObject imdb = it.next();
-            guessModel.addElement(imdb);
-        }        
         
-        // AND LOAD THE MODEL
+        // AND LOAD THE MODEL, WHICH PUTS THE DUMMY FIRST AND SELECTS IT
         guessLabel.setText(guessLabelText);
+        guessModel.setGuesses(guesses);
         setComboAcceptingInput(true);
-        guessComboBox.setModel(guessModel);        
     }
 
     /**
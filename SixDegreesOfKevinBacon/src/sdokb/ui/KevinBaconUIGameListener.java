@@ -0,0 +1,228 @@
+package sdokb.ui;
+
+import java.util.ArrayList;
+import javax.swing.SwingUtilities;
+import sdokb.game.Actor;
+import sdokb.game.Connection;
+import sdokb.game.KevinBaconGameData;
+import sdokb.game.KevinBaconGameListener;
+import sdokb.game.KevinBaconGameSession;
+
+/**
+ * This class keeps the Swing user interface in step with the game session
+ * being played in it, updating the game page, the stats page, and the guess
+ * combo box as the game changes.
+ *
+ * The session changes on the KevinBaconBackgroundWorker's thread, but Swing
+ * may only be touched on the event dispatch thread, so each event copies
+ * what it needs out of the session while it's still locked and queues the
+ * update. The queued updates are all applied by one task on the event
+ * dispatch thread, posted only when there isn't one waiting already, so a
+ * burst of events costs one trip there. Only the latest candidates are ever
+ * loaded into the combo box, since any older ones would just be replaced,
+ * and they're sorted into display order here, before they're queued, so
+ * the event dispatch thread only has to swap them in.
+ *
+ * @author Richard McKenna & ____________________
+ */
+public class KevinBaconUIGameListener implements KevinBaconGameListener
+{
+    // THE UI WE'RE KEEPING UP TO DATE
+    private KevinBaconUI ui;
+
+    // UPDATES WAITING FOR THE EVENT DISPATCH THREAD, IN THE ORDER THEY
+    // HAPPENED, AND THE LATEST CANDIDATES, WHICH GO AFTER THEM
+    private ArrayList<Runnable> pendingUpdates;
+    private Runnable pendingCandidates;
+
+    // WHETHER A TASK TO APPLY THEM IS ALREADY ON ITS WAY
+    private boolean updatesPosted;
+
+    /**
+     * Constructor that simply saves the ui for later.
+     *
+     * @param initUI The user interface to update.
+     */
+    public KevinBaconUIGameListener(KevinBaconUI initUI)
+    {
+        ui = initUI;
+        pendingUpdates = new ArrayList();
+        pendingCandidates = null;
+        updatesPosted = false;
+    }
+
+    /**
+     * Clears out the old game and shows the new starting actor.
+     */
+    @Override
+    public void gameStarted(KevinBaconGameSession session)
+    {
+        final Actor startingActor = session.getGameInProgress().getStartingActor();
+        publish(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                ui.resetUI();
+                ui.getDocManager().updateActorInGamePage(startingActor);
+            }
+        }, true);
+    }
+
+    /**
+     * Loads the films or actors the player may pick next into the combo box,
+     * marking the ones that can no longer reach Kevin Bacon.
+     */
+    @Override
+    public void candidatesChanged(KevinBaconGameSession session, ArrayList<String> candidateIds)
+    {
+        // SORT THEM HERE, NOT ON THE EVENT DISPATCH THREAD
+        final KevinBaconGuessModel.Guesses guesses = new KevinBaconGuessModel.Guesses(
+                session.getGameGraphManager(),
+                candidateIds,
+                session.getCandidateDistances(),
+                session.getGameInProgress().isWaitingForFilm());
+        synchronized (this)
+        {
+            pendingCandidates = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    ui.reloadComboBox(guesses);
+                }
+            };
+            postUpdates();
+        }
+    }
+
+    /**
+     * Adds the new connection to the guesses list.
+     */
+    @Override
+    public void connectionMade(KevinBaconGameSession session, final Connection connection)
+    {
+        publish(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                ui.getDocManager().updateGuessesList(connection);
+            }
+        }, false);
+    }
+
+    /**
+     * Stops taking guesses, shows the result, and adds the game to the stats.
+     */
+    @Override
+    public void gameOver(KevinBaconGameSession session)
+    {
+        final boolean won = session.getGameInProgress().isKevinBaconFound();
+        final Runnable addResult = createAddResult(session);
+        publish(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                ui.enableGuessComboBox(false);
+                ui.getDocManager().updateWinDisplay(won);
+                addResult.run();
+            }
+        }, true);
+    }
+
+    /**
+     * Adds the abandoned game to the stats.
+     */
+    @Override
+    public void gameQuit(KevinBaconGameSession session)
+    {
+        publish(createAddResult(session), false);
+    }
+
+    /**
+     * Makes the update that adds the session's game to the stats page, along
+     * with the stats as they are now.
+     */
+    private Runnable createAddResult(KevinBaconGameSession session)
+    {
+        final KevinBaconGameData game = session.getGameInProgress();
+        final int numGames = session.getNumGamesPlayed();
+        final int numWins = session.getNumGamesWon();
+        final int numPerfectWins = session.getNumPerfectWins();
+        final int numLosses = session.getNumGamesLost();
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                ui.getDocManager().addGameResultToStatsPage(game, numGames, numWins, numPerfectWins, numLosses);
+            }
+        };
+    }
+
+    /**
+     * Queues the update for the event dispatch thread.
+     *
+     * @param update What to do to the UI.
+     * @param candidatesGone true if the update leaves any candidates not yet
+     * loaded out of date, so they should be dropped.
+     */
+    private synchronized void publish(Runnable update, boolean candidatesGone)
+    {
+        pendingUpdates.add(update);
+        if (candidatesGone)
+        {
+            pendingCandidates = null;
+        }
+        postUpdates();
+    }
+
+    /**
+     * Posts the task that applies the pending updates, unless it's already
+     * waiting to run, in which case it will pick these up too.
+     */
+    private synchronized void postUpdates()
+    {
+        if (!updatesPosted)
+        {
+            updatesPosted = true;
+            SwingUtilities.invokeLater(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    applyUpdates();
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies all the pending updates on the event dispatch thread. They're
+     * taken all at once, so events that happen while they're being applied
+     * post a new task rather than waiting on this one.
+     */
+    private void applyUpdates()
+    {
+        ArrayList<Runnable> updates;
+        Runnable candidates;
+        synchronized (this)
+        {
+            updates = pendingUpdates;
+            candidates = pendingCandidates;
+            pendingUpdates = new ArrayList();
+            pendingCandidates = null;
+            updatesPosted = false;
+        }
+        for (Runnable update : updates)
+        {
+            update.run();
+        }
+        if (candidates != null)
+        {
+            candidates.run();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package sdokb.ui;
+
+import javax.swing.event.HyperlinkEvent;
+import javax.swing.event.HyperlinkEvent.EventType;
+import javax.swing.event.HyperlinkListener;
+
+/**
+ * This class lets the player page through older and newer game results on
+ * the stats screen, which only ever shows one page of them at a time.
+ * 
+ * @author Richard McKenna & ____________________
+ */
+public class StatsHyperlinkListener implements HyperlinkListener
+{
+    // WE'LL NEED THIS TO CHANGE THE PAGE WHEN A LINK IS ACTIVATED
+    private KevinBaconUI ui;
+
+    /**
+     * This constructor simply saves the ui for later.
+     * @param initUI 
+     */
+    public StatsHyperlinkListener(KevinBaconUI initUI)
+    {
+        ui = initUI;
+    }
+
+    /**
+     * This method responds to when the user clicks on one of the
+     * paging links in the stats screen by showing that page.
+     * 
+     * @param he This HyperlinkEvent has information about the
+     * event, like which link was clicked.
+     */
+    @Override
+    public void hyperlinkUpdate(HyperlinkEvent he)
+    {
+        // ONLY MOUSE CLICKS, NOT MOUSE-OVERS
+        EventType eventType = he.getEventType();
+        if (eventType.equals(EventType.ACTIVATED))
+        {
+            // THE LINKS ARE RELATIVE, SO THE DESCRIPTION IS THE HREF
+            String link = he.getDescription();
+            if (KevinBaconDocumentManager.OLDER_RESULTS_LINK.equals(link))
+            {
+                ui.getDocManager().showOlderGameResults();
+            }
+            else if (KevinBaconDocumentManager.NEWER_RESULTS_LINK.equals(link))
+            {
+                ui.getDocManager().showNewerGameResults();
+            }
+        }
+    }    
+}
@@ -3,6 +3,7 @@ package xml_utilities;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.zip.ZipFile;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -15,7 +16,9 @@ import javax.xml.validation.Validator;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 /**
  * This class provides general purpose utilities for the loading and
@@ -25,6 +28,12 @@ import org.xml.sax.SAXException;
  * need to be extended a bit, with some more similar functionality
  * added.
  * 
+ * Compiling a schema costs far more than validating a small doc against
+ * it, so each schema is only compiled once, and again only if its file
+ * changes, and the validators and document builders made from it are
+ * kept, one per thread since they may only be used by one at a time. 
+ * Loading a doc validates it while parsing it, so it's only read once.
+ * 
  * @author  Richard McKenna
  *          Debugging Enterprises
  * @version 1.0
@@ -34,6 +43,29 @@ public class XMLUtilities
     // THIS REFERENCES A STANDARD SCHEMA FORMAT. NOTE THIS IS NOT THE SCHEMA
     public static final String SCHEMA_STANDARD_SPEC_URL = "http://www.w3.org/2001/XMLSchema";     
 
+    // EVERY SCHEMA COMPILED SO FAR, BY THE PATH IT WAS LOADED FROM
+    private static final HashMap<String, CompiledSchema> compiledSchemas = new HashMap<String, CompiledSchema>();
+
+    // MAKES ANY PROBLEM THE PARSER FINDS WITH A DOC FAIL THE LOAD, SINCE BY
+    // DEFAULT IT JUST REPORTS THEM AND KEEPS GOING, UNLIKE A VALIDATOR
+    private static final ErrorHandler FAIL_ON_ERRORS = new ErrorHandler()
+    {
+        @Override
+        public void warning(SAXParseException e) {}
+        
+        @Override
+        public void error(SAXParseException e) throws SAXException
+        {
+            throw e;
+        }
+        
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException
+        {
+            throw e;
+        }
+    };
+
     /**
      * Default Constructor, no data needs to be initialized.
      */
@@ -58,23 +90,16 @@ public class XMLUtilities
     {
         try
         {
-            // 1. Lookup a factory for the W3C XML Schema language
-            SchemaFactory factory = 
-                    SchemaFactory.newInstance(SCHEMA_STANDARD_SPEC_URL);
+            // 1. Get the compiled schema, compiling it if we haven't yet
+            CompiledSchema schema = getCompiledSchema(xmlSchemaNameAndPath);
             
-            // 2. Compile the schema. 
-            // Here the schema is loaded from a java.io.File, but you could use 
-            // a java.net.URL or a javax.xml.transform.Source instead.
-            File schemaLocation = new File(xmlSchemaNameAndPath);
-            Schema schema = factory.newSchema(schemaLocation);
+            // 2. Get this thread's validator for the schema.
+            Validator validator = schema.getValidator();
             
-            // 3. Get a validator from the schema.
-            Validator validator = schema.newValidator();
-            
-            // 4. Parse the document you want to check.
+            // 3. Parse the document you want to check.
             Source source = new StreamSource(xmlDocNameAndPath);
             
-            // 5. Check the document
+            // 4. Check the document
             validator.validate(source);
             return true;
         }
@@ -104,34 +129,138 @@ public class XMLUtilities
     public Document loadXMLDocument(String xmlFile, String xsdFile)
             throws InvalidXMLFileFormatException
     {
-        // FIRST VALIDATE
-        boolean isValid = validateXMLDoc(xmlFile, xsdFile);
-        if (!isValid)
-        {
-            throw new InvalidXMLFileFormatException(xmlFile, xsdFile);
-        }
-        
-        // THIS IS JAVA API STUFF
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         try
         {            
-            // FIRST RETRIEVE AND LOAD THE FILE INTO A TREE
-            DocumentBuilder db = dbf.newDocumentBuilder();
+            // THIS THREAD'S BUILDER FOR THE SCHEMA VALIDATES AS IT PARSES
+            DocumentBuilder db = getCompiledSchema(xsdFile).getDocumentBuilder();
+            
+            // SO RETRIEVING AND LOADING THE FILE INTO A TREE VALIDATES IT TOO
             Document xmlDoc = db.parse(xmlFile);
             xmlDoc.getDocumentElement().normalize();
            
             // LET'S RETURN THE DOC
             return xmlDoc;
         }
-        // THESE ARE XML-RELATED ERRORS THAT COULD HAPPEN DURING
-        // LOADING AND PARSING IF THE XML FILE IS NOT WELL FORMED
-        // OR IS NOW WHERE AND WHAT WE SAY IT IS
-        catch(ParserConfigurationException | SAXException | IOException pce)
+        // THE SCHEMA COULDN'T BE COMPILED, OR THE XML FILE IS NOT WELL
+        // FORMED, OR NOT VALID, OR IS NOW WHERE AND WHAT WE SAY IT IS
+        catch(SAXException | IOException e)
+        {
+            throw new InvalidXMLFileFormatException(xmlFile, xsdFile);
+        }
+        // THIS IS JAVA API STUFF THAT SHOULDN'T HAPPEN
+        catch(ParserConfigurationException pce)
         {
             throw new InvalidXMLFileFormatException(xmlFile);
         }           
     }   
     
+    /**
+     * This method gets the compiled schema loaded from the xsdFile path,
+     * compiling it if it hasn't been yet or if the file has changed since
+     * it was.
+     * 
+     * @param xsdFile Path and name of the schema file.
+     * 
+     * @return The compiled schema.
+     * 
+     * @throws SAXException Thrown if the schema can't be compiled.
+     */
+    private static CompiledSchema getCompiledSchema(String xsdFile)
+            throws SAXException
+    {
+        File schemaLocation = new File(xsdFile);
+        long lastModified = schemaLocation.lastModified();
+        synchronized (compiledSchemas)
+        {
+            CompiledSchema compiledSchema = compiledSchemas.get(xsdFile);
+            if ((compiledSchema == null) || (compiledSchema.lastModified != lastModified))
+            {
+                // A FACTORY FOR THE W3C XML SCHEMA LANGUAGE COMPILES IT
+                SchemaFactory factory = 
+                        SchemaFactory.newInstance(SCHEMA_STANDARD_SPEC_URL);
+                Schema schema = factory.newSchema(schemaLocation);
+                compiledSchema = new CompiledSchema(schema, lastModified);
+                compiledSchemas.put(xsdFile, compiledSchema);
+            }
+            return compiledSchema;
+        }
+    }
+    
+    /**
+     * A compiled schema, which may be shared by any number of threads, along
+     * with the validators and document builders made from it, which may not,
+     * so each thread gets its own, made the first time it needs one.
+     */
+    private static class CompiledSchema
+    {
+        // THE COMPILED SCHEMA, AND WHEN ITS FILE HAD LAST CHANGED
+        private Schema schema;
+        private long lastModified;
+        
+        // MAKES BUILDERS THAT VALIDATE AGAINST THE SCHEMA AS THEY PARSE
+        private DocumentBuilderFactory builderFactory;
+        
+        // EACH THREAD'S OWN VALIDATOR AND BUILDER
+        private ThreadLocal<Validator> validators;
+        private ThreadLocal<DocumentBuilder> builders;
+        
+        CompiledSchema(Schema initSchema, long initLastModified)
+        {
+            schema = initSchema;
+            lastModified = initLastModified;
+            
+            // SCHEMA VALIDATION NEEDS A NAMESPACE AWARE PARSER
+            builderFactory = DocumentBuilderFactory.newInstance();
+            builderFactory.setNamespaceAware(true);
+            builderFactory.setSchema(schema);
+            
+            validators = new ThreadLocal<Validator>();
+            builders = new ThreadLocal<DocumentBuilder>();
+        }
+        
+        /**
+         * Gets this thread's validator, reset so it's like a new one.
+         */
+        Validator getValidator()
+        {
+            Validator validator = validators.get();
+            if (validator == null)
+            {
+                validator = schema.newValidator();
+                validators.set(validator);
+            }
+            else
+            {
+                validator.reset();
+            }
+            return validator;
+        }
+        
+        /**
+         * Gets this thread's document builder, reset so it's like a new one
+         * except that it fails on any problem with the doc.
+         */
+        DocumentBuilder getDocumentBuilder() throws ParserConfigurationException
+        {
+            DocumentBuilder builder = builders.get();
+            if (builder == null)
+            {
+                // THE FACTORY ISN'T SAFE FOR MORE THAN ONE THREAD AT A TIME
+                synchronized (builderFactory)
+                {
+                    builder = builderFactory.newDocumentBuilder();
+                }
+                builders.set(builder);
+            }
+            else
+            {
+                builder.reset();
+            }
+            builder.setErrorHandler(FAIL_ON_ERRORS);
+            return builder;
+        }
+    }
+    
     /**
      * This method extracts the data found in the doc argument that 
      * corresponds to the tagName and returns it as text. If no data